@@ -17,6 +17,19 @@ public abstract class Component implements Serializable
     private Transform transform;
     private boolean active;
 
+    /**
+     * <p>The number of the {@code Component} in it's {@code GameObject},
+     * growing in the order the {@code Component}s were added.</p>
+     */
+    int order;
+
+    /**
+     * <p>The places of the {@code Component} in the lists of it's {@code
+     * Scene}'s index by type, in the order of it's indexed types, or {@code
+     * null} if it isn't indexed.</p>
+     */
+    int[] typeIndexes;
+
     public Component()
     {
         this.active = true;
@@ -122,6 +135,25 @@ public abstract class Component implements Serializable
         // To be overridden.
     }
 
+    /**
+     * <p>Makes the loaded {@code Scene} hold the images of the {@code
+     * Sprite}s this {@code Component} uses, so they aren't dropped while
+     * they are shown.</p>
+     * <p>Should be called when the {@code Component} starts using other
+     * {@code Sprite}s. The ones used when it's added are held
+     * already.</p>
+     */
+    protected final void holdSprites()
+    {
+        Scene scene = this.gameObject != null
+                      ? this.gameObject.getScene()
+                      : null;
+        if (scene != null)
+        {
+            scene.holdSprites(this);
+        }
+    }
+
     /**
      * <p>Attaches the component to the given {code GameObject}.</p>
      * @param gameObject The {@code GameObject} to attach this component to.
@@ -2,9 +2,15 @@ package archrn.tea_engine;
 
 import archrn.tea_engine.input.Input;
 
+import java.awt.*;
+
 /**
  * <p>{@code Game} represents the game.</p>
  * <p> It connects highest-level parts of the game together.</p>
+ * <p>A headless {@code Game} has no window: it only updates the {@code
+ * Scene}s, which is enough for simulations, bots and tests on servers
+ * without a display. It can run faster than real time with {@code
+ * Time.setRealTime(false)}.</p>
  * @author Artem
  */
 public class Game
@@ -12,18 +18,39 @@ public class Game
 
     private SceneManager sceneManager;
     private Screen screen;
+    private final boolean headless;
 
     /**
      * <p>Initializes the game.</p>
-     * <p>Connects high-level parts of the game.</p>
+     * <p>Connects high-level parts of the game. The game is headless if
+     * there is no display.</p>
      */
     public Game()
+    {
+        this(GraphicsEnvironment.isHeadless());
+    }
+
+    /**
+     * <p>Initializes the game with or without a window.</p>
+     * <p>Connects high-level parts of the game. A headless game doesn't
+     * open the {@code Screen} and receives no input.</p>
+     * @param headless {@code true} to run without a window.
+     */
+    public Game(boolean headless)
     {
         this.sceneManager = SceneManager.shared;
+        this.headless = headless;
+        if (headless)
+        {
+            Time.shared.setScreen(null);
+            return;
+        }
         this.screen = Screen.shared;
         this.screen.addKeyListener(Input.getSharedAsInput());
         this.screen.addMouseListener(Input.getSharedAsInput());
         this.screen.addMouseMotionListener(Input.getSharedAsInput());
+        this.screen.open();
+        Time.shared.setScreen(this.screen);
     }
 
     /**
@@ -37,6 +64,16 @@ public class Game
         return this.sceneManager;
     }
 
+    /**
+     * <p>Returns {@code true} if this {@code Game} runs without a
+     * window.</p>
+     * @return {@code true} if the game is headless.
+     */
+    public boolean isHeadless()
+    {
+        return this.headless;
+    }
+
     /**
      * <p>Starts the game.</p>
      */
@@ -45,4 +82,13 @@ public class Game
         this.sceneManager.loadNextScene();
     }
 
+    /**
+     * <p>Stops updating the game and ends the game loop thread, so a
+     * headless program can exit.</p>
+     */
+    public void stop()
+    {
+        Time.shared.stop();
+    }
+
 }
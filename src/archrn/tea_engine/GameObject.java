@@ -1,6 +1,7 @@
 package archrn.tea_engine;
 
 import archrn.tea_engine.physics.Collider;
+import archrn.tea_engine.rendering.Renderer;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -18,9 +19,26 @@ public class GameObject implements Serializable
     private final ArrayList<Component> components;
     private final ArrayList<Component> componentsToRemove;
     private Scene scene;
+
+    /**
+     * <p>The {@code Scene}, which currently has this {@code GameObject}'s
+     * {@code Component}s in it's index by type.</p>
+     */
+    private Scene indexedIn;
     private Transform transform;
     private boolean active;
 
+    /**
+     * <p>The number of the {@code GameObject} in it's {@code Scene},
+     * growing in the order the {@code GameObject}s were added.</p>
+     */
+    long order;
+
+    /**
+     * <p>The last number given to an added {@code Component}.</p>
+     */
+    private int lastComponentOrder;
+
     /**
      * <p>Initializes an empty {@code GameObject}.</p>
      */
@@ -82,7 +100,12 @@ public class GameObject implements Serializable
      */
     public final void setActive(boolean active)
     {
+        if (active == this.active)
+        {
+            return;
+        }
         this.active = active;
+        this.markStaticRenderersChanged();
     }
 
     /**
@@ -95,7 +118,12 @@ public class GameObject implements Serializable
     {
         Objects.requireNonNull(component);
         component.setGameObject(this);
+        component.order = ++this.lastComponentOrder;
         this.components.add(component);
+        if (this.indexedIn != null)
+        {
+            this.indexedIn.registerComponent(component);
+        }
         return component;
     }
 
@@ -187,6 +215,14 @@ public class GameObject implements Serializable
     {
         this.forEachActiveComponent(Component::lateUpdate);
 
+        if (this.indexedIn != null)
+        {
+            for (int i = 0; i < this.componentsToRemove.size(); ++i)
+            {
+                this.indexedIn.unregisterComponent(
+                        this.componentsToRemove.get(i));
+            }
+        }
         this.components.removeAll(componentsToRemove);
         componentsToRemove.clear();
     }
@@ -230,12 +266,51 @@ public class GameObject implements Serializable
         }
     }
 
+    /**
+     * <p>Returns the {@code Scene}, which has this {@code GameObject}'s
+     * {@code Component}s in it's index by type.</p>
+     * @return The indexing {@code Scene} or {@code null}.
+     */
+    final Scene getIndexedIn()
+    {
+        return this.indexedIn;
+    }
+
+    /**
+     * <p>Sets the {@code Scene}, which has this {@code GameObject}'s
+     * {@code Component}s in it's index by type.</p>
+     * @param scene The indexing {@code Scene}. Can be {@code null}.
+     */
+    final void setIndexedIn(Scene scene)
+    {
+        this.indexedIn = scene;
+    }
+
+    /**
+     * <p>Tells the {@code Camera}, that the static {@code Renderer}s of
+     * this {@code GameObject} have changed, so their layers have to be
+     * drawn again.</p>
+     * <p>Called when the {@code GameObject} is (de)activated or it's
+     * {@code Transform} is changed.</p>
+     * @see Renderer#markStaticChanged()
+     */
+    final void markStaticRenderersChanged()
+    {
+        for (int i = 0; i < this.components.size(); ++i)
+        {
+            if (this.components.get(i) instanceof Renderer)
+            {
+                ((Renderer)this.components.get(i)).markStaticChanged();
+            }
+        }
+    }
+
     /**
      * <p>Runs the given {@code Consumer} on all {@code Component}s.</p>
      * @param action The {@code Consumer} to run on all {@code Component}s.
      * @throws NullPointerException if {@code action} is {@code null}.
      */
-    private void forEachComponent(Consumer<Component> action)
+    final void forEachComponent(Consumer<Component> action)
     {
         Objects.requireNonNull(action);
         for (int i = 0; i < this.components.size(); ++i)
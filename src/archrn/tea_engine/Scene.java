@@ -1,9 +1,20 @@
 package archrn.tea_engine;
 
+import archrn.tea_engine.animation.AnimationSystem;
+import archrn.tea_engine.animation.Animator;
+import archrn.tea_engine.assets.AssetManifest;
+import archrn.tea_engine.assets.AssetScope;
 import archrn.tea_engine.camera.Camera;
 import archrn.tea_engine.camera.CameraGameObject;
+import archrn.tea_engine.physics.Collider;
+import archrn.tea_engine.physics.PhysicsWorld;
+import archrn.tea_engine.rendering.RenderQueue;
+import archrn.tea_engine.rendering.Renderer;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Consumer;
@@ -30,11 +41,69 @@ public class Scene
     private ArrayList<GameObject> gameObjects;
     private final ArrayList<GameObject> gameObjectsToRemove;
 
+    /**
+     * <p>Index of all {@code Component}s on the {@code Scene} by their
+     * class and all of their superclasses up to {@code Component}.</p>
+     * <p>Kept up to date when {@code GameObject}s and {@code Component}s
+     * are added and removed, so finding {@code Component}s of a type
+     * doesn't need to look at every {@code GameObject}.</p>
+     * <p>A removed {@code Component}'s place is taken by the last one of
+     * the list, so removing is fast, but the order isn't kept.</p>
+     */
+    private final HashMap<Class<?>, ArrayList<Component>> componentsByType;
+
+    /**
+     * <p>Read-only views of the lists in {@code componentsByType}, created
+     * once per type.</p>
+     */
+    private final HashMap<Class<?>, List<Component>> componentsByTypeViews;
+
+    /**
+     * <p>Cached class hierarchies of the indexed {@code Component}
+     * classes.</p>
+     */
+    private final HashMap<Class<?>, Class<?>[]> indexedTypes;
+
     /**
      * <p>The current {@code Camera} for this {@code Scene}.</p>
      */
     private Camera camera;
 
+    /**
+     * <p>{@code PhysicsWorld} with all the {@code Collider}s on the {@code
+     * Scene}.</p>
+     */
+    private final PhysicsWorld physicsWorld;
+
+    /**
+     * <p>{@code RenderQueue} with all the {@code Renderer}s on the {@code
+     * Scene} in the order they are drawn.</p>
+     */
+    private final RenderQueue renderQueue;
+
+    /**
+     * <p>The last number given to an added {@code GameObject}.</p>
+     */
+    private long lastGameObjectOrder;
+
+    /**
+     * <p>{@code AnimationSystem} with all the {@code Animator}s on the
+     * {@code Scene}.</p>
+     */
+    private final AnimationSystem animationSystem;
+
+    /**
+     * <p>{@code AssetScope} holding the images of the {@code Sprite}s used
+     * on the {@code Scene} while it's loaded.</p>
+     */
+    private final AssetScope assetScope;
+
+    /**
+     * <p>{@code AssetManifest} with the images used on the {@code Scene},
+     * declared by hand or recorded while it's loaded.</p>
+     */
+    private AssetManifest assetManifest;
+
     /**
      * Initializes an empty {@code Scene}.
      */
@@ -43,6 +112,14 @@ public class Scene
         this.loaded = false;
         this.gameObjects = new ArrayList<>();
         this.gameObjectsToRemove = new ArrayList<>();
+        this.componentsByType = new HashMap<>();
+        this.componentsByTypeViews = new HashMap<>();
+        this.indexedTypes = new HashMap<>();
+        this.physicsWorld = new PhysicsWorld();
+        this.renderQueue = new RenderQueue(Scene::compareDrawOrder);
+        this.animationSystem = new AnimationSystem();
+        this.assetScope = new AssetScope();
+        this.assetManifest = new AssetManifest();
         this.createCamera();
     }
 
@@ -82,6 +159,79 @@ public class Scene
         this.camera = camera;
     }
 
+    /**
+     * <p>Returns the {@code PhysicsWorld}, which contains all the {@code
+     * Collider}s on this {@code Scene}.</p>
+     * @return The {@code Scene}'s {@code PhysicsWorld}.
+     */
+    public final PhysicsWorld getPhysicsWorld()
+    {
+        return this.physicsWorld;
+    }
+
+    /**
+     * <p>Returns the {@code RenderQueue}, which contains all the {@code
+     * Renderer}s on this {@code Scene} in the order they are drawn.</p>
+     * @return The {@code Scene}'s {@code RenderQueue}.
+     */
+    public final RenderQueue getRenderQueue()
+    {
+        return this.renderQueue;
+    }
+
+    /**
+     * <p>Returns the {@code AnimationSystem}, which advances all the {@code
+     * Animator}s on this {@code Scene}.</p>
+     * @return The {@code Scene}'s {@code AnimationSystem}.
+     */
+    public final AnimationSystem getAnimationSystem()
+    {
+        return this.animationSystem;
+    }
+
+    /**
+     * <p>Returns the {@code AssetScope}, which holds the images used on
+     * this {@code Scene} while it's loaded, so they aren't dropped by the
+     * {@code AssetManager}.</p>
+     * <p>The images of the {@code Sprite}s used by the {@code Component}s
+     * are added when the {@code Scene} is loaded and when {@code
+     * Component}s are added to the loaded {@code Scene}. Other images can
+     * be added by hand.</p>
+     * @return The {@code Scene}'s {@code AssetScope}.
+     */
+    public final AssetScope getAssetScope()
+    {
+        return this.assetScope;
+    }
+
+    /**
+     * <p>Returns the {@code AssetManifest} with the images used on this
+     * {@code Scene}.</p>
+     * <p>The images of the {@code Sprite}s used by the {@code Component}s
+     * are recorded into it when the {@code Scene} is loaded and unloaded,
+     * so after playing the {@code Scene} once the manifest can be saved
+     * and shipped with the game. {@code SceneManager} preloads the
+     * manifest of the next {@code Scene}.</p>
+     * @return The {@code Scene}'s {@code AssetManifest}.
+     */
+    public final AssetManifest getAssetManifest()
+    {
+        return this.assetManifest;
+    }
+
+    /**
+     * <p>Sets the {@code AssetManifest} with the images used on this
+     * {@code Scene}, for example one read from a file.</p>
+     * @param assetManifest The new {@code AssetManifest}.
+     * @throws NullPointerException if {@code assetManifest} is {@code
+     * null}.
+     */
+    public final void setAssetManifest(AssetManifest assetManifest)
+    {
+        Objects.requireNonNull(assetManifest);
+        this.assetManifest = assetManifest;
+    }
+
     /**
      * <p>Adds the given {@code gameObject} to the {@code Scene}.</p>
      * <p>All {@code GameObject}s are container in {@code Scene}s.</p>
@@ -93,7 +243,10 @@ public class Scene
     {
         Objects.requireNonNull(gameObject);
         this.gameObjects.add(gameObject);
+        gameObject.order = ++this.lastGameObjectOrder;
         gameObject.setScene(this);
+        gameObject.setIndexedIn(this);
+        gameObject.forEachComponent(this::registerComponent);
         gameObject.onAddedToScene();
         if (this.loaded)
         {
@@ -104,25 +257,37 @@ public class Scene
 
     /**
      * <p>Loads the {@code Scene}.</p>
+     * <p>Holds the images used on the {@code Scene} and records them into
+     * the {@code AssetManifest}.</p>
      */
     public final void load()
     {
         Camera.setMain(this.camera);
         this.loaded = true;
+        this.assetScope.addScene(this);
+        this.assetManifest.addScene(this);
         this.start();
     }
 
     /**
      * <p>Unloads the {@code Scene}.</p>
+     * <p>Releases the images used on the {@code Scene}, so the {@code
+     * AssetManager} can drop them. Records the images used at the moment
+     * into the {@code AssetManifest}.</p>
      */
     public final void unload()
     {
         this.loaded = false;
+        this.assetManifest.addScene(this);
+        this.assetScope.releaseAll();
     }
 
     /**
      * <p>Returns all {@code Component}s of {@code type} on all {@code
      * GameObject}s in this {@code Scene}.</p>
+     * <p>Creates a new list on every call. Use {@code
+     * getComponentsOfType()} to look at the {@code Component}s without
+     * copying them.</p>
      * @param type The type of the {@code Component}s to find.
      * @param <T>
      * @return A {@code Collection} with all {@code Component}s of {@code
@@ -131,10 +296,35 @@ public class Scene
     public final <T extends Component> List<T> getAllComponentsOfType(
             Class<T> type)
     {
-        List<T> components = new ArrayList<T>();
-        this.forEachGameObject(gameObject ->
-                components.addAll(gameObject.getAllComponentsOfType(type)));
-        return components;
+        return new ArrayList<T>(this.getComponentsOfType(type));
+    }
+
+    /**
+     * <p>Returns a live read-only view of all {@code Component}s of {@code
+     * type} on all {@code GameObject}s in this {@code Scene}.</p>
+     * <p>Doesn't allocate anything after the first call for a {@code
+     * type}. The view changes when {@code Component}s are added or
+     * removed, so it should be walked by index if the walk can add new
+     * {@code GameObject}s. The order of the {@code Component}s changes,
+     * when some of them are removed.</p>
+     * @param type The type of the {@code Component}s to find.
+     * @param <T>
+     * @return A read-only {@code List} with all {@code Component}s of
+     * {@code type} on this {@code Scene}.
+     * @throws NullPointerException if {@code type} is {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public final <T extends Component> List<T> getComponentsOfType(
+            Class<T> type)
+    {
+        Objects.requireNonNull(type);
+        List<Component> view = this.componentsByTypeViews.get(type);
+        if (view == null)
+        {
+            view = Collections.unmodifiableList(this.getIndexEntry(type));
+            this.componentsByTypeViews.put(type, view);
+        }
+        return (List<T>)view;
     }
 
     /**
@@ -150,7 +340,12 @@ public class Scene
     public final <T extends Component> void forEachComponentOfType(
             Class<T> type, Consumer<T> action)
     {
-        this.getAllComponentsOfType(type).forEach(action);
+        Objects.requireNonNull(action);
+        List<T> components = this.getComponentsOfType(type);
+        for (int i = 0; i < components.size(); ++i)
+        {
+            action.accept(components.get(i));
+        }
     }
 
     /**
@@ -168,7 +363,8 @@ public class Scene
 
     /**
      * <p>Runs {@code update()} on all {@code GameObject}s contained in this
-     * {@code Scene}.</p>
+     * {@code Scene}, then steps the {@code PhysicsWorld} and advances the
+     * {@code Animator}s.</p>
      */
     final void update()
     {
@@ -177,6 +373,8 @@ public class Scene
             return;
         }
         this.forEachActiveGameObject(GameObject::update);
+        this.physicsWorld.step();
+        this.animationSystem.update(Time.shared.getDeltaTime(), this.camera);
     }
 
     /**
@@ -187,8 +385,104 @@ public class Scene
     {
         this.forEachActiveGameObject(GameObject::lateUpdate);
 
-        this.gameObjects.removeAll(this.gameObjectsToRemove);
-        this.gameObjectsToRemove.clear();
+        for (int i = 0; i < this.gameObjectsToRemove.size(); ++i)
+        {
+            GameObject gameObject = this.gameObjectsToRemove.get(i);
+            if (gameObject.getIndexedIn() == this)
+            {
+                gameObject.forEachComponent(this::unregisterComponent);
+                gameObject.setIndexedIn(null);
+            }
+        }
+        if (!this.gameObjectsToRemove.isEmpty())
+        {
+            // A set keeps removing many GameObjects linear.
+            this.gameObjects.removeAll(
+                    new HashSet<GameObject>(this.gameObjectsToRemove));
+            this.gameObjectsToRemove.clear();
+        }
+    }
+
+    /**
+     * <p>Adds the given {@code component} to the index of {@code
+     * Component}s by type.</p>
+     * @param component The {@code Component} to add to the index.
+     */
+    final void registerComponent(Component component)
+    {
+        Class<?>[] types = this.getIndexedTypes(component.getClass());
+        int[] indexes = new int[types.length];
+        for (int i = 0; i < types.length; ++i)
+        {
+            ArrayList<Component> components = this.getIndexEntry(types[i]);
+            indexes[i] = components.size();
+            components.add(component);
+        }
+        component.typeIndexes = indexes;
+        if (component instanceof Collider)
+        {
+            this.physicsWorld.add((Collider)component);
+        }
+        else if (component instanceof Renderer)
+        {
+            this.renderQueue.add((Renderer)component);
+        }
+        else if (component instanceof Animator)
+        {
+            this.animationSystem.add((Animator)component);
+        }
+        this.holdSprites(component);
+    }
+
+    /**
+     * <p>Holds the images of the {@code Sprite}s used by the given {@code
+     * component} in the {@code AssetScope}, if the {@code Scene} is
+     * loaded.</p>
+     * <p>Called when the {@code component} is added and when it starts
+     * using other {@code Sprite}s.</p>
+     * @param component The {@code Component}, which images to hold.
+     */
+    final void holdSprites(Component component)
+    {
+        if (this.loaded)
+        {
+            this.assetScope.addComponent(component);
+        }
+    }
+
+    /**
+     * <p>Removes the given {@code component} from the index of {@code
+     * Component}s by type.</p>
+     * <p>Takes constant time per type: the {@code Component} knows it's
+     * places in the lists.</p>
+     * @param component The {@code Component} to remove from the index.
+     */
+    final void unregisterComponent(Component component)
+    {
+        int[] indexes = component.typeIndexes;
+        if (indexes != null)
+        {
+            Class<?>[] types = this.getIndexedTypes(component.getClass());
+            for (int i = 0; i < types.length; ++i)
+            {
+                // Counted from the end: every hierarchy ends at Component.
+                this.removeIndexEntry(types[i], indexes[i],
+                                      types.length - 1 - i, component);
+            }
+            component.typeIndexes = null;
+        }
+        if (component instanceof Collider)
+        {
+            this.physicsWorld.remove((Collider)component);
+        }
+        else if (component instanceof Renderer)
+        {
+            this.renderQueue.remove((Renderer)component);
+        }
+        else if (component instanceof Animator)
+        {
+            this.animationSystem.remove((Animator)component);
+        }
     }
 
     /**
@@ -202,6 +496,76 @@ public class Scene
         //this.gameObjects.remove(gameObject);
     }
 
+    /**
+     * <p>Returns the list of indexed {@code Component}s of the given {@code
+     * type}, creating an empty one if needed.</p>
+     * @param type The type of the {@code Component}s.
+     * @return The live list of the {@code Component}s of {@code type}.
+     */
+    private ArrayList<Component> getIndexEntry(Class<?> type)
+    {
+        ArrayList<Component> components = this.componentsByType.get(type);
+        if (components == null)
+        {
+            components = new ArrayList<>();
+            this.componentsByType.put(type, components);
+        }
+        return components;
+    }
+
+    /**
+     * <p>Removes the {@code component} from the list of {@code type} at
+     * {@code index}. The last {@code Component} of the list takes it's
+     * place.</p>
+     * @param type The type of the list.
+     * @param index The place of the {@code component} in the list.
+     * @param depth The amount of superclasses between {@code type} and
+     *              {@code Component}, which gives the place of {@code type}
+     *              among the indexed types of any {@code Component}.
+     * @param component The {@code Component} to remove.
+     */
+    private void removeIndexEntry(Class<?> type, int index, int depth,
+                                  Component component)
+    {
+        ArrayList<Component> components = this.componentsByType.get(type);
+        if (components == null || index >= components.size()
+            || components.get(index) != component)
+        {
+            return;
+        }
+        Component last = components.remove(components.size() - 1);
+        if (last != component)
+        {
+            components.set(index, last);
+            last.typeIndexes[last.typeIndexes.length - 1 - depth] = index;
+        }
+    }
+
+    /**
+     * <p>Returns the given {@code Component} class and all of it's
+     * superclasses up to {@code Component}.</p>
+     * @param componentClass The class of a {@code Component}.
+     * @return The types, under which a {@code Component} of {@code
+     * componentClass} is indexed.
+     */
+    private Class<?>[] getIndexedTypes(Class<?> componentClass)
+    {
+        Class<?>[] types = this.indexedTypes.get(componentClass);
+        if (types == null)
+        {
+            ArrayList<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> type = componentClass;
+                 type != null && Component.class.isAssignableFrom(type);
+                 type = type.getSuperclass())
+            {
+                hierarchy.add(type);
+            }
+            types = hierarchy.toArray(new Class<?>[0]);
+            this.indexedTypes.put(componentClass, types);
+        }
+        return types;
+    }
+
     /**
      * <p>Runs the given {@code Consumer} on all {@code GameObject}s.</p>
      * @param action The {@code Consumer} to run on all {@code GameObject}s.
@@ -246,4 +610,21 @@ public class Scene
         this.addGameObject(cameraGameObject);
     }
 
+    /**
+     * <p>Compares the order of the given {@code Renderer}s within a layer:
+     * by the order of their {@code GameObject}s in the {@code Scene}, then
+     * by their order in the {@code GameObject}, like the {@code
+     * Renderer}s of all the {@code GameObject}s are listed.</p>
+     */
+    private static int compareDrawOrder(Renderer first, Renderer second)
+    {
+        int result = Long.compare(first.getGameObject().order,
+                                  second.getGameObject().order);
+        // Through Component, as the field isn't visible on Renderer.
+        return result != 0
+               ? result
+               : Integer.compare(((Component)first).order,
+                                 ((Component)second).order);
+    }
+
 }
@@ -1,5 +1,7 @@
 package archrn.tea_engine;
 
+import archrn.tea_engine.assets.AssetPreload;
+
 import java.util.ArrayList;
 import java.util.Objects;
 
@@ -18,12 +20,21 @@ public final class SceneManager
     private int currentSceneIndex;
     private Time time;
 
+    /**
+     * <p>Preload of the images of the {@code Scene} with index {@code
+     * preloadedSceneIndex}, or {@code null}. Guarded by the frame
+     * lock.</p>
+     */
+    private AssetPreload scenePreload;
+    private int preloadedSceneIndex;
+
     /**
      * <p>Initializes a {@code SceneManager}.</p>
      */
     private SceneManager()
     {
         this.currentSceneIndex = -1;
+        this.preloadedSceneIndex = -1;
         this.scenes = new ArrayList<Scene>();
         this.time = Time.shared;
     }
@@ -58,11 +69,79 @@ public final class SceneManager
      */
     public void loadNextScene()
     {
-        this.loadScene(this.currentSceneIndex + 1);
+        this.loadNextScene(false);
+    }
+
+    /**
+     * <p>Loads the next by index {@code Scene}, waiting until it's images
+     * are preloaded, if {@code wait} is {@code true}.</p>
+     * <p>Waiting on the game loop thread stops the game until the images
+     * are loaded. To show a loading screen instead, check {@code
+     * getScenePreload()} every frame and load the {@code Scene} when it's
+     * done.</p>
+     * @param wait {@code true} to wait for the preload of the {@code
+     *             Scene}'s images.
+     * @throws IndexOutOfBoundsException if the last scene is currently
+     * loaded or if there're no scenes registered.
+     */
+    public void loadNextScene(boolean wait)
+    {
+        int index = this.currentSceneIndex + 1;
+        if (wait)
+        {
+            this.preloadScene(index).await();
+        }
+        this.loadScene(index);
+    }
+
+    /**
+     * <p>Starts loading the images in the {@code AssetManifest} of the
+     * {@code Scene} with the given {@code index} in the background.</p>
+     * <p>Only one {@code Scene} is preloaded at a time: preloading another
+     * one releases the previous preload. After a {@code Scene} is loaded,
+     * the next one is preloaded automatically.</p>
+     * @param index The index of the {@code Scene} to preload.
+     * @return The preload of the {@code Scene}'s images.
+     * @throws IndexOutOfBoundsException if a {@code Scene} with this index
+     * isn't registered.
+     */
+    public AssetPreload preloadScene(int index)
+    {
+        this.checkSceneIndex(index);
+        synchronized (this.time.getFrameLock())
+        {
+            if (this.scenePreload != null
+                && this.preloadedSceneIndex == index)
+            {
+                return this.scenePreload;
+            }
+            this.releaseScenePreload();
+            this.scenePreload =
+                    this.scenes.get(index).getAssetManifest().preload();
+            this.preloadedSceneIndex = index;
+            return this.scenePreload;
+        }
+    }
+
+    /**
+     * <p>Returns the current preload of a {@code Scene}'s images, usually
+     * the next {@code Scene}'s one, or {@code null}.</p>
+     * <p>A loading screen can show it's progress.</p>
+     * @return The current preload or {@code null}.
+     */
+    public AssetPreload getScenePreload()
+    {
+        synchronized (this.time.getFrameLock())
+        {
+            return this.scenePreload;
+        }
     }
 
     /**
      * <p>Loads the {@code Scene} with the given {@code index}.</p>
+     * <p>Unloads the previous {@code Scene} after the new one is loaded, so
+     * the images used on both stay in memory. Then starts preloading the
+     * images of the next {@code Scene}.</p>
      * @param index The index of the {@code Scene} to load.
      * @throws IndexOutOfBoundsException if a {@code Scene} with this index
      * isn't registered.
@@ -75,10 +154,37 @@ public final class SceneManager
             throw new IndexOutOfBoundsException();
         }
 
-        this.time.pause();
-        this.currentSceneIndex = index;
-        this.scenes.get(index).load();
-        this.time.start();
+        synchronized (this.time.getFrameLock())
+        {
+            this.time.pause();
+            int previousSceneIndex = this.currentSceneIndex;
+            this.currentSceneIndex = index;
+            this.scenes.get(index).load();
+            if (previousSceneIndex >= 0 && previousSceneIndex != index)
+            {
+                this.scenes.get(previousSceneIndex).unload();
+            }
+            // The loaded Scene holds it's images now.
+            this.releaseScenePreload();
+            if (index + 1 < this.scenes.size())
+            {
+                this.preloadScene(index + 1);
+            }
+            this.time.start();
+        }
+    }
+
+    /**
+     * <p>Releases the current preload, if there is one.</p>
+     */
+    private void releaseScenePreload()
+    {
+        if (this.scenePreload != null)
+        {
+            this.scenePreload.release();
+            this.scenePreload = null;
+            this.preloadedSceneIndex = -1;
+        }
     }
 
     /**
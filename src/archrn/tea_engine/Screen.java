@@ -8,9 +8,19 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
 
 /**
  * <p>{@code Screen} represents the window of the running game.</p>
+ * <p>The window is created by {@code open()}, when a windowed {@code Game}
+ * is created. A headless {@code Game} never opens it: the {@code Screen}
+ * just keeps it's size, so {@code Camera}s see the same part of the world
+ * as they would in a window.</p>
+ * <p>By default frames are drawn by Swing after {@code repaint()}. With
+ * active rendering, set before the window is opened, the game loop draws
+ * and shows every frame itself through a {@code BufferStrategy}.</p>
  * @author Artem
  */
 public final class Screen extends JPanel
@@ -18,17 +28,113 @@ public final class Screen extends JPanel
     public static final Screen shared = new Screen();
 
     private Dimension size;
+    private Dimension minimumSize;
     private JFrame frame;
 
+    private boolean activeRendering;
+    private int bufferCount;
+
     /**
-     * <p>Initializes an empty {@code Screen}.</p>
+     * <p>The canvas drawn by the game loop or {@code null} without active
+     * rendering.</p>
+     */
+    private volatile ScreenCanvas canvas;
+
+    // Measured when a frame is drawn.
+    private volatile long presentTime;
+    private volatile long presentDuration;
+
+    /**
+     * <p>Initializes an empty {@code Screen} without a window.</p>
      */
     private Screen()
     {
         this.size = new Dimension(1200, 800);
-        this.createFrame();
+        this.bufferCount = 2;
         this.setFocusable(true);
-        this.requestFocus();
+    }
+
+    /**
+     * <p>Returns {@code true} if the game loop draws the frames itself.</p>
+     * @return {@code true} if active rendering is on.
+     */
+    public boolean isActiveRendering()
+    {
+        return this.activeRendering;
+    }
+
+    /**
+     * <p>Sets whether the game loop draws and shows the frames itself,
+     * instead of asking Swing to repaint the {@code Screen}.</p>
+     * <p>Active rendering shows every rendered frame right away and makes
+     * {@code getPresentTime()} the time the frame was actually shown.</p>
+     * @param activeRendering {@code true} to turn active rendering on.
+     * @throws IllegalStateException if the window is already open.
+     */
+    public void setActiveRendering(boolean activeRendering)
+    {
+        this.requireNotOpen();
+        this.activeRendering = activeRendering;
+    }
+
+    /**
+     * <p>Returns the amount of buffers used by active rendering.</p>
+     * @return 2 for double or 3 for triple buffering.
+     */
+    public int getBufferCount()
+    {
+        return this.bufferCount;
+    }
+
+    /**
+     * <p>Sets the amount of buffers used by active rendering.</p>
+     * <p>Triple buffering lets the game loop draw the next frame while the
+     * previous one waits to be shown.</p>
+     * @param bufferCount 2 for double or 3 for triple buffering.
+     * @throws IllegalArgumentException if {@code bufferCount} isn't 2 or
+     * 3.
+     * @throws IllegalStateException if the window is already open.
+     */
+    public void setBufferCount(int bufferCount)
+    {
+        if (bufferCount != 2 && bufferCount != 3)
+        {
+            throw new IllegalArgumentException(
+                    "Buffer count must be 2 or 3.");
+        }
+        this.requireNotOpen();
+        this.bufferCount = bufferCount;
+    }
+
+    /**
+     * <p>Returns the time when the last frame was shown.</p>
+     * <p>Without active rendering, it's the time Swing finished painting
+     * the frame.</p>
+     * @return The time in nanoseconds, as returned by {@code
+     * System.nanoTime()}, or 0 if no frame was shown yet.
+     */
+    public long getPresentTime()
+    {
+        return this.presentTime;
+    }
+
+    /**
+     * <p>Returns how long drawing and showing the last frame took.</p>
+     * @return The duration in nanoseconds.
+     */
+    public long getPresentDuration()
+    {
+        return this.presentDuration;
+    }
+
+    /**
+     * <p>Returns {@code true} if the window of this {@code Screen} is
+     * created.</p>
+     * @return {@code true} if the {@code Screen} is shown in a window.
+     */
+    public boolean isOpen()
+    {
+        return this.frame != null;
     }
 
     /**
@@ -42,18 +148,115 @@ public final class Screen extends JPanel
 
     /**
      * <p>Draws a frame on the {@code Screen}.</p>
+     * <p>Draws the latest snapshot published by the main {@code Camera}, so
+     * the game loop can update the next frame meanwhile. Until the first
+     * snapshot, renders the {@code Scene} holding the frame lock.</p>
      * @param graphics The {@code Graphics2D} to draw with.
      */
     @Override
     public void paint(Graphics graphics)
     {
-        if (Camera.getMain() == null)
+        Camera camera = Camera.getMain();
+        if (camera == null || this.canvas != null)
         {
             return;
         }
 
-        Camera.getMain().render((Graphics2D)graphics);
+        long startTime = System.nanoTime();
+        if (!camera.renderSnapshot((Graphics2D)graphics))
+        {
+            synchronized (Time.shared.getFrameLock())
+            {
+                camera.render((Graphics2D)graphics);
+            }
+        }
         graphics.dispose();
+        this.measurePresent(startTime);
+    }
+
+    /**
+     * <p>Shows the next frame: draws it on the calling thread with active
+     * rendering, or asks Swing to repaint the {@code Screen}.</p>
+     * <p>Called by the game loop.</p>
+     */
+    void present()
+    {
+        ScreenCanvas canvas = this.canvas;
+        if (canvas == null)
+        {
+            this.repaint();
+            return;
+        }
+        long startTime = System.nanoTime();
+        if (canvas.present())
+        {
+            this.measurePresent(startTime);
+        }
+    }
+
+    /**
+     * <p>Creates and shows the window of this {@code Screen}.</p>
+     * <p>Does nothing if it's already open.</p>
+     * @throws HeadlessException if there is no display.
+     */
+    void open()
+    {
+        if (this.frame != null)
+        {
+            return;
+        }
+        if (this.activeRendering)
+        {
+            this.createCanvas();
+        }
+        this.createFrame();
+        if (this.canvas != null)
+        {
+            this.canvas.requestFocus();
+        }
+        else
+        {
+            this.requestFocus();
+        }
+    }
+
+    /**
+     * <p>Creates the canvas for active rendering, which covers the {@code
+     * Screen}, and gives it the {@code Screen}'s input listeners.</p>
+     */
+    private void createCanvas()
+    {
+        ScreenCanvas canvas = new ScreenCanvas(this.bufferCount);
+        for (KeyListener listener : this.getKeyListeners())
+        {
+            canvas.addKeyListener(listener);
+        }
+        for (MouseListener listener : this.getMouseListeners())
+        {
+            canvas.addMouseListener(listener);
+        }
+        for (MouseMotionListener listener : this.getMouseMotionListeners())
+        {
+            canvas.addMouseMotionListener(listener);
+        }
+        this.setLayout(new BorderLayout());
+        this.add(canvas, BorderLayout.CENTER);
+        this.canvas = canvas;
+    }
+
+    private void measurePresent(long startTime)
+    {
+        long endTime = System.nanoTime();
+        this.presentDuration = endTime - startTime;
+        this.presentTime = endTime;
+    }
+
+    private void requireNotOpen()
+    {
+        if (this.frame != null)
+        {
+            throw new IllegalStateException("Screen is already open.");
+        }
     }
 
     /**
@@ -62,6 +265,10 @@ public final class Screen extends JPanel
     private void createFrame()
     {
         this.frame = new JFrame();
+        if (this.minimumSize != null)
+        {
+            this.frame.setMinimumSize(this.minimumSize);
+        }
 
         Container contentPane = this.frame.getContentPane();
         contentPane.setPreferredSize(this.size);
@@ -89,12 +296,31 @@ public final class Screen extends JPanel
 
     public void setMinimumSize(Vector2Int minimumSize)
     {
-        this.frame.setMinimumSize(new Dimension(minimumSize.x, minimumSize.y));
+        this.minimumSize = new Dimension(minimumSize.x, minimumSize.y);
+        if (this.frame != null)
+        {
+            this.frame.setMinimumSize(this.minimumSize);
+        }
     }
 
+    /**
+     * <p>Sets the size of the window.</p>
+     * <p>Without a window, sets the size the {@code Screen} reports, and
+     * the size the window will have, when it's opened.</p>
+     * @param size The new size in screen units.
+     */
     public void setSize(Vector2Int size)
     {
-        this.frame.setSize(new Dimension(size.x, size.y));
+        if (this.frame != null)
+        {
+            this.frame.setSize(new Dimension(size.x, size.y));
+            return;
+        }
+        this.size = new Dimension(size.x, size.y);
+        if (Camera.getMain() != null)
+        {
+            Camera.getMain().updateWorldToScreenCoefficient();
+        }
     }
 
 }
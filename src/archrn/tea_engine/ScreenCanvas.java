@@ -0,0 +1,116 @@
+package archrn.tea_engine;
+
+import archrn.tea_engine.camera.Camera;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+/**
+ * <p>{@code ScreenCanvas} draws the frames of the {@code Screen} with
+ * active rendering.</p>
+ * <p>Instead of asking Swing to repaint, the game loop draws the latest
+ * snapshot of the main {@code Camera} to a {@code BufferStrategy} and shows
+ * it itself, so no frame is skipped or delayed by the event queue. Lost
+ * buffer contents are redrawn before the frame is shown.</p>
+ * @author Artem
+ */
+final class ScreenCanvas extends Canvas
+{
+
+    private static final long serialVersionUID = 1L;
+
+    private final int bufferCount;
+
+    /**
+     * <p>Initializes a {@code ScreenCanvas} with the given amount of
+     * buffers.</p>
+     * @param bufferCount 2 for double or 3 for triple buffering.
+     */
+    ScreenCanvas(int bufferCount)
+    {
+        this.bufferCount = bufferCount;
+        this.setIgnoreRepaint(true);
+        this.setBackground(Color.black);
+        this.setFocusable(true);
+    }
+
+    /**
+     * <p>Draws a frame to the back buffer and shows it.</p>
+     * <p>Called by the game loop. Does nothing until the canvas is in a
+     * shown window.</p>
+     * @return {@code true} if the frame was shown.
+     */
+    boolean present()
+    {
+        if (!this.isDisplayable() || this.getWidth() <= 0
+            || this.getHeight() <= 0)
+        {
+            return false;
+        }
+        BufferStrategy strategy = this.getBufferStrategy();
+        if (strategy == null)
+        {
+            this.createBufferStrategy(this.bufferCount);
+            strategy = this.getBufferStrategy();
+        }
+
+        do
+        {
+            do
+            {
+                Graphics2D graphics = (Graphics2D)strategy.getDrawGraphics();
+                try
+                {
+                    this.draw(graphics);
+                }
+                finally
+                {
+                    graphics.dispose();
+                }
+            }
+            while (strategy.contentsRestored());
+            strategy.show();
+        }
+        while (strategy.contentsLost());
+        // Flush the window system's queue, so the frame is on the screen.
+        Toolkit.getDefaultToolkit().sync();
+        return true;
+    }
+
+    /**
+     * <p>Active rendering draws the frames, so AWT doesn't have to.</p>
+     */
+    @Override
+    public void paint(Graphics graphics)
+    {
+    }
+
+    @Override
+    public void update(Graphics graphics)
+    {
+    }
+
+    /**
+     * <p>Draws the latest snapshot of the main {@code Camera}. Until the
+     * first snapshot, renders the {@code Scene} holding the frame
+     * lock.</p>
+     */
+    private void draw(Graphics2D graphics)
+    {
+        Camera camera = Camera.getMain();
+        if (camera == null)
+        {
+            graphics.setColor(Color.black);
+            graphics.fillRect(0, 0, this.getWidth(), this.getHeight());
+            return;
+        }
+        if (!camera.renderSnapshot(graphics))
+        {
+            synchronized (Time.shared.getFrameLock())
+            {
+                camera.render(graphics);
+            }
+        }
+    }
+
+}
@@ -1,30 +1,111 @@
 package archrn.tea_engine;
 
-import javax.swing.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import archrn.tea_engine.camera.Camera;
+
+import java.util.concurrent.locks.LockSupport;
 
 // TODO: Implement FPS.
-// TODO: Need to use Timer here? It would be easier to just make an infinite
-//  cycle. It would be easier in terms of dynamic FPS and other stuff.
 
 /**
  * <p>{@code Time} calls every-frame actions in the game and calculates
  * frame rate and delta time.</p>
+ * <p>Every-frame actions run on a dedicated game loop thread. {@code
+ * update()} and {@code lateUpdate()} are called with a fixed time step,
+ * which is set by {@code setFrameRate()}. Rendering isn't tied to the
+ * update rate: the {@code Screen} is repainted at most {@code
+ * renderFrameRate} times per second, no matter how many fixed steps were
+ * made.</p>
+ * <p>Without a {@code Screen} (a headless {@code Game}) nothing is
+ * repainted. The steps can then be made as fast as possible with {@code
+ * setRealTime(false)}, or on the caller's thread with {@code
+ * setManualStepping(true)} and {@code advance()}.</p>
  * @author Artem
  */
-public final class Time implements ActionListener
+public final class Time implements Runnable
 {
 
     public static final Time shared = new Time();
 
+    private static final long NANOSECONDS_PER_SECOND = 1_000_000_000L;
+
+    /**
+     * <p>How often the game loop lets other threads take the frame lock,
+     * when {@code Time} isn't real time, in nanoseconds.</p>
+     */
+    private static final long YIELD_INTERVAL_NANOS = 1_000_000L;
+
+    /**
+     * <p>How long the game loop parks to let other threads take the frame
+     * lock in nanoseconds.</p>
+     */
+    private static final long YIELD_NANOS = 50_000L;
+
+    /**
+     * <p>The length of one fixed update step in nanoseconds.</p>
+     */
+    private volatile long stepNanos = NANOSECONDS_PER_SECOND / 40;
+
+    /**
+     * <p>The minimal time between two repaints in nanoseconds.</p>
+     */
+    private volatile long renderIntervalNanos = NANOSECONDS_PER_SECOND / 60;
+
+    /**
+     * <p>The maximal amount of fixed steps made to catch up with real time
+     * in one loop iteration. If the game falls further behind, the rest of
+     * the lag is dropped.</p>
+     */
+    private volatile int maxStepsPerFrame = 5;
+
+    /**
+     * <p>{@code false} to make the steps one after another, without waiting
+     * for real time.</p>
+     */
+    private volatile boolean realTime = true;
+
+    /**
+     * <p>{@code true} if the steps are made only by {@code advance()}, and
+     * not by the game loop thread.</p>
+     */
+    private volatile boolean manualStepping;
+
+    /**
+     * <p>{@code true} if no steps are made until {@code setPaused(false)}.
+     * Unlike {@code running}, it's only changed by the game.</p>
+     */
+    private volatile boolean paused;
+
+    /**
+     * <p>The {@code Screen} to repaint or {@code null} if the game is
+     * headless.</p>
+     */
+    private volatile Screen screen;
+
     /**
-     * <p>Delay in milliseconds before and between Timer ticks.</p>
+     * <p>Lock, which is held while the {@code Scene} is being updated.</p>
+     * <p>Painting takes it too, so the {@code Screen} never sees a half
+     * updated frame.</p>
      */
-    private int delay = 25;
+    private final Object frameLock;
 
-    private Timer timer;
+    /**
+     * <p>The game loop thread. A thread, which isn't this one anymore,
+     * ends.</p>
+     */
+    private volatile Thread thread;
+    private volatile boolean running;
+
+    /**
+     * <p>Set when {@code Time} is (re)started, so the loop forgets the time
+     * spent while paused or loading a {@code Scene}.</p>
+     */
+    private volatile boolean clockResetRequested;
+    private long previousTime;
+    private long accumulator;
+    private long lastRenderTime;
+    private long lastYieldTime;
     private long frameStartTime;
+    private long frameStartNanos;
     private float deltaTime;
 
     /**
@@ -32,40 +113,239 @@ public final class Time implements ActionListener
      */
     private Time()
     {
-        this.timer = new Timer(this.delay, this);
+        this.frameLock = new Object();
+        this.deltaTime = this.stepNanos / (float)NANOSECONDS_PER_SECOND;
     }
 
     /**
-     * <p>Does all the every-frame actions.</p>
-     * @param e {@code ActionEvent} with information about the event.
+     * <p>Runs the game loop.</p>
+     * <p>Accumulates real time and makes as many fixed steps as fit in it,
+     * but no more than {@code maxStepsPerFrame}. Then repaints the {@code
+     * Screen} if it's time to and sleeps until the next step is due.</p>
+     * <p>If {@code Time} isn't real time, steps without sleeping, but
+     * parks for a moment every {@code YIELD_INTERVAL_NANOS}, so the other
+     * threads waiting for the frame lock get it.</p>
+     * <p>An exception thrown by a step or a repaint is passed to the
+     * thread's uncaught exception handler and the loop goes on, like the
+     * event dispatch thread does. The failed step counts as made. If the
+     * loop ends anyway, {@code start()} creates a new one.</p>
      */
     @Override
-    public void actionPerformed(ActionEvent e)
+    public void run()
     {
-        this.updateFrameRate();
-        SceneManager.shared.getCurrentScene().update();
-        SceneManager.shared.getCurrentScene().lateUpdate();
-        Screen.shared.repaint();
+        Thread thread = Thread.currentThread();
+        try
+        {
+            while (this.thread == thread)
+            {
+                try
+                {
+                    this.runIteration();
+                }
+                catch (RuntimeException exception)
+                {
+                    thread.getUncaughtExceptionHandler()
+                          .uncaughtException(thread, exception);
+                }
+            }
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                if (this.thread == thread)
+                {
+                    this.thread = null;
+                }
+            }
+        }
     }
 
+    /**
+     * <p>Sets the amount of fixed update steps per second.</p>
+     * @param framesPerSecond The new amount of update steps per second.
+     * @throws IllegalArgumentException if {@code framesPerSecond <= 0}.
+     */
     public void setFrameRate(int framesPerSecond)
     {
-        this.delay = 1000 / framesPerSecond;
-        this.timer.setDelay(this.delay);
+        if (framesPerSecond <= 0)
+        {
+            throw new IllegalArgumentException("Frame rate must be positive.");
+        }
+        this.stepNanos = NANOSECONDS_PER_SECOND / framesPerSecond;
+    }
+
+    /**
+     * <p>Sets the maximal amount of repaints per second.</p>
+     * <p>Repaints happen independently of the update rate, but never
+     * more often than once per loop iteration with at least one step.</p>
+     * @param framesPerSecond The new maximal amount of repaints per second.
+     * @throws IllegalArgumentException if {@code framesPerSecond <= 0}.
+     */
+    public void setRenderFrameRate(int framesPerSecond)
+    {
+        if (framesPerSecond <= 0)
+        {
+            throw new IllegalArgumentException("Frame rate must be positive.");
+        }
+        this.renderIntervalNanos = NANOSECONDS_PER_SECOND / framesPerSecond;
+    }
+
+    /**
+     * <p>Sets the maximal amount of fixed steps made in one loop iteration
+     * to catch up with real time.</p>
+     * @param maxStepsPerFrame The new maximal amount of catch-up steps.
+     * @throws IllegalArgumentException if {@code maxStepsPerFrame <= 0}.
+     */
+    public void setMaxStepsPerFrame(int maxStepsPerFrame)
+    {
+        if (maxStepsPerFrame <= 0)
+        {
+            throw new IllegalArgumentException("Step limit must be positive.");
+        }
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * <p>Sets whether the fixed steps follow real time.</p>
+     * <p>If not, the game loop makes the steps one after another as fast
+     * as it can, so the game runs many times faster than real time. The
+     * delta time is still the length of one step, so the game behaves the
+     * same, only sooner. Meant for headless simulations.</p>
+     * @param realTime {@code false} to step as fast as possible.
+     */
+    public void setRealTime(boolean realTime)
+    {
+        this.clockResetRequested = true;
+        this.realTime = realTime;
+    }
+
+    /**
+     * <p>Returns {@code true} if the fixed steps follow real time.</p>
+     * @return {@code true} if {@code Time} runs in real time.
+     */
+    public boolean isRealTime()
+    {
+        return this.realTime;
+    }
+
+    /**
+     * <p>Sets whether the steps are made only by {@code advance()}.</p>
+     * <p>With manual stepping the game loop thread makes no steps, so a
+     * test can make exactly as many steps as it needs on it's own
+     * thread.</p>
+     * @param manualStepping {@code true} to step only with {@code
+     *                       advance()}.
+     */
+    public void setManualStepping(boolean manualStepping)
+    {
+        this.manualStepping = manualStepping;
+        if (!manualStepping)
+        {
+            this.clockResetRequested = true;
+            Thread thread = this.thread;
+            if (thread != null)
+            {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * <p>Returns {@code true} if the steps are made only by {@code
+     * advance()}.</p>
+     * @return {@code true} if manual stepping is on.
+     */
+    public boolean isManualStepping()
+    {
+        return this.manualStepping;
+    }
+
+    /**
+     * <p>Pauses or resumes the steps.</p>
+     * <p>While paused, neither the game loop thread nor {@code advance()}
+     * make steps, and the {@code Screen} isn't repainted. Loading a {@code
+     * Scene} doesn't resume it. The time spent paused isn't caught up
+     * with.</p>
+     * @param paused {@code true} to pause, {@code false} to resume.
+     */
+    public void setPaused(boolean paused)
+    {
+        this.paused = paused;
+        if (!paused)
+        {
+            this.clockResetRequested = true;
+            Thread thread = this.thread;
+            if (thread != null)
+            {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * <p>Returns {@code true} if the steps are paused by {@code
+     * setPaused()}.</p>
+     * @return {@code true} if {@code Time} is paused.
+     */
+    public boolean isPaused()
+    {
+        return this.paused;
+    }
+
+    /**
+     * <p>Makes the given amount of fixed steps on the calling thread right
+     * away.</p>
+     * <p>Steps aren't made while {@code Time} is paused, for example before
+     * the first {@code Scene} is loaded or after {@code
+     * setPaused(true)}.</p>
+     * @param steps The amount of steps to make.
+     * @throws IllegalArgumentException if {@code steps < 0}.
+     * @throws IllegalStateException if manual stepping is off.
+     */
+    public void advance(int steps)
+    {
+        if (steps < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Amount of steps can't be negative.");
+        }
+        if (!this.manualStepping)
+        {
+            throw new IllegalStateException("Manual stepping is off.");
+        }
+        for (int i = 0; i < steps && this.running && !this.paused; ++i)
+        {
+            this.step(this.stepNanos);
+        }
     }
 
     /**
      * <p>Returns the time when this frame has started.</p>
-     * @return The time when this frame has started.
+     * @return The time when this frame has started in milliseconds, as
+     * returned by {@code System.currentTimeMillis()}.
      */
     public long getFrameStartTime()
     {
         return this.frameStartTime;
     }
 
+    /**
+     * <p>Returns the time when this frame has started, precisely.</p>
+     * <p>Only differences between such times are meaningful.</p>
+     * @return The time when this frame has started in nanoseconds, as
+     * returned by {@code System.nanoTime()}.
+     */
+    public long getFrameStartNanos()
+    {
+        return this.frameStartNanos;
+    }
+
     /**
      * <p>Returns the time since the start of the previous frame until the
      * start of this frame.</p>
+     * <p>Frames are updated with a fixed step, so it's the length of the
+     * step in seconds.</p>
      * @return The time since the start of the previous frame until the start
      * of this frame.
      */
@@ -74,34 +354,179 @@ public final class Time implements ActionListener
         return this.deltaTime;
     }
 
+    /**
+     * <p>Returns the lock held while a frame is being updated.</p>
+     * <p>Anything reading the game state from another thread (for example,
+     * painting) should synchronize on it.</p>
+     * @return The frame lock.
+     */
+    public Object getFrameLock()
+    {
+        return this.frameLock;
+    }
+
     /**
      * <p>Starts {@code Time}.</p>
-     * <p>Starts calling all the every-frame actions.</p>
+     * <p>Starts calling all the every-frame actions. Creates the game loop
+     * thread on the first call.</p>
      */
-    void start()
+    synchronized void start()
     {
-        this.frameStartTime = System.currentTimeMillis();
-        this.timer.start();
+        this.clockResetRequested = true;
+        this.running = true;
+        if (this.thread == null)
+        {
+            this.thread = new Thread(this, "Tea Engine game loop");
+            this.thread.start();
+        }
+        else
+        {
+            LockSupport.unpark(this.thread);
+        }
     }
 
     /**
      * <p>Pauses {@code Time}.</p>
-     * <p>Stops calling every-frame actions.</p>
+     * <p>Stops calling every-frame actions. The current step, if any, is
+     * finished.</p>
+     */
+    synchronized void pause()
+    {
+        this.running = false;
+    }
+
+    /**
+     * <p>Stops {@code Time} and ends the game loop thread, so the program
+     * can exit. The current step, if any, is finished.</p>
+     * <p>{@code start()} creates a new game loop thread.</p>
+     */
+    synchronized void stop()
+    {
+        this.running = false;
+        Thread thread = this.thread;
+        if (thread != null)
+        {
+            this.thread = null;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * <p>Sets the {@code Screen} to repaint after the steps.</p>
+     * @param screen The {@code Screen} or {@code null} for a headless
+     *               game.
+     */
+    void setScreen(Screen screen)
+    {
+        this.screen = screen;
+    }
+
+    /**
+     * <p>Makes one iteration of the game loop: the steps, which are due,
+     * and a repaint.</p>
+     */
+    private void runIteration()
+    {
+        if (!this.running || this.manualStepping || this.paused)
+        {
+            LockSupport.park(this);
+            return;
+        }
+
+        long currentTime = System.nanoTime();
+        if (!this.realTime)
+        {
+            // The frame lock isn't fair, so without parking this thread
+            // would take it again right away.
+            if (currentTime - this.lastYieldTime >= YIELD_INTERVAL_NANOS)
+            {
+                this.lastYieldTime = currentTime;
+                LockSupport.parkNanos(this, YIELD_NANOS);
+            }
+            this.step(this.stepNanos);
+            this.repaint(currentTime);
+            return;
+        }
+        if (this.clockResetRequested)
+        {
+            this.clockResetRequested = false;
+            this.previousTime = currentTime;
+            this.accumulator = 0;
+        }
+        this.accumulator += currentTime - this.previousTime;
+        this.previousTime = currentTime;
+
+        long step = this.stepNanos;
+        int steps = 0;
+        while (this.running
+               && !this.paused
+               && !this.clockResetRequested
+               && this.accumulator >= step
+               && steps < this.maxStepsPerFrame)
+        {
+            // Counted before the step, so a step, which throws, isn't
+            // made again right away.
+            this.accumulator -= step;
+            ++steps;
+            this.step(step);
+        }
+        if (steps == this.maxStepsPerFrame)
+        {
+            // Too far behind: don't try to catch up any further.
+            this.accumulator = Math.min(this.accumulator, step);
+        }
+
+        if (steps > 0)
+        {
+            this.repaint(currentTime);
+        }
+
+        long sleepNanos = step - this.accumulator;
+        if (sleepNanos > 0)
+        {
+            LockSupport.parkNanos(this, sleepNanos);
+        }
+    }
+
+    /**
+     * <p>Repaints the {@code Screen}, if there is one and it's time to.</p>
+     * <p>With active rendering, the frame is drawn and shown right here on
+     * the game loop thread.</p>
+     * @param currentTime The current time in nanoseconds.
+     * @see Screen#setActiveRendering(boolean)
      */
-    void pause()
+    private void repaint(long currentTime)
     {
-        this.timer.stop();
+        Screen screen = this.screen;
+        if (screen != null
+            && currentTime - this.lastRenderTime >= this.renderIntervalNanos)
+        {
+            this.lastRenderTime = currentTime;
+            screen.present();
+        }
     }
 
     /**
-     * <p>Updates {@code deltaTime} and frame rate.</p>
-     * <p>Called at the start of each frame.</p>
+     * <p>Makes one fixed step: updates the current {@code Scene}.</p>
+     * <p>If there is a {@code Screen}, the main {@code Camera} then
+     * publishes a snapshot of the frame for it to draw.</p>
+     * @param step The length of the step in nanoseconds.
      */
-    private void updateFrameRate()
+    private void step(long step)
     {
-        long currentTime = System.currentTimeMillis();
-        this.deltaTime = (currentTime - this.frameStartTime) / 1000f;
-        this.frameStartTime = currentTime;
+        synchronized (this.frameLock)
+        {
+            this.frameStartTime = System.currentTimeMillis();
+            this.frameStartNanos = System.nanoTime();
+            this.deltaTime = step / (float)NANOSECONDS_PER_SECOND;
+            SceneManager.shared.getCurrentScene().update();
+            SceneManager.shared.getCurrentScene().lateUpdate();
+            Camera camera = Camera.getMain();
+            if (this.screen != null && camera != null)
+            {
+                camera.captureSnapshot();
+            }
+        }
     }
 
 }
@@ -87,6 +87,7 @@ public final class Transform extends Component
     {
         Objects.requireNonNull(position);
         this.position = position;
+        this.markChanged();
     }
 
     /**
@@ -152,6 +153,7 @@ public final class Transform extends Component
     {
         Objects.requireNonNull(scale);
         this.scale = scale;
+        this.markChanged();
     }
 
     /**
@@ -212,6 +214,7 @@ public final class Transform extends Component
     public final void setRotation(float rotation)
     {
         this.rotation = rotation;
+        this.markChanged();
     }
 
     /**
@@ -262,4 +265,20 @@ public final class Transform extends Component
         this.setRotationAbsolute(rotationAbsolute);
     }
 
+    /**
+     * <p>Tells the static {@code Renderer}s of the {@code GameObject}, that
+     * it has moved, so they are drawn again at the new place.</p>
+     * <p>The {@code Transform}'s vectors are mutable, and changing them in
+     * place isn't noticed. Neither is moving the parent, as a {@code
+     * Transform} doesn't know it's children.</p>
+     */
+    private void markChanged()
+    {
+        GameObject gameObject = this.getGameObject();
+        if (gameObject != null)
+        {
+            gameObject.markStaticRenderersChanged();
+        }
+    }
+
 }
@@ -0,0 +1,131 @@
+package archrn.tea_engine.animation;
+
+import archrn.tea_engine.camera.Camera;
+import archrn.tea_engine.geometry.Bounds;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <p>{@code AnimationSystem} advances all the {@code Animator}s of a {@code
+ * Scene} once per frame.</p>
+ * <p>Each {@code Scene} has one. {@code Animator}s are kept in a flat
+ * array, which is walked once per frame with the frame's delta time. The
+ * current frame of an {@code Animation} is computed from the time it has
+ * been playing, so advancing an {@code Animator} costs the same no matter
+ * how long the frame was.</p>
+ * <p>{@code Animator}s on inactive {@code GameObject}s, and inactive
+ * {@code Animator}s, are paused. {@code Animator}s, which {@code
+ * SpriteRenderer}s are outside of the {@code Camera}'s view, keep their
+ * time, but don't change the {@code Sprite} until they are visible
+ * again.</p>
+ * @author Artem
+ */
+public final class AnimationSystem
+{
+
+    private Animator[] animators;
+    private int size;
+
+    // Reused by update() for culling.
+    private final Bounds viewBounds;
+    private final Bounds rendererBounds;
+
+    /**
+     * <p>Initializes an empty {@code AnimationSystem}.</p>
+     */
+    public AnimationSystem()
+    {
+        this.animators = new Animator[16];
+        this.viewBounds = new Bounds();
+        this.rendererBounds = new Bounds();
+    }
+
+    /**
+     * <p>Adds the given {@code animator} to the system.</p>
+     * @param animator The {@code Animator} to add.
+     * @throws NullPointerException if {@code animator} is {@code null}.
+     */
+    public void add(Animator animator)
+    {
+        Objects.requireNonNull(animator);
+        if (animator.systemIndex >= 0)
+        {
+            return;
+        }
+        if (this.size == this.animators.length)
+        {
+            this.animators = Arrays.copyOf(this.animators, this.size * 2);
+        }
+        animator.systemIndex = this.size;
+        this.animators[this.size++] = animator;
+    }
+
+    /**
+     * <p>Removes the given {@code animator} from the system.</p>
+     * <p>The last {@code Animator} takes it's place, so the order of
+     * {@code Animator}s isn't kept.</p>
+     * @param animator The {@code Animator} to remove.
+     * @throws NullPointerException if {@code animator} is {@code null}.
+     */
+    public void remove(Animator animator)
+    {
+        Objects.requireNonNull(animator);
+        int index = animator.systemIndex;
+        if (index < 0 || index >= this.size
+            || this.animators[index] != animator)
+        {
+            return;
+        }
+        Animator last = this.animators[--this.size];
+        this.animators[index] = last;
+        last.systemIndex = index;
+        this.animators[this.size] = null;
+        animator.systemIndex = -1;
+    }
+
+    /**
+     * <p>Returns the amount of {@code Animator}s in the system.</p>
+     * @return The amount of {@code Animator}s.
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * <p>Advances all the active {@code Animator}s by {@code
+     * deltaTime}.</p>
+     * @param deltaTime The length of the frame in seconds.
+     * @param camera The {@code Camera} to cull the {@code Animator}s with
+     *               or {@code null} to treat all of them as visible.
+     */
+    public void update(float deltaTime, Camera camera)
+    {
+        if (camera != null)
+        {
+            camera.getViewBounds(this.viewBounds);
+        }
+        for (int i = 0; i < this.size; ++i)
+        {
+            Animator animator = this.animators[i];
+            if (!animator.isActive() || !animator.getGameObject().isActive())
+            {
+                continue;
+            }
+            animator.advance(deltaTime,
+                             camera == null || this.isVisible(animator));
+        }
+    }
+
+    /**
+     * <p>Returns {@code false} if the {@code animator}'s {@code
+     * SpriteRenderer} is outside of the view.</p>
+     */
+    private boolean isVisible(Animator animator)
+    {
+        return !animator.getWorldBounds(this.rendererBounds)
+            || this.rendererBounds.overlaps(this.viewBounds);
+    }
+
+}
@@ -2,14 +2,17 @@ package archrn.tea_engine.animation;
 
 import archrn.tea_engine.Component;
 import archrn.tea_engine.GameObject;
+import archrn.tea_engine.assets.Sprite;
+import archrn.tea_engine.geometry.Bounds;
 import archrn.tea_engine.rendering.world.SpriteRenderer;
 
-import javax.swing.*;
-import java.awt.event.ActionEvent;
 import java.util.Objects;
 
 /**
- * <p></p>
+ * <p>{@code Animator} plays an {@code Animation} on the {@code
+ * SpriteRenderer} of it's {@code GameObject}.</p>
+ * <p>It's advanced every frame by the {@code Scene}'s {@code
+ * AnimationSystem}.</p>
  * @author Artem
  */
 public class Animator extends Component
@@ -19,7 +22,17 @@ public class Animator extends Component
     private Animation nextAnimation;
     private SpriteRenderer spriteRenderer;
     private int currentSpriteIndex;
-    private Timer timer;
+
+    /**
+     * <p>The time the current {@code Animation} has been playing, in
+     * seconds. Kept shorter than one loop of the {@code Animation}.</p>
+     */
+    private float time;
+
+    /**
+     * <p>Index in the {@code AnimationSystem}'s array or {@code -1}.</p>
+     */
+    int systemIndex;
 
     /**
      * <p>Initializes the {@code Animator} with the given {@code animation}.</p>
@@ -31,6 +44,7 @@ public class Animator extends Component
         Objects.requireNonNull(animation);
         this.animation = animation;
         this.currentSpriteIndex = 0;
+        this.systemIndex = -1;
     }
 
     /**
@@ -42,19 +56,55 @@ public class Animator extends Component
         return this.animation;
     }
 
+    /**
+     * <p>Starts playing the given {@code animation} from it's first
+     * frame.</p>
+     * <p>Does nothing if it's already playing.</p>
+     * @param animation The {@code Animation} to play.
+     * @throws NullPointerException if {@code animation} is {@code null}.
+     */
     public void setAnimation(Animation animation)
     {
+        Objects.requireNonNull(animation);
         if (animation == this.animation)
         {
             return;
         }
         this.animation = animation;
-        this.start();
+        this.holdSprites();
+        this.restart();
     }
 
+    /**
+     * <p>Sets the {@code Animation} to play, when the current one reaches
+     * it's end.</p>
+     * @param animation The next {@code Animation} or {@code null} to keep
+     *                  looping the current one.
+     */
     public void setNextAnimation(Animation animation)
     {
         this.nextAnimation = animation;
+        this.holdSprites();
+    }
+
+    /**
+     * <p>Returns the {@code Animation} to play, when the current one
+     * reaches it's end.</p>
+     * @return The next {@code Animation} or {@code null}.
+     */
+    public Animation getNextAnimation()
+    {
+        return this.nextAnimation;
+    }
+
+    /**
+     * <p>Returns the index of the currently shown {@code Sprite} in the
+     * {@code Animation}.</p>
+     * @return The index of the current frame.
+     */
+    public int getCurrentSpriteIndex()
+    {
+        return this.currentSpriteIndex;
     }
 
     /**
@@ -65,63 +115,108 @@ public class Animator extends Component
     protected void start()
     {
         this.initializeSpriteRenderer();
-        if (this.timer != null)
-        {
-            this.timer.stop();
-        }
-        this.timer = new Timer(this.animation.getFrameLengthMilliseconds(),
-                     (ActionEvent e) -> Animator.this.updateAnimation());
-        this.timer.start();
+        this.restart();
     }
 
     /**
-     * <p>Creates or finds a {@code SpriteRenderer} component on this {@code
-     * GameObject} and sets the first {@code Sprite}.</p>
+     * <p>Advances the {@code Animation} by {@code deltaTime} seconds.</p>
+     * <p>Called by the {@code AnimationSystem}. The current frame is found
+     * from the time the {@code Animation} has been playing, no matter how
+     * many frames were skipped.</p>
+     * @param deltaTime The length of the game frame in seconds.
+     * @param visible {@code false} to only advance the time, without
+     *                changing the {@code Sprite}.
      */
-    private void initializeSpriteRenderer()
+    void advance(float deltaTime, boolean visible)
     {
-        // Find or create SpriteRenderer.
-        GameObject gameObject = this.getGameObject();
-        this.spriteRenderer = gameObject.getComponentOfType(SpriteRenderer.class);
         if (this.spriteRenderer == null)
         {
-            this.spriteRenderer = gameObject.addComponent(new SpriteRenderer());
+            return;
+        }
+        int spritesAmount = this.animation.getSpritesAmount();
+        if (spritesAmount == 0)
+        {
+            return;
         }
 
-        // Set first sprite.
-        if (this.animation.getSpritesAmount() > 0)
+        int framesPerSecond = this.animation.getFramesPerSecond();
+        float length = spritesAmount / (float)framesPerSecond;
+        this.time += deltaTime;
+        if (this.time >= length)
         {
-            this.spriteRenderer.setSprite(this.animation.getSprite(0));
+            if (this.nextAnimation == null)
+            {
+                this.time %= length;
+            }
+            else
+            {
+                // The next Animation starts where the current one has ended,
+                // so the time past the end is carried into it.
+                this.time -= length;
+                this.animation = this.nextAnimation;
+                this.nextAnimation = null;
+                spritesAmount = this.animation.getSpritesAmount();
+                if (spritesAmount == 0)
+                {
+                    return;
+                }
+                framesPerSecond = this.animation.getFramesPerSecond();
+                this.time %= spritesAmount / (float)framesPerSecond;
+            }
+        }
+
+        // Rounding may give the index right after the last frame.
+        this.currentSpriteIndex = Math.min(
+                (int)(this.time * framesPerSecond), spritesAmount - 1);
+        if (visible)
+        {
+            Sprite sprite = this.animation.getSprite(this.currentSpriteIndex);
+            if (this.spriteRenderer.getSprite() != sprite)
+            {
+                this.spriteRenderer.setSprite(sprite);
+            }
         }
     }
 
     /**
-     * <p>Changes the {@code SpriteRenderer}'s currently displayed {@code
-     * Sprite} to the next {@code Sprite} in the {@code Animation} sequence.</p>
+     * <p>Writes the world bounds of the {@code SpriteRenderer} to {@code
+     * bounds}, like {@code Renderer.getWorldBounds()}.</p>
+     * <p>Used by the {@code AnimationSystem} for culling.</p>
      */
-    private void updateAnimation()
+    boolean getWorldBounds(Bounds bounds)
     {
-        int spritesAmount = this.animation.getSpritesAmount();
-        if (spritesAmount == 0)
+        return this.spriteRenderer != null
+            && this.spriteRenderer.getWorldBounds(bounds);
+    }
+
+    /**
+     * <p>Shows the first frame of the {@code Animation} and starts counting
+     * it's time from zero.</p>
+     */
+    private void restart()
+    {
+        this.time = 0;
+        this.currentSpriteIndex = 0;
+        if (this.spriteRenderer != null
+            && this.animation.getSpritesAmount() > 0)
         {
-            return;
+            this.spriteRenderer.setSprite(this.animation.getSprite(0));
         }
+    }
 
-//        this.currentSpriteIndex = (this.currentSpriteIndex + 1) % spritesAmount;
-        this.currentSpriteIndex += 1;
-        if (this.currentSpriteIndex >= spritesAmount)
+    /**
+     * <p>Creates or finds a {@code SpriteRenderer} component on this {@code
+     * GameObject}.</p>
+     */
+    private void initializeSpriteRenderer()
+    {
+        // Find or create SpriteRenderer.
+        GameObject gameObject = this.getGameObject();
+        this.spriteRenderer = gameObject.getComponentOfType(SpriteRenderer.class);
+        if (this.spriteRenderer == null)
         {
-            this.currentSpriteIndex = 0;
-            if (this.nextAnimation != null)
-            {
-                this.animation = nextAnimation;
-                this.nextAnimation = null;
-                this.setAnimation(this.animation);
-                return;
-            }
+            this.spriteRenderer = gameObject.addComponent(new SpriteRenderer());
         }
-        this.spriteRenderer.setSprite(
-                this.animation.getSprite(this.currentSpriteIndex));
     }
 
 }
@@ -0,0 +1,209 @@
+package archrn.tea_engine.assets;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>{@code AssetArchive} reads images from an archive written by {@code
+ * AssetArchiveWriter}.</p>
+ * <p>The archive is mapped into memory, and the images are stored as raw
+ * pixels, so reading an image is a copy of it's pixels instead of a
+ * decode.</p>
+ * <p>Archive format, big endian:</p>
+ * <ul>
+ *     <li>{@code int} magic {@code "TEAA"}, {@code int} version, {@code
+ *     long} offset of the index;</li>
+ *     <li>the pixels of each image: {@code width * height} {@code int}s,
+ *     premultiplied {@code ARGB} or {@code RGB} for opaque images;</li>
+ *     <li>the index: {@code int} amount of images, then for each image it's
+ *     path (as in {@code DataOutput.writeUTF()}), {@code int} width,
+ *     {@code int} height, {@code boolean} opaque and {@code long} offset
+ *     of the pixels.</li>
+ * </ul>
+ * <p>Images can be read from several threads at once.</p>
+ * @author Artem
+ */
+public final class AssetArchive
+{
+
+    static final int MAGIC = 0x54454141;
+    static final int VERSION = 1;
+
+    /**
+     * <p>The size of the magic, version and index offset.</p>
+     */
+    static final int HEADER_SIZE = 16;
+
+    private final MappedByteBuffer buffer;
+    private final HashMap<String, Entry> entries;
+
+    private AssetArchive(MappedByteBuffer buffer,
+                         HashMap<String, Entry> entries)
+    {
+        this.buffer = buffer;
+        this.entries = entries;
+    }
+
+    /**
+     * <p>Maps the archive at the given {@code file} into memory and reads
+     * it's index.</p>
+     * @param file The path of the archive.
+     * @return The opened archive.
+     * @throws IOException if the file can't be read or isn't an archive.
+     * @throws NullPointerException if {@code file} is {@code null}.
+     */
+    public static AssetArchive open(Path file) throws IOException
+    {
+        Objects.requireNonNull(file);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file,
+                                                    StandardOpenOption.READ))
+        {
+            if (channel.size() > Integer.MAX_VALUE)
+            {
+                throw new IOException("Archive is larger than 2 GB.");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                 channel.size());
+        }
+
+        if (buffer.capacity() < HEADER_SIZE
+            || buffer.getInt(0) != MAGIC)
+        {
+            throw new IOException("Not an asset archive: " + file);
+        }
+        if (buffer.getInt(4) != VERSION)
+        {
+            throw new IOException("Unsupported archive version: "
+                                  + buffer.getInt(4));
+        }
+        long indexOffset = buffer.getLong(8);
+        if (indexOffset < HEADER_SIZE || indexOffset > buffer.capacity())
+        {
+            throw new IOException("Broken archive index: " + file);
+        }
+
+        byte[] index = new byte[buffer.capacity() - (int)indexOffset];
+        ByteBuffer indexBuffer = buffer.duplicate();
+        indexBuffer.position((int)indexOffset);
+        indexBuffer.get(index);
+        DataInputStream input = new DataInputStream(
+                new ByteArrayInputStream(index));
+        int count = input.readInt();
+        HashMap<String, Entry> entries = new HashMap<String, Entry>();
+        for (int i = 0; i < count; ++i)
+        {
+            String path = input.readUTF();
+            int width = input.readInt();
+            int height = input.readInt();
+            boolean opaque = input.readBoolean();
+            long offset = input.readLong();
+            if (width <= 0 || height <= 0 || offset < HEADER_SIZE
+                || offset + 4L * width * height > indexOffset)
+            {
+                throw new IOException("Broken archive entry: " + path);
+            }
+            entries.put(path, new Entry(width, height, opaque, (int)offset));
+        }
+        return new AssetArchive(buffer, entries);
+    }
+
+    /**
+     * <p>Returns {@code true} if the archive contains an image with the
+     * given {@code path}.</p>
+     * @param path The path of the image.
+     * @return {@code true} if the image is in the archive.
+     */
+    public boolean contains(String path)
+    {
+        return this.entries.containsKey(path);
+    }
+
+    /**
+     * <p>Returns the paths of all the images in the archive.</p>
+     * @return A read-only set of paths.
+     */
+    public Set<String> getPaths()
+    {
+        return Collections.unmodifiableSet(this.entries.keySet());
+    }
+
+    /**
+     * <p>Returns the amount of images in the archive.</p>
+     * @return The amount of images.
+     */
+    public int size()
+    {
+        return this.entries.size();
+    }
+
+    /**
+     * <p>Reads the image with the given {@code path}.</p>
+     * <p>Opaque images are {@code TYPE_INT_RGB}, the rest are {@code
+     * TYPE_INT_ARGB_PRE}.</p>
+     * @param path The path of the image.
+     * @return A new image or {@code null}, if the archive doesn't contain
+     * the image.
+     */
+    public BufferedImage readImage(String path)
+    {
+        Entry entry = this.entries.get(path);
+        if (entry == null)
+        {
+            return null;
+        }
+        BufferedImage image = new BufferedImage(
+                entry.width, entry.height,
+                entry.opaque ? BufferedImage.TYPE_INT_RGB
+                             : BufferedImage.TYPE_INT_ARGB_PRE);
+
+        // A duplicate has it's own position, so threads don't disturb each
+        // other.
+        ByteBuffer pixels = this.buffer.duplicate();
+        pixels.position(entry.offset);
+        IntBuffer ints = pixels.asIntBuffer();
+        // Rows are copied through setDataElements(), so Java2D can still
+        // keep the image in video memory.
+        int[] row = new int[entry.width];
+        for (int y = 0; y < entry.height; ++y)
+        {
+            ints.get(row);
+            image.getRaster().setDataElements(0, y, entry.width, 1, row);
+        }
+        return image;
+    }
+
+    /**
+     * <p>The place and format of an image in the archive.</p>
+     */
+    private static final class Entry
+    {
+
+        final int width;
+        final int height;
+        final boolean opaque;
+        final int offset;
+
+        Entry(int width, int height, boolean opaque, int offset)
+        {
+            this.width = width;
+            this.height = height;
+            this.opaque = opaque;
+            this.offset = offset;
+        }
+
+    }
+
+}
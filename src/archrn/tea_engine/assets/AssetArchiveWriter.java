@@ -0,0 +1,213 @@
+package archrn.tea_engine.assets;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>{@code AssetArchiveWriter} writes images into an archive read by
+ * {@code AssetArchive}.</p>
+ * <p>It's an offline tool: run it on the resource folders when building
+ * the game, so the game reads raw pixels at startup instead of decoding
+ * every image file.</p>
+ * <p>Usage: {@code AssetArchiveWriter <archive> <resource folder>...}.
+ * Every image file in the folders is added with it's path relative to
+ * the folder, starting with {@code "/"}, the same path {@code Sprite}s
+ * use for resources.</p>
+ * @author Artem
+ */
+public final class AssetArchiveWriter
+{
+
+    private final LinkedHashMap<String, BufferedImage> images;
+
+    /**
+     * <p>Initializes an empty {@code AssetArchiveWriter}.</p>
+     */
+    public AssetArchiveWriter()
+    {
+        this.images = new LinkedHashMap<String, BufferedImage>();
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: AssetArchiveWriter <archive> "
+                               + "<resource folder>...");
+            System.exit(1);
+        }
+        AssetArchiveWriter writer = new AssetArchiveWriter();
+        for (int i = 1; i < args.length; ++i)
+        {
+            writer.addFolder(Paths.get(args[i]));
+        }
+        writer.write(Paths.get(args[0]));
+        System.out.println(writer.size() + " images written to " + args[0]);
+    }
+
+    /**
+     * <p>Adds the given {@code image} with the given {@code path}.</p>
+     * @param path The path the image is requested with.
+     * @param image The image to add.
+     * @throws NullPointerException if {@code path} or {@code image} is
+     * {@code null}.
+     */
+    public void add(String path, BufferedImage image)
+    {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(image);
+        this.images.put(path, image);
+    }
+
+    /**
+     * <p>Decodes and adds all the image files in the given {@code folder}
+     * and it's subfolders.</p>
+     * <p>Files, which {@code ImageIO} can't decode, are skipped.</p>
+     * @param folder The resource folder.
+     * @throws IOException if the folder can't be read.
+     * @throws NullPointerException if {@code folder} is {@code null}.
+     */
+    public void addFolder(Path folder) throws IOException
+    {
+        Objects.requireNonNull(folder);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(folder))
+        {
+            files = walk.filter(Files::isRegularFile)
+                        .filter(AssetArchiveWriter::isImageFile)
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+        for (Path file : files)
+        {
+            BufferedImage image = ImageIO.read(file.toFile());
+            if (image == null)
+            {
+                continue;
+            }
+            String path = "/" + folder.relativize(file).toString()
+                                      .replace(file.getFileSystem()
+                                                   .getSeparator(), "/");
+            this.add(path, image);
+        }
+    }
+
+    /**
+     * <p>Returns the amount of added images.</p>
+     * @return The amount of images.
+     */
+    public int size()
+    {
+        return this.images.size();
+    }
+
+    /**
+     * <p>Writes all the added images to the archive at the given {@code
+     * file}.</p>
+     * @param file The path of the archive.
+     * @throws IOException if the archive can't be written or is larger
+     * than 2 GB.
+     * @throws NullPointerException if {@code file} is {@code null}.
+     */
+    public void write(Path file) throws IOException
+    {
+        Objects.requireNonNull(file);
+        ArrayList<Long> offsets = new ArrayList<Long>();
+        try (OutputStream stream = Files.newOutputStream(file))
+        {
+            DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(stream));
+            output.writeInt(AssetArchive.MAGIC);
+            output.writeInt(AssetArchive.VERSION);
+            long offset = AssetArchive.HEADER_SIZE;
+            for (BufferedImage image : this.images.values())
+            {
+                offsets.add(offset);
+                offset += 4L * image.getWidth() * image.getHeight();
+            }
+            if (offset > Integer.MAX_VALUE)
+            {
+                throw new IOException("Archive is larger than 2 GB.");
+            }
+            output.writeLong(offset);
+
+            for (BufferedImage image : this.images.values())
+            {
+                writePixels(output, image);
+            }
+
+            output.writeInt(this.images.size());
+            int i = 0;
+            for (Map.Entry<String, BufferedImage> entry
+                    : this.images.entrySet())
+            {
+                BufferedImage image = entry.getValue();
+                output.writeUTF(entry.getKey());
+                output.writeInt(image.getWidth());
+                output.writeInt(image.getHeight());
+                output.writeBoolean(isOpaque(image));
+                output.writeLong(offsets.get(i++));
+            }
+            output.flush();
+        }
+    }
+
+    /**
+     * <p>Writes the pixels of {@code image} as premultiplied {@code ARGB},
+     * or as {@code RGB} if it's opaque.</p>
+     */
+    private static void writePixels(DataOutputStream output,
+                                     BufferedImage image) throws IOException
+    {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage converted = new BufferedImage(
+                width, height,
+                isOpaque(image) ? BufferedImage.TYPE_INT_RGB
+                                : BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D graphics = converted.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; ++y)
+        {
+            converted.getRaster().getDataElements(0, y, width, 1, row);
+            for (int x = 0; x < width; ++x)
+            {
+                output.writeInt(row[x]);
+            }
+        }
+    }
+
+    private static boolean isOpaque(BufferedImage image)
+    {
+        return image.getTransparency() == Transparency.OPAQUE;
+    }
+
+    private static boolean isImageFile(Path file)
+    {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".png") || name.endsWith(".jpg")
+            || name.endsWith(".jpeg") || name.endsWith(".gif")
+            || name.endsWith(".bmp");
+    }
+
+}
@@ -1,8 +1,22 @@
 package archrn.tea_engine.assets;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 // TODO: Check for nulls.
 
@@ -10,6 +24,21 @@ import java.util.HashMap;
  * <p>{@code AssetManager} loads and stores assets.</p>
  * <p>It loads each asset only once instead of loading every time when it's
  * needed.</p>
+ * <p>Loaded images are converted to the format of the display, so Java2D
+ * can draw them without converting every pixel on every draw. Without a
+ * display, they are converted to premultiplied {@code
+ * TYPE_INT_ARGB_PRE}.</p>
+ * <p>Images can be loaded in the background with {@code loadImageAsync()}
+ * and {@code preload()}. They are decoded on a pool of daemon threads, one
+ * per processor. Requests for an image, which is already being loaded,
+ * share the same load. All the methods can be called from any thread.</p>
+ * <p>Images are kept through {@code ImageHandle}s. Images, which no {@code
+ * AssetScope} holds (that is, no loaded {@code Scene} uses), are dropped
+ * in least recently used order when the loaded images take more than
+ * {@code imageBudget} bytes, and loaded again when they are needed.</p>
+ * <p>Images are read from the opened {@code AssetArchive}s first, which
+ * only copies their pixels. Images missing from the archives are decoded
+ * from the classpath.</p>
  * @author Artem
  */
 public final class AssetManager
@@ -17,58 +46,660 @@ public final class AssetManager
 
     public static final AssetManager shared = new AssetManager();
 
-    private HashMap<String, BufferedImage> loadedImages;
+    private static final int PLACEHOLDER_SIZE = 16;
+    private static final int PLACEHOLDER_CELL_SIZE = 4;
+
+    /**
+     * <p>The default image memory budget: 256 MB.</p>
+     */
+    public static final long DEFAULT_IMAGE_BUDGET = 256L * 1024 * 1024;
+
+    /**
+     * <p>Handles of all the images ever requested. Guarded by {@code this},
+     * like the fields below.</p>
+     */
+    private HashMap<String, ImageHandle> images;
+
+    /**
+     * <p>Images being decoded in the background.</p>
+     */
+    private HashMap<ImageHandle, CompletableFuture<BufferedImage>>
+            pendingImages;
+
+    /**
+     * <p>Loaded images, which no {@code AssetScope} holds, the least
+     * recently used first.</p>
+     */
+    private LinkedHashSet<ImageHandle> unusedImages;
+
+    /**
+     * <p>Opened archives, searched in the order they were opened.</p>
+     */
+    private final CopyOnWriteArrayList<AssetArchive> archives;
+
+    /**
+     * <p>Called with every image dropped to fit in the budget.</p>
+     */
+    private final CopyOnWriteArrayList<Consumer<BufferedImage>>
+            evictionListeners;
+
+    private long imageBudget;
+    private long residentBytes;
+    private long evictions;
+    private long reloads;
+
+    private volatile boolean convertImages;
+    private ExecutorService decodePool;
+    private BufferedImage placeholderImage;
+
+    /**
+     * <p>The configuration of the display, which images are converted for.
+     * {@code null} if there's no display.</p>
+     */
+    private GraphicsConfiguration graphicsConfiguration;
+    private boolean graphicsConfigurationChecked;
 
     /**
      * <p>Initializes the {@code AssetManager}.</p>
      */
     private AssetManager()
     {
-        this.loadedImages = new HashMap<String, BufferedImage>();
+        this.images = new HashMap<String, ImageHandle>();
+        this.pendingImages =
+                new HashMap<ImageHandle, CompletableFuture<BufferedImage>>();
+        this.unusedImages = new LinkedHashSet<ImageHandle>();
+        this.archives = new CopyOnWriteArrayList<AssetArchive>();
+        this.evictionListeners =
+                new CopyOnWriteArrayList<Consumer<BufferedImage>>();
+        this.imageBudget = AssetManager.DEFAULT_IMAGE_BUDGET;
+        this.convertImages = true;
     }
 
     /**
      * <p>Returns the {@code Image} from the given {@code path}.</p>
      * <p>The {@code Image} is loaded once, then already existing object is
-     * returned.</p>
+     * returned. If the image is being loaded in the background, waits for
+     * it.</p>
      * @param path The path of the {@code Image}.
      * @return The {@code Image} from the given {@code path}.
      */
     public BufferedImage getImage(String path)
     {
-        if (!this.loadedImages.containsKey(path))
+        return this.getImageHandle(path).getImage();
+    }
+
+    /**
+     * <p>Returns the handle of the image at the given {@code path}. Doesn't
+     * load the image.</p>
+     * <p>There is one handle per path.</p>
+     * @param path The path of the image.
+     * @return The handle of the image.
+     */
+    public synchronized ImageHandle getImageHandle(String path)
+    {
+        ImageHandle handle = this.images.get(path);
+        if (handle == null)
         {
-            this.loadImage(path);
+            handle = new ImageHandle(path);
+            this.images.put(path, handle);
         }
-        return this.loadedImages.getOrDefault(path, null);
+        return handle;
+    }
+
+    /**
+     * <p>Starts loading the image at the given {@code path} in the
+     * background.</p>
+     * <p>Returns an already completed future if the image is loaded, and
+     * the same future for all the requests made while the image is being
+     * loaded. The future completes with {@code null} if the image can't be
+     * loaded.</p>
+     * @param path The path of the image.
+     * @return The future of the image.
+     */
+    public synchronized CompletableFuture<BufferedImage> loadImageAsync(
+            String path)
+    {
+        ImageHandle handle = this.getImageHandle(path);
+        if (handle.resident)
+        {
+            return CompletableFuture.completedFuture(handle.image);
+        }
+        CompletableFuture<BufferedImage> pending =
+                this.pendingImages.get(handle);
+        if (pending != null)
+        {
+            return pending;
+        }
+        pending = CompletableFuture.supplyAsync(
+                () -> this.decodeImage(path), this.getDecodePool());
+        this.pendingImages.put(handle, pending);
+        pending.whenComplete(
+                (image, exception) -> this.finishLoading(handle, image));
+        return pending;
+    }
+
+    /**
+     * <p>Starts loading all the images at the given {@code paths} in the
+     * background, in parallel.</p>
+     * @param paths The paths of the images.
+     * @return A future, which completes when all the images are loaded.
+     * @throws NullPointerException if {@code paths} is {@code null}.
+     */
+    public CompletableFuture<Void> preload(Collection<String> paths)
+    {
+        Objects.requireNonNull(paths);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[paths.size()];
+        int i = 0;
+        for (String path : paths)
+        {
+            futures[i++] = this.loadImageAsync(path);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * <p>Returns {@code true} if the image at the given {@code path} is
+     * loaded (or has failed to load), so {@code getImage()} won't
+     * wait.</p>
+     * @param path The path of the image.
+     * @return {@code true} if the image is loaded.
+     */
+    public synchronized boolean isImageLoaded(String path)
+    {
+        ImageHandle handle = this.images.get(path);
+        return handle != null && handle.resident;
     }
 
     /**
      * <p>Adds the given {@code image} to the {@code AssetManager}.</p>
+     * <p>The image can't be loaded again from the {@code path}, so it's
+     * never dropped.</p>
      * @param path The path of the {@code image}.
      * @param image The {@code BufferedImage} to store.
      */
-    public void addImage(String path, BufferedImage image)
+    public synchronized void addImage(String path, BufferedImage image)
+    {
+        ImageHandle handle = this.getImageHandle(path);
+        handle.pinned = true;
+        this.store(handle, image);
+    }
+
+    /**
+     * <p>Returns the memory budget of the images, which no {@code
+     * AssetScope} holds.</p>
+     * @return The budget in bytes.
+     */
+    public synchronized long getImageBudget()
+    {
+        return this.imageBudget;
+    }
+
+    /**
+     * <p>Sets the memory budget and drops the least recently used images,
+     * which no {@code AssetScope} holds, until the loaded images fit in
+     * it.</p>
+     * <p>Images held by {@code AssetScope}s are never dropped, so the
+     * loaded images can take more memory than the budget.</p>
+     * @param imageBudget The budget in bytes.
+     * @throws IllegalArgumentException if {@code imageBudget < 0}.
+     */
+    public synchronized void setImageBudget(long imageBudget)
+    {
+        if (imageBudget < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Image budget can't be negative.");
+        }
+        this.imageBudget = imageBudget;
+        this.evict();
+    }
+
+    /**
+     * <p>Returns the total size of the loaded images.</p>
+     * @return The size in bytes.
+     */
+    public synchronized long getResidentBytes()
+    {
+        return this.residentBytes;
+    }
+
+    /**
+     * <p>Returns the amount of images dropped to stay in the budget.</p>
+     * @return The amount of evictions.
+     */
+    public synchronized long getEvictions()
+    {
+        return this.evictions;
+    }
+
+    /**
+     * <p>Returns the amount of images loaded again after being
+     * dropped.</p>
+     * @return The amount of reloads.
+     */
+    public synchronized long getReloads()
+    {
+        return this.reloads;
+    }
+
+    /**
+     * <p>Adds a {@code listener}, which is called with every image dropped
+     * to fit in {@code imageBudget}, so copies made from it can be dropped
+     * too.</p>
+     * <p>It's called holding the {@code AssetManager}'s lock, so it must
+     * not wait for other locks.</p>
+     * @param listener The listener to add.
+     * @throws NullPointerException if {@code listener} is {@code null}.
+     */
+    public void addEvictionListener(Consumer<BufferedImage> listener)
+    {
+        Objects.requireNonNull(listener);
+        this.evictionListeners.add(listener);
+    }
+
+    /**
+     * <p>Removes a {@code listener} added with {@code
+     * addEvictionListener()}.</p>
+     * @param listener The listener to remove.
+     */
+    public void removeEvictionListener(Consumer<BufferedImage> listener)
+    {
+        this.evictionListeners.remove(listener);
+    }
+
+    /**
+     * <p>Returns the image shown by {@code Sprite}s while their own images
+     * are being loaded.</p>
+     * <p>By default, it's a small magenta and black checkerboard.</p>
+     * @return The placeholder image.
+     */
+    public synchronized BufferedImage getPlaceholderImage()
+    {
+        if (this.placeholderImage == null)
+        {
+            this.placeholderImage = this.createPlaceholderImage();
+        }
+        return this.placeholderImage;
+    }
+
+    /**
+     * <p>Sets the image shown by {@code Sprite}s while their own images are
+     * being loaded.</p>
+     * <p>Only affects {@code Sprite}s, which start loading after the
+     * call.</p>
+     * @param placeholderImage The new placeholder image.
+     * @throws NullPointerException if {@code placeholderImage} is {@code
+     * null}.
+     */
+    public synchronized void setPlaceholderImage(
+            BufferedImage placeholderImage)
+    {
+        Objects.requireNonNull(placeholderImage);
+        this.placeholderImage = placeholderImage;
+    }
+
+    /**
+     * <p>Opens the {@code AssetArchive} at the given {@code file} and reads
+     * images from it from now on.</p>
+     * @param file The path of the archive.
+     * @return The opened archive.
+     * @throws IOException if the archive can't be opened.
+     * @throws NullPointerException if {@code file} is {@code null}.
+     * @see AssetArchiveWriter
+     */
+    public AssetArchive openArchive(Path file) throws IOException
+    {
+        AssetArchive archive = AssetArchive.open(file);
+        this.addArchive(archive);
+        return archive;
+    }
+
+    /**
+     * <p>Reads images from the given {@code archive} from now on.</p>
+     * <p>Archives are searched in the order they were added. Images already
+     * loaded aren't read again.</p>
+     * @param archive The archive to read images from.
+     * @throws NullPointerException if {@code archive} is {@code null}.
+     */
+    public void addArchive(AssetArchive archive)
+    {
+        Objects.requireNonNull(archive);
+        this.archives.add(archive);
+    }
+
+    /**
+     * <p>Returns {@code true} if loaded images are converted to the display
+     * format.</p>
+     * @return {@code true} if images are converted.
+     */
+    public boolean isConvertImages()
+    {
+        return this.convertImages;
+    }
+
+    /**
+     * <p>Sets if loaded images should be converted to the display
+     * format.</p>
+     * <p>Only affects images loaded after the call. Enabled by
+     * default.</p>
+     * @param convertImages {@code true} to convert images.
+     */
+    public void setConvertImages(boolean convertImages)
+    {
+        this.convertImages = convertImages;
+    }
+
+    /**
+     * <p>Creates an empty image in the format, which is the fastest to draw
+     * on the display.</p>
+     * <p>Without a display, creates a {@code TYPE_INT_RGB} image for opaque
+     * images and a {@code TYPE_INT_ARGB_PRE} image otherwise.</p>
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @param transparency The transparency of the image, as in {@code
+     *                     Transparency}.
+     * @return The new image.
+     * @throws IllegalArgumentException if {@code width} or {@code height}
+     * isn't positive.
+     */
+    public BufferedImage createCompatibleImage(int width, int height,
+                                              int transparency)
+    {
+        GraphicsConfiguration configuration = this.getGraphicsConfiguration();
+        if (configuration != null)
+        {
+            return configuration.createCompatibleImage(width, height,
+                                                       transparency);
+        }
+        return new BufferedImage(width, height,
+                                 transparency == Transparency.OPAQUE
+                                 ? BufferedImage.TYPE_INT_RGB
+                                 : BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    /**
+     * <p>Returns a copy of the given {@code image} in the format, which is
+     * the fastest to draw on the display.</p>
+     * <p>Returns {@code image} itself, if it's already in that
+     * format.</p>
+     * @param image The image to convert.
+     * @return The converted image.
+     * @throws NullPointerException if {@code image} is {@code null}.
+     * @see AssetManager#createCompatibleImage(int, int, int)
+     */
+    public BufferedImage toCompatibleImage(BufferedImage image)
+    {
+        BufferedImage compatible = this.createCompatibleImage(
+                image.getWidth(), image.getHeight(), image.getTransparency());
+        if (compatible.getColorModel().equals(image.getColorModel())
+            && compatible.getType() == image.getType())
+        {
+            return image;
+        }
+        Graphics2D graphics = compatible.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return compatible;
+    }
+
+    /**
+     * <p>Returns the configuration of the default screen or {@code null}
+     * if there's no display.</p>
+     */
+    private synchronized GraphicsConfiguration getGraphicsConfiguration()
+    {
+        if (!this.graphicsConfigurationChecked)
+        {
+            this.graphicsConfigurationChecked = true;
+            if (!GraphicsEnvironment.isHeadless())
+            {
+                try {
+                    this.graphicsConfiguration = GraphicsEnvironment
+                            .getLocalGraphicsEnvironment()
+                            .getDefaultScreenDevice()
+                            .getDefaultConfiguration();
+                } catch (HeadlessException e) {
+                    this.graphicsConfiguration = null;
+                }
+            }
+        }
+        return this.graphicsConfiguration;
+    }
+
+    /**
+     * <p>Returns the pool decoding images in the background. Creates it on
+     * the first call.</p>
+     */
+    private synchronized ExecutorService getDecodePool()
+    {
+        if (this.decodePool == null)
+        {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.decodePool = Executors.newFixedThreadPool(
+                    Runtime.getRuntime().availableProcessors(),
+                    (Runnable runnable) -> {
+                        Thread thread = new Thread(
+                                runnable, "Tea Engine image decoder "
+                                          + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+        return this.decodePool;
+    }
+
+    /**
+     * <p>Loads the image of the given {@code handle} on the calling thread,
+     * or waits for it, if it's being loaded in the background.</p>
+     * <p>Called by {@code ImageHandle.getImage()}.</p>
+     */
+    BufferedImage load(ImageHandle handle)
+    {
+        CompletableFuture<BufferedImage> pending;
+        synchronized (this)
+        {
+            if (handle.resident)
+            {
+                return handle.image;
+            }
+            pending = this.pendingImages.get(handle);
+        }
+        if (pending != null)
+        {
+            return pending.join();
+        }
+        BufferedImage image = this.decodeImage(handle.getPath());
+        synchronized (this)
+        {
+            // Someone may have added the image while it was decoded.
+            if (handle.resident)
+            {
+                return handle.image;
+            }
+            this.store(handle, image);
+        }
+        return image;
+    }
+
+    /**
+     * <p>Marks the image of the given {@code handle} as the most recently
+     * used one.</p>
+     * <p>Called by {@code ImageHandle.getImage()} for images no {@code
+     * AssetScope} holds.</p>
+     */
+    synchronized void touch(ImageHandle handle)
     {
-        this.loadedImages.put(path, image);
+        if (this.unusedImages.remove(handle))
+        {
+            this.unusedImages.add(handle);
+        }
+    }
+
+    /**
+     * <p>Adds a reference to the given {@code handle}, so it's image isn't
+     * dropped.</p>
+     * <p>Called by {@code AssetScope}.</p>
+     */
+    synchronized void acquire(ImageHandle handle)
+    {
+        if (handle.referenceCount++ == 0)
+        {
+            this.unusedImages.remove(handle);
+        }
+    }
+
+    /**
+     * <p>Removes a reference from the given {@code handle}. The image can
+     * be dropped, when it has no more references.</p>
+     * <p>Called by {@code AssetScope}.</p>
+     */
+    synchronized void release(ImageHandle handle)
+    {
+        if (handle.referenceCount <= 0)
+        {
+            throw new IllegalStateException("Image isn't referenced.");
+        }
+        if (--handle.referenceCount == 0 && handle.resident && !handle.pinned)
+        {
+            this.unusedImages.add(handle);
+            this.evict();
+        }
+    }
+
+    /**
+     * <p>Stores the image loaded in the background.</p>
+     */
+    private synchronized void finishLoading(ImageHandle handle,
+                                            BufferedImage image)
+    {
+        this.pendingImages.remove(handle);
+        if (!handle.resident)
+        {
+            this.store(handle, image);
+        }
+    }
+
+    /**
+     * <p>Makes {@code image} the loaded image of the {@code handle}. Then
+     * drops the least recently used images, if the loaded images don't
+     * fit in the budget.</p>
+     */
+    private void store(ImageHandle handle, BufferedImage image)
+    {
+        if (handle.resident)
+        {
+            this.residentBytes -= handle.bytes;
+            this.unusedImages.remove(handle);
+        }
+        else if (handle.evicted)
+        {
+            handle.evicted = false;
+            ++this.reloads;
+        }
+        handle.image = image;
+        handle.bytes = imageBytes(image);
+        handle.resident = true;
+        this.residentBytes += handle.bytes;
+        if (handle.referenceCount == 0 && !handle.pinned)
+        {
+            this.unusedImages.add(handle);
+            this.evict();
+        }
+    }
+
+    /**
+     * <p>Drops the least recently used images, which no {@code AssetScope}
+     * holds, until the loaded images fit in the budget.</p>
+     */
+    private void evict()
+    {
+        Iterator<ImageHandle> iterator = this.unusedImages.iterator();
+        while (this.residentBytes > this.imageBudget && iterator.hasNext())
+        {
+            ImageHandle handle = iterator.next();
+            iterator.remove();
+            this.residentBytes -= handle.bytes;
+            BufferedImage image = handle.image;
+            handle.resident = false;
+            handle.image = null;
+            handle.bytes = 0;
+            handle.evicted = true;
+            ++this.evictions;
+            if (image != null)
+            {
+                for (Consumer<BufferedImage> listener : this.evictionListeners)
+                {
+                    listener.accept(image);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Returns the size of the pixels of {@code image} in memory.</p>
+     */
+    private static long imageBytes(BufferedImage image)
+    {
+        if (image == null)
+        {
+            return 0;
+        }
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long)buffer.getSize() * buffer.getNumBanks()
+               * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    private BufferedImage createPlaceholderImage()
+    {
+        BufferedImage image = this.createCompatibleImage(
+                PLACEHOLDER_SIZE, PLACEHOLDER_SIZE, Transparency.OPAQUE);
+        for (int x = 0; x < PLACEHOLDER_SIZE; ++x)
+        {
+            for (int y = 0; y < PLACEHOLDER_SIZE; ++y)
+            {
+                boolean even = (x / PLACEHOLDER_CELL_SIZE
+                                + y / PLACEHOLDER_CELL_SIZE) % 2 == 0;
+                image.setRGB(x, y, even ? 0xffff00ff : 0xff000000);
+            }
+        }
+        return image;
     }
 
     /**
-     * <p>Loads the {@code BufferedImage} at the given path.</p>
+     * <p>Loads the {@code BufferedImage} at the given path from an archive
+     * or from the classpath.</p>
+     * <p>Can be called from any thread.</p>
      * @param path The path to load the {@code BufferedImage}.
+     * @return The image or {@code null} if it can't be loaded.
      */
-    private void loadImage(String path)
+    private BufferedImage decodeImage(String path)
     {
         BufferedImage image = null;
         if (path != null)
         {
             try {
-                image = ImageIO.read(getClass().getResource(path));
+                for (AssetArchive archive : this.archives)
+                {
+                    image = archive.readImage(path);
+                    if (image != null)
+                    {
+                        break;
+                    }
+                }
+                if (image == null)
+                {
+                    image = ImageIO.read(getClass().getResource(path));
+                }
+                if (image != null && this.convertImages)
+                {
+                    image = this.toCompatibleImage(image);
+                }
             } catch (Exception e) {
                 image = null;
             }
         }
-        this.addImage(path, image);
+        return image;
     }
 
 }
@@ -0,0 +1,201 @@
+package archrn.tea_engine.assets;
+
+import archrn.tea_engine.Component;
+import archrn.tea_engine.Scene;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>{@code AssetManifest} is the list of image paths used by something,
+ * usually a {@code Scene}, so the images can be loaded before they are
+ * needed.</p>
+ * <p>Paths can be declared by hand or recorded from a {@code Scene} with
+ * {@code addScene()}. A manifest is saved as a UTF-8 text file with one
+ * path per line. Empty lines and lines starting with {@code #} are
+ * ignored.</p>
+ * @author Artem
+ */
+public final class AssetManifest
+{
+
+    private final LinkedHashSet<String> paths;
+
+    /**
+     * <p>Initializes an empty {@code AssetManifest}.</p>
+     */
+    public AssetManifest()
+    {
+        this.paths = new LinkedHashSet<String>();
+    }
+
+    /**
+     * <p>Reads the manifest saved at the given {@code file}.</p>
+     * @param file The path of the manifest file.
+     * @return The read manifest.
+     * @throws IOException if the file can't be read.
+     * @throws NullPointerException if {@code file} is {@code null}.
+     */
+    public static AssetManifest read(Path file) throws IOException
+    {
+        Objects.requireNonNull(file);
+        try (Reader reader = Files.newBufferedReader(file,
+                                                     StandardCharsets.UTF_8))
+        {
+            return read(reader);
+        }
+    }
+
+    /**
+     * <p>Reads the manifest saved in the classpath resource at the given
+     * {@code path}.</p>
+     * @param path The path of the resource.
+     * @return The read manifest.
+     * @throws IOException if the resource doesn't exist or can't be read.
+     * @throws NullPointerException if {@code path} is {@code null}.
+     */
+    public static AssetManifest readResource(String path) throws IOException
+    {
+        Objects.requireNonNull(path);
+        InputStream stream = AssetManifest.class.getResourceAsStream(path);
+        if (stream == null)
+        {
+            throw new IOException("Manifest not found: " + path);
+        }
+        try (Reader reader = new InputStreamReader(stream,
+                                                   StandardCharsets.UTF_8))
+        {
+            return read(reader);
+        }
+    }
+
+    /**
+     * <p>Adds the given image {@code path}.</p>
+     * @param path The path of the image.
+     * @throws NullPointerException if {@code path} is {@code null}.
+     */
+    public void add(String path)
+    {
+        Objects.requireNonNull(path);
+        this.paths.add(path);
+    }
+
+    /**
+     * <p>Adds all the given image {@code paths}.</p>
+     * @param paths The paths of the images.
+     * @throws NullPointerException if {@code paths} or any of them is
+     * {@code null}.
+     */
+    public void addAll(Collection<String> paths)
+    {
+        Objects.requireNonNull(paths);
+        for (String path : paths)
+        {
+            this.add(path);
+        }
+    }
+
+    /**
+     * <p>Records the image paths of the {@code Sprite}s currently used by
+     * the {@code SpriteRenderer}s, {@code ImageRenderer}s and {@code
+     * Animator}s of the given {@code scene}.</p>
+     * @param scene The {@code Scene} to record.
+     * @throws NullPointerException if {@code scene} is {@code null}.
+     */
+    public void addScene(Scene scene)
+    {
+        Objects.requireNonNull(scene);
+        List<Component> components = scene.getComponentsOfType(
+                Component.class);
+        for (int i = 0; i < components.size(); ++i)
+        {
+            AssetScope.forEachSprite(components.get(i), (Sprite sprite) -> {
+                if (sprite.getPath() != null)
+                {
+                    this.add(sprite.getPath());
+                }
+            });
+        }
+    }
+
+    /**
+     * <p>Returns the image paths in the order they were added.</p>
+     * @return A read-only set of paths.
+     */
+    public Set<String> getPaths()
+    {
+        return Collections.unmodifiableSet(this.paths);
+    }
+
+    /**
+     * <p>Returns the amount of image paths.</p>
+     * @return The amount of paths.
+     */
+    public int size()
+    {
+        return this.paths.size();
+    }
+
+    /**
+     * <p>Starts loading all the images of the manifest in the
+     * background.</p>
+     * <p>The images are held until {@code AssetPreload.release()}, so the
+     * {@code AssetManager} doesn't drop them before they are used.</p>
+     * @return The started preload.
+     * @see AssetManager#loadImageAsync(String)
+     */
+    public AssetPreload preload()
+    {
+        return new AssetPreload(this.paths);
+    }
+
+    /**
+     * <p>Saves the manifest to the given {@code file}.</p>
+     * @param file The path of the manifest file.
+     * @throws IOException if the file can't be written.
+     * @throws NullPointerException if {@code file} is {@code null}.
+     */
+    public void write(Path file) throws IOException
+    {
+        Objects.requireNonNull(file);
+        try (Writer writer = Files.newBufferedWriter(file,
+                                                     StandardCharsets.UTF_8))
+        {
+            for (String path : this.paths)
+            {
+                writer.write(path);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static AssetManifest read(Reader reader) throws IOException
+    {
+        AssetManifest manifest = new AssetManifest();
+        BufferedReader lines = new BufferedReader(reader);
+        for (String line = lines.readLine(); line != null;
+                line = lines.readLine())
+        {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#"))
+            {
+                manifest.add(line);
+            }
+        }
+        return manifest;
+    }
+
+}
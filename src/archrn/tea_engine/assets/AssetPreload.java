@@ -0,0 +1,114 @@
+package archrn.tea_engine.assets;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>{@code AssetPreload} is a set of images being loaded in the
+ * background, started by {@code AssetManifest.preload()}.</p>
+ * <p>It reports how many of the images are loaded, so a loading screen can
+ * show the progress. The images are held by the preload's own {@code
+ * AssetScope} until {@code release()}, so the {@code AssetManager} doesn't
+ * drop them before they are used.</p>
+ * @author Artem
+ */
+public final class AssetPreload
+{
+
+    private final int totalCount;
+    private final AtomicInteger loadedCount;
+    private final CompletableFuture<Void> future;
+    private final AssetScope scope;
+
+    /**
+     * <p>Holds and starts loading the images at the given {@code
+     * paths}.</p>
+     */
+    AssetPreload(Collection<String> paths)
+    {
+        this.totalCount = paths.size();
+        this.loadedCount = new AtomicInteger();
+        this.scope = new AssetScope();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[paths.size()];
+        int i = 0;
+        for (String path : paths)
+        {
+            this.scope.add(AssetManager.shared.getImageHandle(path));
+            futures[i++] = AssetManager.shared.loadImageAsync(path)
+                    .thenRun(this.loadedCount::incrementAndGet);
+        }
+        this.future = CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * <p>Returns the amount of images in the preload.</p>
+     * @return The amount of images.
+     */
+    public int getTotalCount()
+    {
+        return this.totalCount;
+    }
+
+    /**
+     * <p>Returns the amount of images already loaded.</p>
+     * @return The amount of loaded images.
+     */
+    public int getLoadedCount()
+    {
+        return this.loadedCount.get();
+    }
+
+    /**
+     * <p>Returns the part of the images already loaded, from 0 to 1.</p>
+     * <p>An empty preload is always complete.</p>
+     * @return The progress.
+     */
+    public float getProgress()
+    {
+        if (this.totalCount == 0)
+        {
+            return 1;
+        }
+        return (float)this.loadedCount.get() / this.totalCount;
+    }
+
+    /**
+     * <p>Returns {@code true} if all the images are loaded.</p>
+     * @return {@code true} if the preload is complete.
+     */
+    public boolean isDone()
+    {
+        return this.future.isDone();
+    }
+
+    /**
+     * <p>Returns the future, which completes when all the images are
+     * loaded.</p>
+     * @return The future of the preload.
+     */
+    public CompletableFuture<Void> getFuture()
+    {
+        return this.future;
+    }
+
+    /**
+     * <p>Waits until all the images are loaded.</p>
+     */
+    public void await()
+    {
+        this.future.join();
+    }
+
+    /**
+     * <p>Stops holding the images, so they can be dropped, if nothing else
+     * holds them. Doesn't stop the loading.</p>
+     * <p>Should be called on the same thread, which started the
+     * preload.</p>
+     */
+    public void release()
+    {
+        this.scope.releaseAll();
+    }
+
+}
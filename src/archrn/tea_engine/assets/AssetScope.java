@@ -0,0 +1,165 @@
+package archrn.tea_engine.assets;
+
+import archrn.tea_engine.Component;
+import archrn.tea_engine.Scene;
+import archrn.tea_engine.animation.Animation;
+import archrn.tea_engine.animation.Animator;
+import archrn.tea_engine.rendering.gui.ImageRenderer;
+import archrn.tea_engine.rendering.world.SpriteRenderer;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * <p>{@code AssetScope} holds references to the images used by something,
+ * usually a loaded {@code Scene}, so the {@code AssetManager} doesn't drop
+ * them.</p>
+ * <p>Each image is referenced once per scope, however many {@code
+ * Sprite}s use it. {@code releaseAll()} drops all the references, so the
+ * images no other scope holds can be dropped when the {@code
+ * AssetManager} is over it's budget.</p>
+ * @author Artem
+ */
+public final class AssetScope
+{
+
+    private final HashSet<ImageHandle> handles;
+
+    /**
+     * <p>Initializes an empty {@code AssetScope}.</p>
+     */
+    public AssetScope()
+    {
+        this.handles = new HashSet<ImageHandle>();
+    }
+
+    /**
+     * <p>Adds a reference to the image of the given {@code sprite}.</p>
+     * <p>{@code Sprite}s on {@code TextureAtlas} pages don't use an {@code
+     * AssetManager} image and are ignored.</p>
+     * @param sprite The {@code Sprite}, which image to hold.
+     * @throws NullPointerException if {@code sprite} is {@code null}.
+     */
+    public void add(Sprite sprite)
+    {
+        Objects.requireNonNull(sprite);
+        ImageHandle handle = sprite.getImageHandle();
+        if (handle != null)
+        {
+            this.add(handle);
+        }
+    }
+
+    /**
+     * <p>Adds a reference to the given {@code handle}.</p>
+     * @param handle The handle to hold.
+     * @throws NullPointerException if {@code handle} is {@code null}.
+     */
+    public void add(ImageHandle handle)
+    {
+        Objects.requireNonNull(handle);
+        if (this.handles.add(handle))
+        {
+            AssetManager.shared.acquire(handle);
+        }
+    }
+
+    /**
+     * <p>Adds references to the images of the {@code Sprite}s used by the
+     * given {@code component}, if it's a {@code SpriteRenderer}, an
+     * {@code ImageRenderer} or an {@code Animator}.</p>
+     * <p>For an {@code Animator}, these are the frames of it's current and
+     * next {@code Animation}s.</p>
+     * @param component The {@code Component} to look at.
+     * @throws NullPointerException if {@code component} is {@code null}.
+     */
+    public void addComponent(Component component)
+    {
+        Objects.requireNonNull(component);
+        forEachSprite(component, this::add);
+    }
+
+    /**
+     * <p>Adds references to the images of the {@code Sprite}s used by all
+     * the {@code Component}s of the given {@code scene}.</p>
+     * @param scene The {@code Scene} to look at.
+     * @throws NullPointerException if {@code scene} is {@code null}.
+     * @see AssetScope#addComponent(Component)
+     */
+    public void addScene(Scene scene)
+    {
+        Objects.requireNonNull(scene);
+        List<Component> components = scene.getComponentsOfType(
+                Component.class);
+        for (int i = 0; i < components.size(); ++i)
+        {
+            this.addComponent(components.get(i));
+        }
+    }
+
+    /**
+     * <p>Drops all the references of this scope.</p>
+     */
+    public void releaseAll()
+    {
+        for (ImageHandle handle : this.handles)
+        {
+            AssetManager.shared.release(handle);
+        }
+        this.handles.clear();
+    }
+
+    /**
+     * <p>Returns the amount of images held by this scope.</p>
+     * @return The amount of images.
+     */
+    public int size()
+    {
+        return this.handles.size();
+    }
+
+    /**
+     * <p>Runs {@code action} on each {@code Sprite} used by the given
+     * {@code component}, if it's a {@code SpriteRenderer}, an {@code
+     * ImageRenderer} or an {@code Animator}.</p>
+     */
+    static void forEachSprite(Component component, Consumer<Sprite> action)
+    {
+        Sprite sprite = null;
+        if (component instanceof SpriteRenderer)
+        {
+            sprite = ((SpriteRenderer)component).getSprite();
+        }
+        else if (component instanceof ImageRenderer)
+        {
+            sprite = ((ImageRenderer)component).getSprite();
+        }
+        else if (component instanceof Animator)
+        {
+            Animator animator = (Animator)component;
+            forEachFrame(animator.getAnimation(), action);
+            forEachFrame(animator.getNextAnimation(), action);
+        }
+        if (sprite != null)
+        {
+            action.accept(sprite);
+        }
+    }
+
+    private static void forEachFrame(Animation animation,
+                                     Consumer<Sprite> action)
+    {
+        for (int i = 0; animation != null
+                        && i < animation.getSpritesAmount(); ++i)
+        {
+            Sprite frame = animation.getSprite(i);
+            if (frame != null)
+            {
+                action.accept(frame);
+            }
+        }
+    }
+
+}
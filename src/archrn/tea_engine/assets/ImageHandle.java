@@ -0,0 +1,123 @@
+package archrn.tea_engine.assets;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * <p>{@code ImageHandle} is the {@code AssetManager}'s entry for the image
+ * at a path.</p>
+ * <p>{@code Sprite}s and {@code SpriteSheet}s keep handles instead of the
+ * images themselves, so the {@code AssetManager} can drop an image nobody
+ * needs and load it again when it's needed.</p>
+ * <p>The handle counts the {@code AssetScope}s, which hold it. While the
+ * count is above zero, the image is never dropped. Images added with
+ * {@code AssetManager.addImage()} can't be loaded again, so they are never
+ * dropped either.</p>
+ * @author Artem
+ */
+public final class ImageHandle
+{
+
+    private final String path;
+
+    /**
+     * <p>The image, or {@code null} if it isn't loaded or failed to
+     * load.</p>
+     */
+    volatile BufferedImage image;
+
+    /**
+     * <p>{@code true} if the image is in memory or has failed to load.
+     * Guarded by the {@code AssetManager}, like the fields below.</p>
+     */
+    volatile boolean resident;
+
+    /**
+     * <p>The amount of {@code AssetScope}s holding the handle.</p>
+     */
+    volatile int referenceCount;
+
+    /**
+     * <p>The size of the image in memory in bytes.</p>
+     */
+    long bytes;
+
+    /**
+     * <p>{@code true} if the image was added with {@code addImage()} and
+     * can't be dropped.</p>
+     */
+    boolean pinned;
+
+    /**
+     * <p>{@code true} if the image was dropped, so the next load is a
+     * reload.</p>
+     */
+    boolean evicted;
+
+    ImageHandle(String path)
+    {
+        this.path = path;
+    }
+
+    /**
+     * <p>Returns the path of the image.</p>
+     * @return The path of the image.
+     */
+    public String getPath()
+    {
+        return this.path;
+    }
+
+    /**
+     * <p>Returns the image, loading it if it isn't in memory.</p>
+     * @return The image or {@code null} if it can't be loaded.
+     */
+    public BufferedImage getImage()
+    {
+        // Without the image, the AssetManager loads it, or tells it has
+        // failed to load, under it's lock.
+        BufferedImage image = this.getLoadedImage();
+        if (image == null)
+        {
+            return AssetManager.shared.load(this);
+        }
+        return image;
+    }
+
+    /**
+     * <p>Returns {@code true} if the image is in memory (or has failed to
+     * load), so {@code getImage()} won't load it.</p>
+     * @return {@code true} if the image is loaded.
+     */
+    public boolean isLoaded()
+    {
+        return this.resident;
+    }
+
+    /**
+     * <p>Returns the image if it's in memory, without loading it.</p>
+     * <p>Used by {@code Sprite}, which loads a dropped image in the
+     * background instead.</p>
+     * @return The image or {@code null} if it isn't loaded.
+     */
+    BufferedImage getLoadedImage()
+    {
+        // Read once: the image can be dropped at any moment.
+        BufferedImage image = this.image;
+        if (image != null && this.referenceCount == 0)
+        {
+            AssetManager.shared.touch(this);
+        }
+        return image;
+    }
+
+    /**
+     * <p>Returns the amount of {@code AssetScope}s holding this
+     * handle.</p>
+     * @return The reference count.
+     */
+    public int getReferenceCount()
+    {
+        return this.referenceCount;
+    }
+
+}
@@ -4,17 +4,38 @@ import archrn.tea_engine.geometry.Vector2;
 import archrn.tea_engine.math.MathF;
 
 import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 // TODO: Check path for null.
 
 /**
  * <p>{@code Sprite} represents an Image in the game world in world
  * coordinates.</p>
+ * <p>A {@code Sprite} can be a region of a bigger image, like a cell of a
+ * {@code SpriteSheet} or a place on a {@code TextureAtlas} page. Then only
+ * the region is drawn.</p>
+ * <p>A {@code Sprite} can load it's image in the background. Until the
+ * image arrives, the {@code Sprite} shows {@code
+ * AssetManager.getPlaceholderImage()}. The image is picked up by the first
+ * getter called after it's loaded, so the {@code Sprite} changes only on
+ * the thread using it.</p>
+ * <p>If the {@code AssetManager} has dropped the image, {@code getImage()}
+ * loads it again in the background too. Meanwhile the placeholder is
+ * stretched over the {@code Sprite}'s size, so drawing never waits for an
+ * image to be decoded.</p>
  * @author Artem
  */
 public class Sprite
 {
 
+    /**
+     * <p>Counts the changes of the image, region or size of existing
+     * {@code Sprite}s.</p>
+     */
+    private static final AtomicLong changeCount = new AtomicLong();
+
     /**
      * <p>Amount of pixels of the {@code Sprite} in 1 world unit.</p>
      * <p>For example, if {@code pixelsPerUnit} equals 64, then a 32x48
@@ -23,8 +44,41 @@ public class Sprite
     private int pixelsPerUnit;
 
     private String path;
+
+    /**
+     * <p>The handle of the image at {@code path}. {@code null} if the
+     * {@code Sprite} shows a {@code TextureAtlas} page.</p>
+     */
+    private ImageHandle handle;
+
+    /**
+     * <p>The image shown instead of the handle's one: a {@code
+     * TextureAtlas} page or the placeholder, while the image is being
+     * loaded.</p>
+     */
     private BufferedImage image;
 
+    /**
+     * <p>The region of {@code image} shown by the {@code Sprite} in
+     * pixels.</p>
+     */
+    private int regionX;
+    private int regionY;
+    private int regionWidth;
+    private int regionHeight;
+
+    /**
+     * <p>The image being loaded in the background or {@code null}.</p>
+     */
+    private CompletableFuture<BufferedImage> pendingImage;
+
+    /**
+     * <p>{@code true} if {@code pendingImage} loads a dropped image again.
+     * Then the region and size are kept for it and the placeholder is shown
+     * whole.</p>
+     */
+    private boolean reloading;
+
     /**
      * <p>The size of the {@code Sprite} in world units.</p>
      * <p>It is the size of the image divided by {@code pixelsPerUnit}.</p>
@@ -43,7 +97,56 @@ public class Sprite
     public Sprite(String path)
     {
         this.pixelsPerUnit = 64;
-        this.setPath(path);
+        this.applyPath(path);
+    }
+
+    /**
+     * <p>Initializes the {@code Sprite} with the given image {@code path}
+     * and loads the image in the background, if {@code async} is {@code
+     * true}.</p>
+     * @param path The path of the image represented by this {@code Sprite}.
+     * @param async {@code true} to show a placeholder until the image is
+     *              loaded in the background.
+     * @see Sprite#setPathAsync(String)
+     */
+    public Sprite(String path, boolean async)
+    {
+        this.pixelsPerUnit = 64;
+        if (async)
+        {
+            this.applyPathAsync(path);
+        }
+        else
+        {
+            this.applyPath(path);
+        }
+    }
+
+    /**
+     * <p>Initializes the {@code Sprite} with a region of the image at the
+     * given {@code path}.</p>
+     * @param path The path of the image containing this {@code Sprite}.
+     * @param x The left edge of the region in pixels.
+     * @param y The top edge of the region in pixels.
+     * @param width The width of the region in pixels.
+     * @param height The height of the region in pixels.
+     * @throws IllegalArgumentException if the region doesn't lie inside the
+     * image.
+     */
+    public Sprite(String path, int x, int y, int width, int height)
+    {
+        this.pixelsPerUnit = 64;
+        this.path = path;
+        this.handle = AssetManager.shared.getImageHandle(this.path);
+        BufferedImage image = this.handle.getImage();
+        if (image != null)
+        {
+            this.applyRegion(image, x, y, width, height);
+        }
+        else
+        {
+            this.updateSize();
+        }
     }
 
     /**
@@ -61,9 +164,46 @@ public class Sprite
      */
     public void setPath(String path)
     {
-        this.path = path;
-        this.image = AssetManager.shared.getImage(this.path);
-        this.updateSize();
+        this.applyPath(path);
+        changeCount.incrementAndGet();
+    }
+
+    /**
+     * <p>Sets the path of the image represented by this {@code Sprite} and
+     * loads the image in the background.</p>
+     * <p>Until the image is loaded, the {@code Sprite} shows the
+     * placeholder image and has it's size.</p>
+     * @param path The new path of the image.
+     * @see AssetManager#loadImageAsync(String)
+     */
+    public void setPathAsync(String path)
+    {
+        this.applyPathAsync(path);
+        changeCount.incrementAndGet();
+    }
+
+    /**
+     * <p>Returns {@code true} if the {@code Sprite}'s image is still being
+     * loaded in the background, so the placeholder is shown.</p>
+     * @return {@code true} if the image is being loaded.
+     */
+    public boolean isLoading()
+    {
+        this.resolvePendingImage();
+        return this.pendingImage != null;
+    }
+
+    /**
+     * <p>Returns the amount of times the image, region or size of an
+     * existing {@code Sprite} has changed through it's setters.</p>
+     * <p>Images drawn from {@code Sprite}s, like the ones of the {@code
+     * StaticLayerCache}, are out of date when it changes. Loading an image
+     * in the background isn't counted, see {@code isLoading()}.</p>
+     * @return The amount of changes of all the {@code Sprite}s.
+     */
+    public static long getChangeCount()
+    {
+        return changeCount.get();
     }
 
     /**
@@ -85,43 +225,223 @@ public class Sprite
         MathF.requireLargerThanZero(pixelsPerUnit);
         this.pixelsPerUnit = pixelsPerUnit;
         this.updateSize();
+        changeCount.incrementAndGet();
     }
 
     /**
-     * <p>Returns the image represented by this {@code Sprite}.</p>
-     * <p>Can be null.</p>
-     * @return The image represented by this {@code Sprite}.
+     * <p>Returns the image containing this {@code Sprite}.</p>
+     * <p>Can be null. The {@code Sprite} may be only a region of the image,
+     * see {@code getRegionX()}.</p>
+     * @return The image containing this {@code Sprite}.
      */
     public BufferedImage getImage()
     {
+        this.resolvePendingImage();
+        if (this.reloading && this.pendingImage.isDone())
+        {
+            this.pendingImage = null;
+            this.image = null;
+            this.reloading = false;
+        }
+        if (this.handle != null && this.pendingImage == null)
+        {
+            BufferedImage image = this.handle.getLoadedImage();
+            if (image != null || this.handle.isLoaded())
+            {
+                return image;
+            }
+            this.reload();
+        }
         return this.image;
     }
 
+    /**
+     * <p>Returns the left edge of the {@code Sprite}'s region of the image
+     * in pixels.</p>
+     * @return The left edge of the region.
+     */
+    public int getRegionX()
+    {
+        this.resolvePendingImage();
+        return this.reloading ? 0 : this.regionX;
+    }
+
+    /**
+     * <p>Returns the top edge of the {@code Sprite}'s region of the image
+     * in pixels.</p>
+     * @return The top edge of the region.
+     */
+    public int getRegionY()
+    {
+        this.resolvePendingImage();
+        return this.reloading ? 0 : this.regionY;
+    }
+
+    /**
+     * <p>Returns the width of the {@code Sprite}'s region of the image in
+     * pixels.</p>
+     * @return The width of the region.
+     */
+    public int getRegionWidth()
+    {
+        this.resolvePendingImage();
+        return this.reloading ? this.image.getWidth() : this.regionWidth;
+    }
+
+    /**
+     * <p>Returns the height of the {@code Sprite}'s region of the image in
+     * pixels.</p>
+     * @return The height of the region.
+     */
+    public int getRegionHeight()
+    {
+        this.resolvePendingImage();
+        return this.reloading ? this.image.getHeight() : this.regionHeight;
+    }
+
+    /**
+     * <p>Makes the {@code Sprite} show the given region of {@code image}.
+     * Keeps the {@code path}.</p>
+     * <p>Used by {@code TextureAtlas} to move the {@code Sprite} to an atlas
+     * page.</p>
+     * @throws NullPointerException if {@code image} is {@code null}.
+     * @throws IllegalArgumentException if the region doesn't lie inside the
+     * image.
+     */
+    void setRegion(BufferedImage image, int x, int y, int width, int height)
+    {
+        Objects.requireNonNull(image);
+        this.applyRegion(image, x, y, width, height);
+        this.handle = null;
+        this.pendingImage = null;
+        this.reloading = false;
+        this.image = image;
+        changeCount.incrementAndGet();
+    }
+
+    /**
+     * <p>Returns the handle of the {@code Sprite}'s image or {@code null},
+     * if it shows a {@code TextureAtlas} page.</p>
+     * <p>Used by {@code AssetScope}.</p>
+     */
+    ImageHandle getImageHandle()
+    {
+        return this.handle;
+    }
+
     /**
      * <p>Returns the size of the {@code Sprite} in world units.</p>
      * @return The size of the {@code Sprite} in world units.
      */
     public Vector2 getSize()
     {
+        this.resolvePendingImage();
         return this.size;
     }
 
     /**
-     * <p>Recalculates the size of the {@code Sprite}.</p>
-     * <p>Called after changing {@code path} or {@code pixelsPerUnit}.</p>
+     * <p>Makes the {@code Sprite} show the image at {@code path}.</p>
      */
-    private void updateSize()
+    private void applyPath(String path)
+    {
+        this.path = path;
+        this.pendingImage = null;
+        this.reloading = false;
+        this.image = null;
+        this.handle = AssetManager.shared.getImageHandle(this.path);
+        this.resetRegion(this.handle.getImage());
+        this.updateSize();
+    }
+
+    /**
+     * <p>Makes the {@code Sprite} show the placeholder, until the image at
+     * {@code path} is loaded in the background.</p>
+     */
+    private void applyPathAsync(String path)
     {
-        if (this.image != null)
+        this.path = path;
+        this.handle = AssetManager.shared.getImageHandle(this.path);
+        this.pendingImage = AssetManager.shared.loadImageAsync(this.path);
+        this.reloading = false;
+        this.image = AssetManager.shared.getPlaceholderImage();
+        this.resetRegion(this.image);
+        this.updateSize();
+        this.resolvePendingImage();
+    }
+
+    /**
+     * <p>Shows the placeholder, until the dropped image is loaded again in
+     * the background. The region and size stay the same.</p>
+     */
+    private void reload()
+    {
+        this.pendingImage = AssetManager.shared.loadImageAsync(this.path);
+        this.reloading = true;
+        this.image = AssetManager.shared.getPlaceholderImage();
+    }
+
+    /**
+     * <p>Switches from the placeholder to the loaded image, if it has
+     * arrived.</p>
+     * <p>A reloaded image is picked up only by {@code getImage()}, so a
+     * draw never gets the placeholder with the image's region.</p>
+     */
+    private void resolvePendingImage()
+    {
+        if (this.pendingImage == null || this.reloading
+            || !this.pendingImage.isDone())
         {
-            this.size = new Vector2((float)this.image.getWidth(),
-                                    (float)this.image.getHeight());
-            this.size.divide(this.pixelsPerUnit);
+            return;
         }
-        else
+        this.pendingImage = null;
+        this.image = null;
+        this.resetRegion(this.handle.getImage());
+        this.updateSize();
+    }
+
+    /**
+     * <p>Checks the region against {@code image} and makes it the region of
+     * the {@code Sprite}.</p>
+     * @throws IllegalArgumentException if the region doesn't lie inside the
+     * image.
+     */
+    private void applyRegion(BufferedImage image, int x, int y,
+                             int width, int height)
+    {
+        if (x < 0 || y < 0 || width <= 0 || height <= 0
+            || x + width > image.getWidth() || y + height > image.getHeight())
         {
-            this.size = Vector2.zero();
+            throw new IllegalArgumentException(
+                    "Region must lie inside the image.");
         }
+        this.regionX = x;
+        this.regionY = y;
+        this.regionWidth = width;
+        this.regionHeight = height;
+        this.updateSize();
+    }
+
+    /**
+     * <p>Makes the region cover the whole {@code image}.</p>
+     */
+    private void resetRegion(BufferedImage image)
+    {
+        this.regionX = 0;
+        this.regionY = 0;
+        this.regionWidth = image != null ? image.getWidth() : 0;
+        this.regionHeight = image != null ? image.getHeight() : 0;
+    }
+
+    /**
+     * <p>Recalculates the size of the {@code Sprite}.</p>
+     * <p>Called after changing {@code path} or {@code pixelsPerUnit}.</p>
+     */
+    private void updateSize()
+    {
+        // The region is empty if there's no image.
+        this.size = new Vector2((float)this.regionWidth,
+                                (float)this.regionHeight);
+        this.size.divide(this.pixelsPerUnit);
     }
 
 }
@@ -18,7 +18,7 @@ public class SpriteSheet
 
     private int pixelsPerUnit;
     private String path;
-    private BufferedImage image;
+    private ImageHandle handle;
     private ArrayList<Sprite> sprites;
 
     /**
@@ -44,7 +44,16 @@ public class SpriteSheet
     {
         Objects.requireNonNull(path);
         this.path = path;
-        this.image = AssetManager.shared.getImage(this.path);
+        this.handle = AssetManager.shared.getImageHandle(this.path);
+    }
+
+    /**
+     * <p>Returns the handle of the {@code SpriteSheet}'s image.</p>
+     * @return The handle of the image.
+     */
+    public ImageHandle getImageHandle()
+    {
+        return this.handle;
     }
 
     /**
@@ -72,6 +81,8 @@ public class SpriteSheet
     /**
      * <p>Splits the {@code SpriteSheet}'s {@code Image} into several {@code
      * Sprite}s based on the given {@code cellSize}.</p>
+     * <p>The {@code Sprite}s are regions of the {@code SpriteSheet}'s image,
+     * so no image is copied.</p>
      * <p>If {@code SpriteSheet}'s image is {@code null}, clears {@code
      * Sprite}s.</p>
      * @param cellSize The size of a cell to split the {@code SpriteSheet}'s
@@ -81,20 +92,18 @@ public class SpriteSheet
     public void splitByCellSize(Vector2Int cellSize)
     {
         Objects.requireNonNull(cellSize);
-        if (this.image == null)
+        BufferedImage image = this.handle.getImage();
+        if (image == null)
         {
             return;
         }
         this.sprites.clear();
-        for (int x = 0; x <= this.image.getWidth() - cellSize.x; x += cellSize.x)
+        for (int x = 0; x <= image.getWidth() - cellSize.x; x += cellSize.x)
         {
-            for (int y = 0; y <= this.image.getHeight() - cellSize.y; y += cellSize.y)
+            for (int y = 0; y <= image.getHeight() - cellSize.y; y += cellSize.y)
             {
-                BufferedImage newImage = this.image.getSubimage(
-                        x, y, cellSize.x, cellSize.y);
-                String newImagePath = this.path + "/" + this.sprites.size();
-                AssetManager.shared.addImage(newImagePath, newImage);
-                Sprite newSprite = new Sprite(newImagePath);
+                Sprite newSprite = new Sprite(this.path, x, y,
+                                              cellSize.x, cellSize.y);
                 newSprite.setPixelsPerUnit(this.pixelsPerUnit);
                 this.sprites.add(newSprite);
             }
@@ -0,0 +1,483 @@
+package archrn.tea_engine.assets;
+
+import archrn.tea_engine.Component;
+import archrn.tea_engine.Scene;
+import archrn.tea_engine.animation.Animation;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>{@code TextureAtlas} packs the images of many {@code Sprite}s into a
+ * few large pages.</p>
+ * <p>{@code Sprite}s are added with {@code add()} and packed with {@code
+ * pack()}. After packing, each {@code Sprite} shows a region of a page
+ * instead of it's own image, so drawing a scene switches between a few
+ * images instead of one image per {@code Sprite}. {@code Sprite}s showing
+ * the same pixels share one region.</p>
+ * <p>Pages are filled with a skyline packer: the top edge of the used area
+ * of a page is kept as a list of horizontal segments, and each region is
+ * placed as high as possible, then as far left as possible.</p>
+ * @author Artem
+ */
+public final class TextureAtlas
+{
+
+    /**
+     * <p>The default width and height of a page in pixels.</p>
+     */
+    public static final int DEFAULT_PAGE_SIZE = 2048;
+
+    /**
+     * <p>The default amount of transparent pixels between regions.</p>
+     */
+    public static final int DEFAULT_PADDING = 1;
+
+    private final int pageWidth;
+    private final int pageHeight;
+    private final int padding;
+    private final LinkedHashSet<Sprite> sprites;
+    private final ArrayList<BufferedImage> pages;
+
+    /**
+     * <p>Initializes an empty {@code TextureAtlas} with the default page
+     * size and padding.</p>
+     */
+    public TextureAtlas()
+    {
+        this(TextureAtlas.DEFAULT_PAGE_SIZE, TextureAtlas.DEFAULT_PAGE_SIZE,
+             TextureAtlas.DEFAULT_PADDING);
+    }
+
+    /**
+     * <p>Initializes an empty {@code TextureAtlas} with the given page size
+     * and padding.</p>
+     * @param pageWidth The width of a page in pixels.
+     * @param pageHeight The height of a page in pixels.
+     * @param padding The amount of transparent pixels between regions, so
+     *                scaled {@code Sprite}s don't bleed into each other.
+     * @throws IllegalArgumentException if {@code pageWidth <= 0} or {@code
+     * pageHeight <= 0} or {@code padding < 0}.
+     */
+    public TextureAtlas(int pageWidth, int pageHeight, int padding)
+    {
+        if (pageWidth <= 0 || pageHeight <= 0)
+        {
+            throw new IllegalArgumentException("Page size must be positive.");
+        }
+        if (padding < 0)
+        {
+            throw new IllegalArgumentException("Padding can't be negative.");
+        }
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.padding = padding;
+        this.sprites = new LinkedHashSet<Sprite>();
+        this.pages = new ArrayList<BufferedImage>();
+    }
+
+    /**
+     * <p>Adds the given {@code sprite} to be packed by the next {@code
+     * pack()}.</p>
+     * @param sprite The {@code Sprite} to add.
+     * @throws NullPointerException if {@code sprite} is {@code null}.
+     */
+    public void add(Sprite sprite)
+    {
+        Objects.requireNonNull(sprite);
+        this.sprites.add(sprite);
+    }
+
+    /**
+     * <p>Adds all the given {@code sprites} to be packed by the next {@code
+     * pack()}.</p>
+     * @param sprites The {@code Sprite}s to add.
+     * @throws NullPointerException if {@code sprites} or any of them is
+     * {@code null}.
+     */
+    public void addAll(Collection<Sprite> sprites)
+    {
+        Objects.requireNonNull(sprites);
+        for (Sprite sprite : sprites)
+        {
+            this.add(sprite);
+        }
+    }
+
+    /**
+     * <p>Adds all the frames of the given {@code animation}.</p>
+     * @param animation The {@code Animation} to add.
+     * @throws NullPointerException if {@code animation} is {@code null}.
+     */
+    public void addAnimation(Animation animation)
+    {
+        Objects.requireNonNull(animation);
+        for (int i = 0; i < animation.getSpritesAmount(); ++i)
+        {
+            this.add(animation.getSprite(i));
+        }
+    }
+
+    /**
+     * <p>Adds the {@code Sprite}s currently used by the {@code
+     * SpriteRenderer}s, {@code ImageRenderer}s and {@code Animator}s of the
+     * given {@code scene}.</p>
+     * @param scene The {@code Scene} to collect the {@code Sprite}s from.
+     * @throws NullPointerException if {@code scene} is {@code null}.
+     */
+    public void addScene(Scene scene)
+    {
+        Objects.requireNonNull(scene);
+        List<Component> components = scene.getComponentsOfType(
+                Component.class);
+        for (int i = 0; i < components.size(); ++i)
+        {
+            AssetScope.forEachSprite(components.get(i), this::add);
+        }
+    }
+
+    /**
+     * <p>Packs the {@code Sprite}s added since the last {@code pack()} into
+     * new pages and moves them to their regions of the pages.</p>
+     * <p>{@code Sprite}s without an image, ones still loading their image
+     * and ones too large for a page are left as they are.</p>
+     * @return The amount of {@code Sprite}s moved to the pages.
+     */
+    public int pack()
+    {
+        ArrayList<Sprite> packable = new ArrayList<Sprite>();
+        for (Sprite sprite : this.sprites)
+        {
+            if (sprite.getImage() != null
+                && !sprite.isLoading()
+                && !this.pages.contains(sprite.getImage())
+                && this.fits(sprite.getRegionWidth(),
+                             sprite.getRegionHeight()))
+            {
+                packable.add(sprite);
+            }
+        }
+        this.sprites.clear();
+
+        // Tall regions first leave a flatter skyline.
+        Collections.sort(packable, new Comparator<Sprite>()
+        {
+            @Override
+            public int compare(Sprite a, Sprite b)
+            {
+                if (a.getRegionHeight() != b.getRegionHeight())
+                {
+                    return b.getRegionHeight() - a.getRegionHeight();
+                }
+                return b.getRegionWidth() - a.getRegionWidth();
+            }
+        });
+
+        ArrayList<Skyline> skylines = new ArrayList<Skyline>();
+        ArrayList<Graphics2D> graphics = new ArrayList<Graphics2D>();
+        HashMap<Region, Region> placed = new HashMap<Region, Region>();
+        for (int i = 0; i < packable.size(); ++i)
+        {
+            Sprite sprite = packable.get(i);
+            Region source = new Region(sprite.getImage(),
+                                       sprite.getRegionX(),
+                                       sprite.getRegionY(),
+                                       sprite.getRegionWidth(),
+                                       sprite.getRegionHeight());
+            Region target = placed.get(source);
+            if (target == null)
+            {
+                target = this.place(source, skylines, graphics);
+                placed.put(source, target);
+            }
+            sprite.setRegion(target.image, target.x, target.y,
+                             target.width, target.height);
+        }
+        for (int i = 0; i < graphics.size(); ++i)
+        {
+            graphics.get(i).dispose();
+        }
+        return packable.size();
+    }
+
+    /**
+     * <p>Returns the amount of pages made by all the {@code pack()}
+     * calls.</p>
+     * @return The amount of pages.
+     */
+    public int getPageCount()
+    {
+        return this.pages.size();
+    }
+
+    /**
+     * <p>Returns the page at the given {@code index}.</p>
+     * @param index The index of the page.
+     * @return The page image.
+     * @throws IndexOutOfBoundsException if {@code index} is out of range.
+     */
+    public BufferedImage getPage(int index)
+    {
+        return this.pages.get(index);
+    }
+
+    /**
+     * <p>Returns the width of a page in pixels.</p>
+     * @return The width of a page.
+     */
+    public int getPageWidth()
+    {
+        return this.pageWidth;
+    }
+
+    /**
+     * <p>Returns the height of a page in pixels.</p>
+     * @return The height of a page.
+     */
+    public int getPageHeight()
+    {
+        return this.pageHeight;
+    }
+
+    /**
+     * <p>Returns the amount of transparent pixels between regions.</p>
+     * @return The padding in pixels.
+     */
+    public int getPadding()
+    {
+        return this.padding;
+    }
+
+    private boolean fits(int width, int height)
+    {
+        return width + this.padding <= this.pageWidth
+            && height + this.padding <= this.pageHeight;
+    }
+
+    /**
+     * <p>Finds a place for the {@code source} region on the pages of this
+     * {@code pack()}, making a new page if none has one, and copies the
+     * pixels there.</p>
+     */
+    private Region place(Region source, ArrayList<Skyline> skylines,
+                         ArrayList<Graphics2D> graphics)
+    {
+        int width = source.width + this.padding;
+        int height = source.height + this.padding;
+        int page = 0;
+        int position = -1;
+        for (; page < skylines.size(); ++page)
+        {
+            position = skylines.get(page).find(width, height);
+            if (position >= 0)
+            {
+                break;
+            }
+        }
+        if (position < 0)
+        {
+            BufferedImage image = AssetManager.shared.createCompatibleImage(
+                    this.pageWidth, this.pageHeight, Transparency.TRANSLUCENT);
+            Graphics2D pageGraphics = image.createGraphics();
+            pageGraphics.setComposite(AlphaComposite.Src);
+            this.pages.add(image);
+            skylines.add(new Skyline(image, this.pageWidth, this.pageHeight));
+            graphics.add(pageGraphics);
+            page = skylines.size() - 1;
+            position = skylines.get(page).find(width, height);
+        }
+
+        Skyline skyline = skylines.get(page);
+        int x = skyline.x(position);
+        int y = skyline.insert(position, width, height);
+        graphics.get(page).drawImage(source.image,
+                                     x, y,
+                                     x + source.width, y + source.height,
+                                     source.x, source.y,
+                                     source.x + source.width,
+                                     source.y + source.height, null);
+        return new Region(skyline.image, x, y, source.width, source.height);
+    }
+
+    /**
+     * <p>A rectangle of pixels on an image.</p>
+     */
+    private static final class Region
+    {
+
+        final BufferedImage image;
+        final int x;
+        final int y;
+        final int width;
+        final int height;
+
+        Region(BufferedImage image, int x, int y, int width, int height)
+        {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (!(other instanceof Region))
+            {
+                return false;
+            }
+            Region region = (Region)other;
+            return this.image == region.image
+                && this.x == region.x
+                && this.y == region.y
+                && this.width == region.width
+                && this.height == region.height;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int hash = System.identityHashCode(this.image);
+            hash = 31 * hash + this.x;
+            hash = 31 * hash + this.y;
+            hash = 31 * hash + this.width;
+            return 31 * hash + this.height;
+        }
+
+    }
+
+    /**
+     * <p>The top edge of the used area of a page.</p>
+     * <p>Stored as segments sorted by {@code x}, which together cover the
+     * whole width of the page. The rows of a segment above it's {@code y}
+     * are used.</p>
+     */
+    private static final class Skyline
+    {
+
+        final BufferedImage image;
+        private final int width;
+        private final int height;
+        private final ArrayList<int[]> segments;
+
+        Skyline(BufferedImage image, int width, int height)
+        {
+            this.image = image;
+            this.width = width;
+            this.height = height;
+            this.segments = new ArrayList<int[]>();
+            // {x, y, width}
+            this.segments.add(new int[] {0, 0, width});
+        }
+
+        int x(int segment)
+        {
+            return this.segments.get(segment)[0];
+        }
+
+        /**
+         * <p>Finds the segment to put a {@code width} x {@code height}
+         * rectangle on, with the lowest resulting top edge.</p>
+         * @return The index of the segment or {@code -1}, if the rectangle
+         * doesn't fit.
+         */
+        int find(int width, int height)
+        {
+            int best = -1;
+            int bestY = Integer.MAX_VALUE;
+            int bestX = Integer.MAX_VALUE;
+            for (int i = 0; i < this.segments.size(); ++i)
+            {
+                int y = this.fitY(i, width);
+                if (y >= 0 && y + height <= this.height
+                    && (y < bestY || (y == bestY && this.x(i) < bestX)))
+                {
+                    best = i;
+                    bestY = y;
+                    bestX = this.x(i);
+                }
+            }
+            return best;
+        }
+
+        /**
+         * <p>Puts a {@code width} x {@code height} rectangle on the given
+         * segment and raises the skyline under it.</p>
+         * @return The top edge of the placed rectangle.
+         */
+        int insert(int segment, int width, int height)
+        {
+            int x = this.x(segment);
+            int y = this.fitY(segment, width);
+            int right = x + width;
+
+            int i = segment;
+            while (i < this.segments.size()
+                   && this.segments.get(i)[0] < right)
+            {
+                int[] current = this.segments.get(i);
+                int currentRight = current[0] + current[2];
+                if (currentRight <= right)
+                {
+                    this.segments.remove(i);
+                }
+                else
+                {
+                    current[2] = currentRight - right;
+                    current[0] = right;
+                    break;
+                }
+            }
+            this.segments.add(segment, new int[] {x, y + height, width});
+
+            for (int j = this.segments.size() - 1; j > 0; --j)
+            {
+                int[] previous = this.segments.get(j - 1);
+                int[] current = this.segments.get(j);
+                if (previous[1] == current[1])
+                {
+                    previous[2] += current[2];
+                    this.segments.remove(j);
+                }
+            }
+            return y;
+        }
+
+        /**
+         * <p>Returns the top edge of a {@code width} wide rectangle put on
+         * the given segment, or {@code -1}, if it sticks out of the
+         * page.</p>
+         */
+        private int fitY(int segment, int width)
+        {
+            int x = this.x(segment);
+            if (x + width > this.width)
+            {
+                return -1;
+            }
+            int right = x + width;
+            int y = 0;
+            for (int i = segment; i < this.segments.size(); ++i)
+            {
+                int[] current = this.segments.get(i);
+                if (current[0] >= right)
+                {
+                    break;
+                }
+                y = Math.max(y, current[1]);
+            }
+            return y;
+        }
+
+    }
+
+}
@@ -0,0 +1,275 @@
+package archrn.tea_engine.benchmarks;
+
+import archrn.tea_engine.assets.AssetManager;
+import archrn.tea_engine.assets.Sprite;
+import archrn.tea_engine.geometry.Vector2;
+import archrn.tea_engine.geometry.Vector2Int;
+import archrn.tea_engine.rendering.RendererGraphics;
+import archrn.tea_engine.rendering.SpriteScaleCache;
+import archrn.tea_engine.rendering.WorldScreenConverter;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.util.Random;
+
+/**
+ * <p>{@code BlitBenchmark} measures how fast sprites in different image
+ * formats are drawn through the engine's sprite drawing paths.</p>
+ * <p>Each sprite image is drawn in the format {@code ImageIO} usually
+ * returns for PNGs ({@code TYPE_4BYTE_ABGR} and {@code
+ * TYPE_BYTE_INDEXED}) and after {@code AssetManager.toCompatibleImage()}.
+ * The paths are a 1:1 screen space draw, a scaled world draw and a flipped
+ * world draw, with and without a {@code SpriteScaleCache}.</p>
+ * <p>Without a display, the images are drawn to a {@code TYPE_INT_RGB}
+ * back buffer.</p>
+ * <p>Usage: {@code BlitBenchmark [draws]}.</p>
+ * @author Artem
+ */
+public final class BlitBenchmark
+{
+
+    private static final int SPRITE_SIZE = 64;
+    private static final int WARMUP_PASSES = 3;
+    private static final int BUFFER_WIDTH = 1280;
+    private static final int BUFFER_HEIGHT = 720;
+
+    /**
+     * <p>Pixels per world unit of the benchmark's converter. Makes
+     * sprites 1.5 times larger on the screen than their images.</p>
+     */
+    private static final float PIXELS_PER_UNIT = 96;
+
+    private BlitBenchmark()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        int draws = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+
+        BufferedImage source = createSpriteImage();
+        BufferedImage indexed = toIndexed(source);
+        BufferedImage compatible =
+                AssetManager.shared.toCompatibleImage(source);
+        BufferedImage backBuffer = AssetManager.shared.createCompatibleImage(
+                BUFFER_WIDTH, BUFFER_HEIGHT, Transparency.OPAQUE);
+
+        System.out.println(draws + " draws per path, back buffer type " +
+                           backBuffer.getType() + ", compatible type " +
+                           compatible.getType());
+        System.out.printf("%-16s %12s %12s %12s %12s %12s%n", "Format",
+                          "1:1", "scaled", "flipped", "scaled+c", "flipped+c");
+        run("4BYTE_ABGR", source, backBuffer, draws);
+        run("BYTE_INDEXED", indexed, backBuffer, draws);
+        run("compatible", compatible, backBuffer, draws);
+        System.out.println("(draws per millisecond, +c: with " +
+                           "SpriteScaleCache)");
+    }
+
+    /**
+     * <p>Measures all the drawing paths for the given {@code image} and
+     * prints a row of results.</p>
+     */
+    private static void run(String name, BufferedImage image,
+                            BufferedImage backBuffer, int draws)
+    {
+        String path = "benchmark/" + name;
+        AssetManager.shared.addImage(path, image);
+        Sprite sprite = new Sprite(path);
+        Converter converter = new Converter();
+        Graphics2D graphics2D = backBuffer.createGraphics();
+        RendererGraphics plain = new RendererGraphics(graphics2D, converter);
+        RendererGraphics cached = new RendererGraphics(
+                graphics2D, converter, new SpriteScaleCache());
+
+        Vector2 scale = Vector2.one();
+        Vector2 flippedScale = new Vector2(-1, 1);
+        System.out.printf("%-16s %12.1f %12.1f %12.1f %12.1f %12.1f%n", name,
+                          measureScreen(plain, sprite, draws),
+                          measureWorld(plain, sprite, scale, draws),
+                          measureWorld(plain, sprite, flippedScale, draws),
+                          measureWorld(cached, sprite, scale, draws),
+                          measureWorld(cached, sprite, flippedScale, draws));
+        graphics2D.dispose();
+    }
+
+    /**
+     * <p>Draws the sprite at it's own size in screen space.</p>
+     * @return Draws per millisecond.
+     */
+    private static double measureScreen(RendererGraphics graphics,
+                                        Sprite sprite, int draws)
+    {
+        Random random = new Random(1);
+        Vector2Int size = new Vector2Int(SPRITE_SIZE, SPRITE_SIZE);
+        Vector2Int position = Vector2Int.zero();
+        for (int pass = 0; pass < WARMUP_PASSES + 1; ++pass)
+        {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < draws; ++i)
+            {
+                position.x = random.nextInt(BUFFER_WIDTH - SPRITE_SIZE);
+                position.y = random.nextInt(BUFFER_HEIGHT - SPRITE_SIZE);
+                graphics.drawSpriteScreenTopLeft(position, size, sprite);
+            }
+            if (pass == WARMUP_PASSES)
+            {
+                return draws / ((System.nanoTime() - startTime) / 1e6);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * <p>Draws the sprite at the given {@code scale} in world space.</p>
+     * @return Draws per millisecond.
+     */
+    private static double measureWorld(RendererGraphics graphics,
+                                       Sprite sprite, Vector2 scale,
+                                       int draws)
+    {
+        Random random = new Random(1);
+        Vector2 position = Vector2.zero();
+        float width = BUFFER_WIDTH / PIXELS_PER_UNIT - 2;
+        float height = BUFFER_HEIGHT / PIXELS_PER_UNIT - 2;
+        for (int pass = 0; pass < WARMUP_PASSES + 1; ++pass)
+        {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < draws; ++i)
+            {
+                // Whole pixels, so the cached paths hit every time.
+                position.x = Math.round((random.nextFloat() * width + 1)
+                                        * PIXELS_PER_UNIT) / PIXELS_PER_UNIT;
+                position.y = Math.round((random.nextFloat() * height + 1)
+                                        * PIXELS_PER_UNIT) / PIXELS_PER_UNIT;
+                graphics.drawSprite(position, scale, sprite);
+            }
+            if (pass == WARMUP_PASSES)
+            {
+                return draws / ((System.nanoTime() - startTime) / 1e6);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * <p>Creates a sprite image with transparent corners, like most game
+     * sprites, in the format {@code ImageIO} returns for RGBA PNGs.</p>
+     */
+    private static BufferedImage createSpriteImage()
+    {
+        BufferedImage image = new BufferedImage(
+                SPRITE_SIZE, SPRITE_SIZE, BufferedImage.TYPE_4BYTE_ABGR);
+        Random random = new Random(42);
+        float radius = SPRITE_SIZE / 2f;
+        for (int x = 0; x < SPRITE_SIZE; ++x)
+        {
+            for (int y = 0; y < SPRITE_SIZE; ++y)
+            {
+                float dx = x + 0.5f - radius;
+                float dy = y + 0.5f - radius;
+                if (dx * dx + dy * dy <= radius * radius)
+                {
+                    image.setRGB(x, y, 0xff000000 | random.nextInt(0x1000000));
+                }
+            }
+        }
+        return image;
+    }
+
+    /**
+     * <p>Converts the given {@code image} to a palette image with a
+     * transparent color, like {@code ImageIO} returns for palette
+     * PNGs.</p>
+     */
+    private static BufferedImage toIndexed(BufferedImage image)
+    {
+        // Index 0 is transparent, the rest is a 6x6x6 color cube.
+        byte[] reds = new byte[256];
+        byte[] greens = new byte[256];
+        byte[] blues = new byte[256];
+        for (int i = 0; i < 216; ++i)
+        {
+            reds[i + 1] = (byte)(i / 36 * 51);
+            greens[i + 1] = (byte)(i / 6 % 6 * 51);
+            blues[i + 1] = (byte)(i % 6 * 51);
+        }
+        IndexColorModel colorModel = new IndexColorModel(8, 256, reds, greens,
+                                                         blues, 0);
+        BufferedImage indexed = new BufferedImage(
+                image.getWidth(), image.getHeight(),
+                BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+        WritableRaster raster = indexed.getRaster();
+        for (int x = 0; x < image.getWidth(); ++x)
+        {
+            for (int y = 0; y < image.getHeight(); ++y)
+            {
+                int argb = image.getRGB(x, y);
+                int index = 0;
+                if ((argb >>> 24) != 0)
+                {
+                    index = 1 + ((argb >> 16) & 0xff) * 6 / 256 * 36
+                              + ((argb >> 8) & 0xff) * 6 / 256 * 6
+                              + (argb & 0xff) * 6 / 256;
+                }
+                raster.setSample(x, y, 0, index);
+            }
+        }
+        return indexed;
+    }
+
+    /**
+     * <p>Converts world units to pixels with a fixed scale and the world
+     * origin at the top left corner of the back buffer.</p>
+     */
+    private static final class Converter implements WorldScreenConverter
+    {
+
+        @Override
+        public Vector2Int worldToScreenPosition(Vector2 worldPosition)
+        {
+            return new Vector2Int(
+                    Math.round(worldPosition.x * PIXELS_PER_UNIT),
+                    Math.round(BUFFER_HEIGHT
+                               - worldPosition.y * PIXELS_PER_UNIT));
+        }
+
+        @Override
+        public Vector2Int worldToScreenPositionTopLeft(Vector2 worldPosition,
+                                                       Vector2 worldSize)
+        {
+            return this.worldToScreenPosition(
+                    this.positionTopLeftWorld(worldPosition, worldSize));
+        }
+
+        @Override
+        public Vector2Int worldToScreenScale(Vector2 worldScale)
+        {
+            return this.worldToScreenScaleVector2(worldScale).toVector2Int();
+        }
+
+        @Override
+        public Vector2 worldToScreenScaleVector2(Vector2 worldScale)
+        {
+            return Vector2.multiplied(worldScale, PIXELS_PER_UNIT);
+        }
+
+        @Override
+        public Vector2 screenToWorldPosition(Vector2Int screenPosition)
+        {
+            return new Vector2(screenPosition.x / PIXELS_PER_UNIT,
+                               (BUFFER_HEIGHT - screenPosition.y)
+                               / PIXELS_PER_UNIT);
+        }
+
+        @Override
+        public Vector2 screenToWorldScale(Vector2Int screenScale)
+        {
+            return Vector2.quotient(screenScale.toVector2(), PIXELS_PER_UNIT);
+        }
+
+    }
+
+}
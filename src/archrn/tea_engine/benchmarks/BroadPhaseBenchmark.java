@@ -0,0 +1,137 @@
+package archrn.tea_engine.benchmarks;
+
+import archrn.tea_engine.GameObject;
+import archrn.tea_engine.geometry.Bounds;
+import archrn.tea_engine.geometry.Vector2;
+import archrn.tea_engine.physics.AabbTreeBroadPhase;
+import archrn.tea_engine.physics.BroadPhase;
+import archrn.tea_engine.physics.BruteForceBroadPhase;
+import archrn.tea_engine.physics.Collider;
+import archrn.tea_engine.physics.RectangleCollider;
+import archrn.tea_engine.physics.SpatialHashGrid;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * <p>{@code BroadPhaseBenchmark} compares the {@code BroadPhase}s on a
+ * level mixing a few huge static walls with many small moving
+ * {@code Collider}s.</p>
+ * <p>Every frame each small {@code Collider} moves a bit, the {@code
+ * BroadPhase} is updated and each small {@code Collider} queries it with
+ * it's own bounds, like {@code Collider.update()} does. The total amount of
+ * found pairs is printed too, so the results can be checked against each
+ * other.</p>
+ * <p>Usage: {@code BroadPhaseBenchmark [movers] [walls] [frames]}.</p>
+ * @author Artem
+ */
+public final class BroadPhaseBenchmark
+{
+
+    private static final float WORLD_SIZE = 200;
+    private static final int WARMUP_FRAMES = 100;
+
+    private BroadPhaseBenchmark()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        int movers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int walls = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int frames = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+
+        System.out.println(movers + " movers, " + walls + " walls, " +
+                           frames + " frames");
+        run("Brute force", new BruteForceBroadPhase(), movers, walls, frames);
+        run("Spatial hash grid", new SpatialHashGrid(), movers, walls, frames);
+        run("Dynamic AABB tree", new AabbTreeBroadPhase(), movers, walls,
+            frames);
+    }
+
+    /**
+     * <p>Builds the level, simulates it with the given {@code broadPhase}
+     * and prints the time per frame.</p>
+     */
+    private static void run(String name, BroadPhase broadPhase,
+                            int moverCount, int wallCount, int frames)
+    {
+        // The same seed gives every BroadPhase the same level.
+        Random random = new Random(42);
+        ArrayList<Collider> movers = new ArrayList<Collider>();
+        ArrayList<Vector2> velocities = new ArrayList<Vector2>();
+
+        for (int i = 0; i < wallCount; ++i)
+        {
+            boolean horizontal = i % 2 == 0;
+            float length = WORLD_SIZE * (0.25f + 0.75f * random.nextFloat());
+            Vector2 size = horizontal ? new Vector2(length, 2)
+                                      : new Vector2(2, length);
+            broadPhase.add(createCollider(size, randomPosition(random)));
+        }
+        for (int i = 0; i < moverCount; ++i)
+        {
+            float side = 0.5f + random.nextFloat();
+            Collider mover = createCollider(new Vector2(side, side),
+                                            randomPosition(random));
+            broadPhase.add(mover);
+            movers.add(mover);
+            velocities.add(new Vector2(random.nextFloat() - 0.5f,
+                                       random.nextFloat() - 0.5f));
+        }
+
+        Bounds bounds = new Bounds();
+        ArrayList<Collider> found = new ArrayList<Collider>();
+        long pairs = 0;
+        long startTime = 0;
+        for (int frame = -WARMUP_FRAMES; frame < frames; ++frame)
+        {
+            if (frame == 0)
+            {
+                startTime = System.nanoTime();
+                pairs = 0;
+            }
+            for (int i = 0; i < movers.size(); ++i)
+            {
+                Vector2 position = movers.get(i).getTransform().getPosition();
+                Vector2 velocity = velocities.get(i);
+                position.x += velocity.x;
+                position.y += velocity.y;
+                if (Math.abs(position.x) > WORLD_SIZE / 2)
+                {
+                    velocity.x = -velocity.x;
+                }
+                if (Math.abs(position.y) > WORLD_SIZE / 2)
+                {
+                    velocity.y = -velocity.y;
+                }
+            }
+            broadPhase.updateAll();
+            for (int i = 0; i < movers.size(); ++i)
+            {
+                movers.get(i).getBounds(bounds);
+                found.clear();
+                broadPhase.query(bounds, found);
+                pairs += found.size();
+            }
+        }
+        long elapsed = System.nanoTime() - startTime;
+
+        System.out.printf("%-18s %9.3f ms/frame, %d pairs%n", name,
+                          elapsed / 1e6 / frames, pairs);
+    }
+
+    private static Collider createCollider(Vector2 size, Vector2 position)
+    {
+        GameObject gameObject = new GameObject();
+        gameObject.getTransform().setPosition(position);
+        return gameObject.addComponent(new RectangleCollider(size));
+    }
+
+    private static Vector2 randomPosition(Random random)
+    {
+        return new Vector2((random.nextFloat() - 0.5f) * WORLD_SIZE,
+                           (random.nextFloat() - 0.5f) * WORLD_SIZE);
+    }
+
+}
@@ -0,0 +1,233 @@
+package archrn.tea_engine.benchmarks;
+
+import archrn.tea_engine.Game;
+import archrn.tea_engine.GameObject;
+import archrn.tea_engine.Scene;
+import archrn.tea_engine.SceneManager;
+import archrn.tea_engine.Time;
+import archrn.tea_engine.assets.AssetManager;
+import archrn.tea_engine.assets.Sprite;
+import archrn.tea_engine.camera.Camera;
+import archrn.tea_engine.geometry.Vector2;
+import archrn.tea_engine.rendering.Java2DRenderBackend;
+import archrn.tea_engine.rendering.RenderBackend;
+import archrn.tea_engine.rendering.RenderSnapshot;
+import archrn.tea_engine.rendering.SoftwareRenderBackend;
+import archrn.tea_engine.rendering.world.CircleRenderer;
+import archrn.tea_engine.rendering.world.RectangleRenderer;
+import archrn.tea_engine.rendering.world.SpriteRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * <p>{@code RenderBenchmark} measures how fast a {@code Scene} is rendered
+ * to offscreen images of different sizes, without a window.</p>
+ * <p>The {@code Scene} is a mix of sprites of a few images, rectangles and
+ * ovals on several layers. For every image size one frame is captured with
+ * {@code Camera.captureSnapshot()} and replayed by each {@code
+ * RenderBackend}, so only the drawing is measured. The capture itself is
+ * measured separately.</p>
+ * <p>Usage: {@code RenderBenchmark [objects] [frames]}.</p>
+ * @author Artem
+ */
+public final class RenderBenchmark
+{
+
+    private static final int SPRITE_SIZE = 64;
+    private static final int IMAGES = 8;
+    private static final int LAYERS = 4;
+    private static final int WARMUP_FRAMES = 20;
+    private static final int[][] SIZES = {
+            {640, 360}, {1280, 720}, {1920, 1080}
+    };
+
+    private RenderBenchmark()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        int objects = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Game game = new Game(true);
+        Scene scene = createScene(objects);
+        SceneManager.shared.addScene(scene);
+        Time.shared.setManualStepping(true);
+        game.start();
+        // Starts the components.
+        Time.shared.advance(1);
+        Camera camera = scene.getCamera();
+
+        System.out.println(objects + " objects, " + frames + " frames, " +
+                           Runtime.getRuntime().availableProcessors() +
+                           " cores");
+        System.out.printf("%-12s %10s %10s %10s %10s %8s%n", "Size",
+                          "capture", "java2d", "sorted", "software",
+                          "entries");
+        for (int[] size : SIZES)
+        {
+            run(camera, size[0], size[1], frames);
+        }
+        System.out.println("(milliseconds per frame)");
+        game.stop();
+    }
+
+    /**
+     * <p>Measures capturing and drawing one frame of the given size and
+     * prints a row of results.</p>
+     */
+    private static void run(Camera camera, int width, int height,
+                            int frames)
+    {
+        BufferedImage image = new BufferedImage(width, height,
+                                                BufferedImage.TYPE_INT_RGB);
+        RenderSnapshot snapshot = new RenderSnapshot();
+        double capture = measureCapture(camera, snapshot, width, height,
+                                        frames);
+        double java2D = measureReplay(new Java2DRenderBackend(), snapshot,
+                                      image, frames);
+        int entries = snapshot.size();
+        snapshot.sortByImage();
+        double sorted = measureReplay(new Java2DRenderBackend(), snapshot,
+                                      image, frames);
+        double software = measureReplay(new SoftwareRenderBackend(),
+                                        snapshot, image, frames);
+        System.out.printf("%-12s %10.3f %10.3f %10.3f %10.3f %8d%n",
+                          width + "x" + height, capture, java2D, sorted,
+                          software, entries);
+    }
+
+    /**
+     * <p>Captures the {@code Scene} to the {@code snapshot} again and
+     * again.</p>
+     * @return Milliseconds per capture.
+     */
+    private static double measureCapture(Camera camera,
+                                         RenderSnapshot snapshot,
+                                         int width, int height, int frames)
+    {
+        synchronized (Time.shared.getFrameLock())
+        {
+            for (int i = 0; i < WARMUP_FRAMES; ++i)
+            {
+                camera.captureSnapshot(snapshot, width, height);
+            }
+            long startTime = System.nanoTime();
+            for (int i = 0; i < frames; ++i)
+            {
+                camera.captureSnapshot(snapshot, width, height);
+            }
+            return (System.nanoTime() - startTime) / 1e6 / frames;
+        }
+    }
+
+    /**
+     * <p>Draws the same {@code snapshot} to the {@code image} again and
+     * again.</p>
+     * @return Milliseconds per frame.
+     */
+    private static double measureReplay(RenderBackend backend,
+                                        RenderSnapshot snapshot,
+                                        BufferedImage image, int frames)
+    {
+        Graphics2D graphics2D = image.createGraphics();
+        try
+        {
+            for (int i = 0; i < WARMUP_FRAMES; ++i)
+            {
+                backend.render(snapshot, graphics2D,
+                               image.getWidth(), image.getHeight());
+            }
+            long startTime = System.nanoTime();
+            for (int i = 0; i < frames; ++i)
+            {
+                backend.render(snapshot, graphics2D,
+                               image.getWidth(), image.getHeight());
+            }
+            return (System.nanoTime() - startTime) / 1e6 / frames;
+        }
+        finally
+        {
+            graphics2D.dispose();
+        }
+    }
+
+    /**
+     * <p>Creates a {@code Scene} with the given amount of objects spread
+     * over the {@code Camera}'s view.</p>
+     */
+    private static Scene createScene(int objects)
+    {
+        Scene scene = new Scene();
+        Sprite[] sprites = new Sprite[IMAGES];
+        for (int i = 0; i < IMAGES; ++i)
+        {
+            String path = "benchmark/render" + i;
+            AssetManager.shared.addImage(path, createSpriteImage(i));
+            sprites[i] = new Sprite(path);
+        }
+
+        Random random = new Random(1);
+        Vector2 viewSize = scene.getCamera().getViewSize();
+        for (int i = 0; i < objects; ++i)
+        {
+            GameObject gameObject = new GameObject();
+            scene.addGameObject(gameObject);
+            gameObject.getTransform().setPosition(new Vector2(
+                    (random.nextFloat() - 0.5f) * viewSize.x,
+                    (random.nextFloat() - 0.5f) * viewSize.y));
+            float scale = 0.02f + random.nextFloat() * 0.1f;
+            gameObject.getTransform().setScale(new Vector2(scale, scale));
+            int layer = random.nextInt(LAYERS);
+            switch (i % 4)
+            {
+                case 0:
+                    gameObject.addComponent(new RectangleRenderer(
+                            new Color(random.nextInt(), true)))
+                              .setLayer(layer);
+                    break;
+                case 1:
+                    gameObject.addComponent(new CircleRenderer(
+                            new Color(random.nextInt())))
+                              .setLayer(layer);
+                    break;
+                default:
+                    gameObject.addComponent(new SpriteRenderer(
+                            sprites[random.nextInt(IMAGES)]))
+                              .setLayer(layer);
+                    break;
+            }
+        }
+        return scene;
+    }
+
+    /**
+     * <p>Creates a round sprite image with transparent corners, with a
+     * different color for every {@code index}.</p>
+     */
+    private static BufferedImage createSpriteImage(int index)
+    {
+        BufferedImage image = new BufferedImage(
+                SPRITE_SIZE, SPRITE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(index);
+        int color = Color.HSBtoRGB(index / (float)IMAGES, 0.7f, 0.9f);
+        float radius = SPRITE_SIZE / 2f;
+        for (int x = 0; x < SPRITE_SIZE; ++x)
+        {
+            for (int y = 0; y < SPRITE_SIZE; ++y)
+            {
+                float dx = x + 0.5f - radius;
+                float dy = y + 0.5f - radius;
+                if (dx * dx + dy * dy <= radius * radius)
+                {
+                    image.setRGB(x, y, color ^ random.nextInt(0x20));
+                }
+            }
+        }
+        return image;
+    }
+
+}
@@ -0,0 +1,208 @@
+package archrn.tea_engine.benchmarks;
+
+import archrn.tea_engine.Game;
+import archrn.tea_engine.GameObject;
+import archrn.tea_engine.Scene;
+import archrn.tea_engine.SceneManager;
+import archrn.tea_engine.Screen;
+import archrn.tea_engine.Time;
+import archrn.tea_engine.assets.AssetManager;
+import archrn.tea_engine.assets.Sprite;
+import archrn.tea_engine.camera.Camera;
+import archrn.tea_engine.geometry.Vector2;
+import archrn.tea_engine.rendering.Java2DRenderBackend;
+import archrn.tea_engine.rendering.RenderBackend;
+import archrn.tea_engine.rendering.RenderSnapshot;
+import archrn.tea_engine.rendering.Renderer;
+import archrn.tea_engine.rendering.world.CircleRenderer;
+import archrn.tea_engine.rendering.world.RectangleRenderer;
+import archrn.tea_engine.rendering.world.SpriteRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * <p>{@code StaticLayerCacheCheck} checks, that drawing static {@code
+ * Renderer}s through the {@code StaticLayerCache} gives the same pixels as
+ * drawing them directly.</p>
+ * <p>A grid of static sprites, rectangles and ovals is viewed at a view
+ * size, which makes the world to screen coefficient fractional, from many
+ * random {@code Camera} positions. Every frame is captured with {@code
+ * Camera.captureSnapshot()}, which uses the cache, and with {@code
+ * Camera.captureSnapshot()} of the {@code Screen}'s size, which doesn't,
+ * and the two images are compared pixel by pixel.</p>
+ * <p>Usage: {@code StaticLayerCacheCheck [positions]}. Exits with status 1,
+ * if any frame differs.</p>
+ * @author Artem
+ */
+public final class StaticLayerCacheCheck
+{
+
+    private static final int IMAGES = 6;
+    private static final int SPRITE_SIZE = 64;
+    private static final Vector2 VIEW_SIZE = new Vector2(17.3f, 11.1f);
+
+    private StaticLayerCacheCheck()
+    {
+    }
+
+    public static void main(String[] args)
+    {
+        int positions = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+
+        Game game = new Game(true);
+        Scene scene = createScene();
+        SceneManager.shared.addScene(scene);
+        Time.shared.setManualStepping(true);
+        game.start();
+        Camera camera = scene.getCamera();
+        camera.setViewSize(VIEW_SIZE);
+
+        Vector2 screenSize = Screen.shared.getScreenSize();
+        int width = (int)screenSize.x;
+        int height = (int)screenSize.y;
+        BufferedImage cached = new BufferedImage(width, height,
+                                                 BufferedImage.TYPE_INT_RGB);
+        BufferedImage direct = new BufferedImage(width, height,
+                                                 BufferedImage.TYPE_INT_RGB);
+        RenderSnapshot snapshot = new RenderSnapshot();
+        RenderBackend backend = new Java2DRenderBackend();
+        Random random = new Random(7);
+        int failed = 0;
+        synchronized (Time.shared.getFrameLock())
+        {
+            for (int i = 0; i < positions; ++i)
+            {
+                Vector2 position = new Vector2(
+                        (random.nextFloat() - 0.5f) * VIEW_SIZE.x,
+                        (random.nextFloat() - 0.5f) * VIEW_SIZE.y);
+                camera.getTransform().setPosition(position);
+                camera.captureSnapshot(snapshot);
+                render(backend, snapshot, cached);
+                camera.captureSnapshot(snapshot, width, height);
+                render(backend, snapshot, direct);
+                int differences = countDifferences(cached, direct);
+                if (differences != 0)
+                {
+                    System.out.println("Camera at " + position + ": " +
+                                       differences + " pixels differ");
+                    ++failed;
+                }
+            }
+        }
+        game.stop();
+
+        System.out.println(failed + " of " + positions +
+                           " positions differ");
+        if (failed != 0)
+        {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * <p>Draws the {@code snapshot} to the whole {@code image}.</p>
+     */
+    private static void render(RenderBackend backend,
+                               RenderSnapshot snapshot, BufferedImage image)
+    {
+        Graphics2D graphics2D = image.createGraphics();
+        try
+        {
+            backend.render(snapshot, graphics2D,
+                           image.getWidth(), image.getHeight());
+        }
+        finally
+        {
+            graphics2D.dispose();
+        }
+    }
+
+    private static int countDifferences(BufferedImage a, BufferedImage b)
+    {
+        int differences = 0;
+        for (int y = 0; y < a.getHeight(); ++y)
+        {
+            for (int x = 0; x < a.getWidth(); ++x)
+            {
+                if (a.getRGB(x, y) != b.getRGB(x, y))
+                {
+                    ++differences;
+                }
+            }
+        }
+        return differences;
+    }
+
+    /**
+     * <p>Creates a {@code Scene} with a grid of static {@code Renderer}s,
+     * which are placed and sized off the pixel grid, and overlap the
+     * chunks of the cache.</p>
+     */
+    private static Scene createScene()
+    {
+        Scene scene = new Scene();
+        Sprite[] sprites = new Sprite[IMAGES];
+        for (int i = 0; i < IMAGES; ++i)
+        {
+            String path = "benchmark/static" + i;
+            AssetManager.shared.addImage(path, createSpriteImage(i));
+            sprites[i] = new Sprite(path);
+        }
+
+        Random random = new Random(1);
+        for (int y = -14; y < 14; ++y)
+        {
+            for (int x = -20; x < 20; ++x)
+            {
+                GameObject gameObject = new GameObject();
+                scene.addGameObject(gameObject);
+                gameObject.getTransform().setPosition(new Vector2(
+                        x * 0.61f + 0.13f, y * 0.47f + 0.29f));
+                gameObject.getTransform().setScale(new Vector2(
+                        0.4f + random.nextFloat() * 0.5f,
+                        0.3f + random.nextFloat() * 0.5f));
+                Renderer renderer;
+                switch (Math.floorMod(x + y, 3))
+                {
+                    case 0:
+                        renderer = new RectangleRenderer(
+                                new Color(random.nextInt()));
+                        break;
+                    case 1:
+                        renderer = new CircleRenderer(
+                                new Color(random.nextInt()));
+                        break;
+                    default:
+                        renderer = new SpriteRenderer(
+                                sprites[random.nextInt(IMAGES)]);
+                        break;
+                }
+                gameObject.addComponent(renderer).setLayer(
+                        random.nextInt(2));
+                renderer.setStatic(true);
+            }
+        }
+        return scene;
+    }
+
+    /**
+     * <p>Creates a sprite image of one color with a dark top row, so a
+     * sprite drawn a pixel off shows up.</p>
+     */
+    private static BufferedImage createSpriteImage(int index)
+    {
+        BufferedImage image = new BufferedImage(
+                SPRITE_SIZE, SPRITE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics2D = image.createGraphics();
+        graphics2D.setColor(Color.getHSBColor(index / (float)IMAGES,
+                                              0.7f, 0.9f));
+        graphics2D.fillRect(0, 0, SPRITE_SIZE, SPRITE_SIZE);
+        graphics2D.setColor(Color.BLACK);
+        graphics2D.fillRect(0, 0, SPRITE_SIZE, 1);
+        graphics2D.dispose();
+        return image;
+    }
+
+}
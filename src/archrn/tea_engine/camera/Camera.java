@@ -1,16 +1,25 @@
 package archrn.tea_engine.camera;
 
 import archrn.tea_engine.Component;
-import archrn.tea_engine.Scene;
 import archrn.tea_engine.Screen;
+import archrn.tea_engine.Time;
+import archrn.tea_engine.geometry.Bounds;
 import archrn.tea_engine.geometry.Vector2;
 import archrn.tea_engine.geometry.Vector2Int;
+import archrn.tea_engine.rendering.Java2DRenderBackend;
+import archrn.tea_engine.rendering.RenderBackend;
+import archrn.tea_engine.rendering.RenderQueue;
+import archrn.tea_engine.rendering.RenderSnapshot;
+import archrn.tea_engine.rendering.RenderSnapshotBuffer;
 import archrn.tea_engine.rendering.WorldScreenConverter;
 import archrn.tea_engine.rendering.Renderer;
 import archrn.tea_engine.rendering.RendererGraphics;
+import archrn.tea_engine.rendering.SoftwareRenderBackend;
+import archrn.tea_engine.rendering.SpriteScaleCache;
+import archrn.tea_engine.rendering.StaticLayerCache;
 
 import java.awt.*;
-import java.util.Comparator;
+import java.awt.image.BufferedImage;
 import java.util.List;
 import java.util.Objects;
 
@@ -41,12 +50,46 @@ public final class Camera extends Component implements WorldScreenConverter
     private Vector2 worldToScreenBias;
     private Color backgroundColor;
 
+    /**
+     * <p>Sprites scaled to their size on the {@code Screen}. Cleared when
+     * the world to screen coefficient changes.</p>
+     */
+    private final SpriteScaleCache spriteScaleCache;
+
+    // Reused by render() and captureSnapshot() for culling.
+    private final Bounds viewBounds;
+    private final Bounds rendererBounds;
+
+    /**
+     * <p>Snapshots written by the game loop and drawn by the {@code
+     * Screen}. Created by the first {@code captureSnapshot()}.</p>
+     */
+    private volatile RenderSnapshotBuffer snapshots;
+
+    /**
+     * <p>Draws the snapshots in {@code renderSnapshot()}.</p>
+     */
+    private volatile RenderBackend renderBackend;
+
+    private boolean sortingByImage;
+
+    /**
+     * <p>Static {@code Renderer}s drawn into images by {@code
+     * captureSnapshot()}.</p>
+     */
+    private final StaticLayerCache staticLayerCache;
+
     /**
      * <p>Initializes the {@code Camera}.</p>
      */
     public Camera()
     {
         this.backgroundColor = Color.white;
+        this.spriteScaleCache = new SpriteScaleCache();
+        this.renderBackend = new Java2DRenderBackend(this.spriteScaleCache);
+        this.staticLayerCache = new StaticLayerCache();
+        this.viewBounds = new Bounds();
+        this.rendererBounds = new Bounds();
         this.worldToScreenBias = Vector2.zero();
         this.setViewSize(new Vector2(12, 8));
     }
@@ -123,12 +166,18 @@ public final class Camera extends Component implements WorldScreenConverter
     @Override
     public Vector2Int worldToScreenPosition(Vector2 worldPosition)
     {
-        Vector2 screenPosition = Vector2.difference(
-                worldPosition, this.getTransform().getPositionAbsolute());
-        screenPosition.add(this.halfViewSize);
-        screenPosition.y = this.viewSize.y - screenPosition.y;
-        return Vector2Int.sum(this.worldToScreenScale(screenPosition),
-                              this.worldToScreenBias.toVector2Int());
+        // Positions are rounded on a pixel grid fixed in the world, which
+        // is moved by whole pixels, so they keep their distances in pixels
+        // when the Camera moves, like in the StaticLayerCache's images.
+        Vector2 position = this.getTransform().getPositionAbsolute();
+        float coefficient = this.worldToScreenCoefficient;
+        return new Vector2Int(
+                Math.round(worldPosition.x * coefficient)
+                - Math.round((position.x - this.halfViewSize.x) * coefficient)
+                + Math.round(this.worldToScreenBias.x),
+                Math.round(-worldPosition.y * coefficient)
+                + Math.round((position.y + this.halfViewSize.y) * coefficient)
+                + Math.round(this.worldToScreenBias.y));
     }
 
     /**
@@ -185,21 +234,309 @@ public final class Camera extends Component implements WorldScreenConverter
                                 this.worldToScreenCoefficient);
     }
 
+    /**
+     * <p>Writes the area of the world seen by this {@code Camera} to the
+     * given {@code bounds}.</p>
+     * <p>It's the whole {@code Screen}, so it's larger than {@code
+     * viewSize} along the axis with black bars.</p>
+     * @param bounds The {@code Bounds} to write to.
+     * @throws NullPointerException if {@code bounds} is {@code null}.
+     */
+    public void getViewBounds(Bounds bounds)
+    {
+        Objects.requireNonNull(bounds);
+        Vector2 position = this.getTransform().getPositionAbsolute();
+        Vector2 screenSize = Screen.shared.getScreenSize();
+        bounds.setCenterSize(position.x, position.y,
+                             screenSize.x / this.worldToScreenCoefficient,
+                             screenSize.y / this.worldToScreenCoefficient);
+    }
+
     /**
      * <p>Renders all the {@code GameObject}s in the field of view of the
      * {@code Camera}.</p>
+     * <p>{@code Renderer}s are drawn in the order of the {@code Scene}'s
+     * {@code RenderQueue}. {@code Renderer}s on inactive {@code
+     * GameObject}s and the ones, which world bounds are outside of the
+     * view, are skipped.</p>
      * @param graphics2D The {@code Graphics2D} to render with.
+     * @see Renderer#getWorldBounds(Bounds)
      */
     public void render(Graphics2D graphics2D)
     {
-        RendererGraphics rendererGraphics = new RendererGraphics(graphics2D,
-                                                                 this);
+        RendererGraphics rendererGraphics = new RendererGraphics(
+                graphics2D, this, this.spriteScaleCache);
         this.renderBackground(rendererGraphics);
 
-        Scene scene = this.getGameObject().getScene();
-        List<Renderer> renderers = scene.getAllComponentsOfType(Renderer.class);
-        renderers.sort(Comparator.comparingDouble(Renderer::getLayer));
-        renderers.forEach(renderer -> renderer.render(rendererGraphics));
+        RenderQueue queue = this.getGameObject().getScene().getRenderQueue();
+        this.getViewBounds(this.viewBounds);
+        this.viewBounds.expand(1 / this.worldToScreenCoefficient);
+        for (int layer = 0; layer < queue.getLayerCount(); ++layer)
+        {
+            List<Renderer> renderers = queue.getRenderers(layer);
+            for (int i = 0; i < renderers.size(); ++i)
+            {
+                Renderer renderer = renderers.get(i);
+                if (this.isInView(renderer))
+                {
+                    renderer.render(rendererGraphics);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Writes what the {@code Camera} sees now to a {@code
+     * RenderSnapshot} and publishes it for {@code renderSnapshot()}.</p>
+     * <p>Called by the game loop at the end of a frame, holding the frame
+     * lock.</p>
+     * @see Camera#captureSnapshot(RenderSnapshot)
+     */
+    public void captureSnapshot()
+    {
+        if (this.snapshots == null)
+        {
+            this.snapshots = new RenderSnapshotBuffer();
+        }
+        this.captureSnapshot(this.snapshots.beginWrite());
+        this.snapshots.publish();
+    }
+
+    /**
+     * <p>Clears the given {@code snapshot} and writes what the {@code
+     * Camera} sees now on the {@code Screen} to it.</p>
+     * <p>The same {@code Renderer}s are captured, which {@code render()}
+     * would draw. Static {@code Renderer}s are added as images of the
+     * {@code StaticLayerCache}, under the other {@code Renderer}s of their
+     * layer. The {@code Scene} must not change meanwhile, so it should be
+     * called holding the frame lock.</p>
+     * @param snapshot The {@code RenderSnapshot} to write to.
+     * @throws NullPointerException if {@code snapshot} is {@code null}.
+     * @see Renderer#snapshot(RenderSnapshot)
+     * @see Renderer#setStatic(boolean)
+     */
+    public void captureSnapshot(RenderSnapshot snapshot)
+    {
+        Objects.requireNonNull(snapshot);
+        snapshot.clear();
+        snapshot.setView(this.getTransform().getPositionAbsolute(),
+                         this.viewSize, this.worldToScreenCoefficient,
+                         this.worldToScreenBias, this.backgroundColor);
+        this.getViewBounds(this.viewBounds);
+        this.viewBounds.expand(1 / this.worldToScreenCoefficient);
+        this.staticLayerCache.beginFrame(this.worldToScreenCoefficient);
+        this.captureRenderers(snapshot, this.staticLayerCache);
+        this.staticLayerCache.endFrame();
+    }
+
+    /**
+     * <p>Clears the given {@code snapshot} and writes what the {@code
+     * Camera} would see on an area of the given size, like an image, to
+     * it.</p>
+     * <p>The view is fitted to the area the same way it's fitted to the
+     * {@code Screen}, and screen space {@code Renderer}s are placed
+     * relative to the area. The {@code Screen} itself isn't used, so it
+     * works without a window. Static {@code Renderer}s are drawn like the
+     * other ones, without the {@code StaticLayerCache}. The {@code Scene}
+     * must not change meanwhile, so it should be called holding the frame
+     * lock.</p>
+     * @param snapshot The {@code RenderSnapshot} to write to.
+     * @param width The width of the area in pixels.
+     * @param height The height of the area in pixels.
+     * @throws IllegalArgumentException if {@code width} or {@code height}
+     * isn't positive.
+     * @throws NullPointerException if {@code snapshot} is {@code null}.
+     */
+    public void captureSnapshot(RenderSnapshot snapshot,
+                                int width, int height)
+    {
+        Objects.requireNonNull(snapshot);
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException("Size must be positive.");
+        }
+        Vector2 size = new Vector2(width, height);
+        float coefficient = Math.min(width / this.viewSize.x,
+                                     height / this.viewSize.y);
+        Vector2 bias = Vector2.quotient(
+                Vector2.difference(
+                        size, Vector2.multiplied(this.viewSize, coefficient)),
+                2);
+        Vector2 position = this.getTransform().getPositionAbsolute();
+
+        snapshot.clear();
+        snapshot.setView(position, this.viewSize, coefficient, bias,
+                         this.backgroundColor, new Vector2Int(width, height));
+        this.viewBounds.setCenterSize(position.x, position.y,
+                                      width / coefficient,
+                                      height / coefficient);
+        this.viewBounds.expand(1 / coefficient);
+        this.captureRenderers(snapshot, null);
+    }
+
+    /**
+     * <p>Renders what the {@code Camera} sees to the given {@code image}
+     * with Java2D, without a window.</p>
+     * @param image The image to render to.
+     * @throws NullPointerException if {@code image} is {@code null}.
+     * @see Camera#renderToImage(BufferedImage, RenderBackend)
+     */
+    public void renderToImage(BufferedImage image)
+    {
+        this.renderToImage(image, new Java2DRenderBackend());
+    }
+
+    /**
+     * <p>Renders what the {@code Camera} sees to the given {@code image}
+     * with the given {@code renderBackend}, without a window.</p>
+     * <p>The {@code Scene} is captured holding the frame lock, so it can be
+     * called from any thread, also while the game is running. The view is
+     * fitted to the size of the image.</p>
+     * @param image The image to render to.
+     * @param renderBackend The {@code RenderBackend} to render with.
+     * @throws NullPointerException if {@code image} or {@code
+     * renderBackend} is {@code null}.
+     * @see Camera#captureSnapshot(RenderSnapshot, int, int)
+     */
+    public void renderToImage(BufferedImage image,
+                              RenderBackend renderBackend)
+    {
+        Objects.requireNonNull(image);
+        Objects.requireNonNull(renderBackend);
+        RenderSnapshot snapshot = new RenderSnapshot();
+        synchronized (Time.shared.getFrameLock())
+        {
+            this.captureSnapshot(snapshot, image.getWidth(),
+                                 image.getHeight());
+        }
+        Graphics2D graphics2D = image.createGraphics();
+        try
+        {
+            renderBackend.render(snapshot, graphics2D,
+                                 image.getWidth(), image.getHeight());
+        }
+        finally
+        {
+            graphics2D.dispose();
+        }
+    }
+
+    /**
+     * <p>Returns {@code true} if captured snapshots are sorted by
+     * image.</p>
+     * @return {@code true} if sorting by image is on.
+     */
+    public boolean isSortingByImage()
+    {
+        return this.sortingByImage;
+    }
+
+    /**
+     * <p>Sets whether captured snapshots are sorted by image, so sprites
+     * of the same image in a layer are drawn one after another.</p>
+     * <p>Overlapping sprites of different images in one layer may then be
+     * drawn in another order, so it should be used when sprites of a layer
+     * don't overlap, like tiles.</p>
+     * @param sortingByImage {@code true} to sort snapshots by image.
+     * @see RenderSnapshot#sortByImage()
+     */
+    public void setSortingByImage(boolean sortingByImage)
+    {
+        this.sortingByImage = sortingByImage;
+    }
+
+    /**
+     * <p>Returns the {@code RenderBackend}, which draws the snapshots in
+     * {@code renderSnapshot()}.</p>
+     * @return The {@code Camera}'s {@code RenderBackend}.
+     */
+    public RenderBackend getRenderBackend()
+    {
+        return this.renderBackend;
+    }
+
+    /**
+     * <p>Sets the {@code RenderBackend}, which draws the snapshots in
+     * {@code renderSnapshot()}. By default it's a {@code
+     * Java2DRenderBackend} using the {@code Camera}'s {@code
+     * SpriteScaleCache}.</p>
+     * @param renderBackend The {@code RenderBackend} to draw with.
+     * @throws NullPointerException if {@code renderBackend} is {@code
+     * null}.
+     */
+    public void setRenderBackend(RenderBackend renderBackend)
+    {
+        Objects.requireNonNull(renderBackend);
+        this.renderBackend = renderBackend;
+    }
+
+    /**
+     * <p>Returns {@code true} if snapshots are drawn by a {@code
+     * SoftwareRenderBackend}.</p>
+     * @return {@code true} if software rendering is on.
+     */
+    public boolean isSoftwareRendering()
+    {
+        return this.renderBackend instanceof SoftwareRenderBackend;
+    }
+
+    /**
+     * <p>Sets whether {@code renderSnapshot()} draws with a {@code
+     * SoftwareRenderBackend} into an image of the {@code Screen}'s size,
+     * which is then copied to the {@code Graphics2D}, instead of drawing
+     * with {@code Graphics2D} directly.</p>
+     * <p>The software rasterizer uses all the cores, so it's faster with
+     * many sprites, when Java2D isn't accelerated.</p>
+     * @param softwareRendering {@code true} to turn software rendering on.
+     */
+    public void setSoftwareRendering(boolean softwareRendering)
+    {
+        if (softwareRendering == this.isSoftwareRendering())
+        {
+            return;
+        }
+        this.setRenderBackend(
+                softwareRendering
+                ? new SoftwareRenderBackend()
+                : new Java2DRenderBackend(this.spriteScaleCache));
+    }
+
+    /**
+     * <p>Draws the latest snapshot published by {@code
+     * captureSnapshot()} with the {@code Camera}'s {@code
+     * RenderBackend}.</p>
+     * <p>Doesn't read the {@code Scene}, so it doesn't need the frame lock
+     * and can run while the next frame is updated.</p>
+     * @param graphics2D The {@code Graphics2D} to render with.
+     * @return {@code false} if no snapshot is published yet, and nothing is
+     * drawn.
+     */
+    public boolean renderSnapshot(Graphics2D graphics2D)
+    {
+        RenderSnapshotBuffer snapshots = this.snapshots;
+        if (snapshots == null)
+        {
+            return false;
+        }
+        RenderSnapshot snapshot = snapshots.acquire();
+        if (snapshot == null)
+        {
+            return false;
+        }
+        Vector2Int screenSize = Screen.shared.getScreenSize().toVector2Int();
+        this.renderBackend.render(snapshot, graphics2D,
+                                  screenSize.x, screenSize.y);
+        return true;
+    }
+
+    /**
+     * <p>Returns the cache of sprites scaled to their size on the {@code
+     * Screen}.</p>
+     * @return The {@code Camera}'s {@code SpriteScaleCache}.
+     */
+    public SpriteScaleCache getSpriteScaleCache()
+    {
+        return this.spriteScaleCache;
     }
 
     public void updateWorldToScreenCoefficient()
@@ -215,7 +552,13 @@ public final class Camera extends Component implements WorldScreenConverter
         Vector2 screenSize = Screen.shared.getScreenSize();
         float xCoefficient = screenSize.x / this.viewSize.x;
         float yCoefficient = screenSize.y / this.viewSize.y;
-        this.worldToScreenCoefficient = Math.min(xCoefficient, yCoefficient);
+        float coefficient = Math.min(xCoefficient, yCoefficient);
+        if (coefficient != this.worldToScreenCoefficient)
+        {
+            // Every sprite has a new size on the screen.
+            this.spriteScaleCache.clear();
+        }
+        this.worldToScreenCoefficient = coefficient;
 
         this.worldToScreenBias = Vector2.quotient(
                 Vector2.difference(
@@ -225,6 +568,61 @@ public final class Camera extends Component implements WorldScreenConverter
                 2);
     }
 
+    /**
+     * <p>Adds the {@code Renderer}s overlapping {@code viewBounds} to the
+     * {@code snapshot} in the order of the {@code RenderQueue}.</p>
+     * @param staticLayerCache The cache to add the static {@code
+     *                         Renderer}s from, or {@code null} to add them
+     *                         like the other ones.
+     */
+    private void captureRenderers(RenderSnapshot snapshot,
+                                  StaticLayerCache staticLayerCache)
+    {
+        RenderQueue queue = this.getGameObject().getScene().getRenderQueue();
+        for (int layer = 0; layer < queue.getLayerCount(); ++layer)
+        {
+            boolean cached = staticLayerCache != null
+                             && queue.getStaticCount(layer) > 0;
+            if (cached)
+            {
+                staticLayerCache.capture(queue, layer, this.viewBounds,
+                                         snapshot);
+            }
+            List<Renderer> renderers = queue.getRenderers(layer);
+            for (int i = 0; i < renderers.size(); ++i)
+            {
+                Renderer renderer = renderers.get(i);
+                if (cached && StaticLayerCache.isCached(renderer,
+                                                        this.rendererBounds))
+                {
+                    continue;
+                }
+                if (this.isInView(renderer))
+                {
+                    renderer.snapshot(snapshot);
+                }
+            }
+        }
+        if (this.sortingByImage)
+        {
+            snapshot.sortByImage();
+        }
+    }
+
+    /**
+     * <p>Returns {@code true} if the {@code renderer} is on an active
+     * {@code GameObject} and it's world bounds overlap {@code
+     * viewBounds}.</p>
+     * <p>{@code viewBounds} is a pixel larger than the view, as a rounded
+     * position and size may reach a pixel past the rounded bounds.</p>
+     */
+    private boolean isInView(Renderer renderer)
+    {
+        return renderer.getGameObject().isActive()
+            && (!renderer.getWorldBounds(this.rendererBounds)
+                || this.rendererBounds.overlaps(this.viewBounds));
+    }
+
     /**
      * <p>Renders the background color of the {@code Camera}.</p>
      * @param graphics The {@code RendererGraphics} to render with.
@@ -0,0 +1,195 @@
+package archrn.tea_engine.geometry;
+
+import java.util.Objects;
+
+/**
+ * <p>{@code Bounds} represents an axis-aligned rectangle in world
+ * coordinates, described by it's left, bottom, right and top edges.</p>
+ * <p>{@code Bounds} is mutable, so the same object can be reused instead of
+ * creating a new one every frame.</p>
+ * @see Vector2
+ * @author Artem
+ */
+public final class Bounds
+{
+
+    /**
+     * <p>X coordinate of the left edge.</p>
+     */
+    public float left;
+
+    /**
+     * <p>Y coordinate of the bottom edge.</p>
+     */
+    public float bot;
+
+    /**
+     * <p>X coordinate of the right edge.</p>
+     */
+    public float right;
+
+    /**
+     * <p>Y coordinate of the top edge.</p>
+     */
+    public float top;
+
+    /**
+     * <p>Initializes empty {@code Bounds} at (0; 0).</p>
+     */
+    public Bounds()
+    {
+        this(0, 0, 0, 0);
+    }
+
+    /**
+     * <p>Initializes {@code Bounds} with the given edges.</p>
+     * @param left X coordinate of the left edge.
+     * @param bot Y coordinate of the bottom edge.
+     * @param right X coordinate of the right edge.
+     * @param top Y coordinate of the top edge.
+     */
+    public Bounds(float left, float bot, float right, float top)
+    {
+        this.set(left, bot, right, top);
+    }
+
+    /**
+     * <p>Sets all the edges of the {@code Bounds}.</p>
+     * @param left X coordinate of the left edge.
+     * @param bot Y coordinate of the bottom edge.
+     * @param right X coordinate of the right edge.
+     * @param top Y coordinate of the top edge.
+     */
+    public void set(float left, float bot, float right, float top)
+    {
+        this.left = left;
+        this.bot = bot;
+        this.right = right;
+        this.top = top;
+    }
+
+    /**
+     * <p>Copies the edges of the given {@code Bounds}.</p>
+     * @param other The {@code Bounds} to copy.
+     * @throws NullPointerException if {@code other} is {@code null}.
+     */
+    public void set(Bounds other)
+    {
+        Objects.requireNonNull(other);
+        this.set(other.left, other.bot, other.right, other.top);
+    }
+
+    /**
+     * <p>Sets the {@code Bounds} from the given center and size.</p>
+     * @param centerX X coordinate of the center.
+     * @param centerY Y coordinate of the center.
+     * @param width The width of the {@code Bounds}.
+     * @param height The height of the {@code Bounds}.
+     */
+    public void setCenterSize(float centerX, float centerY,
+                              float width, float height)
+    {
+        float halfWidth = Math.abs(width) / 2;
+        float halfHeight = Math.abs(height) / 2;
+        this.set(centerX - halfWidth, centerY - halfHeight,
+                 centerX + halfWidth, centerY + halfHeight);
+    }
+
+    /**
+     * <p>Returns the width of the {@code Bounds}.</p>
+     * @return {@code right - left}.
+     */
+    public float width()
+    {
+        return this.right - this.left;
+    }
+
+    /**
+     * <p>Returns the height of the {@code Bounds}.</p>
+     * @return {@code top - bot}.
+     */
+    public float height()
+    {
+        return this.top - this.bot;
+    }
+
+    /**
+     * <p>Checks if these {@code Bounds} overlap the given ones.</p>
+     * <p>Touching edges count as overlapping.</p>
+     * @param other The {@code Bounds} to check.
+     * @return {@code true} if the {@code Bounds} overlap.
+     * @throws NullPointerException if {@code other} is {@code null}.
+     */
+    public boolean overlaps(Bounds other)
+    {
+        return this.overlaps(other.left, other.bot, other.right, other.top);
+    }
+
+    /**
+     * <p>Checks if these {@code Bounds} overlap the given rectangle.</p>
+     * <p>Touching edges count as overlapping.</p>
+     * @param left X coordinate of the left edge.
+     * @param bot Y coordinate of the bottom edge.
+     * @param right X coordinate of the right edge.
+     * @param top Y coordinate of the top edge.
+     * @return {@code true} if the rectangles overlap.
+     */
+    public boolean overlaps(float left, float bot, float right, float top)
+    {
+        return this.left <= right
+            && this.right >= left
+            && this.bot <= top
+            && this.top >= bot;
+    }
+
+    /**
+     * <p>Checks if these {@code Bounds} fully contain the given ones.</p>
+     * @param other The {@code Bounds} to check.
+     * @return {@code true} if {@code other} is inside these {@code Bounds}.
+     * @throws NullPointerException if {@code other} is {@code null}.
+     */
+    public boolean contains(Bounds other)
+    {
+        return this.left <= other.left
+            && this.right >= other.right
+            && this.bot <= other.bot
+            && this.top >= other.top;
+    }
+
+    /**
+     * <p>Grows these {@code Bounds} to also contain the given ones.</p>
+     * @param other The {@code Bounds} to include.
+     * @throws NullPointerException if {@code other} is {@code null}.
+     */
+    public void include(Bounds other)
+    {
+        this.left = Math.min(this.left, other.left);
+        this.bot = Math.min(this.bot, other.bot);
+        this.right = Math.max(this.right, other.right);
+        this.top = Math.max(this.top, other.top);
+    }
+
+    /**
+     * <p>Moves all the edges outwards by {@code margin}.</p>
+     * @param margin The distance to move the edges by.
+     */
+    public void expand(float margin)
+    {
+        this.left -= margin;
+        this.bot -= margin;
+        this.right += margin;
+        this.top += margin;
+    }
+
+    /**
+     * <p>Returns a string with the edges of the {@code Bounds}.</p>
+     * @return A string representation of the {@code Bounds}.
+     */
+    @Override
+    public String toString()
+    {
+        return "(" + this.left + "; " + this.bot + ") - (" +
+               this.right + "; " + this.top + ")";
+    }
+
+}
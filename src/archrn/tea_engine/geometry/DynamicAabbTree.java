@@ -0,0 +1,563 @@
+package archrn.tea_engine.geometry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>{@code DynamicAabbTree} is a bounding volume hierarchy of axis-aligned
+ * rectangles, which can be changed incrementally.</p>
+ * <p>Each stored object gets a proxy: a leaf of the tree with "fat"
+ * bounds, which are the object's bounds grown by a margin. While the object
+ * stays inside it's fat bounds, moving it doesn't change the tree at all.
+ * When it leaves them, only it's leaf is reinserted, and the nodes above it
+ * are refitted and rebalanced with tree rotations.</p>
+ * <p>Works well with objects of very different sizes, for example, huge
+ * static walls together with many small moving objects.</p>
+ * @param <T> The type of the objects stored in the tree.
+ * @author Artem
+ */
+public final class DynamicAabbTree<T>
+{
+
+    private static final float DEFAULT_MARGIN = 0.25f;
+    private static final int NULL_NODE = -1;
+
+    private final float margin;
+
+    // Nodes are stored in parallel arrays. Leaves have child1 == NULL_NODE.
+    // Free nodes are linked through parent.
+    private float[] left;
+    private float[] bot;
+    private float[] right;
+    private float[] top;
+    private int[] parent;
+    private int[] child1;
+    private int[] child2;
+    private int[] height;
+    private Object[] data;
+
+    private int root;
+    private int freeList;
+    private int nodeCount;
+    private int proxyCount;
+
+    /**
+     * <p>Stack of nodes to visit, reused by queries.</p>
+     */
+    private int[] stack;
+
+    /**
+     * <p>Initializes an empty {@code DynamicAabbTree} with the default
+     * margin.</p>
+     */
+    public DynamicAabbTree()
+    {
+        this(DynamicAabbTree.DEFAULT_MARGIN);
+    }
+
+    /**
+     * <p>Initializes an empty {@code DynamicAabbTree} with the given
+     * margin.</p>
+     * @param margin The distance, by which the bounds of each proxy are
+     *               grown in every direction.
+     * @throws IllegalArgumentException if {@code margin < 0}.
+     */
+    public DynamicAabbTree(float margin)
+    {
+        if (!(margin >= 0))
+        {
+            throw new IllegalArgumentException("Margin is negative.");
+        }
+        this.margin = margin;
+        this.root = NULL_NODE;
+        this.stack = new int[64];
+        this.allocateNodes(16);
+    }
+
+    /**
+     * <p>Returns the amount of proxies in the tree.</p>
+     * @return The amount of proxies.
+     */
+    public int size()
+    {
+        return this.proxyCount;
+    }
+
+    /**
+     * <p>Returns the height of the tree.</p>
+     * <p>0 for a tree with one proxy, -1 for an empty tree.</p>
+     * @return The height of the tree.
+     */
+    public int getHeight()
+    {
+        return this.root == NULL_NODE ? -1 : this.height[this.root];
+    }
+
+    /**
+     * <p>Adds a proxy for the given object with the given bounds.</p>
+     * @param bounds The bounds of the object.
+     * @param object The object to store.
+     * @return The id of the new proxy.
+     * @throws NullPointerException if {@code bounds} is {@code null}.
+     */
+    public int createProxy(Bounds bounds, T object)
+    {
+        Objects.requireNonNull(bounds);
+        int proxy = this.allocateNode();
+        this.setFat(proxy, bounds);
+        this.data[proxy] = object;
+        this.insertLeaf(proxy);
+        ++this.proxyCount;
+        return proxy;
+    }
+
+    /**
+     * <p>Removes the given proxy from the tree.</p>
+     * @param proxy The id of the proxy.
+     */
+    public void destroyProxy(int proxy)
+    {
+        this.removeLeaf(proxy);
+        this.freeNode(proxy);
+        --this.proxyCount;
+    }
+
+    /**
+     * <p>Updates the bounds of the given proxy.</p>
+     * <p>If the new bounds are still inside the proxy's fat bounds, does
+     * nothing. Otherwise reinserts the proxy.</p>
+     * @param proxy The id of the proxy.
+     * @param bounds The new bounds of the object.
+     * @return {@code true} if the proxy was reinserted.
+     * @throws NullPointerException if {@code bounds} is {@code null}.
+     */
+    public boolean moveProxy(int proxy, Bounds bounds)
+    {
+        if (this.left[proxy] <= bounds.left
+            && this.bot[proxy] <= bounds.bot
+            && this.right[proxy] >= bounds.right
+            && this.top[proxy] >= bounds.top)
+        {
+            return false;
+        }
+        this.removeLeaf(proxy);
+        this.setFat(proxy, bounds);
+        this.insertLeaf(proxy);
+        return true;
+    }
+
+    /**
+     * <p>Returns the object stored in the given proxy.</p>
+     * @param proxy The id of the proxy.
+     * @return The object of the proxy.
+     */
+    @SuppressWarnings("unchecked")
+    public T getObject(int proxy)
+    {
+        return (T)this.data[proxy];
+    }
+
+    /**
+     * <p>Writes the fat bounds of the given proxy to {@code bounds}.</p>
+     * @param proxy The id of the proxy.
+     * @param bounds The {@code Bounds} to write to.
+     * @throws NullPointerException if {@code bounds} is {@code null}.
+     */
+    public void getFatBounds(int proxy, Bounds bounds)
+    {
+        bounds.set(this.left[proxy], this.bot[proxy],
+                   this.right[proxy], this.top[proxy]);
+    }
+
+    /**
+     * <p>Finds all the objects, which fat bounds overlap the given {@code
+     * area}, and adds them to {@code result}.</p>
+     * @param area The area to look in.
+     * @param result The list to add the found objects to.
+     * @throws NullPointerException if {@code area} or {@code result} is
+     * {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public void query(Bounds area, List<? super T> result)
+    {
+        Objects.requireNonNull(area);
+        Objects.requireNonNull(result);
+        if (this.root == NULL_NODE)
+        {
+            return;
+        }
+
+        int stackSize = 0;
+        this.stack[stackSize++] = this.root;
+        while (stackSize > 0)
+        {
+            int node = this.stack[--stackSize];
+            if (!area.overlaps(this.left[node], this.bot[node],
+                               this.right[node], this.top[node]))
+            {
+                continue;
+            }
+            if (this.child1[node] == NULL_NODE)
+            {
+                result.add((T)this.data[node]);
+            }
+            else
+            {
+                if (stackSize + 2 > this.stack.length)
+                {
+                    this.stack = Arrays.copyOf(this.stack,
+                                               this.stack.length * 2);
+                }
+                this.stack[stackSize++] = this.child1[node];
+                this.stack[stackSize++] = this.child2[node];
+            }
+        }
+    }
+
+    /**
+     * <p>Sets the fat bounds of a leaf from the given object bounds.</p>
+     */
+    private void setFat(int node, Bounds bounds)
+    {
+        this.left[node] = bounds.left - this.margin;
+        this.bot[node] = bounds.bot - this.margin;
+        this.right[node] = bounds.right + this.margin;
+        this.top[node] = bounds.top + this.margin;
+    }
+
+    /**
+     * <p>Inserts a leaf next to the sibling, for which the resulting tree
+     * grows the least, then refits and balances all it's ancestors.</p>
+     */
+    private void insertLeaf(int leaf)
+    {
+        if (this.root == NULL_NODE)
+        {
+            this.root = leaf;
+            this.parent[leaf] = NULL_NODE;
+            return;
+        }
+
+        // Find the best sibling by the perimeter heuristic.
+        float leafLeft = this.left[leaf];
+        float leafBot = this.bot[leaf];
+        float leafRight = this.right[leaf];
+        float leafTop = this.top[leaf];
+        int index = this.root;
+        while (this.child1[index] != NULL_NODE)
+        {
+            int c1 = this.child1[index];
+            int c2 = this.child2[index];
+
+            float perimeter = this.perimeter(index);
+            float combined = perimeter(
+                    Math.min(this.left[index], leafLeft),
+                    Math.min(this.bot[index], leafBot),
+                    Math.max(this.right[index], leafRight),
+                    Math.max(this.top[index], leafTop));
+
+            // Cost of making a new parent for this node and the leaf.
+            float cost = 2 * combined;
+            // Minimum cost of pushing the leaf further down the tree.
+            float inheritanceCost = 2 * (combined - perimeter);
+
+            float cost1 = this.descendCost(c1, leafLeft, leafBot, leafRight,
+                                           leafTop) + inheritanceCost;
+            float cost2 = this.descendCost(c2, leafLeft, leafBot, leafRight,
+                                           leafTop) + inheritanceCost;
+
+            if (cost < cost1 && cost < cost2)
+            {
+                break;
+            }
+            index = cost1 < cost2 ? c1 : c2;
+        }
+        int sibling = index;
+
+        // Create a new parent for the sibling and the leaf.
+        int oldParent = this.parent[sibling];
+        int newParent = this.allocateNode();
+        this.parent[newParent] = oldParent;
+        this.data[newParent] = null;
+        this.child1[newParent] = sibling;
+        this.child2[newParent] = leaf;
+        this.height[newParent] = this.height[sibling] + 1;
+        this.parent[sibling] = newParent;
+        this.parent[leaf] = newParent;
+        this.refit(newParent);
+        if (oldParent != NULL_NODE)
+        {
+            if (this.child1[oldParent] == sibling)
+            {
+                this.child1[oldParent] = newParent;
+            }
+            else
+            {
+                this.child2[oldParent] = newParent;
+            }
+        }
+        else
+        {
+            this.root = newParent;
+        }
+
+        this.refitAncestors(this.parent[leaf]);
+    }
+
+    /**
+     * <p>Removes a leaf, replacing it's parent with it's sibling, then
+     * refits and balances the ancestors.</p>
+     */
+    private void removeLeaf(int leaf)
+    {
+        if (leaf == this.root)
+        {
+            this.root = NULL_NODE;
+            return;
+        }
+
+        int parentNode = this.parent[leaf];
+        int grandParent = this.parent[parentNode];
+        int sibling = this.child1[parentNode] == leaf
+                      ? this.child2[parentNode]
+                      : this.child1[parentNode];
+
+        if (grandParent != NULL_NODE)
+        {
+            if (this.child1[grandParent] == parentNode)
+            {
+                this.child1[grandParent] = sibling;
+            }
+            else
+            {
+                this.child2[grandParent] = sibling;
+            }
+            this.parent[sibling] = grandParent;
+            this.freeNode(parentNode);
+            this.refitAncestors(grandParent);
+        }
+        else
+        {
+            this.root = sibling;
+            this.parent[sibling] = NULL_NODE;
+            this.freeNode(parentNode);
+        }
+    }
+
+    /**
+     * <p>Walks from the given node up to the root, balancing each node and
+     * recalculating it's bounds and height.</p>
+     */
+    private void refitAncestors(int index)
+    {
+        while (index != NULL_NODE)
+        {
+            index = this.balance(index);
+            this.height[index] = 1 + Math.max(
+                    this.height[this.child1[index]],
+                    this.height[this.child2[index]]);
+            this.refit(index);
+            index = this.parent[index];
+        }
+    }
+
+    /**
+     * <p>Makes the bounds of an inner node the union of it's
+     * children.</p>
+     */
+    private void refit(int node)
+    {
+        int c1 = this.child1[node];
+        int c2 = this.child2[node];
+        this.left[node] = Math.min(this.left[c1], this.left[c2]);
+        this.bot[node] = Math.min(this.bot[c1], this.bot[c2]);
+        this.right[node] = Math.max(this.right[c1], this.right[c2]);
+        this.top[node] = Math.max(this.top[c1], this.top[c2]);
+    }
+
+    /**
+     * <p>Rotates the subtree with root {@code a} if one of it's children is
+     * more than one level higher than the other.</p>
+     * @return The root of the subtree after the rotation.
+     */
+    private int balance(int a)
+    {
+        if (this.child1[a] == NULL_NODE || this.height[a] < 2)
+        {
+            return a;
+        }
+
+        int b = this.child1[a];
+        int c = this.child2[a];
+        int balance = this.height[c] - this.height[b];
+        if (balance > 1)
+        {
+            return this.rotate(a, c, b);
+        }
+        if (balance < -1)
+        {
+            return this.rotate(a, b, c);
+        }
+        return a;
+    }
+
+    /**
+     * <p>Promotes {@code high}, the higher child of {@code a}, to the
+     * place of {@code a}. One of {@code high}'s children takes the place of
+     * {@code high} under {@code a}.</p>
+     * @return The new root of the subtree, {@code high}.
+     */
+    private int rotate(int a, int high, int low)
+    {
+        int f = this.child1[high];
+        int g = this.child2[high];
+
+        // Swap a and high.
+        this.child1[high] = a;
+        this.parent[high] = this.parent[a];
+        this.parent[a] = high;
+
+        int highParent = this.parent[high];
+        if (highParent != NULL_NODE)
+        {
+            if (this.child1[highParent] == a)
+            {
+                this.child1[highParent] = high;
+            }
+            else
+            {
+                this.child2[highParent] = high;
+            }
+        }
+        else
+        {
+            this.root = high;
+        }
+
+        // Keep the higher grandchild under high, move the other one to a.
+        int keep = this.height[f] > this.height[g] ? f : g;
+        int move = keep == f ? g : f;
+        this.child2[high] = keep;
+        if (this.child1[a] == high)
+        {
+            this.child1[a] = move;
+        }
+        else
+        {
+            this.child2[a] = move;
+        }
+        this.parent[move] = a;
+
+        this.refit(a);
+        this.height[a] = 1 + Math.max(this.height[low], this.height[move]);
+        this.refit(high);
+        this.height[high] = 1 + Math.max(this.height[a], this.height[keep]);
+        return high;
+    }
+
+    /**
+     * <p>Returns the cost of descending into {@code child} with a leaf of
+     * the given bounds.</p>
+     */
+    private float descendCost(int child, float leafLeft, float leafBot,
+                              float leafRight, float leafTop)
+    {
+        float combined = perimeter(
+                Math.min(this.left[child], leafLeft),
+                Math.min(this.bot[child], leafBot),
+                Math.max(this.right[child], leafRight),
+                Math.max(this.top[child], leafTop));
+        if (this.child1[child] == NULL_NODE)
+        {
+            return combined;
+        }
+        return combined - this.perimeter(child);
+    }
+
+    private float perimeter(int node)
+    {
+        return perimeter(this.left[node], this.bot[node],
+                         this.right[node], this.top[node]);
+    }
+
+    private static float perimeter(float left, float bot,
+                                   float right, float top)
+    {
+        return 2 * ((right - left) + (top - bot));
+    }
+
+    /**
+     * <p>Takes a node from the free list, growing the arrays if there are
+     * no free nodes left.</p>
+     */
+    private int allocateNode()
+    {
+        if (this.freeList == NULL_NODE)
+        {
+            this.allocateNodes(this.left.length * 2);
+        }
+        int node = this.freeList;
+        this.freeList = this.parent[node];
+        this.parent[node] = NULL_NODE;
+        this.child1[node] = NULL_NODE;
+        this.child2[node] = NULL_NODE;
+        this.height[node] = 0;
+        ++this.nodeCount;
+        return node;
+    }
+
+    /**
+     * <p>Returns a node to the free list.</p>
+     */
+    private void freeNode(int node)
+    {
+        this.data[node] = null;
+        this.height[node] = -1;
+        this.parent[node] = this.freeList;
+        this.freeList = node;
+        --this.nodeCount;
+    }
+
+    /**
+     * <p>Grows the node arrays to {@code capacity} and links the new nodes
+     * into the free list.</p>
+     */
+    private void allocateNodes(int capacity)
+    {
+        int oldCapacity = this.left == null ? 0 : this.left.length;
+        if (oldCapacity == 0)
+        {
+            this.left = new float[capacity];
+            this.bot = new float[capacity];
+            this.right = new float[capacity];
+            this.top = new float[capacity];
+            this.parent = new int[capacity];
+            this.child1 = new int[capacity];
+            this.child2 = new int[capacity];
+            this.height = new int[capacity];
+            this.data = new Object[capacity];
+        }
+        else
+        {
+            this.left = Arrays.copyOf(this.left, capacity);
+            this.bot = Arrays.copyOf(this.bot, capacity);
+            this.right = Arrays.copyOf(this.right, capacity);
+            this.top = Arrays.copyOf(this.top, capacity);
+            this.parent = Arrays.copyOf(this.parent, capacity);
+            this.child1 = Arrays.copyOf(this.child1, capacity);
+            this.child2 = Arrays.copyOf(this.child2, capacity);
+            this.height = Arrays.copyOf(this.height, capacity);
+            this.data = Arrays.copyOf(this.data, capacity);
+        }
+        for (int i = oldCapacity; i < capacity - 1; ++i)
+        {
+            this.parent[i] = i + 1;
+            this.height[i] = -1;
+        }
+        this.parent[capacity - 1] = NULL_NODE;
+        this.height[capacity - 1] = -1;
+        this.freeList = oldCapacity;
+    }
+
+}
@@ -59,14 +59,23 @@ public class Geometry
 
     public static float segmentCircleIntersectionByDirection(
             Vector2 a, Vector2 d, Vector2 o, float r)
+    {
+        return segmentCircleIntersectionByDirection(a.x, a.y, d.x, d.y,
+                                                    o.x, o.y, r);
+    }
+
+    public static float segmentCircleIntersectionByDirection(
+            float ax, float ay, float dx, float dy,
+            float ox, float oy, float r)
     {
         // Vector from sphere center to segment start.
-        Vector2 f = Vector2.difference(a, o);
+        float fx = ax - ox;
+        float fy = ay - oy;
 
         // Solving equation.
-        float A = dotProduct(d, d);
-        float B = 2 * dotProduct(f, d);
-        float C = dotProduct(f, f) - r*r;
+        float A = dotProduct(dx, dy, dx, dy);
+        float B = 2 * dotProduct(fx, fy, dx, dy);
+        float C = dotProduct(fx, fy, fx, fy) - r*r;
         float discriminant = B*B - 4*A*C;
         if (discriminant < 0)
         {
@@ -9,7 +9,7 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 // TODO: Does KeyEvent.getKeyCode() work with MouseEvent.getButton()?
 // TODO: Clicks and types.
@@ -26,7 +26,10 @@ public class Input implements InputProvider, KeyListener, MouseListener,
     private static final Input sharedAsInput = new Input();
     public static final InputProvider shared = sharedAsInput;
 
-    private HashMap<Integer, Boolean> keyStates;
+    /**
+     * <p>Written by the event dispatch thread, read by the game loop.</p>
+     */
+    private ConcurrentHashMap<Integer, Boolean> keyStates;
     private Vector2Int mousePosition;
 
     /**
@@ -34,7 +37,7 @@ public class Input implements InputProvider, KeyListener, MouseListener,
      */
     private Input()
     {
-        this.keyStates = new HashMap<Integer, Boolean>();
+        this.keyStates = new ConcurrentHashMap<Integer, Boolean>();
         this.mousePosition = new Vector2Int();
     }
 
@@ -0,0 +1,147 @@
+package archrn.tea_engine.physics;
+
+import archrn.tea_engine.geometry.Bounds;
+import archrn.tea_engine.geometry.DynamicAabbTree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>{@code AabbTreeBroadPhase} keeps {@code Collider}s in a {@code
+ * DynamicAabbTree}.</p>
+ * <p>Unlike {@code SpatialHashGrid}, it doesn't depend on a cell size, so
+ * it handles scenes mixing huge static {@code Collider}s with many small
+ * moving ones. A {@code Collider} only changes the tree when it leaves it's
+ * fat bounds.</p>
+ * @author Artem
+ */
+public final class AabbTreeBroadPhase implements BroadPhase
+{
+
+    private final DynamicAabbTree<Collider> tree;
+    private final ArrayList<Collider> colliders;
+    private final ArrayList<Collider> found;
+    private final Bounds bounds;
+
+    /**
+     * <p>Initializes an empty {@code AabbTreeBroadPhase} with the default
+     * fat bounds margin.</p>
+     */
+    public AabbTreeBroadPhase()
+    {
+        this(new DynamicAabbTree<Collider>());
+    }
+
+    /**
+     * <p>Initializes an empty {@code AabbTreeBroadPhase} with the given
+     * fat bounds margin.</p>
+     * @param margin The distance, by which the bounds of each {@code
+     *               Collider} are grown in the tree.
+     * @throws IllegalArgumentException if {@code margin < 0}.
+     */
+    public AabbTreeBroadPhase(float margin)
+    {
+        this(new DynamicAabbTree<Collider>(margin));
+    }
+
+    private AabbTreeBroadPhase(DynamicAabbTree<Collider> tree)
+    {
+        this.tree = tree;
+        this.colliders = new ArrayList<Collider>();
+        this.found = new ArrayList<Collider>();
+        this.bounds = new Bounds();
+    }
+
+    /**
+     * <p>Returns the height of the underlying tree.</p>
+     * @return The height of the tree.
+     */
+    public int getHeight()
+    {
+        return this.tree.getHeight();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+        if (collider.treeProxy >= 0)
+        {
+            return;
+        }
+        collider.getBounds(this.bounds);
+        collider.treeProxy = this.tree.createProxy(this.bounds, collider);
+        this.colliders.add(collider);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+        if (collider.treeProxy < 0)
+        {
+            return;
+        }
+        this.tree.destroyProxy(collider.treeProxy);
+        collider.treeProxy = -1;
+        this.colliders.remove(collider);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void update(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+        if (collider.treeProxy < 0)
+        {
+            return;
+        }
+        collider.getBounds(this.bounds);
+        this.tree.moveProxy(collider.treeProxy, this.bounds);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void updateAll()
+    {
+        for (int i = 0; i < this.colliders.size(); ++i)
+        {
+            this.update(this.colliders.get(i));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void query(Bounds area, List<Collider> result)
+    {
+        Objects.requireNonNull(area);
+        Objects.requireNonNull(result);
+
+        // The tree returns Colliders by their fat bounds.
+        this.found.clear();
+        this.tree.query(area, this.found);
+        for (int i = 0; i < this.found.size(); ++i)
+        {
+            Collider collider = this.found.get(i);
+            collider.getBounds(this.bounds);
+            if (this.bounds.overlaps(area))
+            {
+                result.add(collider);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+package archrn.tea_engine.physics;
+
+import archrn.tea_engine.geometry.Bounds;
+import archrn.tea_engine.geometry.Vector2;
+
+import java.util.List;
+
+/**
+ * <p>{@code BroadPhase} quickly finds the {@code Collider}s, which can touch
+ * a given area, so only they are checked by the exact (narrow phase)
+ * tests.</p>
+ * <p>Each {@code PhysicsWorld} has a {@code BroadPhase} with all of it's
+ * {@code Collider}s. It's used both to find collisions and to sweep moving
+ * {@code Collider}s.</p>
+ * @see SpatialHashGrid
+ * @see AabbTreeBroadPhase
+ * @see BruteForceBroadPhase
+ * @author Artem
+ */
+public interface BroadPhase
+{
+
+    /**
+     * <p>Adds the given {@code collider} to the {@code BroadPhase}.</p>
+     * <p>Adding a {@code Collider} twice does nothing.</p>
+     * @param collider The {@code Collider} to add.
+     * @throws NullPointerException if {@code collider} is {@code null}.
+     */
+    public void add(Collider collider);
+
+    /**
+     * <p>Removes the given {@code collider} from the {@code
+     * BroadPhase}.</p>
+     * <p>Removing a {@code Collider}, which isn't in the {@code
+     * BroadPhase}, does nothing.</p>
+     * @param collider The {@code Collider} to remove.
+     * @throws NullPointerException if {@code collider} is {@code null}.
+     */
+    public void remove(Collider collider);
+
+    /**
+     * <p>Tells the {@code BroadPhase} that the given {@code collider} could
+     * have moved or changed it's size.</p>
+     * @param collider The {@code Collider}, which has moved.
+     * @throws NullPointerException if {@code collider} is {@code null}.
+     */
+    public void update(Collider collider);
+
+    /**
+     * <p>Updates all the {@code Collider}s in the {@code BroadPhase}.</p>
+     * <p>Called once per frame, so {@code Collider}s moved directly through
+     * their {@code Transform} are found at their new places.</p>
+     */
+    public void updateAll();
+
+    /**
+     * <p>Finds all the {@code Collider}s, which bounds overlap the given
+     * {@code area}, and adds them to {@code result}.</p>
+     * <p>Each {@code Collider} is added once. The exact shapes aren't
+     * checked.</p>
+     * @param area The area to look in.
+     * @param result The list to add the found {@code Collider}s to.
+     * @throws NullPointerException if {@code area} or {@code result} is
+     * {@code null}.
+     */
+    public void query(Bounds area, List<Collider> result);
+
+    /**
+     * <p>Finds the {@code Collider}s, which the given ray can hit, and adds
+     * them to {@code result}.</p>
+     * <p>Each {@code Collider} is added once. The exact shapes aren't
+     * checked. By default, it queries the bounds of the ray.</p>
+     * @param origin The start of the ray.
+     * @param direction The ray from {@code origin} to it's end.
+     * @param result The list to add the found {@code Collider}s to.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public default void queryRay(Vector2 origin, Vector2 direction,
+                                 List<Collider> result)
+    {
+        float endX = origin.x + direction.x;
+        float endY = origin.y + direction.y;
+        this.query(new Bounds(Math.min(origin.x, endX),
+                              Math.min(origin.y, endY),
+                              Math.max(origin.x, endX),
+                              Math.max(origin.y, endY)), result);
+    }
+
+}
@@ -0,0 +1,93 @@
+package archrn.tea_engine.physics;
+
+import archrn.tea_engine.geometry.Bounds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>{@code BruteForceBroadPhase} checks the bounds of every {@code
+ * Collider} on each query.</p>
+ * <p>Has no upkeep at all, so it can be the fastest choice for scenes with
+ * just a few {@code Collider}s. Also used as a reference to compare other
+ * {@code BroadPhase}s with.</p>
+ * @author Artem
+ */
+public final class BruteForceBroadPhase implements BroadPhase
+{
+
+    private final ArrayList<Collider> colliders;
+    private final Bounds bounds;
+
+    /**
+     * <p>Initializes an empty {@code BruteForceBroadPhase}.</p>
+     */
+    public BruteForceBroadPhase()
+    {
+        this.colliders = new ArrayList<Collider>();
+        this.bounds = new Bounds();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void add(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+        if (!this.colliders.contains(collider))
+        {
+            this.colliders.add(collider);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+        this.colliders.remove(collider);
+    }
+
+    /**
+     * <p>Does nothing: bounds are always checked on query.</p>
+     * @param collider The {@code Collider}, which has moved.
+     */
+    @Override
+    public void update(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+    }
+
+    /**
+     * <p>Does nothing: bounds are always checked on query.</p>
+     */
+    @Override
+    public void updateAll()
+    {
+        // Nothing to update.
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void query(Bounds area, List<Collider> result)
+    {
+        Objects.requireNonNull(area);
+        Objects.requireNonNull(result);
+        for (int i = 0; i < this.colliders.size(); ++i)
+        {
+            Collider collider = this.colliders.get(i);
+            collider.getBounds(this.bounds);
+            if (this.bounds.overlaps(area))
+            {
+                result.add(collider);
+            }
+        }
+    }
+
+}
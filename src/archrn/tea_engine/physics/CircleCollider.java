@@ -1,5 +1,6 @@
 package archrn.tea_engine.physics;
 
+import archrn.tea_engine.geometry.Bounds;
 import archrn.tea_engine.geometry.Geometry;
 import archrn.tea_engine.geometry.Vector2;
 import archrn.tea_engine.math.MathF;
@@ -45,6 +46,17 @@ public class CircleCollider extends Collider
         return false;
     }
 
+    @Override
+    public void getBounds(Bounds bounds)
+    {
+        Vector2 position = this.getTransform().getPosition();
+        Vector2 bias = this.getBias();
+        bounds.set(position.x + bias.x - this.radius,
+                   position.y + bias.y - this.radius,
+                   position.x + bias.x + this.radius,
+                   position.y + bias.y + this.radius);
+    }
+
     public float getRadius()
     {
         return radius;
@@ -56,19 +68,88 @@ public class CircleCollider extends Collider
     }
 
     @Override
-    protected float move(Vector2 direction, Collider other)
+    protected float cast(Vector2 direction, Collider other, Vector2 normal)
     {
         if (other instanceof RectangleCollider)
         {
-            return other.move(direction.inverted(), this);
+            // The rectangle moving the other way hits the same point, but
+            // sees the opposite normal.
+            float move = other.cast(direction.inverted(), this, normal);
+            normal.x = -normal.x;
+            normal.y = -normal.y;
+            return move;
         }
         else if (other instanceof CircleCollider)
         {
-            return this.move(direction, (CircleCollider)other);
+            return this.cast(direction, (CircleCollider)other, normal);
         }
+        normal.x = 0;
+        normal.y = 0;
         return 1;
     }
 
+    @Override
+    float raycast(float originX, float originY,
+                  float directionX, float directionY, Vector2 normal)
+    {
+        Vector2 position = this.getTransform().getPosition();
+        Vector2 bias = this.getBias();
+        float x = position.x + bias.x;
+        float y = position.y + bias.y;
+
+        normal.x = 0;
+        normal.y = 0;
+        float fromX = originX - x;
+        float fromY = originY - y;
+        if (fromX * fromX + fromY * fromY <= this.radius * this.radius)
+        {
+            return 0;
+        }
+
+        float move = Geometry.segmentCircleIntersectionByDirection(
+                originX, originY, directionX, directionY, x, y, this.radius);
+        if (move >= 1)
+        {
+            // 1 also means "no intersection", so check the end itself.
+            float toX = fromX + directionX;
+            float toY = fromY + directionY;
+            if (toX * toX + toY * toY > this.radius * this.radius)
+            {
+                return Float.MAX_VALUE;
+            }
+            move = 1;
+        }
+        if (this.radius > 0)
+        {
+            normal.x = (fromX + directionX * move) / this.radius;
+            normal.y = (fromY + directionY * move) / this.radius;
+        }
+        return move;
+    }
+
+    @Override
+    boolean overlapsCircle(float centerX, float centerY, float radius)
+    {
+        Vector2 position = this.getTransform().getPosition();
+        Vector2 bias = this.getBias();
+        float dx = centerX - position.x - bias.x;
+        float dy = centerY - position.y - bias.y;
+        float distance = this.radius + radius;
+        return dx * dx + dy * dy <= distance * distance;
+    }
+
+    @Override
+    boolean overlapsBox(Bounds box)
+    {
+        Vector2 position = this.getTransform().getPosition();
+        Vector2 bias = this.getBias();
+        float x = position.x + bias.x;
+        float y = position.y + bias.y;
+        float dx = x - MathF.clamp(x, box.left, box.right);
+        float dy = y - MathF.clamp(y, box.bot, box.top);
+        return dx * dx + dy * dy <= this.radius * this.radius;
+    }
+
     @Override
     protected float left()
     {
@@ -111,11 +192,27 @@ public class CircleCollider extends Collider
         return distance <= this.radius + other.radius;
     }
 
-    float move(Vector2 direction, CircleCollider other)
+    float cast(Vector2 direction, CircleCollider other, Vector2 normal)
     {
-        return Geometry.segmentCircleIntersectionByDirection(
-                this.getBiasedPosition(), direction,
-                other.getBiasedPosition(), radius + other.radius);
+        Vector2 position = this.getBiasedPosition();
+        Vector2 otherPosition = other.getBiasedPosition();
+        float move = Geometry.segmentCircleIntersectionByDirection(
+                position, direction, otherPosition, radius + other.radius);
+
+        // The normal goes from the other center to this center at the hit.
+        normal.x = position.x + direction.x * move - otherPosition.x;
+        normal.y = position.y + direction.y * move - otherPosition.y;
+        float length = normal.magnitude();
+        if (move >= 1 || length == 0)
+        {
+            normal.x = 0;
+            normal.y = 0;
+        }
+        else
+        {
+            normal.divide(length);
+        }
+        return move;
     }
 
 }
@@ -1,13 +1,10 @@
 package archrn.tea_engine.physics;
 
 import archrn.tea_engine.Component;
-import archrn.tea_engine.SceneManager;
 import archrn.tea_engine.Time;
+import archrn.tea_engine.geometry.Bounds;
 import archrn.tea_engine.geometry.Vector2;
 
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -20,79 +17,92 @@ import java.util.Objects;
 public abstract class Collider extends Component
 {
 
-    private Map<Collider, Boolean> collisions;
     private Vector2 bias;
     private boolean passThrough;
+    private int layer;
+
+    // Reused by move().
+    private final ShapeCastHit castHit;
+
+    // State of the Collider in a SpatialHashGrid.
+    boolean inGrid;
+    int gridMinX;
+    int gridMinY;
+    int gridMaxX;
+    int gridMaxY;
+    int gridQueryStamp;
+
+    // Proxy of the Collider in an AabbTreeBroadPhase.
+    int treeProxy;
+
+    // Id of the Collider in a PhysicsWorld.
+    int physicsId;
 
     Collider()
     {
         bias = Vector2.zero();
         passThrough = false;
+        castHit = new ShapeCastHit();
+        treeProxy = -1;
+        physicsId = -1;
     }
 
-    @Override
-    protected void start()
+    public abstract boolean collidesWith(Collider other);
+
+    /**
+     * <p>Writes the bounds of this {@code Collider} in world coordinates to
+     * the given {@code bounds}.</p>
+     * @param bounds The {@code Bounds} to write to.
+     * @throws NullPointerException if {@code bounds} is {@code null}.
+     */
+    public abstract void getBounds(Bounds bounds);
+
+    /**
+     * <p>Returns the collision layer of this {@code Collider}.</p>
+     * @return The layer from {@code 0} to {@code PhysicsWorld.LAYER_COUNT
+     * - 1}.
+     * @see PhysicsWorld#setLayerCollision(int, int, boolean)
+     */
+    public int getLayer()
     {
-        this.collisions = new HashMap<>();
+        return this.layer;
     }
 
-    @Override
-    protected void update()
+    /**
+     * <p>Sets the collision layer of this {@code Collider}.</p>
+     * <p>Pairs of layers, which can't collide, are skipped before any
+     * exact test. By default, all {@code Collider}s are on layer {@code
+     * 0}.</p>
+     * @param layer The new layer from {@code 0} to {@code
+     *              PhysicsWorld.LAYER_COUNT - 1}.
+     * @throws IllegalArgumentException if {@code layer} is out of range.
+     * @see PhysicsWorld#setLayerCollision(int, int, boolean)
+     */
+    public void setLayer(int layer)
     {
-        if (this.collisions == null)
-        {
-            return;
-        }
-
-        Collection<Collider> colliders = SceneManager.shared.getCurrentScene()
-                .getAllComponentsOfType(Collider.class);
-
-        // Update all collisions.
-        for (Collider collider : colliders)
-        {
-            if (collider == this)
-            {
-                continue;
-            }
-
-            boolean collides = this.collidesWith(collider);
-            if (this.collisions.containsKey(collider))
-            {
-                // If collision changed.
-                if (collides != this.collisions.get(collider))
-                {
-                    if (collides)
-                    {
-                        this.getGameObject().onCollisionEnter(collider);
-                        collider.getGameObject().onCollisionEnter(this);
-                    }
-                    else
-                    {
-                        this.getGameObject().onCollisionExit(collider);
-                        collider.getGameObject().onCollisionExit(this);
-                    }
-                    this.collisions.put(collider, collides);
-                    collider.collisions.put(this, collides);
-                }
-            }
-            else
-            {
-                if (collides)
-                {
-                    this.getGameObject().onCollisionEnter(collider);
-                }
-                this.collisions.put(collider, collides);
-            }
-        }
+        PhysicsWorld.checkLayer(layer);
+        this.layer = layer;
     }
 
-    public abstract boolean collidesWith(Collider other);
+    public boolean isPassThrough()
+    {
+        return this.passThrough;
+    }
 
     public void setPassThrough(boolean passThrough)
     {
         this.passThrough = passThrough;
     }
 
+    /**
+     * <p>Moves the {@code Collider} along {@code direction} until it hits
+     * another {@code Collider}.</p>
+     * <p>If something is hit, {@code onCollisionEnter()} is sent to both
+     * {@code GameObject}s.</p>
+     * @param direction The movement.
+     * @throws NullPointerException if {@code direction} is {@code null}.
+     * @see Physics#shapeCast(Collider, Vector2, ShapeCastHit)
+     */
     public void move(Vector2 direction)
     {
         Objects.requireNonNull(direction);
@@ -102,42 +112,31 @@ public abstract class Collider extends Component
             return;
         }
 
-        if (this.passThrough)
+        PhysicsWorld world = Physics.getPhysicsWorld(this);
+        if (this.passThrough || world == null)
         {
             getTransform().setPosition(Vector2.sum(
                     getTransform().getPosition(), direction));
             return;
         }
 
-        Collection<Collider> colliders = SceneManager.shared
-                .getCurrentScene().getAllComponentsOfType(Collider.class);
         float minMove = 1;
-        Collider closest = null;
-        for (Collider collider : colliders)
+        if (world.shapeCast(this, direction, this.castHit))
         {
-            if (!collider.passThrough)
+            minMove = this.castHit.fraction;
+            if (minMove <= 0)
             {
-                float movement = move(direction, collider);
-                if (movement < minMove)
-                {
-                    minMove = movement;
-                    closest = collider;
-                    if (minMove <= 0)
-                    {
-                        return;
-                    }
-                }
+                return;
             }
-        }
-        if (closest != null)
-        {
             minMove -= 0.001;
+            Collider closest = this.castHit.collider;
             this.getGameObject().onCollisionEnter(closest);
             closest.getGameObject().onCollisionEnter(this);
         }
         getTransform().setPosition(Vector2.sum(
                 getTransform().getPosition(),
                 Vector2.multiplied(direction, minMove)));
+        world.getBroadPhase().update(this);
     }
 
     public Vector2 moveTowards(Vector2 position, float speed)
@@ -169,7 +168,44 @@ public abstract class Collider extends Component
         return Vector2.sum(this.getTransform().getPosition(), this.bias);
     }
 
-    protected abstract float move(Vector2 direction, Collider other);
+    /**
+     * <p>Finds the part of {@code direction}, which this {@code Collider}
+     * can move before it hits {@code other}.</p>
+     * @param direction The movement.
+     * @param other The {@code Collider} to check.
+     * @param normal The {@code Vector2} to write the normal of the hit
+     *               surface to, pointing from {@code other} to this {@code
+     *               Collider}.
+     * @return The part of the movement from {@code 0} to {@code 1}, or
+     * {@code 1} if {@code other} isn't hit.
+     */
+    protected abstract float cast(Vector2 direction, Collider other,
+                                  Vector2 normal);
+
+    /**
+     * <p>Finds where the ray from {@code (originX; originY)} along {@code
+     * (directionX; directionY)} enters this {@code Collider}.</p>
+     * @param normal The {@code Vector2} to write the normal of the hit
+     *               surface to.
+     * @return The part of the ray before the hit, {@code 0} if the ray
+     * starts inside, or a value greater than {@code 1} if the ray misses.
+     */
+    abstract float raycast(float originX, float originY,
+                           float directionX, float directionY,
+                           Vector2 normal);
+
+    /**
+     * <p>Checks if this {@code Collider} overlaps the given circle.</p>
+     * @return {@code true} if the shapes overlap.
+     */
+    abstract boolean overlapsCircle(float centerX, float centerY,
+                                    float radius);
+
+    /**
+     * <p>Checks if this {@code Collider} overlaps the given box.</p>
+     * @return {@code true} if the shapes overlap.
+     */
+    abstract boolean overlapsBox(Bounds box);
 
     protected abstract float left();
 
@@ -0,0 +1,170 @@
+package archrn.tea_engine.physics;
+
+import archrn.tea_engine.Scene;
+import archrn.tea_engine.SceneManager;
+import archrn.tea_engine.geometry.Vector2;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>{@code Physics} contains queries about the {@code Collider}s on a
+ * {@code Scene}.</p>
+ * <p>The queries use the {@code BroadPhase} of the {@code Scene}'s {@code
+ * PhysicsWorld}, so only the {@code Collider}s near the queried area are
+ * checked exactly.</p>
+ * @author Artem
+ */
+public final class Physics
+{
+
+    private Physics()
+    {
+    }
+
+    /**
+     * <p>Moves the given {@code collider} along {@code direction} without
+     * actually moving it and finds the first {@code Collider} it hits.</p>
+     * <p>Allocates the result. Use {@code shapeCast(Collider, Vector2,
+     * ShapeCastHit)} on hot paths.</p>
+     * @param collider The {@code Collider} to cast.
+     * @param direction The movement to check.
+     * @return The first hit or {@code null} if nothing is hit.
+     * @throws NullPointerException if {@code collider} or {@code direction}
+     * is {@code null}.
+     */
+    public static ShapeCastHit shapeCast(Collider collider, Vector2 direction)
+    {
+        ShapeCastHit hit = new ShapeCastHit();
+        return Physics.shapeCast(collider, direction, hit) ? hit : null;
+    }
+
+    /**
+     * <p>Moves the given {@code collider} along {@code direction} without
+     * actually moving it and finds the first {@code Collider} it hits.</p>
+     * <p>Only the {@code Collider}s overlapping the bounds swept by the
+     * movement are checked. The {@code collider} itself and pass through
+     * {@code Collider}s are never hit.</p>
+     * @param collider The {@code Collider} to cast.
+     * @param direction The movement to check.
+     * @param hit The {@code ShapeCastHit} to write the first hit to. It's
+     *            cleared if nothing is hit.
+     * @return {@code true} if something is hit.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public static boolean shapeCast(Collider collider, Vector2 direction,
+                                    ShapeCastHit hit)
+    {
+        Objects.requireNonNull(collider);
+        PhysicsWorld world = Physics.getPhysicsWorld(collider);
+        if (world == null)
+        {
+            Objects.requireNonNull(direction);
+            Objects.requireNonNull(hit);
+            hit.clear();
+            return false;
+        }
+        return world.shapeCast(collider, direction, hit);
+    }
+
+    /**
+     * <p>Finds the first {@code Collider} on the current {@code Scene} hit
+     * by the ray from {@code origin} along {@code direction}.</p>
+     * <p>Pass through {@code Collider}s are never hit. If the ray starts
+     * inside a {@code Collider}, it's hit at fraction {@code 0}.</p>
+     * @param origin The start of the ray.
+     * @param direction The ray. It's length is the length of the ray.
+     * @param hit The {@code RaycastHit} to write the first hit to. It's
+     *            cleared if nothing is hit.
+     * @return {@code true} if something is hit.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public static boolean raycast(Vector2 origin, Vector2 direction,
+                                  RaycastHit hit)
+    {
+        return Physics.getCurrentPhysicsWorld().raycast(origin, direction,
+                                                        hit);
+    }
+
+    /**
+     * <p>Finds all the {@code Collider}s on the current {@code Scene} hit by
+     * the ray from {@code origin} along {@code direction}, nearest
+     * first.</p>
+     * <p>At most {@code hits.length} nearest hits are returned. {@code
+     * null} elements of {@code hits} are filled with new {@code
+     * RaycastHit}s, so a reused array doesn't allocate.</p>
+     * @param origin The start of the ray.
+     * @param direction The ray. It's length is the length of the ray.
+     * @param hits The array to write the hits to.
+     * @return The amount of hits written to {@code hits}.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public static int raycastAll(Vector2 origin, Vector2 direction,
+                                 RaycastHit[] hits)
+    {
+        return Physics.getCurrentPhysicsWorld().raycastAll(origin, direction,
+                                                           hits);
+    }
+
+    /**
+     * <p>Finds all the {@code Collider}s on the current {@code Scene},
+     * which overlap the given circle, and adds them to {@code
+     * result}.</p>
+     * @param center The center of the circle.
+     * @param radius The radius of the circle.
+     * @param result The list to add the found {@code Collider}s to.
+     * @return The amount of {@code Collider}s added to {@code result}.
+     * @throws NullPointerException if {@code center} or {@code result} is
+     * {@code null}.
+     */
+    public static int overlapCircle(Vector2 center, float radius,
+                                    List<Collider> result)
+    {
+        return Physics.getCurrentPhysicsWorld().overlapCircle(center, radius,
+                                                              result);
+    }
+
+    /**
+     * <p>Finds all the {@code Collider}s on the current {@code Scene},
+     * which overlap the given box, and adds them to {@code result}.</p>
+     * @param center The center of the box.
+     * @param size The width and the height of the box.
+     * @param result The list to add the found {@code Collider}s to.
+     * @return The amount of {@code Collider}s added to {@code result}.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public static int overlapBox(Vector2 center, Vector2 size,
+                                 List<Collider> result)
+    {
+        return Physics.getCurrentPhysicsWorld().overlapBox(center, size,
+                                                           result);
+    }
+
+    /**
+     * <p>Returns the {@code PhysicsWorld} of the current {@code Scene}.</p>
+     * @return The current {@code PhysicsWorld}.
+     * @throws IndexOutOfBoundsException if no scene is loaded yet.
+     */
+    private static PhysicsWorld getCurrentPhysicsWorld()
+    {
+        return SceneManager.shared.getCurrentScene().getPhysicsWorld();
+    }
+
+    /**
+     * <p>Returns the {@code PhysicsWorld} of the given {@code collider}'s
+     * {@code Scene}.</p>
+     * @param collider A {@code Collider}.
+     * @return The {@code PhysicsWorld} or {@code null} if the {@code
+     * Collider} isn't on a {@code Scene}.
+     */
+    static PhysicsWorld getPhysicsWorld(Collider collider)
+    {
+        if (collider.getGameObject() == null)
+        {
+            return null;
+        }
+        Scene scene = collider.getGameObject().getScene();
+        return scene != null ? scene.getPhysicsWorld() : null;
+    }
+
+}
@@ -0,0 +1,657 @@
+package archrn.tea_engine.physics;
+
+import archrn.tea_engine.geometry.Bounds;
+import archrn.tea_engine.geometry.Vector2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>{@code PhysicsWorld} contains all the {@code Collider}s on a {@code
+ * Scene} and finds collisions between them once per frame.</p>
+ * <p>Each {@code Collider} gets a small id while it's in the {@code
+ * PhysicsWorld}. Touching pairs are stored as sorted {@code long} keys made
+ * of two ids, so finding the pairs, which have started or stopped touching,
+ * is a single merge of this frame's pairs with the previous frame's
+ * ones.</p>
+ * <p>{@code onCollisionEnter()} and {@code onCollisionExit()} are sent to
+ * both {@code GameObject}s of a pair once per change.</p>
+ * <p>Each {@code Collider} is on one of {@code LAYER_COUNT} layers. Pairs
+ * of layers, which are set not to collide, are dropped with one bit test
+ * before any exact test.</p>
+ * @author Artem
+ */
+public final class PhysicsWorld
+{
+
+    /**
+     * <p>The amount of collision layers.</p>
+     */
+    public static final int LAYER_COUNT = 32;
+
+    private BroadPhase broadPhase;
+
+    /**
+     * <p>Bit {@code b} of {@code layerMasks[a]} is set if layers {@code a}
+     * and {@code b} collide.</p>
+     */
+    private final int[] layerMasks;
+
+    /**
+     * <p>{@code Collider}s by their ids. Free ids have {@code null}.</p>
+     */
+    private Collider[] colliders;
+    private int idCount;
+    private int[] freeIds;
+    private int freeIdCount;
+
+    /**
+     * <p>Sorted keys of the pairs, which were touching after the last
+     * step.</p>
+     */
+    private long[] pairs;
+    private int pairCount;
+
+    /**
+     * <p>Keys of the pairs found by the current step.</p>
+     */
+    private long[] newPairs;
+    private int newPairCount;
+
+    // Reused by step().
+    private final Bounds bounds;
+    private final ArrayList<Collider> candidates;
+
+    // Reused by the queries.
+    private final Bounds queryBounds;
+    private final ArrayList<Collider> queryCandidates;
+    private final Vector2 castNormal;
+    private final RaycastHit rayHit;
+
+    /**
+     * <p>Initializes an empty {@code PhysicsWorld}, which uses a {@code
+     * SpatialHashGrid}.</p>
+     */
+    public PhysicsWorld()
+    {
+        this.broadPhase = new SpatialHashGrid();
+        this.layerMasks = new int[LAYER_COUNT];
+        Arrays.fill(this.layerMasks, -1);
+        this.colliders = new Collider[64];
+        this.freeIds = new int[16];
+        this.pairs = new long[64];
+        this.newPairs = new long[64];
+        this.bounds = new Bounds();
+        this.candidates = new ArrayList<Collider>();
+        this.queryBounds = new Bounds();
+        this.queryCandidates = new ArrayList<Collider>();
+        this.castNormal = Vector2.zero();
+        this.rayHit = new RaycastHit();
+    }
+
+    /**
+     * <p>Returns the {@code BroadPhase}, which contains all the {@code
+     * Collider}s of this {@code PhysicsWorld}.</p>
+     * @return The {@code BroadPhase}.
+     */
+    public BroadPhase getBroadPhase()
+    {
+        return this.broadPhase;
+    }
+
+    /**
+     * <p>Sets the {@code BroadPhase} used to find collisions.</p>
+     * <p>All the {@code Collider}s are moved to the new {@code
+     * BroadPhase}. By default, a {@code SpatialHashGrid} is used.</p>
+     * @param broadPhase The new {@code BroadPhase}. Should be empty.
+     * @throws NullPointerException if {@code broadPhase} is {@code null}.
+     */
+    public void setBroadPhase(BroadPhase broadPhase)
+    {
+        Objects.requireNonNull(broadPhase);
+        for (int id = 0; id < this.idCount; ++id)
+        {
+            Collider collider = this.colliders[id];
+            if (collider != null)
+            {
+                this.broadPhase.remove(collider);
+                broadPhase.add(collider);
+            }
+        }
+        this.broadPhase = broadPhase;
+    }
+
+    /**
+     * <p>Sets if {@code Collider}s on the given layers collide.</p>
+     * <p>{@code Collider}s on layers, which don't collide, never get {@code
+     * onCollisionEnter()} and move through each other. By default, all the
+     * layers collide.</p>
+     * @param layerA The first layer.
+     * @param layerB The second layer. Can be the same as {@code layerA}.
+     * @param collide {@code true} if the layers should collide.
+     * @throws IllegalArgumentException if a layer is out of range.
+     */
+    public void setLayerCollision(int layerA, int layerB, boolean collide)
+    {
+        checkLayer(layerA);
+        checkLayer(layerB);
+        if (collide)
+        {
+            this.layerMasks[layerA] |= 1 << layerB;
+            this.layerMasks[layerB] |= 1 << layerA;
+        }
+        else
+        {
+            this.layerMasks[layerA] &= ~(1 << layerB);
+            this.layerMasks[layerB] &= ~(1 << layerA);
+        }
+    }
+
+    /**
+     * <p>Checks if {@code Collider}s on the given layers collide.</p>
+     * @param layerA The first layer.
+     * @param layerB The second layer.
+     * @return {@code true} if the layers collide.
+     * @throws IllegalArgumentException if a layer is out of range.
+     */
+    public boolean getLayerCollision(int layerA, int layerB)
+    {
+        checkLayer(layerA);
+        checkLayer(layerB);
+        return this.canCollide(layerA, layerB);
+    }
+
+    /**
+     * <p>Adds the given {@code collider} to the {@code PhysicsWorld}.</p>
+     * <p>Adding a {@code Collider} twice does nothing.</p>
+     * @param collider The {@code Collider} to add.
+     * @throws NullPointerException if {@code collider} is {@code null}.
+     */
+    public void add(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+        if (collider.physicsId >= 0)
+        {
+            return;
+        }
+        int id;
+        if (this.freeIdCount > 0)
+        {
+            id = this.freeIds[--this.freeIdCount];
+        }
+        else
+        {
+            if (this.idCount == this.colliders.length)
+            {
+                this.colliders = Arrays.copyOf(this.colliders,
+                                               this.idCount * 2);
+            }
+            id = this.idCount++;
+        }
+        this.colliders[id] = collider;
+        collider.physicsId = id;
+        this.broadPhase.add(collider);
+    }
+
+    /**
+     * <p>Removes the given {@code collider} from the {@code PhysicsWorld}
+     * and forgets all of it's pairs.</p>
+     * <p>No {@code onCollisionExit()} is sent for the forgotten pairs.
+     * Removing a {@code Collider}, which isn't in the {@code PhysicsWorld},
+     * does nothing.</p>
+     * @param collider The {@code Collider} to remove.
+     * @throws NullPointerException if {@code collider} is {@code null}.
+     */
+    public void remove(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+        int id = collider.physicsId;
+        if (id < 0 || this.colliders[id] != collider)
+        {
+            return;
+        }
+        this.broadPhase.remove(collider);
+
+        // Keep the pairs sorted while dropping the ones with this id.
+        int count = 0;
+        for (int i = 0; i < this.pairCount; ++i)
+        {
+            long pair = this.pairs[i];
+            if (first(pair) != id && second(pair) != id)
+            {
+                this.pairs[count++] = pair;
+            }
+        }
+        this.pairCount = count;
+
+        this.colliders[id] = null;
+        collider.physicsId = -1;
+        if (this.freeIdCount == this.freeIds.length)
+        {
+            this.freeIds = Arrays.copyOf(this.freeIds, this.freeIdCount * 2);
+        }
+        this.freeIds[this.freeIdCount++] = id;
+    }
+
+    /**
+     * <p>Returns the amount of pairs of {@code Collider}s, which were
+     * touching after the last step.</p>
+     * @return The amount of touching pairs.
+     */
+    public int getPairCount()
+    {
+        return this.pairCount;
+    }
+
+    /**
+     * <p>Finds all the touching pairs of {@code Collider}s and sends {@code
+     * onCollisionEnter()} and {@code onCollisionExit()} for the pairs,
+     * which have changed since the last step.</p>
+     * <p>Only active {@code Collider}s on active {@code GameObject}s look
+     * for collisions, but they can find inactive ones.</p>
+     */
+    public void step()
+    {
+        this.broadPhase.updateAll();
+        this.findPairs();
+        Arrays.sort(this.newPairs, 0, this.newPairCount);
+        this.dispatchChanges();
+
+        long[] swap = this.pairs;
+        this.pairs = this.newPairs;
+        this.pairCount = this.newPairCount;
+        this.newPairs = swap;
+        this.newPairCount = 0;
+    }
+
+    /**
+     * <p>Moves the given {@code collider} along {@code direction} without
+     * actually moving it and finds the first {@code Collider} it hits.</p>
+     * @param collider The {@code Collider} to cast.
+     * @param direction The movement to check.
+     * @param hit The {@code ShapeCastHit} to write the first hit to.
+     * @return {@code true} if something is hit.
+     * @throws NullPointerException if any argument is {@code null}.
+     * @see Physics#shapeCast(Collider, Vector2, ShapeCastHit)
+     */
+    public boolean shapeCast(Collider collider, Vector2 direction,
+                             ShapeCastHit hit)
+    {
+        Objects.requireNonNull(collider);
+        Objects.requireNonNull(direction);
+        Objects.requireNonNull(hit);
+        hit.clear();
+        if (direction.x == 0 && direction.y == 0)
+        {
+            return false;
+        }
+
+        // Only colliders touching the swept bounds can be hit.
+        Bounds swept = this.queryBounds;
+        collider.getBounds(swept);
+        if (direction.x < 0)
+        {
+            swept.left += direction.x;
+        }
+        else
+        {
+            swept.right += direction.x;
+        }
+        if (direction.y < 0)
+        {
+            swept.bot += direction.y;
+        }
+        else
+        {
+            swept.top += direction.y;
+        }
+        this.queryCandidates.clear();
+        this.broadPhase.query(swept, this.queryCandidates);
+
+        for (int i = 0; i < this.queryCandidates.size(); ++i)
+        {
+            Collider other = this.queryCandidates.get(i);
+            if (other == collider || other.isPassThrough()
+                || !this.canCollide(collider.getLayer(), other.getLayer()))
+            {
+                continue;
+            }
+            float fraction = collider.cast(direction, other, this.castNormal);
+            if (fraction < hit.fraction)
+            {
+                hit.fraction = fraction;
+                hit.collider = other;
+                hit.normal.x = this.castNormal.x;
+                hit.normal.y = this.castNormal.y;
+                if (fraction <= 0)
+                {
+                    break;
+                }
+            }
+        }
+        return hit.collider != null;
+    }
+
+    /**
+     * <p>Finds the first {@code Collider} hit by the ray from {@code
+     * origin} along {@code direction}.</p>
+     * @param origin The start of the ray.
+     * @param direction The ray. It's length is the length of the ray.
+     * @param hit The {@code RaycastHit} to write the first hit to.
+     * @return {@code true} if something is hit.
+     * @throws NullPointerException if any argument is {@code null}.
+     * @see Physics#raycast(Vector2, Vector2, RaycastHit)
+     */
+    public boolean raycast(Vector2 origin, Vector2 direction,
+                           RaycastHit hit)
+    {
+        Objects.requireNonNull(hit);
+        this.queryRay(origin, direction);
+        hit.clear();
+        for (int i = 0; i < this.queryCandidates.size(); ++i)
+        {
+            Collider collider = this.queryCandidates.get(i);
+            if (this.testRay(collider, origin, direction, this.rayHit)
+                && this.rayHit.fraction <= hit.fraction)
+            {
+                hit.set(this.rayHit);
+            }
+        }
+        return hit.collider != null;
+    }
+
+    /**
+     * <p>Finds the {@code Collider}s hit by the ray from {@code origin}
+     * along {@code direction}, nearest first.</p>
+     * <p>If there're more hits than {@code hits.length}, only the nearest
+     * ones are returned. {@code null} elements of {@code hits} are filled
+     * with new {@code RaycastHit}s, so the same array can be reused without
+     * allocating.</p>
+     * @param origin The start of the ray.
+     * @param direction The ray. It's length is the length of the ray.
+     * @param hits The array to write the hits to.
+     * @return The amount of hits written to {@code hits}.
+     * @throws NullPointerException if any argument is {@code null}.
+     * @see Physics#raycastAll(Vector2, Vector2, RaycastHit[])
+     */
+    public int raycastAll(Vector2 origin, Vector2 direction,
+                          RaycastHit[] hits)
+    {
+        Objects.requireNonNull(hits);
+        this.queryRay(origin, direction);
+        int count = 0;
+        for (int i = 0; i < this.queryCandidates.size(); ++i)
+        {
+            Collider collider = this.queryCandidates.get(i);
+            if (!this.testRay(collider, origin, direction, this.rayHit))
+            {
+                continue;
+            }
+            // Insertion into the sorted hits, dropping the farthest one
+            // when the array is full.
+            int index = count;
+            while (index > 0
+                   && hits[index - 1].fraction > this.rayHit.fraction)
+            {
+                --index;
+            }
+            if (index == hits.length)
+            {
+                continue;
+            }
+            if (count < hits.length)
+            {
+                if (hits[count] == null)
+                {
+                    hits[count] = new RaycastHit();
+                }
+                ++count;
+            }
+            RaycastHit free = hits[count - 1];
+            System.arraycopy(hits, index, hits, index + 1,
+                             count - 1 - index);
+            hits[index] = free;
+            free.set(this.rayHit);
+        }
+        return count;
+    }
+
+    /**
+     * <p>Finds all the {@code Collider}s, which overlap the given
+     * circle.</p>
+     * @param center The center of the circle.
+     * @param radius The radius of the circle.
+     * @param result The list to add the found {@code Collider}s to.
+     * @return The amount of {@code Collider}s added to {@code result}.
+     * @throws NullPointerException if {@code center} or {@code result} is
+     * {@code null}.
+     * @see Physics#overlapCircle(Vector2, float, List)
+     */
+    public int overlapCircle(Vector2 center, float radius,
+                             List<Collider> result)
+    {
+        Objects.requireNonNull(center);
+        Objects.requireNonNull(result);
+        radius = Math.abs(radius);
+        this.queryBounds.set(center.x - radius, center.y - radius,
+                             center.x + radius, center.y + radius);
+        this.queryCandidates.clear();
+        this.broadPhase.query(this.queryBounds, this.queryCandidates);
+        int count = 0;
+        for (int i = 0; i < this.queryCandidates.size(); ++i)
+        {
+            Collider collider = this.queryCandidates.get(i);
+            if (collider.overlapsCircle(center.x, center.y, radius))
+            {
+                result.add(collider);
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <p>Finds all the {@code Collider}s, which overlap the given
+     * box.</p>
+     * @param center The center of the box.
+     * @param size The width and the height of the box.
+     * @param result The list to add the found {@code Collider}s to.
+     * @return The amount of {@code Collider}s added to {@code result}.
+     * @throws NullPointerException if any argument is {@code null}.
+     * @see Physics#overlapBox(Vector2, Vector2, List)
+     */
+    public int overlapBox(Vector2 center, Vector2 size,
+                          List<Collider> result)
+    {
+        Objects.requireNonNull(center);
+        Objects.requireNonNull(size);
+        Objects.requireNonNull(result);
+        this.queryBounds.setCenterSize(center.x, center.y, size.x, size.y);
+        this.queryCandidates.clear();
+        this.broadPhase.query(this.queryBounds, this.queryCandidates);
+        int count = 0;
+        for (int i = 0; i < this.queryCandidates.size(); ++i)
+        {
+            Collider collider = this.queryCandidates.get(i);
+            if (collider.overlapsBox(this.queryBounds))
+            {
+                result.add(collider);
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <p>Fills {@code queryCandidates} with the {@code Collider}s near the
+     * given ray.</p>
+     */
+    private void queryRay(Vector2 origin, Vector2 direction)
+    {
+        Objects.requireNonNull(origin);
+        Objects.requireNonNull(direction);
+        this.queryCandidates.clear();
+        this.broadPhase.queryRay(origin, direction, this.queryCandidates);
+    }
+
+    /**
+     * <p>Checks if the ray hits the given {@code collider}. Pass through
+     * {@code Collider}s are never hit.</p>
+     * @return {@code true} if {@code collider} is hit. The hit is written
+     * to {@code hit}.
+     */
+    private boolean testRay(Collider collider, Vector2 origin,
+                            Vector2 direction, RaycastHit hit)
+    {
+        if (collider.isPassThrough())
+        {
+            return false;
+        }
+        float fraction = collider.raycast(origin.x, origin.y,
+                                          direction.x, direction.y,
+                                          hit.normal);
+        if (!(fraction <= 1))
+        {
+            return false;
+        }
+        hit.fraction = fraction;
+        hit.collider = collider;
+        hit.point.x = origin.x + direction.x * fraction;
+        hit.point.y = origin.y + direction.y * fraction;
+        return true;
+    }
+
+    /**
+     * <p>Fills {@code newPairs} with the keys of all the touching
+     * pairs.</p>
+     */
+    private void findPairs()
+    {
+        this.newPairCount = 0;
+        for (int id = 0; id < this.idCount; ++id)
+        {
+            Collider collider = this.colliders[id];
+            if (collider == null || !isSimulated(collider))
+            {
+                continue;
+            }
+            collider.getBounds(this.bounds);
+            this.candidates.clear();
+            this.broadPhase.query(this.bounds, this.candidates);
+            for (int i = 0; i < this.candidates.size(); ++i)
+            {
+                Collider other = this.candidates.get(i);
+                int otherId = other.physicsId;
+                if (otherId == id || otherId < 0)
+                {
+                    continue;
+                }
+                // Pairs of two simulated Colliders are tested only once.
+                if (otherId < id && isSimulated(other))
+                {
+                    continue;
+                }
+                if (!this.canCollide(collider.getLayer(), other.getLayer()))
+                {
+                    continue;
+                }
+                if (collider.collidesWith(other))
+                {
+                    this.addNewPair(key(id, otherId));
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Merges the sorted {@code pairs} and {@code newPairs} and sends the
+     * callbacks for the pairs present in only one of them.</p>
+     */
+    private void dispatchChanges()
+    {
+        int i = 0;
+        int j = 0;
+        while (i < this.pairCount || j < this.newPairCount)
+        {
+            if (j == this.newPairCount
+                || (i < this.pairCount && this.pairs[i] < this.newPairs[j]))
+            {
+                Collider first = this.colliders[first(this.pairs[i])];
+                Collider second = this.colliders[second(this.pairs[i])];
+                first.getGameObject().onCollisionExit(second);
+                second.getGameObject().onCollisionExit(first);
+                ++i;
+            }
+            else if (i == this.pairCount
+                     || this.newPairs[j] < this.pairs[i])
+            {
+                Collider first = this.colliders[first(this.newPairs[j])];
+                Collider second = this.colliders[second(this.newPairs[j])];
+                first.getGameObject().onCollisionEnter(second);
+                second.getGameObject().onCollisionEnter(first);
+                ++j;
+            }
+            else
+            {
+                ++i;
+                ++j;
+            }
+        }
+    }
+
+    private void addNewPair(long pair)
+    {
+        if (this.newPairCount == this.newPairs.length)
+        {
+            this.newPairs = Arrays.copyOf(this.newPairs,
+                                          this.newPairCount * 2);
+        }
+        this.newPairs[this.newPairCount++] = pair;
+    }
+
+    private boolean canCollide(int layerA, int layerB)
+    {
+        return (this.layerMasks[layerA] & (1 << layerB)) != 0;
+    }
+
+    /**
+     * <p>Checks that the given layer exists.</p>
+     * @param layer The layer to check.
+     * @throws IllegalArgumentException if {@code layer} is out of range.
+     */
+    static void checkLayer(int layer)
+    {
+        if (layer < 0 || layer >= LAYER_COUNT)
+        {
+            throw new IllegalArgumentException("Layer must be from 0 to " +
+                                               (LAYER_COUNT - 1) + ".");
+        }
+    }
+
+    private static boolean isSimulated(Collider collider)
+    {
+        return collider.isActive() && collider.getGameObject().isActive();
+    }
+
+    /**
+     * <p>Packs two ids into a pair key. The smaller id always goes
+     * first.</p>
+     */
+    private static long key(int a, int b)
+    {
+        return a < b ? ((long)a << 32) | b : ((long)b << 32) | a;
+    }
+
+    private static int first(long pair)
+    {
+        return (int)(pair >>> 32);
+    }
+
+    private static int second(long pair)
+    {
+        return (int)pair;
+    }
+
+}
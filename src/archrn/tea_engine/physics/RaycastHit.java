@@ -0,0 +1,82 @@
+package archrn.tea_engine.physics;
+
+import archrn.tea_engine.geometry.Vector2;
+
+/**
+ * <p>{@code RaycastHit} describes a {@code Collider} hit by a ray.</p>
+ * <p>{@code RaycastHit} is mutable, so the same objects can be passed to
+ * {@code Physics.raycast()} and {@code Physics.raycastAll()} every
+ * frame.</p>
+ * @see Physics#raycast(Vector2, Vector2, RaycastHit)
+ * @author Artem
+ */
+public final class RaycastHit
+{
+
+    /**
+     * <p>The part of the ray before the hit, from {@code 0} to {@code
+     * 1}.</p>
+     */
+    public float fraction;
+
+    /**
+     * <p>The {@code Collider}, which was hit.</p>
+     */
+    public Collider collider;
+
+    /**
+     * <p>The point where the ray has hit the {@code Collider}.</p>
+     */
+    public final Vector2 point;
+
+    /**
+     * <p>The normal of the hit surface. It's zero if the ray starts inside
+     * the {@code Collider}.</p>
+     */
+    public final Vector2 normal;
+
+    /**
+     * <p>Initializes an empty {@code RaycastHit}.</p>
+     */
+    public RaycastHit()
+    {
+        this.point = Vector2.zero();
+        this.normal = Vector2.zero();
+        this.clear();
+    }
+
+    /**
+     * <p>Resets the {@code RaycastHit} to "nothing was hit".</p>
+     */
+    public void clear()
+    {
+        this.fraction = 1;
+        this.collider = null;
+        this.point.x = 0;
+        this.point.y = 0;
+        this.normal.x = 0;
+        this.normal.y = 0;
+    }
+
+    /**
+     * <p>Copies the given {@code RaycastHit}.</p>
+     * @param other The {@code RaycastHit} to copy.
+     */
+    void set(RaycastHit other)
+    {
+        this.fraction = other.fraction;
+        this.collider = other.collider;
+        this.point.x = other.point.x;
+        this.point.y = other.point.y;
+        this.normal.x = other.normal.x;
+        this.normal.y = other.normal.y;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RaycastHit(" + this.collider + ", " + this.fraction + ", " +
+               this.point + ", " + this.normal + ")";
+    }
+
+}
@@ -1,7 +1,9 @@
 package archrn.tea_engine.physics;
 
+import archrn.tea_engine.geometry.Bounds;
 import archrn.tea_engine.geometry.Geometry;
 import archrn.tea_engine.geometry.Vector2;
+import archrn.tea_engine.math.MathF;
 
 /**
  * RectangleCollider
@@ -45,6 +47,15 @@ public class RectangleCollider extends Collider
         return false;
     }
 
+    @Override
+    public void getBounds(Bounds bounds)
+    {
+        Vector2 position = this.getTransform().getPosition();
+        Vector2 bias = this.getBias();
+        bounds.setCenterSize(position.x + bias.x, position.y + bias.y,
+                             this.size.x, this.size.y);
+    }
+
     public Vector2 getSize()
     {
         return size;
@@ -56,7 +67,7 @@ public class RectangleCollider extends Collider
     }
 
     @Override
-    protected float move(Vector2 direction, Collider other)
+    protected float cast(Vector2 direction, Collider other, Vector2 normal)
     {
         Vector2 position = this.getBiasedPosition();
         //        Vector2 endPosition = Vector2.sum(position, direction);
@@ -71,26 +82,148 @@ public class RectangleCollider extends Collider
         float botToTop = top - bot;
 
         float minMove = 1;
+        normal.x = 0;
+        normal.y = 0;
+        float move;
         // Left
-        minMove = Math.min(minMove, Geometry.segmentsIntersectionByDirection(
+        move = Geometry.segmentsIntersectionByDirection(
                 position.x, position.y, left, bot,
-                direction.x, direction.y, 0, botToTop));
+                direction.x, direction.y, 0, botToTop);
+        if (move < minMove)
+        {
+            minMove = move;
+            normal.x = -1;
+            normal.y = 0;
+        }
         // Right
-        minMove = Math.min(minMove, Geometry.segmentsIntersectionByDirection(
+        move = Geometry.segmentsIntersectionByDirection(
                 position.x, position.y, right, bot,
-                direction.x, direction.y, 0, botToTop));
+                direction.x, direction.y, 0, botToTop);
+        if (move < minMove)
+        {
+            minMove = move;
+            normal.x = 1;
+            normal.y = 0;
+        }
         // Top
-        minMove = Math.min(minMove, Geometry.segmentsIntersectionByDirection(
+        move = Geometry.segmentsIntersectionByDirection(
                 position.x, position.y, left, top,
-                direction.x, direction.y, leftToRight, 0));
+                direction.x, direction.y, leftToRight, 0);
+        if (move < minMove)
+        {
+            minMove = move;
+            normal.x = 0;
+            normal.y = 1;
+        }
         // Bot
-        minMove = Math.min(minMove, Geometry.segmentsIntersectionByDirection(
+        move = Geometry.segmentsIntersectionByDirection(
                 position.x, position.y, left, bot,
-                direction.x, direction.y, leftToRight, 0));
+                direction.x, direction.y, leftToRight, 0);
+        if (move < minMove)
+        {
+            minMove = move;
+            normal.x = 0;
+            normal.y = -1;
+        }
 
         return minMove;
     }
 
+    @Override
+    float raycast(float originX, float originY,
+                  float directionX, float directionY, Vector2 normal)
+    {
+        Vector2 position = this.getTransform().getPosition();
+        Vector2 bias = this.getBias();
+        float halfWidth = Math.abs(this.size.x) / 2;
+        float halfHeight = Math.abs(this.size.y) / 2;
+        float left = position.x + bias.x - halfWidth;
+        float right = position.x + bias.x + halfWidth;
+        float bot = position.y + bias.y - halfHeight;
+        float top = position.y + bias.y + halfHeight;
+
+        normal.x = 0;
+        normal.y = 0;
+        if (originX >= left && originX <= right
+            && originY >= bot && originY <= top)
+        {
+            return 0;
+        }
+
+        float minMove = Float.MAX_VALUE;
+        float move;
+        // Left
+        move = Geometry.segmentsIntersectionByDirection(
+                originX, originY, left, bot,
+                directionX, directionY, 0, top - bot);
+        if (move < minMove)
+        {
+            minMove = move;
+            normal.x = -1;
+            normal.y = 0;
+        }
+        // Right
+        move = Geometry.segmentsIntersectionByDirection(
+                originX, originY, right, bot,
+                directionX, directionY, 0, top - bot);
+        if (move < minMove)
+        {
+            minMove = move;
+            normal.x = 1;
+            normal.y = 0;
+        }
+        // Top
+        move = Geometry.segmentsIntersectionByDirection(
+                originX, originY, left, top,
+                directionX, directionY, right - left, 0);
+        if (move < minMove)
+        {
+            minMove = move;
+            normal.x = 0;
+            normal.y = 1;
+        }
+        // Bot
+        move = Geometry.segmentsIntersectionByDirection(
+                originX, originY, left, bot,
+                directionX, directionY, right - left, 0);
+        if (move < minMove)
+        {
+            minMove = move;
+            normal.x = 0;
+            normal.y = -1;
+        }
+        return minMove;
+    }
+
+    @Override
+    boolean overlapsCircle(float centerX, float centerY, float radius)
+    {
+        Vector2 position = this.getTransform().getPosition();
+        Vector2 bias = this.getBias();
+        float halfWidth = Math.abs(this.size.x) / 2;
+        float halfHeight = Math.abs(this.size.y) / 2;
+        float x = position.x + bias.x;
+        float y = position.y + bias.y;
+        float dx = centerX - MathF.clamp(centerX, x - halfWidth,
+                                         x + halfWidth);
+        float dy = centerY - MathF.clamp(centerY, y - halfHeight,
+                                         y + halfHeight);
+        return dx * dx + dy * dy <= radius * radius;
+    }
+
+    @Override
+    boolean overlapsBox(Bounds box)
+    {
+        Vector2 position = this.getTransform().getPosition();
+        Vector2 bias = this.getBias();
+        float halfWidth = Math.abs(this.size.x) / 2;
+        float halfHeight = Math.abs(this.size.y) / 2;
+        float x = position.x + bias.x;
+        float y = position.y + bias.y;
+        return box.overlaps(x - halfWidth, y - halfHeight,
+                            x + halfWidth, y + halfHeight);
+    }
+
     @Override
     protected float left()
     {
@@ -0,0 +1,60 @@
+package archrn.tea_engine.physics;
+
+import archrn.tea_engine.geometry.Vector2;
+
+/**
+ * <p>{@code ShapeCastHit} describes the first {@code Collider} hit by a
+ * moving {@code Collider}.</p>
+ * <p>{@code ShapeCastHit} is mutable, so the same object can be passed to
+ * {@code Physics.shapeCast()} every frame.</p>
+ * @see Physics#shapeCast(Collider, Vector2, ShapeCastHit)
+ * @author Artem
+ */
+public final class ShapeCastHit
+{
+
+    /**
+     * <p>The part of the movement made before the hit, from {@code 0} to
+     * {@code 1}.</p>
+     */
+    public float fraction;
+
+    /**
+     * <p>The {@code Collider}, which was hit.</p>
+     */
+    public Collider collider;
+
+    /**
+     * <p>The normal of the hit surface, pointing from {@code collider} to
+     * the moving {@code Collider}.</p>
+     */
+    public final Vector2 normal;
+
+    /**
+     * <p>Initializes an empty {@code ShapeCastHit}.</p>
+     */
+    public ShapeCastHit()
+    {
+        this.normal = Vector2.zero();
+        this.clear();
+    }
+
+    /**
+     * <p>Resets the {@code ShapeCastHit} to "nothing was hit".</p>
+     */
+    public void clear()
+    {
+        this.fraction = 1;
+        this.collider = null;
+        this.normal.x = 0;
+        this.normal.y = 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ShapeCastHit(" + this.collider + ", " + this.fraction +
+               ", " + this.normal + ")";
+    }
+
+}
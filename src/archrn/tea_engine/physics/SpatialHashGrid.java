@@ -0,0 +1,569 @@
+package archrn.tea_engine.physics;
+
+import archrn.tea_engine.geometry.Bounds;
+import archrn.tea_engine.geometry.Vector2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>{@code SpatialHashGrid} is a {@code BroadPhase}, which splits the world
+ * into a uniform grid.</p>
+ * <p>The world is split into square cells of {@code cellSize} world units.
+ * Each {@code Collider} is stored in all the cells covered by it's bounds.
+ * A {@code Collider} is moved to other cells only when it's bounds cover
+ * different cells than before.</p>
+ * <p>A {@code Collider} covering more than {@code MAX_COLLIDER_CELLS}
+ * cells, like a long floor, isn't stored in cells, but in a short list
+ * checked by every query. A query covering more cells than there are
+ * {@code Collider}s checks all the {@code Collider}s instead of the cells,
+ * so huge or infinite areas cost no more than a brute force search. Rays
+ * visit only the cells they cross.</p>
+ * @author Artem
+ */
+public final class SpatialHashGrid implements BroadPhase
+{
+
+    private static final float DEFAULT_CELL_SIZE = 2;
+
+    /**
+     * <p>The most cells a {@code Collider} is stored in. Larger ones are
+     * kept in {@code oversizedColliders}.</p>
+     */
+    private static final long MAX_COLLIDER_CELLS = 64;
+
+    private final float cellSize;
+    private final CellMap cells;
+    private final ArrayList<Collider> colliders;
+    private final ArrayList<Collider> oversizedColliders;
+    private final Bounds bounds;
+    private final Bounds rayBounds;
+
+    /**
+     * <p>Stamp of the current query. Used to return each {@code Collider}
+     * only once, even if it's stored in several queried cells.</p>
+     */
+    private int queryStamp;
+
+    /**
+     * <p>Initializes an empty {@code SpatialHashGrid} with the default
+     * cell size.</p>
+     */
+    public SpatialHashGrid()
+    {
+        this(SpatialHashGrid.DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * <p>Initializes an empty {@code SpatialHashGrid} with the given cell
+     * size.</p>
+     * <p>The cell size should be close to the size of a typical moving
+     * {@code Collider}.</p>
+     * @param cellSize The size of a cell in world units.
+     * @throws IllegalArgumentException if {@code cellSize <= 0}.
+     */
+    public SpatialHashGrid(float cellSize)
+    {
+        if (!(cellSize > 0))
+        {
+            throw new IllegalArgumentException("Cell size must be positive.");
+        }
+        this.cellSize = cellSize;
+        this.cells = new CellMap();
+        this.colliders = new ArrayList<Collider>();
+        this.oversizedColliders = new ArrayList<Collider>();
+        this.bounds = new Bounds();
+        this.rayBounds = new Bounds();
+    }
+
+    /**
+     * <p>Returns the size of a cell in world units.</p>
+     * @return The size of a cell.
+     */
+    public float getCellSize()
+    {
+        return this.cellSize;
+    }
+
+    /**
+     * <p>Adds the given {@code collider} to the grid.</p>
+     * @param collider The {@code Collider} to add.
+     * @throws NullPointerException if {@code collider} is {@code null}.
+     */
+    @Override
+    public void add(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+        if (collider.inGrid)
+        {
+            return;
+        }
+        collider.getBounds(this.bounds);
+        collider.gridMinX = this.cell(this.bounds.left);
+        collider.gridMinY = this.cell(this.bounds.bot);
+        collider.gridMaxX = this.cell(this.bounds.right);
+        collider.gridMaxY = this.cell(this.bounds.top);
+        this.insert(collider);
+        collider.inGrid = true;
+        this.colliders.add(collider);
+    }
+
+    /**
+     * <p>Removes the given {@code collider} from the grid.</p>
+     * @param collider The {@code Collider} to remove.
+     * @throws NullPointerException if {@code collider} is {@code null}.
+     */
+    @Override
+    public void remove(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+        if (!collider.inGrid)
+        {
+            return;
+        }
+        this.erase(collider);
+        collider.inGrid = false;
+        this.colliders.remove(collider);
+    }
+
+    /**
+     * <p>Moves the given {@code collider} to the cells covered by it's
+     * current bounds.</p>
+     * <p>Doesn't touch the cells if the {@code Collider} still covers the
+     * same ones.</p>
+     * @param collider The {@code Collider}, which has moved.
+     * @throws NullPointerException if {@code collider} is {@code null}.
+     */
+    @Override
+    public void update(Collider collider)
+    {
+        Objects.requireNonNull(collider);
+        if (!collider.inGrid)
+        {
+            return;
+        }
+        collider.getBounds(this.bounds);
+        int minX = this.cell(this.bounds.left);
+        int minY = this.cell(this.bounds.bot);
+        int maxX = this.cell(this.bounds.right);
+        int maxY = this.cell(this.bounds.top);
+        if (minX == collider.gridMinX && minY == collider.gridMinY
+            && maxX == collider.gridMaxX && maxY == collider.gridMaxY)
+        {
+            return;
+        }
+        this.erase(collider);
+        collider.gridMinX = minX;
+        collider.gridMinY = minY;
+        collider.gridMaxX = maxX;
+        collider.gridMaxY = maxY;
+        this.insert(collider);
+    }
+
+    /**
+     * <p>Updates the cells of all the {@code Collider}s in the grid.</p>
+     * <p>Should be called once per frame, so {@code Collider}s moved
+     * directly through their {@code Transform} are found in the right
+     * cells.</p>
+     */
+    @Override
+    public void updateAll()
+    {
+        for (int i = 0; i < this.colliders.size(); ++i)
+        {
+            this.update(this.colliders.get(i));
+        }
+    }
+
+    /**
+     * <p>Finds all the {@code Collider}s, which bounds overlap the given
+     * {@code area}, and adds them to {@code result}.</p>
+     * <p>Each {@code Collider} is added once. The exact shapes aren't
+     * checked: it's the job of the narrow phase.</p>
+     * @param area The area to look in.
+     * @param result The list to add the found {@code Collider}s to.
+     * @throws NullPointerException if {@code area} or {@code result} is
+     * {@code null}.
+     */
+    @Override
+    public void query(Bounds area, List<Collider> result)
+    {
+        Objects.requireNonNull(area);
+        Objects.requireNonNull(result);
+
+        int stamp = ++this.queryStamp;
+        int minX = this.cell(area.left);
+        int minY = this.cell(area.bot);
+        int maxX = this.cell(area.right);
+        int maxY = this.cell(area.top);
+        if (cellCount(minX, minY, maxX, maxY) > this.colliders.size())
+        {
+            this.queryAll(area, result);
+            return;
+        }
+        this.queryOversized(stamp, area, result);
+        for (long x = minX; x <= maxX; ++x)
+        {
+            for (long y = minY; y <= maxY; ++y)
+            {
+                this.queryCell(key((int)x, (int)y), stamp, area, result);
+            }
+        }
+    }
+
+    /**
+     * <p>Finds the {@code Collider}s, which bounds overlap the bounds of
+     * the given ray, in the cells the ray crosses, and adds them to {@code
+     * result}.</p>
+     * <p>The cells are visited one by one along the ray. A ray crossing
+     * more cells than there are {@code Collider}s checks all the {@code
+     * Collider}s instead.</p>
+     * @param origin The start of the ray.
+     * @param direction The ray from {@code origin} to it's end.
+     * @param result The list to add the found {@code Collider}s to.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    @Override
+    public void queryRay(Vector2 origin, Vector2 direction,
+                         List<Collider> result)
+    {
+        Objects.requireNonNull(origin);
+        Objects.requireNonNull(direction);
+        Objects.requireNonNull(result);
+
+        float endX = origin.x + direction.x;
+        float endY = origin.y + direction.y;
+        Bounds area = this.rayBounds;
+        area.set(Math.min(origin.x, endX), Math.min(origin.y, endY),
+                 Math.max(origin.x, endX), Math.max(origin.y, endY));
+        int x = this.cell(origin.x);
+        int y = this.cell(origin.y);
+        int lastX = this.cell(endX);
+        int lastY = this.cell(endY);
+        long cellsToVisit = 1 + Math.abs((long)lastX - x)
+                            + Math.abs((long)lastY - y);
+        if (cellsToVisit > this.colliders.size())
+        {
+            this.queryAll(area, result);
+            return;
+        }
+
+        int stamp = ++this.queryStamp;
+        this.queryOversized(stamp, area, result);
+        // Walks the grid: the next cell is across the cell border, which
+        // the ray reaches first.
+        int stepX = direction.x < 0 ? -1 : 1;
+        int stepY = direction.y < 0 ? -1 : 1;
+        double deltaX = Math.abs(this.cellSize / (double)direction.x);
+        double deltaY = Math.abs(this.cellSize / (double)direction.y);
+        double nextX = direction.x == 0
+                       ? Double.POSITIVE_INFINITY
+                       : ((x + (stepX > 0 ? 1 : 0)) * (double)this.cellSize
+                          - origin.x) / direction.x;
+        double nextY = direction.y == 0
+                       ? Double.POSITIVE_INFINITY
+                       : ((y + (stepY > 0 ? 1 : 0)) * (double)this.cellSize
+                          - origin.y) / direction.y;
+        for (long i = 0; i < cellsToVisit; ++i)
+        {
+            this.queryCell(key(x, y), stamp, area, result);
+            if (nextX < nextY)
+            {
+                nextX += deltaX;
+                x += stepX;
+            }
+            else
+            {
+                nextY += deltaY;
+                y += stepY;
+            }
+        }
+    }
+
+    /**
+     * <p>Adds the {@code collider} to the cells of it's stored cell range,
+     * or to the oversized {@code Collider}s, if the range is too
+     * large.</p>
+     * @param collider The {@code Collider} to add to the cells.
+     */
+    private void insert(Collider collider)
+    {
+        if (isOversized(collider))
+        {
+            this.oversizedColliders.add(collider);
+            return;
+        }
+        for (long x = collider.gridMinX; x <= collider.gridMaxX; ++x)
+        {
+            for (long y = collider.gridMinY; y <= collider.gridMaxY; ++y)
+            {
+                this.cells.getOrCreate(key((int)x, (int)y)).add(collider);
+            }
+        }
+    }
+
+    /**
+     * <p>Removes the {@code collider} from the cells of it's stored cell
+     * range. Cells left empty are dropped, so the map only keeps the cells
+     * with {@code Collider}s in them.</p>
+     * @param collider The {@code Collider} to remove from the cells.
+     */
+    private void erase(Collider collider)
+    {
+        if (isOversized(collider))
+        {
+            this.oversizedColliders.remove(collider);
+            return;
+        }
+        for (long x = collider.gridMinX; x <= collider.gridMaxX; ++x)
+        {
+            for (long y = collider.gridMinY; y <= collider.gridMaxY; ++y)
+            {
+                long key = key((int)x, (int)y);
+                ArrayList<Collider> cell = this.cells.get(key);
+                if (cell != null && cell.remove(collider) && cell.isEmpty())
+                {
+                    this.cells.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Adds the {@code Collider}s of the cell with the given {@code key},
+     * which weren't found by this query yet and overlap {@code area}, to
+     * {@code result}.</p>
+     */
+    private void queryCell(long key, int stamp, Bounds area,
+                           List<Collider> result)
+    {
+        ArrayList<Collider> cell = this.cells.get(key);
+        if (cell == null)
+        {
+            return;
+        }
+        for (int i = 0; i < cell.size(); ++i)
+        {
+            this.queryCollider(cell.get(i), stamp, area, result);
+        }
+    }
+
+    /**
+     * <p>Adds the oversized {@code Collider}s, which overlap {@code area},
+     * to {@code result}.</p>
+     */
+    private void queryOversized(int stamp, Bounds area, List<Collider> result)
+    {
+        for (int i = 0; i < this.oversizedColliders.size(); ++i)
+        {
+            this.queryCollider(this.oversizedColliders.get(i), stamp, area,
+                               result);
+        }
+    }
+
+    /**
+     * <p>Adds all the {@code Collider}s, which overlap {@code area}, to
+     * {@code result}, without looking at the cells.</p>
+     */
+    private void queryAll(Bounds area, List<Collider> result)
+    {
+        for (int i = 0; i < this.colliders.size(); ++i)
+        {
+            Collider collider = this.colliders.get(i);
+            collider.getBounds(this.bounds);
+            if (this.bounds.overlaps(area))
+            {
+                result.add(collider);
+            }
+        }
+    }
+
+    /**
+     * <p>Adds the {@code collider} to {@code result}, if it wasn't found by
+     * this query yet and it's bounds overlap {@code area}.</p>
+     */
+    private void queryCollider(Collider collider, int stamp, Bounds area,
+                               List<Collider> result)
+    {
+        if (collider.gridQueryStamp == stamp)
+        {
+            return;
+        }
+        collider.gridQueryStamp = stamp;
+        collider.getBounds(this.bounds);
+        if (this.bounds.overlaps(area))
+        {
+            result.add(collider);
+        }
+    }
+
+    /**
+     * <p>Returns the index of the cell containing the given
+     * coordinate.</p>
+     * @param coordinate The coordinate in world units.
+     * @return The index of the cell along the same axis.
+     */
+    private int cell(float coordinate)
+    {
+        return (int)Math.floor(coordinate / this.cellSize);
+    }
+
+    /**
+     * <p>Returns the amount of cells in the given range. Counted in {@code
+     * long}, as the range of huge bounds spans all the {@code int}s, and
+     * capped at {@code Long.MAX_VALUE}.</p>
+     */
+    private static long cellCount(int minX, int minY, int maxX, int maxY)
+    {
+        long width = (long)maxX - minX + 1;
+        long height = (long)maxY - minY + 1;
+        if (width <= 0 || height <= 0)
+        {
+            return 0;
+        }
+        return width > Long.MAX_VALUE / height
+               ? Long.MAX_VALUE
+               : width * height;
+    }
+
+    /**
+     * <p>Returns {@code true} if the stored cell range of the {@code
+     * collider} is too large to store it in the cells.</p>
+     */
+    private static boolean isOversized(Collider collider)
+    {
+        return cellCount(collider.gridMinX, collider.gridMinY,
+                         collider.gridMaxX, collider.gridMaxY)
+               > MAX_COLLIDER_CELLS;
+    }
+
+    /**
+     * <p>Packs the indices of a cell into one key.</p>
+     * @param x The index of the cell along the x axis.
+     * @param y The index of the cell along the y axis.
+     * @return The key of the cell.
+     */
+    private static long key(int x, int y)
+    {
+        return ((long)x << 32) | (y & 0xffffffffL);
+    }
+
+    /**
+     * <p>Open addressing hash map from cell keys to cells.</p>
+     * <p>Keys are primitive, so looking a cell up doesn't allocate.</p>
+     */
+    private static final class CellMap
+    {
+
+        private long[] keys;
+        private ArrayList<?>[] values;
+        private int size;
+
+        CellMap()
+        {
+            this.keys = new long[64];
+            this.values = new ArrayList<?>[64];
+        }
+
+        @SuppressWarnings("unchecked")
+        ArrayList<Collider> get(long key)
+        {
+            int mask = this.keys.length - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask)
+            {
+                if (this.values[i] == null)
+                {
+                    return null;
+                }
+                if (this.keys[i] == key)
+                {
+                    return (ArrayList<Collider>)this.values[i];
+                }
+            }
+        }
+
+        ArrayList<Collider> getOrCreate(long key)
+        {
+            ArrayList<Collider> cell = this.get(key);
+            if (cell != null)
+            {
+                return cell;
+            }
+            if (2 * (this.size + 1) > this.keys.length)
+            {
+                this.grow();
+            }
+            cell = new ArrayList<Collider>(4);
+            this.put(key, cell);
+            return cell;
+        }
+
+        void remove(long key)
+        {
+            int mask = this.keys.length - 1;
+            int i = hash(key) & mask;
+            while (this.values[i] != null && this.keys[i] != key)
+            {
+                i = (i + 1) & mask;
+            }
+            if (this.values[i] == null)
+            {
+                return;
+            }
+            this.values[i] = null;
+            --this.size;
+            // Shift the following cells of the run back, so none of them is
+            // cut off from it's home slot by the hole.
+            for (int j = (i + 1) & mask; this.values[j] != null;
+                 j = (j + 1) & mask)
+            {
+                int home = hash(this.keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - i) & mask))
+                {
+                    this.keys[i] = this.keys[j];
+                    this.values[i] = this.values[j];
+                    this.values[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+        private void put(long key, ArrayList<?> cell)
+        {
+            int mask = this.keys.length - 1;
+            int i = hash(key) & mask;
+            while (this.values[i] != null)
+            {
+                i = (i + 1) & mask;
+            }
+            this.keys[i] = key;
+            this.values[i] = cell;
+            ++this.size;
+        }
+
+        private void grow()
+        {
+            long[] oldKeys = this.keys;
+            ArrayList<?>[] oldValues = this.values;
+            this.keys = new long[oldKeys.length * 2];
+            this.values = new ArrayList<?>[oldValues.length * 2];
+            this.size = 0;
+            for (int i = 0; i < oldKeys.length; ++i)
+            {
+                if (oldValues[i] != null)
+                {
+                    this.put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key)
+        {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int)(h ^ (h >>> 32));
+        }
+
+    }
+
+}
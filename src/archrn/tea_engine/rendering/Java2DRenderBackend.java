@@ -0,0 +1,51 @@
+package archrn.tea_engine.rendering;
+
+import java.awt.*;
+import java.util.Objects;
+
+/**
+ * <p>{@code Java2DRenderBackend} draws {@code RenderSnapshot}s with {@code
+ * Graphics2D}.</p>
+ * @author Artem
+ */
+public final class Java2DRenderBackend implements RenderBackend
+{
+
+    private final SpriteScaleCache spriteScaleCache;
+
+    /**
+     * <p>Initializes a {@code Java2DRenderBackend}, which scales sprites
+     * with every draw.</p>
+     */
+    public Java2DRenderBackend()
+    {
+        this.spriteScaleCache = null;
+    }
+
+    /**
+     * <p>Initializes a {@code Java2DRenderBackend}, which keeps scaled
+     * sprites in the given {@code spriteScaleCache}.</p>
+     * @param spriteScaleCache The cache of scaled sprites.
+     * @throws NullPointerException if {@code spriteScaleCache} is {@code
+     * null}.
+     */
+    public Java2DRenderBackend(SpriteScaleCache spriteScaleCache)
+    {
+        Objects.requireNonNull(spriteScaleCache);
+        this.spriteScaleCache = spriteScaleCache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void render(RenderSnapshot snapshot, Graphics2D graphics2D,
+                       int width, int height)
+    {
+        Objects.requireNonNull(snapshot);
+        Objects.requireNonNull(graphics2D);
+        snapshot.render(new RendererGraphics(graphics2D, snapshot,
+                                             this.spriteScaleCache));
+    }
+
+}
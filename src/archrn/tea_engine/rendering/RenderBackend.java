@@ -0,0 +1,30 @@
+package archrn.tea_engine.rendering;
+
+import java.awt.*;
+
+/**
+ * <p>{@code RenderBackend} draws the commands recorded in a {@code
+ * RenderSnapshot}.</p>
+ * <p>{@code Renderer}s only record what they draw, so the same snapshot can
+ * be drawn by different backends, or drawn again by one backend, for
+ * example to profile it.</p>
+ * @author Artem
+ * @see Java2DRenderBackend
+ * @see SoftwareRenderBackend
+ */
+public interface RenderBackend
+{
+
+    /**
+     * <p>Draws the {@code snapshot} to {@code graphics2D}.</p>
+     * @param snapshot The {@code RenderSnapshot} to draw.
+     * @param graphics2D The {@code Graphics2D} to draw to.
+     * @param width The width of the area to draw to in pixels.
+     * @param height The height of the area to draw to in pixels.
+     * @throws NullPointerException if {@code snapshot} or {@code
+     * graphics2D} is {@code null}.
+     */
+    void render(RenderSnapshot snapshot, Graphics2D graphics2D,
+                int width, int height);
+
+}
@@ -0,0 +1,349 @@
+package archrn.tea_engine.rendering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>{@code RenderQueue} keeps the {@code Renderer}s of a {@code Scene} in
+ * the order they are drawn.</p>
+ * <p>{@code Renderer}s are grouped by layer, from the lowest layer to the
+ * highest. Within a layer, they are kept in the order given to the
+ * constructor, or in the order they were added. The queue is updated when
+ * a {@code Renderer} is added, removed or changes it's layer, so rendering
+ * a frame just walks it.</p>
+ * @author Artem
+ */
+public final class RenderQueue
+{
+
+    /**
+     * <p>The order of the {@code Renderer}s within a layer, or {@code null}
+     * to keep the order they were added in.</p>
+     */
+    private final Comparator<Renderer> order;
+
+    /**
+     * <p>Layers of the buckets, sorted ascending.</p>
+     */
+    private float[] layers;
+
+    /**
+     * <p>{@code Renderer}s of each layer.</p>
+     */
+    private final ArrayList<ArrayList<Renderer>> buckets;
+    private final ArrayList<List<Renderer>> bucketViews;
+    private int size;
+
+    /**
+     * <p>The amount of static {@code Renderer}s of each layer.</p>
+     */
+    private int[] staticCounts;
+
+    /**
+     * <p>The version of the static content of each layer. Taken from
+     * {@code lastStaticVersion}, so it never repeats, even for a layer,
+     * which is removed and added again.</p>
+     */
+    private long[] staticVersions;
+    private long lastStaticVersion;
+
+    /**
+     * <p>Initializes an empty {@code RenderQueue}, which keeps the {@code
+     * Renderer}s of a layer in the order they were added.</p>
+     */
+    public RenderQueue()
+    {
+        this(null);
+    }
+
+    /**
+     * <p>Initializes an empty {@code RenderQueue}, which keeps the {@code
+     * Renderer}s of a layer in the given {@code order}.</p>
+     * <p>{@code Renderer}s, which are equal in the {@code order}, are kept
+     * in the order they were added.</p>
+     * @param order The order of the {@code Renderer}s within a layer, or
+     *              {@code null} to keep the order they were added in.
+     */
+    public RenderQueue(Comparator<Renderer> order)
+    {
+        this.order = order;
+        this.layers = new float[8];
+        this.staticCounts = new int[8];
+        this.staticVersions = new long[8];
+        this.buckets = new ArrayList<ArrayList<Renderer>>();
+        this.bucketViews = new ArrayList<List<Renderer>>();
+    }
+
+    /**
+     * <p>Returns the amount of {@code Renderer}s in the queue.</p>
+     * @return The amount of {@code Renderer}s.
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * <p>Returns the amount of layers, which have at least one {@code
+     * Renderer}.</p>
+     * @return The amount of non-empty layers.
+     */
+    public int getLayerCount()
+    {
+        return this.buckets.size();
+    }
+
+    /**
+     * <p>Returns the layer at the given index. Layers are sorted from the
+     * lowest to the highest.</p>
+     * @param index The index of the layer.
+     * @return The layer.
+     * @throws IndexOutOfBoundsException if {@code index} is out of range.
+     */
+    public float getLayer(int index)
+    {
+        if (index < 0 || index >= this.buckets.size())
+        {
+            throw new IndexOutOfBoundsException("Layer index out of range.");
+        }
+        return this.layers[index];
+    }
+
+    /**
+     * <p>Returns a read-only view of the {@code Renderer}s of the layer at
+     * the given index, in the order they are drawn.</p>
+     * @param index The index of the layer.
+     * @return The {@code Renderer}s of the layer.
+     * @throws IndexOutOfBoundsException if {@code index} is out of range.
+     */
+    public List<Renderer> getRenderers(int index)
+    {
+        return this.bucketViews.get(index);
+    }
+
+    /**
+     * <p>Returns the amount of static {@code Renderer}s of the layer at the
+     * given index.</p>
+     * @param index The index of the layer.
+     * @return The amount of static {@code Renderer}s.
+     * @throws IndexOutOfBoundsException if {@code index} is out of range.
+     * @see Renderer#setStatic(boolean)
+     */
+    public int getStaticCount(int index)
+    {
+        Objects.checkIndex(index, this.buckets.size());
+        return this.staticCounts[index];
+    }
+
+    /**
+     * <p>Returns the version of the static content of the layer at the
+     * given index.</p>
+     * <p>It changes every time a static {@code Renderer} of the layer
+     * changes, is added or removed, and is never the same for two different
+     * states, so images drawn from the static {@code Renderer}s are
+     * up to date while it stays the same.</p>
+     * @param index The index of the layer.
+     * @return The version of the static content.
+     * @throws IndexOutOfBoundsException if {@code index} is out of range.
+     */
+    public long getStaticVersion(int index)
+    {
+        Objects.checkIndex(index, this.buckets.size());
+        return this.staticVersions[index];
+    }
+
+    /**
+     * <p>Adds the given {@code renderer} to it's layer.</p>
+     * <p>Adding a {@code Renderer}, which is already in a {@code
+     * RenderQueue}, does nothing.</p>
+     * @param renderer The {@code Renderer} to add.
+     * @throws NullPointerException if {@code renderer} is {@code null}.
+     */
+    public void add(Renderer renderer)
+    {
+        Objects.requireNonNull(renderer);
+        if (renderer.renderQueue != null)
+        {
+            return;
+        }
+        this.insert(renderer, renderer.getLayer());
+        renderer.renderQueue = this;
+    }
+
+    /**
+     * <p>Removes the given {@code renderer} from the queue.</p>
+     * <p>Removing a {@code Renderer}, which isn't in this {@code
+     * RenderQueue}, does nothing.</p>
+     * @param renderer The {@code Renderer} to remove.
+     * @throws NullPointerException if {@code renderer} is {@code null}.
+     */
+    public void remove(Renderer renderer)
+    {
+        Objects.requireNonNull(renderer);
+        if (renderer.renderQueue != this)
+        {
+            return;
+        }
+        this.erase(renderer, renderer.getLayer());
+        renderer.renderQueue = null;
+    }
+
+    /**
+     * <p>Moves the given {@code renderer} to it's new layer.</p>
+     * <p>Called by {@code Renderer.setLayer()}.</p>
+     * @param renderer The {@code Renderer}, which has changed it's layer.
+     * @param oldLayer The previous layer of the {@code Renderer}.
+     */
+    void changeLayer(Renderer renderer, float oldLayer)
+    {
+        this.erase(renderer, oldLayer);
+        this.insert(renderer, renderer.getLayer());
+    }
+
+    /**
+     * <p>Counts the given {@code renderer}, which has been marked or
+     * unmarked as static, and changes the version of it's layer.</p>
+     * <p>Called by {@code Renderer.setStatic()}.</p>
+     */
+    void changeStatic(Renderer renderer)
+    {
+        int index = this.findLayer(renderer.getLayer());
+        if (index >= 0)
+        {
+            this.staticCounts[index] += renderer.isStatic() ? 1 : -1;
+            this.staticVersions[index] = ++this.lastStaticVersion;
+        }
+    }
+
+    /**
+     * <p>Changes the version of the given static {@code renderer}'s
+     * layer.</p>
+     * <p>Called by {@code Renderer.markStaticChanged()}.</p>
+     */
+    void staticChanged(Renderer renderer)
+    {
+        int index = this.findLayer(renderer.getLayer());
+        if (index >= 0)
+        {
+            this.staticVersions[index] = ++this.lastStaticVersion;
+        }
+    }
+
+    private void insert(Renderer renderer, float layer)
+    {
+        int index = this.findLayer(layer);
+        if (index < 0)
+        {
+            index = -index - 1;
+            int count = this.buckets.size();
+            if (count == this.layers.length)
+            {
+                this.layers = Arrays.copyOf(this.layers, count * 2);
+                this.staticCounts = Arrays.copyOf(this.staticCounts,
+                                                  count * 2);
+                this.staticVersions = Arrays.copyOf(this.staticVersions,
+                                                    count * 2);
+            }
+            System.arraycopy(this.layers, index, this.layers, index + 1,
+                             count - index);
+            System.arraycopy(this.staticCounts, index,
+                             this.staticCounts, index + 1, count - index);
+            System.arraycopy(this.staticVersions, index,
+                             this.staticVersions, index + 1, count - index);
+            this.layers[index] = layer;
+            this.staticCounts[index] = 0;
+            this.staticVersions[index] = ++this.lastStaticVersion;
+            ArrayList<Renderer> bucket = new ArrayList<Renderer>();
+            this.buckets.add(index, bucket);
+            this.bucketViews.add(index,
+                                 Collections.unmodifiableList(bucket));
+        }
+        ArrayList<Renderer> bucket = this.buckets.get(index);
+        bucket.add(this.findPlace(bucket, renderer), renderer);
+        ++this.size;
+        if (renderer.isStatic())
+        {
+            ++this.staticCounts[index];
+            this.staticVersions[index] = ++this.lastStaticVersion;
+        }
+    }
+
+    private void erase(Renderer renderer, float layer)
+    {
+        int index = this.findLayer(layer);
+        if (index < 0)
+        {
+            return;
+        }
+        ArrayList<Renderer> bucket = this.buckets.get(index);
+        if (!bucket.remove(renderer))
+        {
+            return;
+        }
+        --this.size;
+        if (renderer.isStatic())
+        {
+            --this.staticCounts[index];
+            this.staticVersions[index] = ++this.lastStaticVersion;
+        }
+        if (bucket.isEmpty())
+        {
+            int count = this.buckets.size();
+            System.arraycopy(this.layers, index + 1, this.layers, index,
+                             count - index - 1);
+            System.arraycopy(this.staticCounts, index + 1,
+                             this.staticCounts, index, count - index - 1);
+            System.arraycopy(this.staticVersions, index + 1,
+                             this.staticVersions, index, count - index - 1);
+            this.buckets.remove(index);
+            this.bucketViews.remove(index);
+        }
+    }
+
+    /**
+     * <p>Finds the index in the {@code bucket} to insert the {@code
+     * renderer} at: after all the {@code Renderer}s, which don't go after
+     * it in the order.</p>
+     */
+    private int findPlace(ArrayList<Renderer> bucket, Renderer renderer)
+    {
+        int high = bucket.size();
+        // Most Renderers are added after the others, so check the end first.
+        if (this.order == null || high == 0
+            || this.order.compare(bucket.get(high - 1), renderer) <= 0)
+        {
+            return high;
+        }
+        int low = 0;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (this.order.compare(bucket.get(middle), renderer) <= 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * <p>Finds the bucket of the given layer with a binary search.</p>
+     * @param layer The layer to find.
+     * @return The index of the bucket, or {@code -(insertion point) - 1}
+     * if there's no bucket for the layer.
+     */
+    private int findLayer(float layer)
+    {
+        return Arrays.binarySearch(this.layers, 0, this.buckets.size(),
+                                   layer);
+    }
+
+}
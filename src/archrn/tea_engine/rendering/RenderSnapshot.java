@@ -0,0 +1,749 @@
+package archrn.tea_engine.rendering;
+
+import archrn.tea_engine.Screen;
+import archrn.tea_engine.Time;
+import archrn.tea_engine.assets.Sprite;
+import archrn.tea_engine.geometry.Vector2;
+import archrn.tea_engine.geometry.Vector2Int;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+
+/**
+ * <p>{@code RenderSnapshot} is a copy of everything a {@code Camera} draws
+ * in one frame.</p>
+ * <p>It's written by the game loop at the end of a frame: the {@code
+ * Camera}'s view, and for every visible {@code Renderer} it's kind, image,
+ * position, scale, layer and color, kept in flat arrays. The {@code
+ * Screen} then draws the snapshot on it's own thread without reading the
+ * {@code Scene}, so the next frame can be updated at the same time.</p>
+ * <p>A published snapshot isn't changed, until the {@code
+ * RenderSnapshotBuffer} gives it back to the game loop for another
+ * frame.</p>
+ * <p>The snapshot is a command buffer: every image gets a small id, so
+ * entries can be sorted by image, and it can be drawn by any {@code
+ * RenderBackend}, as many times as needed.</p>
+ * @author Artem
+ * @see RenderSnapshotBuffer
+ * @see RenderBackend
+ */
+public final class RenderSnapshot implements WorldScreenConverter
+{
+
+    private static final byte SPRITE = 0;
+    private static final byte RECTANGLE = 1;
+    private static final byte OVAL = 2;
+    private static final byte SCREEN_SPRITE = 3;
+    private static final byte PANEL = 4;
+    private static final byte TEXT = 5;
+    private static final byte RENDERER = 6;
+    private static final byte WORLD_IMAGE = 7;
+
+    private static final int TILED = 1;
+    private static final int CENTER = 2;
+    private static final int FROM_SCREEN_CENTER = 4;
+
+    /**
+     * <p>Floats per entry: position x and y, scale x and y, and the size
+     * of the {@code Sprite}.</p>
+     */
+    private static final int FLOATS = 6;
+
+    /**
+     * <p>Ints per entry: flags and the region of the image, or the corner
+     * radius of a panel.</p>
+     */
+    private static final int INTS = 5;
+
+    // The Camera's view.
+    private float cameraX;
+    private float cameraY;
+    private float viewWidth;
+    private float viewHeight;
+    private float worldToScreenCoefficient;
+    private float worldToScreenBiasX;
+    private float worldToScreenBiasY;
+    private int screenWidth;
+    private int screenHeight;
+    private Color backgroundColor;
+
+    private int size;
+    private byte[] kinds;
+    private float[] layers;
+    private float[] floats;
+    private int[] ints;
+    private Color[] colors;
+
+    /**
+     * <p>The image, text or live {@code Renderer} of every entry.</p>
+     */
+    private Object[] objects;
+    private Font[] fonts;
+
+    /**
+     * <p>The id of the image of every entry or {@code -1}.</p>
+     */
+    private int[] imageIds;
+
+    // Every image of the snapshot by it's id.
+    private BufferedImage[] images;
+    private int imageCount;
+    private final IdentityHashMap<BufferedImage, Integer> imageIdsByImage;
+
+    // Reused by render().
+    private final Vector2 position;
+    private final Vector2 scale;
+    private final Vector2 spriteSize;
+
+    /**
+     * <p>Initializes an empty {@code RenderSnapshot}.</p>
+     */
+    public RenderSnapshot()
+    {
+        this.backgroundColor = Color.white;
+        this.kinds = new byte[64];
+        this.layers = new float[64];
+        this.floats = new float[64 * FLOATS];
+        this.ints = new int[64 * INTS];
+        this.colors = new Color[64];
+        this.objects = new Object[64];
+        this.fonts = new Font[64];
+        this.imageIds = new int[64];
+        this.images = new BufferedImage[16];
+        this.imageIdsByImage = new IdentityHashMap<>();
+        this.position = new Vector2();
+        this.scale = new Vector2();
+        this.spriteSize = new Vector2();
+    }
+
+    /**
+     * <p>Sets the view of the {@code Camera} the snapshot is drawn with,
+     * on the whole {@code Screen}.</p>
+     * @param cameraPosition The position of the {@code Camera} in world
+     *                       units.
+     * @param viewSize The {@code Camera}'s vision area in world units.
+     * @param worldToScreenCoefficient The coefficient to convert world
+     *                                 units to screen units.
+     * @param worldToScreenBias The offset of the view on the {@code Screen}
+     *                          in screen units.
+     * @param backgroundColor The background {@code Color}.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public void setView(Vector2 cameraPosition, Vector2 viewSize,
+                        float worldToScreenCoefficient,
+                        Vector2 worldToScreenBias, Color backgroundColor)
+    {
+        this.setView(cameraPosition, viewSize, worldToScreenCoefficient,
+                     worldToScreenBias, backgroundColor,
+                     Screen.shared.getScreenSize().toVector2Int());
+    }
+
+    /**
+     * <p>Sets the view of the {@code Camera} the snapshot is drawn with,
+     * on an area of the given {@code screenSize}, like an image.</p>
+     * @param cameraPosition The position of the {@code Camera} in world
+     *                       units.
+     * @param viewSize The {@code Camera}'s vision area in world units.
+     * @param worldToScreenCoefficient The coefficient to convert world
+     *                                 units to screen units.
+     * @param worldToScreenBias The offset of the view in the area in
+     *                          screen units.
+     * @param backgroundColor The background {@code Color}.
+     * @param screenSize The size of the area in screen units.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public void setView(Vector2 cameraPosition, Vector2 viewSize,
+                        float worldToScreenCoefficient,
+                        Vector2 worldToScreenBias, Color backgroundColor,
+                        Vector2Int screenSize)
+    {
+        Objects.requireNonNull(cameraPosition);
+        Objects.requireNonNull(viewSize);
+        Objects.requireNonNull(worldToScreenBias);
+        Objects.requireNonNull(backgroundColor);
+        Objects.requireNonNull(screenSize);
+        this.cameraX = cameraPosition.x;
+        this.cameraY = cameraPosition.y;
+        this.viewWidth = viewSize.x;
+        this.viewHeight = viewSize.y;
+        this.worldToScreenCoefficient = worldToScreenCoefficient;
+        this.worldToScreenBiasX = worldToScreenBias.x;
+        this.worldToScreenBiasY = worldToScreenBias.y;
+        this.backgroundColor = backgroundColor;
+        this.screenWidth = screenSize.x;
+        this.screenHeight = screenSize.y;
+    }
+
+    /**
+     * <p>Returns the background {@code Color} of the {@code Camera}.</p>
+     * @return The background {@code Color}.
+     */
+    public Color getBackgroundColor()
+    {
+        return this.backgroundColor;
+    }
+
+    /**
+     * <p>Returns the amount of things to draw in the snapshot.</p>
+     * @return The amount of entries.
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * <p>Returns the layer of the {@code Renderer}, which added the entry
+     * with the given {@code index}.</p>
+     * <p>Entries are kept in the order they are drawn, so lower layers
+     * come first.</p>
+     * @param index The index of the entry.
+     * @return The layer of the entry.
+     * @throws IndexOutOfBoundsException if {@code index} isn't less than
+     * {@code size()}.
+     */
+    public float getLayer(int index)
+    {
+        Objects.checkIndex(index, this.size);
+        return this.layers[index];
+    }
+
+    /**
+     * <p>Returns the id of the image drawn by the entry with the given
+     * {@code index}.</p>
+     * <p>Ids are given in the order images are first added, starting from
+     * {@code 0}, and are the same for all the entries drawing the same
+     * image.</p>
+     * @param index The index of the entry.
+     * @return The id of the image or {@code -1} if the entry doesn't draw
+     * an image.
+     * @throws IndexOutOfBoundsException if {@code index} isn't less than
+     * {@code size()}.
+     */
+    public int getImageId(int index)
+    {
+        Objects.checkIndex(index, this.size);
+        return this.imageIds[index];
+    }
+
+    /**
+     * <p>Returns the amount of different images in the snapshot.</p>
+     * @return The amount of image ids.
+     */
+    public int getImageCount()
+    {
+        return this.imageCount;
+    }
+
+    /**
+     * <p>Returns the image with the given {@code id}.</p>
+     * @param id The id of the image.
+     * @return The image.
+     * @throws IndexOutOfBoundsException if {@code id} isn't less than
+     * {@code getImageCount()}.
+     */
+    public BufferedImage getImage(int id)
+    {
+        Objects.checkIndex(id, this.imageCount);
+        return this.images[id];
+    }
+
+    /**
+     * <p>Adds the given {@code sprite} drawn at the {@code renderer}'s
+     * {@code Transform}, like {@code RendererGraphics.drawSprite()}.</p>
+     * <p>The {@code Sprite}'s current image is kept, so it's drawn even if
+     * the {@code Sprite} changes. Does nothing if it has no image.</p>
+     * @param renderer The {@code Renderer} drawing the {@code Sprite}.
+     * @param sprite The {@code Sprite} to draw.
+     * @param tiled {@code true} to repeat the {@code Sprite} over the
+     *              scale instead of stretching it.
+     * @throws NullPointerException if {@code renderer} or {@code sprite}
+     * is {@code null}.
+     */
+    public void addSprite(Renderer renderer, Sprite sprite, boolean tiled)
+    {
+        Objects.requireNonNull(sprite);
+        this.addSprite(renderer, sprite, SPRITE, tiled ? TILED : 0);
+    }
+
+    /**
+     * <p>Adds a rectangle of the {@code renderer}'s color covering it's
+     * {@code Transform}.</p>
+     * @param renderer The {@code Renderer} drawing the rectangle.
+     * @throws NullPointerException if {@code renderer} is {@code null}.
+     */
+    public void addRectangle(Renderer renderer)
+    {
+        this.add(renderer, RECTANGLE, 0, null);
+    }
+
+    /**
+     * <p>Adds an oval of the {@code renderer}'s color covering it's {@code
+     * Transform}.</p>
+     * @param renderer The {@code Renderer} drawing the oval.
+     * @throws NullPointerException if {@code renderer} is {@code null}.
+     */
+    public void addOval(Renderer renderer)
+    {
+        this.add(renderer, OVAL, 0, null);
+    }
+
+    /**
+     * <p>Adds the given {@code sprite} drawn in screen coordinates, like
+     * {@code RendererGraphics.drawSpriteScreen()}. The {@code renderer}'s
+     * position is the center and it's scale is the size in screen
+     * units.</p>
+     * <p>Does nothing if the {@code Sprite} has no image.</p>
+     * @param renderer The {@code Renderer} drawing the {@code Sprite}.
+     * @param sprite The {@code Sprite} to draw.
+     * @param positionFromScreenCenter {@code true} if the position is
+     *                                 relative to the center of the
+     *                                 {@code Screen}.
+     * @throws NullPointerException if {@code renderer} or {@code sprite}
+     * is {@code null}.
+     */
+    public void addScreenSprite(Renderer renderer, Sprite sprite,
+                                boolean positionFromScreenCenter)
+    {
+        Objects.requireNonNull(sprite);
+        this.addSprite(renderer, sprite, SCREEN_SPRITE,
+                       positionFromScreenCenter ? FROM_SCREEN_CENTER : 0);
+    }
+
+    /**
+     * <p>Adds a rectangle with rounded corners in screen coordinates, like
+     * {@code RendererGraphics.fillRectScreenTopLeft()}. The {@code
+     * renderer}'s position is the top left corner and it's scale is the
+     * size in screen units.</p>
+     * @param renderer The {@code Renderer} drawing the panel.
+     * @param radius The radius of the corners.
+     * @param positionFromScreenCenter {@code true} if the position is
+     *                                 relative to the center of the
+     *                                 {@code Screen}.
+     * @throws NullPointerException if {@code renderer} is {@code null}.
+     */
+    public void addPanel(Renderer renderer, int radius,
+                         boolean positionFromScreenCenter)
+    {
+        int index = this.add(renderer, PANEL,
+                             positionFromScreenCenter ? FROM_SCREEN_CENTER : 0,
+                             null);
+        this.ints[index * INTS + 1] = radius;
+    }
+
+    /**
+     * <p>Adds a text in screen coordinates, like {@code
+     * RendererGraphics.drawStringTopLeft()} or {@code drawStringCenter()}.
+     * The {@code renderer}'s position is the top left corner and it's scale
+     * is the size of the box in screen units.</p>
+     * @param renderer The {@code Renderer} drawing the text.
+     * @param text The text to draw.
+     * @param font The {@code Font} to draw with.
+     * @param center {@code true} to center the text in the box.
+     * @param positionFromScreenCenter {@code true} if the position is
+     *                                 relative to the center of the
+     *                                 {@code Screen}.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public void addText(Renderer renderer, String text, Font font,
+                        boolean center, boolean positionFromScreenCenter)
+    {
+        Objects.requireNonNull(text);
+        Objects.requireNonNull(font);
+        int flags = (center ? CENTER : 0)
+                | (positionFromScreenCenter ? FROM_SCREEN_CENTER : 0);
+        int index = this.add(renderer, TEXT, flags, text);
+        this.fonts[index] = font;
+    }
+
+    /**
+     * <p>Adds the whole {@code image} drawn pixel for pixel, with it's top
+     * left corner at the given world position.</p>
+     * <p>Used for images, which are already drawn at the {@code Camera}'s
+     * scale, like the ones of the {@code StaticLayerCache}.</p>
+     * @param image The image to draw.
+     * @param worldPositionTopLeft The position of the top left corner in
+     *                             world units.
+     * @param layer The layer of the image.
+     * @throws NullPointerException if {@code image} or {@code
+     * worldPositionTopLeft} is {@code null}.
+     */
+    public void addWorldImage(BufferedImage image,
+                              Vector2 worldPositionTopLeft, float layer)
+    {
+        Objects.requireNonNull(image);
+        Objects.requireNonNull(worldPositionTopLeft);
+        if (this.size == this.kinds.length)
+        {
+            this.grow();
+        }
+        int index = this.size++;
+        int f = index * FLOATS;
+        this.floats[f] = worldPositionTopLeft.x;
+        this.floats[f + 1] = worldPositionTopLeft.y;
+        this.ints[index * INTS] = 0;
+        this.kinds[index] = WORLD_IMAGE;
+        this.layers[index] = layer;
+        this.colors[index] = Color.white;
+        this.objects[index] = image;
+        this.imageIds[index] = this.getOrAddImageId(image);
+    }
+
+    /**
+     * <p>Adds the {@code renderer} itself, so it's drawn with {@code
+     * Renderer.render()} when the snapshot is drawn.</p>
+     * <p>Such a {@code Renderer} reads the {@code Scene} while it's drawn,
+     * so it's drawn holding the frame lock, and the game loop waits for it.
+     * {@code Renderer}s, which can, should add a copy of what they draw
+     * instead.</p>
+     * @param renderer The {@code Renderer} to draw.
+     * @throws NullPointerException if {@code renderer} is {@code null}.
+     */
+    public void addRenderer(Renderer renderer)
+    {
+        this.add(renderer, RENDERER, 0, renderer);
+    }
+
+    /**
+     * <p>Sorts the sprites by image id, so the same image is drawn several
+     * times in a row.</p>
+     * <p>Only sprites, which come one after another, of the same layer and
+     * the same kind, world or screen, are sorted. Other entries and layers
+     * keep their order. The order of sprites with the same image is kept,
+     * but overlapping sprites of different images in one layer may be
+     * drawn in another order.</p>
+     */
+    public void sortByImage()
+    {
+        int start = 0;
+        for (int i = 1; i <= this.size; ++i)
+        {
+            if (i == this.size || this.imageIds[i] < 0
+                || this.imageIds[start] < 0
+                || this.kinds[i] != this.kinds[start]
+                || this.layers[i] != this.layers[start])
+            {
+                if (i - start > 1 && this.imageIds[start] >= 0)
+                {
+                    this.sortByImage(start, i);
+                }
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * <p>Draws the snapshot with the given {@code graphics}, which should
+     * use this snapshot as it's {@code WorldScreenConverter}.</p>
+     * @param graphics The {@code RendererGraphics} to draw with.
+     * @throws NullPointerException if {@code graphics} is {@code null}.
+     */
+    public void render(RendererGraphics graphics)
+    {
+        Objects.requireNonNull(graphics);
+        graphics.setColor(this.backgroundColor);
+        graphics.fillRectScreenTopLeft(Vector2Int.zero(),
+                                       this.getScreenSize());
+
+        for (int i = 0; i < this.size; ++i)
+        {
+            int f = i * FLOATS;
+            int n = i * INTS;
+            this.position.x = this.floats[f];
+            this.position.y = this.floats[f + 1];
+            this.scale.x = this.floats[f + 2];
+            this.scale.y = this.floats[f + 3];
+            int flags = this.ints[n];
+            boolean fromScreenCenter = (flags & FROM_SCREEN_CENTER) != 0;
+            graphics.setColor(this.colors[i]);
+            switch (this.kinds[i])
+            {
+                case SPRITE:
+                    this.spriteSize.x = this.floats[f + 4];
+                    this.spriteSize.y = this.floats[f + 5];
+                    graphics.drawImage(this.position, this.scale,
+                                       (BufferedImage)this.objects[i],
+                                       this.ints[n + 1], this.ints[n + 2],
+                                       this.ints[n + 3], this.ints[n + 4],
+                                       this.spriteSize,
+                                       (flags & TILED) != 0);
+                    break;
+                case RECTANGLE:
+                    graphics.fillRect(this.position, this.scale);
+                    break;
+                case OVAL:
+                    graphics.fillOval(this.position, this.scale);
+                    break;
+                case SCREEN_SPRITE:
+                    graphics.drawImageScreen(this.position.toVector2Int(),
+                                             this.scale.toVector2Int(),
+                                             (BufferedImage)this.objects[i],
+                                             this.ints[n + 1],
+                                             this.ints[n + 2],
+                                             this.ints[n + 3],
+                                             this.ints[n + 4],
+                                             fromScreenCenter);
+                    break;
+                case PANEL:
+                    graphics.fillRectScreenTopLeft(
+                            this.position.toVector2Int(),
+                            this.scale.toVector2Int(),
+                            this.ints[n + 1], fromScreenCenter);
+                    break;
+                case TEXT:
+                    graphics.setFont(this.fonts[i]);
+                    if ((flags & CENTER) != 0)
+                    {
+                        graphics.drawStringCenter(
+                                this.position.toVector2Int(),
+                                this.scale.toVector2Int(),
+                                (String)this.objects[i], fromScreenCenter);
+                    }
+                    else
+                    {
+                        graphics.drawStringTopLeft(
+                                this.position.toVector2Int(),
+                                this.scale.toVector2Int(),
+                                (String)this.objects[i], fromScreenCenter);
+                    }
+                    break;
+                case WORLD_IMAGE:
+                    graphics.drawImageTopLeft(this.position,
+                                              (BufferedImage)this.objects[i]);
+                    break;
+                case RENDERER:
+                    synchronized (Time.shared.getFrameLock())
+                    {
+                        ((Renderer)this.objects[i]).render(graphics);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Vector2Int worldToScreenPosition(Vector2 worldPosition)
+    {
+        // The same pixel grid as Camera's.
+        float coefficient = this.worldToScreenCoefficient;
+        return new Vector2Int(
+                Math.round(worldPosition.x * coefficient)
+                - Math.round((this.cameraX - this.viewWidth / 2) * coefficient)
+                + Math.round(this.worldToScreenBiasX),
+                Math.round(-worldPosition.y * coefficient)
+                + Math.round((this.cameraY + this.viewHeight / 2) * coefficient)
+                + Math.round(this.worldToScreenBiasY));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Vector2Int worldToScreenPositionTopLeft(Vector2 worldPosition,
+                                                   Vector2 worldSize)
+    {
+        return this.worldToScreenPosition(
+                this.positionTopLeftWorld(worldPosition, worldSize));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Vector2Int worldToScreenScale(Vector2 worldScale)
+    {
+        return this.worldToScreenScaleVector2(worldScale).toVector2Int();
+    }
+
+    @Override
+    public Vector2 worldToScreenScaleVector2(Vector2 worldScale)
+    {
+        return Vector2.multiplied(worldScale, this.worldToScreenCoefficient);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Vector2 screenToWorldPosition(Vector2Int screenPosition)
+    {
+        screenPosition = Vector2Int.difference(
+                screenPosition,
+                new Vector2(this.worldToScreenBiasX,
+                            this.worldToScreenBiasY).toVector2Int());
+        Vector2 worldPosition = this.screenToWorldScale(screenPosition);
+        worldPosition.y = this.viewHeight - worldPosition.y;
+        worldPosition.x += this.cameraX - this.viewWidth / 2;
+        worldPosition.y += this.cameraY - this.viewHeight / 2;
+        return worldPosition;
+    }
+
+    /**
+     * <p>Returns the size of the area set by {@code setView()}.</p>
+     * @return The size of the drawing area.
+     */
+    @Override
+    public Vector2Int getScreenSize()
+    {
+        return new Vector2Int(this.screenWidth, this.screenHeight);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Vector2 screenToWorldScale(Vector2Int screenScale)
+    {
+        return Vector2.quotient(screenScale.toVector2(),
+                                this.worldToScreenCoefficient);
+    }
+
+    /**
+     * <p>Removes all the entries, so the snapshot can be written again.</p>
+     */
+    public void clear()
+    {
+        // Don't keep images and Renderers alive.
+        Arrays.fill(this.objects, 0, this.size, null);
+        Arrays.fill(this.fonts, 0, this.size, null);
+        Arrays.fill(this.colors, 0, this.size, null);
+        Arrays.fill(this.images, 0, this.imageCount, null);
+        this.imageIdsByImage.clear();
+        this.imageCount = 0;
+        this.size = 0;
+    }
+
+    /**
+     * <p>Sorts the entries from {@code start} to {@code end} by image id,
+     * keeping the order of entries with the same id.</p>
+     */
+    private void sortByImage(int start, int end)
+    {
+        int count = end - start;
+        // The id in the high half and the old index in the low half, so
+        // the sort is stable.
+        long[] keys = new long[count];
+        boolean sorted = true;
+        for (int i = 0; i < count; ++i)
+        {
+            keys[i] = (long)this.imageIds[start + i] << 32 | i;
+            sorted &= i == 0 || keys[i] > keys[i - 1];
+        }
+        if (sorted)
+        {
+            return;
+        }
+        Arrays.sort(keys);
+
+        float[] floats = Arrays.copyOfRange(this.floats, start * FLOATS,
+                                            end * FLOATS);
+        int[] ints = Arrays.copyOfRange(this.ints, start * INTS, end * INTS);
+        Color[] colors = Arrays.copyOfRange(this.colors, start, end);
+        Object[] objects = Arrays.copyOfRange(this.objects, start, end);
+        for (int i = 0; i < count; ++i)
+        {
+            int from = (int)keys[i];
+            int to = start + i;
+            System.arraycopy(floats, from * FLOATS,
+                             this.floats, to * FLOATS, FLOATS);
+            System.arraycopy(ints, from * INTS, this.ints, to * INTS, INTS);
+            this.colors[to] = colors[from];
+            this.objects[to] = objects[from];
+            this.imageIds[to] = (int)(keys[i] >>> 32);
+        }
+    }
+
+    /**
+     * <p>Returns the id of the {@code image}, giving it a new one if it's
+     * the first time it's added.</p>
+     */
+    private int getOrAddImageId(BufferedImage image)
+    {
+        Integer id = this.imageIdsByImage.get(image);
+        if (id != null)
+        {
+            return id;
+        }
+        if (this.imageCount == this.images.length)
+        {
+            this.images = Arrays.copyOf(this.images, this.imageCount * 2);
+        }
+        this.images[this.imageCount] = image;
+        this.imageIdsByImage.put(image, this.imageCount);
+        return this.imageCount++;
+    }
+
+    /**
+     * <p>Adds an entry for the {@code sprite}'s current image, if it has
+     * one.</p>
+     */
+    private void addSprite(Renderer renderer, Sprite sprite, byte kind,
+                           int flags)
+    {
+        BufferedImage image = sprite.getImage();
+        if (image == null)
+        {
+            return;
+        }
+        int index = this.add(renderer, kind, flags, image);
+        this.imageIds[index] = this.getOrAddImageId(image);
+        int f = index * FLOATS;
+        int n = index * INTS;
+        Vector2 size = sprite.getSize();
+        this.floats[f + 4] = size.x;
+        this.floats[f + 5] = size.y;
+        this.ints[n + 1] = sprite.getRegionX();
+        this.ints[n + 2] = sprite.getRegionY();
+        this.ints[n + 3] = sprite.getRegionWidth();
+        this.ints[n + 4] = sprite.getRegionHeight();
+    }
+
+    /**
+     * <p>Adds an entry with the {@code renderer}'s position, scale, layer
+     * and color.</p>
+     * @return The index of the entry.
+     */
+    private int add(Renderer renderer, byte kind, int flags, Object object)
+    {
+        Objects.requireNonNull(renderer);
+        if (this.size == this.kinds.length)
+        {
+            this.grow();
+        }
+        int index = this.size++;
+        Vector2 position = renderer.getTransform().getPositionAbsolute();
+        Vector2 scale = renderer.getTransform().getScaleAbsolute();
+        int f = index * FLOATS;
+        this.floats[f] = position.x;
+        this.floats[f + 1] = position.y;
+        this.floats[f + 2] = scale.x;
+        this.floats[f + 3] = scale.y;
+        this.ints[index * INTS] = flags;
+        this.kinds[index] = kind;
+        this.layers[index] = renderer.getLayer();
+        this.colors[index] = renderer.getColor();
+        this.objects[index] = object;
+        this.imageIds[index] = -1;
+        return index;
+    }
+
+    private void grow()
+    {
+        int capacity = this.kinds.length * 2;
+        this.kinds = Arrays.copyOf(this.kinds, capacity);
+        this.layers = Arrays.copyOf(this.layers, capacity);
+        this.floats = Arrays.copyOf(this.floats, capacity * FLOATS);
+        this.ints = Arrays.copyOf(this.ints, capacity * INTS);
+        this.colors = Arrays.copyOf(this.colors, capacity);
+        this.objects = Arrays.copyOf(this.objects, capacity);
+        this.fonts = Arrays.copyOf(this.fonts, capacity);
+        this.imageIds = Arrays.copyOf(this.imageIds, capacity);
+    }
+
+}
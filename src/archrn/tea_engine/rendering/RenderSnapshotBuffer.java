@@ -0,0 +1,90 @@
+package archrn.tea_engine.rendering;
+
+/**
+ * <p>{@code RenderSnapshotBuffer} passes {@code RenderSnapshot}s from the
+ * game loop, which writes them, to the thread drawing them.</p>
+ * <p>It keeps three snapshots: the one being written, the latest published
+ * one and the one being drawn. Publishing and taking a snapshot only swap
+ * them, so neither thread waits for the other to finish it's work. If the
+ * game loop publishes several snapshots between two draws, only the latest
+ * one is drawn. If it publishes none, the same one is drawn again.</p>
+ * <p>Only one thread should write and only one thread should draw.</p>
+ * @author Artem
+ */
+public final class RenderSnapshotBuffer
+{
+
+    // Owned by the writing thread.
+    private RenderSnapshot writing;
+
+    // Guarded by this.
+    private RenderSnapshot published;
+    private boolean hasNewSnapshot;
+
+    // Owned by the drawing thread.
+    private RenderSnapshot drawing;
+    private boolean hasSnapshot;
+
+    /**
+     * <p>Initializes a {@code RenderSnapshotBuffer} without published
+     * snapshots.</p>
+     */
+    public RenderSnapshotBuffer()
+    {
+        this.writing = new RenderSnapshot();
+        this.published = new RenderSnapshot();
+        this.drawing = new RenderSnapshot();
+    }
+
+    /**
+     * <p>Returns an empty snapshot to write the next frame to.</p>
+     * <p>Called by the writing thread. The snapshot belongs to it until
+     * {@code publish()}.</p>
+     * @return The snapshot to write.
+     */
+    public RenderSnapshot beginWrite()
+    {
+        this.writing.clear();
+        return this.writing;
+    }
+
+    /**
+     * <p>Publishes the snapshot returned by {@code beginWrite()}, so it's
+     * drawn next.</p>
+     * <p>Called by the writing thread.</p>
+     */
+    public void publish()
+    {
+        synchronized (this)
+        {
+            RenderSnapshot snapshot = this.published;
+            this.published = this.writing;
+            this.writing = snapshot;
+            this.hasNewSnapshot = true;
+        }
+    }
+
+    /**
+     * <p>Returns the latest published snapshot.</p>
+     * <p>Called by the drawing thread. The snapshot isn't changed until the
+     * next call.</p>
+     * @return The latest snapshot or {@code null} if none is published
+     * yet.
+     */
+    public RenderSnapshot acquire()
+    {
+        synchronized (this)
+        {
+            if (this.hasNewSnapshot)
+            {
+                RenderSnapshot snapshot = this.drawing;
+                this.drawing = this.published;
+                this.published = snapshot;
+                this.hasNewSnapshot = false;
+                this.hasSnapshot = true;
+            }
+        }
+        return this.hasSnapshot ? this.drawing : null;
+    }
+
+}
@@ -1,6 +1,7 @@
 package archrn.tea_engine.rendering;
 
 import archrn.tea_engine.Component;
+import archrn.tea_engine.geometry.Bounds;
 
 import java.awt.*;
 import java.util.Objects;
@@ -15,6 +16,12 @@ public abstract class Renderer extends Component
     private Color color;
     private boolean visible;
     private float layer;
+    private boolean staticContent;
+
+    /**
+     * <p>The {@code RenderQueue} this {@code Renderer} is in, if any.</p>
+     */
+    RenderQueue renderQueue;
 
     /**
      * <p>Initializes the {@code Renderer} with default color.</p>
@@ -54,6 +61,7 @@ public abstract class Renderer extends Component
     {
         Objects.requireNonNull(color);
         this.color = color;
+        this.markStaticChanged();
     }
 
     /**
@@ -72,6 +80,64 @@ public abstract class Renderer extends Component
     public final void setVisible(boolean visible)
     {
         this.visible = visible;
+        this.markStaticChanged();
+    }
+
+    /**
+     * <p>Returns {@code true} if this {@code Renderer} is marked as
+     * static.</p>
+     * @return {@code true} if the {@code Renderer} is static.
+     * @see Renderer#setStatic(boolean)
+     */
+    public final boolean isStatic()
+    {
+        return this.staticContent;
+    }
+
+    /**
+     * <p>Marks this {@code Renderer} as static, meaning it doesn't move
+     * and looks the same every frame, like a floor or a wall.</p>
+     * <p>The {@code Camera} draws the static {@code Renderer}s with world
+     * bounds of each layer once into cached images, and then only copies
+     * the images every frame. They are drawn under the other {@code
+     * Renderer}s of their layer.</p>
+     * <p>The images are drawn again, when the zoom changes or when a static
+     * {@code Renderer} of the layer changes through it's own setters, the
+     * setters of it's {@code Transform} or {@code GameObject.setActive()},
+     * is added, removed or moved to another layer. Changing the {@code
+     * Transform}'s vectors in place or moving it's parent isn't noticed, so
+     * {@code markStaticChanged()} should be called after it.</p>
+     * @param staticContent {@code true} to mark the {@code Renderer} as
+     *                      static.
+     * @see StaticLayerCache
+     */
+    public final void setStatic(boolean staticContent)
+    {
+        if (staticContent == this.staticContent)
+        {
+            return;
+        }
+        this.staticContent = staticContent;
+        if (this.renderQueue != null)
+        {
+            this.renderQueue.changeStatic(this);
+        }
+    }
+
+    /**
+     * <p>Tells the {@code Camera}, that this static {@code Renderer} has
+     * changed, so it's layer has to be drawn again.</p>
+     * <p>Called by the setters of the {@code Renderer} and it's {@code
+     * Transform}. Should be called after changing the {@code Transform}'s
+     * vectors in place or moving it's parent. Does nothing if the {@code
+     * Renderer} isn't static.</p>
+     */
+    public final void markStaticChanged()
+    {
+        if (this.staticContent && this.renderQueue != null)
+        {
+            this.renderQueue.staticChanged(this);
+        }
     }
 
     /**
@@ -88,14 +154,75 @@ public abstract class Renderer extends Component
         }
     }
 
+    /**
+     * <p>Adds what this {@code Renderer} draws to the given {@code
+     * snapshot}, if it's visible.</p>
+     * <p>Called by {@code Camera.captureSnapshot()} at the end of a frame.
+     * If everything is good, calls {@code capture(RenderSnapshot)}.</p>
+     * @param snapshot The {@code RenderSnapshot} to add to.
+     */
+    public final void snapshot(RenderSnapshot snapshot)
+    {
+        if (this.visible)
+        {
+            this.capture(snapshot);
+        }
+    }
+
+    /**
+     * <p>Writes the area covered by this {@code Renderer} in world
+     * coordinates to the given {@code bounds}.</p>
+     * <p>{@code Camera} doesn't render {@code Renderer}s, which bounds are
+     * outside of it's view. By default, returns {@code false}, so the
+     * {@code Renderer} is never culled. Screen space {@code Renderer}s,
+     * like GUI, should keep it this way.</p>
+     * @param bounds The {@code Bounds} to write to.
+     * @return {@code true} if the bounds are written, {@code false} if the
+     * {@code Renderer} has no world bounds and shouldn't be culled.
+     * @throws NullPointerException if {@code bounds} is {@code null}.
+     */
+    public boolean getWorldBounds(Bounds bounds)
+    {
+        Objects.requireNonNull(bounds);
+        return false;
+    }
+
     public float getLayer()
     {
         return layer;
     }
 
+    /**
+     * <p>Sets the layer of this {@code Renderer}.</p>
+     * <p>{@code Renderer}s on higher layers are drawn over the ones on
+     * lower layers. Within a layer, {@code Renderer}s are drawn in the
+     * order their {@code GameObject}s were added to the {@code Scene}, and
+     * then in the order they were added to their {@code GameObject}. This
+     * holds for a {@code Renderer}, which changes it's layer, too.</p>
+     * @param layer The new layer.
+     */
     public void setLayer(float layer)
     {
+        float oldLayer = this.layer;
         this.layer = layer;
+        if (this.renderQueue != null
+            && Float.compare(oldLayer, layer) != 0)
+        {
+            this.renderQueue.changeLayer(this, oldLayer);
+        }
+    }
+
+    /**
+     * <p>Returns {@code true} if what this {@code Renderer} draws isn't
+     * final yet, like a {@code Sprite} loading in the background.</p>
+     * <p>The {@code StaticLayerCache} draws such a static {@code Renderer}
+     * again every frame, until it's loaded. By default, returns {@code
+     * false}.</p>
+     * @return {@code true} if the {@code Renderer} is still loading.
+     */
+    protected boolean isLoading()
+    {
+        return false;
     }
 
     /**
@@ -105,4 +232,17 @@ public abstract class Renderer extends Component
      */
     protected abstract void draw(RendererGraphics graphics);
 
+    /**
+     * <p>Adds a copy of what {@code draw(RendererGraphics)} would draw now
+     * to the {@code snapshot}, after visibility is already checked.</p>
+     * <p>By default, adds the {@code Renderer} itself, so it's drawn live
+     * holding the frame lock. {@code Renderer}s should override it to add
+     * a copy, so the {@code Screen} doesn't block the game loop.</p>
+     * @param snapshot The {@code RenderSnapshot} to add to.
+     */
+    protected void capture(RenderSnapshot snapshot)
+    {
+        snapshot.addRenderer(this);
+    }
+
 }
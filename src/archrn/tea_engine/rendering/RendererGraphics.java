@@ -1,14 +1,16 @@
 package archrn.tea_engine.rendering;
 
-import archrn.tea_engine.Screen;
 import archrn.tea_engine.Transform;
 import archrn.tea_engine.assets.Sprite;
 import archrn.tea_engine.geometry.Vector2;
 import archrn.tea_engine.geometry.Vector2Int;
 
 import java.awt.*;
+import java.awt.geom.Path2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Objects;
 
 /**
@@ -22,10 +24,34 @@ import java.util.Objects;
 public class RendererGraphics
 {
 
+    /**
+     * <p>The amount of oval outlines kept.</p>
+     */
+    private static final int MAX_OVAL_SHAPES = 64;
+
+    /**
+     * <p>The most recently used oval outlines by their size. Guarded by
+     * itself.</p>
+     */
+    private static final LinkedHashMap<Long, Shape> ovalShapes =
+            new LinkedHashMap<Long, Shape>(16, 0.75f, true);
+
     private final Graphics2D graphics2D;
     private WorldScreenConverter converter;
     private FontMetrics fontMetrics;
 
+    /**
+     * <p>Cache of scaled sprites. Can be {@code null}, then sprites are
+     * scaled on every draw.</p>
+     */
+    private final SpriteScaleCache spriteScaleCache;
+
+    /**
+     * <p>The list to record the drawing to instead of drawing it, or
+     * {@code null}.</p>
+     */
+    private final SoftwareDrawList drawList;
+
     /**
      * <p>Initializes {@code RendererGraphics} with the given {@code Graphics2D}
      * and {@code IWorldScreenConverter}.</p>
@@ -40,12 +66,54 @@ public class RendererGraphics
      */
     public RendererGraphics(Graphics2D graphics2D,
                             WorldScreenConverter converter)
+    {
+        this(graphics2D, converter, (SpriteScaleCache)null);
+    }
+
+    /**
+     * <p>Initializes {@code RendererGraphics} with the given {@code
+     * Graphics2D}, {@code IWorldScreenConverter} and {@code
+     * SpriteScaleCache}.</p>
+     * <p>Sprites are drawn from {@code spriteScaleCache}, so they are
+     * scaled only once for each size on the screen.</p>
+     * @param graphics2D The {@code Graphics2D} to draw.
+     * @param converter The {@code IWorldScreenConverter} to convert world
+     *                  coordinates to screen coordinates.
+     * @param spriteScaleCache The cache of scaled sprites or {@code null}.
+     * @throws NullPointerException if {@code graphics2D} or {@code
+     * converter} is {@code null}.
+     */
+    public RendererGraphics(Graphics2D graphics2D,
+                            WorldScreenConverter converter,
+                            SpriteScaleCache spriteScaleCache)
+    {
+        this(graphics2D, converter, spriteScaleCache, null);
+    }
+
+    /**
+     * <p>Initializes {@code RendererGraphics}, which records the drawing
+     * to {@code drawList} for the {@code SoftwareRasterizer}.</p>
+     * <p>{@code graphics2D} is still used for colors, fonts and text
+     * measurement.</p>
+     */
+    RendererGraphics(Graphics2D graphics2D, WorldScreenConverter converter,
+                     SoftwareDrawList drawList)
+    {
+        this(graphics2D, converter, null, drawList);
+    }
+
+    private RendererGraphics(Graphics2D graphics2D,
+                             WorldScreenConverter converter,
+                             SpriteScaleCache spriteScaleCache,
+                             SoftwareDrawList drawList)
     {
         Objects.requireNonNull(graphics2D);
         Objects.requireNonNull(converter);
 
         this.graphics2D = graphics2D;
         this.converter = converter;
+        this.spriteScaleCache = spriteScaleCache;
+        this.drawList = drawList;
 
         this.graphics2D.setColor(Color.white);
         this.fontMetrics = this.graphics2D.getFontMetrics();
@@ -95,8 +163,8 @@ public class RendererGraphics
                 .worldToScreenPositionTopLeft(worldPosition, worldSize);
         Vector2Int screenScale = this.converter.worldToScreenScale(worldSize);
 
-        this.graphics2D.fillOval(screenPosition.x, screenPosition.y,
-                                 screenScale.x, screenScale.y);
+        this.fillOvalPixels(screenPosition.x, screenPosition.y,
+                            screenScale.x, screenScale.y);
     }
 
     /**
@@ -133,8 +201,8 @@ public class RendererGraphics
                 .worldToScreenPositionTopLeft(worldPosition, worldSize);
         Vector2Int screenScale = this.converter.worldToScreenScale(worldSize);
 
-        this.graphics2D.fillRect(screenPosition.x, screenPosition.y,
-                                 screenScale.x, screenScale.y);
+        this.fillRectPixels(screenPosition.x, screenPosition.y,
+                            screenScale.x, screenScale.y);
     }
 
     /**
@@ -180,9 +248,24 @@ public class RendererGraphics
         Objects.requireNonNull(sprite);
 
         BufferedImage image = sprite.getImage();
-        Vector2 spriteSize = sprite.getSize();
         Objects.requireNonNull(image);
+        this.drawImage(worldPosition, worldScale, image,
+                       sprite.getRegionX(), sprite.getRegionY(),
+                       sprite.getRegionWidth(), sprite.getRegionHeight(),
+                       sprite.getSize(), tiled);
+    }
 
+    /**
+     * <p>Draws the given region of {@code image} like a {@code Sprite} of
+     * size {@code spriteSize}, as {@code drawSprite()} does.</p>
+     * <p>Used to draw a {@code RenderSnapshot}, which keeps the image
+     * instead of the {@code Sprite}.</p>
+     */
+    void drawImage(Vector2 worldPosition, Vector2 worldScale,
+                   BufferedImage image,
+                   int regionX, int regionY, int regionWidth, int regionHeight,
+                   Vector2 spriteSize, boolean tiled)
+    {
         Vector2 worldSize = worldScale.duplicate();
         int xSign = (int)Math.signum(worldScale.x);
         int ySign = (int)Math.signum(worldScale.y);
@@ -202,7 +285,7 @@ public class RendererGraphics
         }
         else
         {
-            screenSize = totalScreenSize;
+            screenSize = totalScreenSize.duplicate();
         }
 
         totalScreenSize.add(Vector2.multiplied(screenSize, 0.2f));
@@ -212,13 +295,12 @@ public class RendererGraphics
             for (float y = 0; y + screenSize.y <= totalScreenSize.y;
                     y += screenSize.y)
             {
-                this.graphics2D.drawImage(
-                        image,
-                        Math.round(screenPosition.x + x * xSign),
-                        Math.round(screenPosition.y + y * ySign),
-                        Math.round(screenSize.x * xSign),
-                        Math.round(screenSize.y * ySign),
-                        Screen.shared);
+                this.drawImage(image, regionX, regionY,
+                               regionWidth, regionHeight,
+                               Math.round(screenPosition.x + x * xSign),
+                               Math.round(screenPosition.y + y * ySign),
+                               Math.round(screenSize.x * xSign),
+                               Math.round(screenSize.y * ySign));
             }
         }
     }
@@ -281,10 +363,10 @@ public class RendererGraphics
         Objects.requireNonNull(screenPositionTopLeft);
         Objects.requireNonNull(screenSize);
 
-        this.graphics2D.fillOval(screenPositionTopLeft.x,
-                                 screenPositionTopLeft.y,
-                                 screenSize.x,
-                                 screenSize.y);
+        this.fillOvalPixels(screenPositionTopLeft.x,
+                            screenPositionTopLeft.y,
+                            screenSize.x,
+                            screenSize.y);
     }
 
     /**
@@ -351,13 +433,13 @@ public class RendererGraphics
         if (positionFromScreenCenter)
         {
             screenPositionTopLeft.add(Vector2Int.quotient(
-                    Screen.shared.getScreenSize().toVector2Int(), 2));
+                    this.converter.getScreenSize(), 2));
         }
 
-        this.graphics2D.fillRoundRect(screenPositionTopLeft.x,
-                                      screenPositionTopLeft.y,
-                                      screenSize.x, screenSize.y,
-                                      borderRadius, borderRadius);
+        this.fillRoundRectPixels(screenPositionTopLeft.x,
+                                 screenPositionTopLeft.y,
+                                 screenSize.x, screenSize.y,
+                                 borderRadius);
     }
 
     public void drawSpriteScreen(Vector2Int screenPositionCenter,
@@ -391,7 +473,7 @@ public class RendererGraphics
         if (positionFromScreenCenter)
         {
             screenPositionCenter.add(Vector2Int.quotient(
-                    Screen.shared.getScreenSize().toVector2Int(), 2));
+                    this.converter.getScreenSize(), 2));
         }
 
         Vector2Int screenPositionTopLeft =
@@ -400,6 +482,58 @@ public class RendererGraphics
         this.drawSpriteScreenTopLeft(screenPositionTopLeft, screenSize, sprite);
     }
 
+    /**
+     * <p>Draws the whole {@code image} pixel for pixel, with it's top left
+     * corner at the given world position.</p>
+     * <p>Used by {@code RenderSnapshot} for images drawn at the {@code
+     * Camera}'s scale. They aren't scaled, so the {@code SpriteScaleCache}
+     * isn't used.</p>
+     */
+    void drawImageTopLeft(Vector2 worldPositionTopLeft, BufferedImage image)
+    {
+        Vector2Int screenPosition =
+                this.converter.worldToScreenPosition(worldPositionTopLeft);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (this.drawList != null)
+        {
+            this.drawList.addImage(image, 0, 0, width, height,
+                                   screenPosition.x, screenPosition.y,
+                                   width, height);
+        }
+        else
+        {
+            this.graphics2D.drawImage(image, screenPosition.x,
+                                      screenPosition.y, null);
+        }
+    }
+
+    /**
+     * <p>Draws the given region of {@code image} in screen coordinates, as
+     * {@code drawSpriteScreen()} does.</p>
+     * <p>Used to draw a {@code RenderSnapshot}, which keeps the image
+     * instead of the {@code Sprite}.</p>
+     */
+    void drawImageScreen(Vector2Int screenPositionCenter, Vector2Int screenSize,
+                         BufferedImage image,
+                         int regionX, int regionY,
+                         int regionWidth, int regionHeight,
+                         boolean positionFromScreenCenter)
+    {
+        if (positionFromScreenCenter)
+        {
+            screenPositionCenter.add(Vector2Int.quotient(
+                    this.converter.getScreenSize(), 2));
+        }
+
+        Vector2Int screenPositionTopLeft =
+                this.converter.positionTopLeftScreen(screenPositionCenter,
+                                                     screenSize);
+        this.drawImage(image, regionX, regionY, regionWidth, regionHeight,
+                       screenPositionTopLeft.x, screenPositionTopLeft.y,
+                       screenSize.x, screenSize.y);
+    }
+
     /**
      * <p>Displays a sprite in screen coordinates.</p>
      * <p>Should be used for GUI.</p>
@@ -425,11 +559,10 @@ public class RendererGraphics
         BufferedImage image = sprite.getImage();
         Objects.requireNonNull(image);
 
-        this.graphics2D.drawImage(image,
-                                  screenPositionTopLeft.x,
-                                  screenPositionTopLeft.y,
-                                  screenSize.x, screenSize.y,
-                                  Screen.shared);
+        this.drawImage(image, sprite.getRegionX(), sprite.getRegionY(),
+                       sprite.getRegionWidth(), sprite.getRegionHeight(),
+                       screenPositionTopLeft.x, screenPositionTopLeft.y,
+                       screenSize.x, screenSize.y);
     }
 
     /**
@@ -445,7 +578,7 @@ public class RendererGraphics
     {
         Objects.requireNonNull(string);
         Objects.requireNonNull(screenPosition);
-        this.graphics2D.drawString(string, screenPosition.x, screenPosition.y);
+        this.drawStringPixels(string, screenPosition.x, screenPosition.y);
     }
 
     public void drawStringTopLeft(Vector2Int screenPosition,
@@ -468,7 +601,7 @@ public class RendererGraphics
         if (positionFromScreenCenter)
         {
             screenPosition.add(Vector2Int.quotient(
-                    Screen.shared.getScreenSize().toVector2Int(), 2));
+                    this.converter.getScreenSize(), 2));
         }
 
         int lineHeight = this.fontMetrics.getHeight();
@@ -477,7 +610,7 @@ public class RendererGraphics
         ArrayList<String> lines = fitStringInBox(string, screenSize);
         for (String line : lines)
         {
-            this.graphics2D.drawString(line, screenPosition.x, currentHeight);
+            this.drawStringPixels(line, screenPosition.x, currentHeight);
             currentHeight += lineHeight;
         }
     }
@@ -502,7 +635,7 @@ public class RendererGraphics
         if (positionFromScreenCenter)
         {
             screenPositionTopLeft.add(Vector2Int.quotient(
-                    Screen.shared.getScreenSize().toVector2Int(), 2));
+                    this.converter.getScreenSize(), 2));
         }
 
         int lineHeight = this.fontMetrics.getHeight();
@@ -516,11 +649,110 @@ public class RendererGraphics
             int lineWidth = this.fontMetrics.stringWidth(line);
             int xPosition = screenPositionTopLeft.x
                     + (screenSize.x - lineWidth) / 2;
-            this.graphics2D.drawString(line, xPosition, yPosition);
+            this.drawStringPixels(line, xPosition, yPosition);
             yPosition += lineHeight;
         }
     }
 
+    /**
+     * <p>Draws the given region of {@code image} scaled to {@code width} x
+     * {@code height} with the top left corner at {@code (x; y)}. Negative
+     * sizes flip the image, like in {@code Graphics2D.drawImage()}.</p>
+     * <p>Takes the scaled region from the {@code SpriteScaleCache}, if
+     * there is one, and draws it 1:1.</p>
+     */
+    private void drawImage(BufferedImage image,
+                           int regionX, int regionY,
+                           int regionWidth, int regionHeight,
+                           int x, int y, int width, int height)
+    {
+        BufferedImage scaled = null;
+        if (this.spriteScaleCache != null)
+        {
+            scaled = this.spriteScaleCache.get(image, regionX, regionY,
+                                               regionWidth, regionHeight,
+                                               width, height);
+        }
+        if (scaled != null)
+        {
+            this.graphics2D.drawImage(scaled,
+                                      width < 0 ? x + width : x,
+                                      height < 0 ? y + height : y,
+                                      null);
+        }
+        else if (this.drawList != null)
+        {
+            this.drawList.addImage(image, regionX, regionY,
+                                   regionWidth, regionHeight,
+                                   x, y, width, height);
+        }
+        else
+        {
+            this.graphics2D.drawImage(image, x, y, x + width, y + height,
+                                      regionX, regionY,
+                                      regionX + regionWidth,
+                                      regionY + regionHeight, null);
+        }
+    }
+
+    // Every pixel drawn goes through these, so a SoftwareDrawList can
+    // record it instead.
+
+    private void fillRectPixels(int x, int y, int width, int height)
+    {
+        if (this.drawList != null)
+        {
+            this.drawList.addFillRect(x, y, width, height,
+                                      this.graphics2D.getColor());
+            return;
+        }
+        this.graphics2D.fillRect(x, y, width, height);
+    }
+
+    private void fillOvalPixels(int x, int y, int width, int height)
+    {
+        if (this.drawList != null)
+        {
+            this.drawList.addFillOval(x, y, width, height,
+                                      this.graphics2D.getColor());
+            return;
+        }
+        // Filled with the pixels, which centers are inside the oval, like
+        // the SoftwareRasterizer does. The outline is found relative to the
+        // oval, so it covers the same pixels wherever it's drawn, as in the
+        // StaticLayerCache's images. Graphics2D.fillOval() doesn't.
+        if (width <= 0 || height <= 0)
+        {
+            return;
+        }
+        this.graphics2D.translate(x, y);
+        this.graphics2D.fill(getOvalShape(width, height));
+        this.graphics2D.translate(-x, -y);
+    }
+
+    private void fillRoundRectPixels(int x, int y, int width, int height,
+                                     int radius)
+    {
+        if (this.drawList != null)
+        {
+            this.drawList.addRoundRect(x, y, width, height, radius,
+                                       this.graphics2D.getColor());
+            return;
+        }
+        this.graphics2D.fillRoundRect(x, y, width, height, radius, radius);
+    }
+
+    private void drawStringPixels(String string, int x, int y)
+    {
+        if (this.drawList != null)
+        {
+            this.drawList.addText(string, x, y, this.graphics2D.getColor(),
+                                  this.graphics2D.getFont());
+            return;
+        }
+        this.graphics2D.drawString(string, x, y);
+    }
+
     private ArrayList<String> fitStringInBox(String string, Vector2Int boxSize)
     {
         Objects.requireNonNull(string);
@@ -578,4 +810,86 @@ public class RendererGraphics
         return lines;
     }
 
+
+    /**
+     * <p>Returns the outline of the pixels, which centers are inside the
+     * oval of the given size at the origin, making it if needed.</p>
+     * <p>The outline goes along the pixel edges, so filling it covers
+     * exactly those pixels at any whole pixel offset.</p>
+     */
+    private static Shape getOvalShape(int width, int height)
+    {
+        Long key = (long)width << 32 | height;
+        synchronized (ovalShapes)
+        {
+            Shape shape = ovalShapes.get(key);
+            if (shape != null)
+            {
+                return shape;
+            }
+        }
+
+        // The pixel span of every row: left edges down, right edges up.
+        int[] lefts = new int[height];
+        int[] rights = new int[height];
+        double radiusX = width / 2.0;
+        double radiusY = height / 2.0;
+        for (int row = 0; row < height; ++row)
+        {
+            double dy = (row + 0.5 - radiusY) / radiusY;
+            double halfWidth = radiusX * Math.sqrt(Math.max(0, 1 - dy * dy));
+            lefts[row] = (int)Math.ceil(radiusX - halfWidth - 0.5);
+            rights[row] = (int)Math.floor(radiusX + halfWidth - 0.5) + 1;
+        }
+        // Only the corners are added: rows with the same edge are merged.
+        int top = 0;
+        while (top < height && lefts[top] >= rights[top])
+        {
+            ++top;
+        }
+        int bottom = height;
+        while (bottom > top && lefts[bottom - 1] >= rights[bottom - 1])
+        {
+            --bottom;
+        }
+        Path2D.Float outline = new Path2D.Float();
+        if (top == bottom)
+        {
+            return outline;
+        }
+        outline.moveTo(lefts[top], top);
+        for (int row = top + 1; row < bottom; ++row)
+        {
+            if (lefts[row] != lefts[row - 1])
+            {
+                outline.lineTo(lefts[row - 1], row);
+                outline.lineTo(lefts[row], row);
+            }
+        }
+        outline.lineTo(lefts[bottom - 1], bottom);
+        outline.lineTo(rights[bottom - 1], bottom);
+        for (int row = bottom - 1; row > top; --row)
+        {
+            if (rights[row] != rights[row - 1])
+            {
+                outline.lineTo(rights[row], row);
+                outline.lineTo(rights[row - 1], row);
+            }
+        }
+        outline.lineTo(rights[top], top);
+        outline.closePath();
+
+        synchronized (ovalShapes)
+        {
+            ovalShapes.put(key, outline);
+            if (ovalShapes.size() > MAX_OVAL_SHAPES)
+            {
+                Iterator<Long> eldest = ovalShapes.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return outline;
+    }
+
 }
@@ -0,0 +1,165 @@
+package archrn.tea_engine.rendering;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * <p>{@code SoftwareDrawList} is the list of screen space drawing commands
+ * recorded by {@code RendererGraphics} for the {@code
+ * SoftwareRasterizer}.</p>
+ * <p>Commands are kept in flat arrays in the order they were drawn.
+ * Rectangles, ovals and images are rasterized by the {@code
+ * SoftwareRasterizer}; text and rounded rectangles are drawn with {@code
+ * Graphics2D}.</p>
+ * @author Artem
+ */
+final class SoftwareDrawList
+{
+
+    static final byte FILL_RECT = 0;
+    static final byte FILL_OVAL = 1;
+    static final byte IMAGE = 2;
+    static final byte ROUND_RECT = 3;
+    static final byte TEXT = 4;
+
+    /**
+     * <p>Ints per command: the destination x, y, width and height, and the
+     * region of the image or the corner radius.</p>
+     */
+    static final int INTS = 8;
+
+    int size;
+    byte[] kinds;
+    int[] ints;
+
+    /**
+     * <p>The premultiplied ARGB color of rectangles and ovals, or the
+     * plain ARGB color of text and rounded rectangles.</p>
+     */
+    int[] colors;
+
+    /**
+     * <p>The image or text of every command.</p>
+     */
+    Object[] objects;
+    Font[] fonts;
+
+    /**
+     * <p>Initializes an empty {@code SoftwareDrawList}.</p>
+     */
+    SoftwareDrawList()
+    {
+        this.kinds = new byte[256];
+        this.ints = new int[256 * INTS];
+        this.colors = new int[256];
+        this.objects = new Object[256];
+        this.fonts = new Font[256];
+    }
+
+    /**
+     * <p>Removes all the commands.</p>
+     */
+    void clear()
+    {
+        Arrays.fill(this.objects, 0, this.size, null);
+        Arrays.fill(this.fonts, 0, this.size, null);
+        this.size = 0;
+    }
+
+    void addFillRect(int x, int y, int width, int height, Color color)
+    {
+        int index = this.add(FILL_RECT, x, y, width, height);
+        this.colors[index] = premultiply(color.getRGB());
+    }
+
+    void addFillOval(int x, int y, int width, int height, Color color)
+    {
+        int index = this.add(FILL_OVAL, x, y, width, height);
+        this.colors[index] = premultiply(color.getRGB());
+    }
+
+    void addRoundRect(int x, int y, int width, int height, int radius,
+                      Color color)
+    {
+        if (radius == 0)
+        {
+            this.addFillRect(x, y, width, height, color);
+            return;
+        }
+        int index = this.add(ROUND_RECT, x, y, width, height);
+        this.ints[index * INTS + 4] = radius;
+        this.colors[index] = color.getRGB();
+    }
+
+    /**
+     * <p>Adds the given region of {@code image} drawn to the rectangle
+     * with the top left corner at {@code (x; y)}. Negative sizes flip
+     * it.</p>
+     */
+    void addImage(BufferedImage image,
+                  int regionX, int regionY, int regionWidth, int regionHeight,
+                  int x, int y, int width, int height)
+    {
+        int index = this.add(IMAGE, x, y, width, height);
+        int n = index * INTS;
+        this.ints[n + 4] = regionX;
+        this.ints[n + 5] = regionY;
+        this.ints[n + 6] = regionWidth;
+        this.ints[n + 7] = regionHeight;
+        this.objects[index] = image;
+    }
+
+    void addText(String text, int x, int y, Color color, Font font)
+    {
+        int index = this.add(TEXT, x, y, 0, 0);
+        this.objects[index] = text;
+        this.colors[index] = color.getRGB();
+        this.fonts[index] = font;
+    }
+
+    /**
+     * <p>Converts an ARGB color to premultiplied ARGB.</p>
+     */
+    static int premultiply(int argb)
+    {
+        int alpha = argb >>> 24;
+        if (alpha == 255)
+        {
+            return argb;
+        }
+        if (alpha == 0)
+        {
+            return 0;
+        }
+        int red = ((argb >> 16) & 0xff) * alpha + 127;
+        int green = ((argb >> 8) & 0xff) * alpha + 127;
+        int blue = (argb & 0xff) * alpha + 127;
+        return alpha << 24
+             | ((red + (red >> 8)) >> 8) << 16
+             | ((green + (green >> 8)) >> 8) << 8
+             | ((blue + (blue >> 8)) >> 8);
+    }
+
+    private int add(byte kind, int x, int y, int width, int height)
+    {
+        if (this.size == this.kinds.length)
+        {
+            int capacity = this.size * 2;
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.ints = Arrays.copyOf(this.ints, capacity * INTS);
+            this.colors = Arrays.copyOf(this.colors, capacity);
+            this.objects = Arrays.copyOf(this.objects, capacity);
+            this.fonts = Arrays.copyOf(this.fonts, capacity);
+        }
+        int index = this.size++;
+        int n = index * INTS;
+        this.kinds[index] = kind;
+        this.ints[n] = x;
+        this.ints[n + 1] = y;
+        this.ints[n + 2] = width;
+        this.ints[n + 3] = height;
+        return index;
+    }
+
+}
@@ -0,0 +1,512 @@
+package archrn.tea_engine.rendering;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>{@code SoftwareRasterizer} draws a {@code RenderSnapshot} into the
+ * pixel array of a {@code BufferedImage} itself, instead of with {@code
+ * Graphics2D}.</p>
+ * <p>The snapshot is first recorded as a list of screen space rectangles,
+ * ovals and images. The image is then split into horizontal bands, which
+ * are rasterized in parallel on a {@code ForkJoinPool}, each band going
+ * through the whole list. Images are scaled with nearest neighbour
+ * sampling and blended with premultiplied alpha.</p>
+ * <p>Text and rounded rectangles are drawn with {@code Graphics2D} between
+ * the parallel runs, so the drawing order is kept.</p>
+ * <p>The rasterizer keeps a premultiplied copy of every image it draws,
+ * until the image is garbage collected or {@code clearTextures()} is
+ * called. It should be used by one thread at a time.</p>
+ * <p>The copies are found by the image object, not by it's pixels. An
+ * image changed in place after it was drawn, like an atlas page drawn to
+ * again or an image changed and passed to {@code AssetManager.addImage()}
+ * again, is drawn with the old pixels until {@code clearTextures()} is
+ * called.</p>
+ * @author Artem
+ */
+public final class SoftwareRasterizer
+{
+
+    private static final int MIN_BAND_HEIGHT = 16;
+
+    private final ForkJoinPool pool;
+    private final SoftwareDrawList drawList;
+    private final WeakHashMap<BufferedImage, Texture> textures;
+
+    /**
+     * <p>The texture of every image command in the draw list.</p>
+     */
+    private Texture[] commandTextures;
+
+    /**
+     * <p>Initializes a {@code SoftwareRasterizer}, which runs on the common
+     * {@code ForkJoinPool}.</p>
+     */
+    public SoftwareRasterizer()
+    {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * <p>Initializes a {@code SoftwareRasterizer}, which runs on the given
+     * {@code pool}.</p>
+     * @param pool The pool to rasterize the bands on.
+     * @throws NullPointerException if {@code pool} is {@code null}.
+     */
+    public SoftwareRasterizer(ForkJoinPool pool)
+    {
+        Objects.requireNonNull(pool);
+        this.pool = pool;
+        this.drawList = new SoftwareDrawList();
+        this.textures = new WeakHashMap<BufferedImage, Texture>();
+        this.commandTextures = new Texture[256];
+    }
+
+    /**
+     * <p>Creates an image the {@code SoftwareRasterizer} can draw to.</p>
+     * @param width The width in pixels.
+     * @param height The height in pixels.
+     * @return A new {@code TYPE_INT_RGB} image.
+     * @throws IllegalArgumentException if {@code width} or {@code height}
+     * isn't positive.
+     */
+    public static BufferedImage createImage(int width, int height)
+    {
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException("Image size must be positive.");
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * <p>Draws the given {@code snapshot} to the {@code target} image.</p>
+     * @param snapshot The {@code RenderSnapshot} to draw.
+     * @param target The image to draw to.
+     * @throws IllegalArgumentException if {@code target} isn't a {@code
+     * TYPE_INT_RGB} image.
+     * @throws NullPointerException if {@code snapshot} or {@code target}
+     * is {@code null}.
+     * @see SoftwareRasterizer#createImage(int, int)
+     */
+    public void render(RenderSnapshot snapshot, BufferedImage target)
+    {
+        Objects.requireNonNull(snapshot);
+        Objects.requireNonNull(target);
+        if (target.getType() != BufferedImage.TYPE_INT_RGB)
+        {
+            throw new IllegalArgumentException(
+                    "Target must be a TYPE_INT_RGB image.");
+        }
+
+        Graphics2D graphics = target.createGraphics();
+        try
+        {
+            this.drawList.clear();
+            snapshot.render(new RendererGraphics(graphics, snapshot,
+                                                 this.drawList));
+            this.rasterize(target, graphics);
+        }
+        finally
+        {
+            graphics.dispose();
+            this.drawList.clear();
+            Arrays.fill(this.commandTextures, null);
+        }
+    }
+
+    /**
+     * <p>Drops the premultiplied copies of all the images.</p>
+     * <p>Call it after changing the pixels of an image, which was already
+     * drawn, so the new pixels are drawn.</p>
+     */
+    public void clearTextures()
+    {
+        this.textures.clear();
+    }
+
+    /**
+     * <p>Rasterizes the recorded draw list to {@code target}.</p>
+     */
+    private void rasterize(BufferedImage target, Graphics2D graphics)
+    {
+        SoftwareDrawList list = this.drawList;
+        if (this.commandTextures.length < list.size)
+        {
+            this.commandTextures = new Texture[list.kinds.length];
+        }
+        for (int i = 0; i < list.size; ++i)
+        {
+            if (list.kinds[i] == SoftwareDrawList.IMAGE)
+            {
+                this.commandTextures[i] =
+                        this.getTexture((BufferedImage)list.objects[i]);
+            }
+        }
+
+        WritableRaster raster = target.getRaster();
+        int stride = ((SinglePixelPackedSampleModel)raster.getSampleModel())
+                .getScanlineStride();
+        DataBufferInt buffer = (DataBufferInt)raster.getDataBuffer();
+        Target pixels = new Target(
+                buffer.getData(),
+                buffer.getOffset()
+                - raster.getSampleModelTranslateX()
+                - raster.getSampleModelTranslateY() * stride,
+                stride, target.getWidth(), target.getHeight());
+        int bands = this.pool.getParallelism() * 4;
+        int bandHeight = Math.max(MIN_BAND_HEIGHT,
+                                  (pixels.height + bands - 1) / bands);
+
+        int runStart = 0;
+        for (int i = 0; i <= list.size; ++i)
+        {
+            if (i < list.size
+                && list.kinds[i] != SoftwareDrawList.ROUND_RECT
+                && list.kinds[i] != SoftwareDrawList.TEXT)
+            {
+                continue;
+            }
+            if (i > runStart)
+            {
+                this.pool.invoke(new BandTask(pixels, 0, pixels.height,
+                                              bandHeight, runStart, i));
+            }
+            if (i < list.size)
+            {
+                this.drawWithGraphics(i, graphics);
+            }
+            runStart = i + 1;
+        }
+    }
+
+    /**
+     * <p>Draws the text or rounded rectangle command with the given {@code
+     * index} with {@code graphics}.</p>
+     */
+    private void drawWithGraphics(int index, Graphics2D graphics)
+    {
+        SoftwareDrawList list = this.drawList;
+        int n = index * SoftwareDrawList.INTS;
+        graphics.setColor(new Color(list.colors[index], true));
+        if (list.kinds[index] == SoftwareDrawList.TEXT)
+        {
+            graphics.setFont(list.fonts[index]);
+            graphics.drawString((String)list.objects[index],
+                                list.ints[n], list.ints[n + 1]);
+        }
+        else
+        {
+            int radius = list.ints[n + 4];
+            graphics.fillRoundRect(list.ints[n], list.ints[n + 1],
+                                   list.ints[n + 2], list.ints[n + 3],
+                                   radius, radius);
+        }
+    }
+
+    /**
+     * <p>Returns the premultiplied copy of {@code image}, making it if
+     * needed.</p>
+     */
+    private Texture getTexture(BufferedImage image)
+    {
+        Texture texture = this.textures.get(image);
+        if (texture == null)
+        {
+            int width = image.getWidth();
+            int height = image.getHeight();
+            int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+            for (int i = 0; i < pixels.length; ++i)
+            {
+                pixels[i] = SoftwareDrawList.premultiply(pixels[i]);
+            }
+            texture = new Texture(pixels, width);
+            this.textures.put(image, texture);
+        }
+        return texture;
+    }
+
+    /**
+     * <p>Rasterizes the commands from {@code start} to {@code end} to the
+     * rows from {@code top} to {@code bottom}.</p>
+     */
+    private void rasterizeBand(Target target, int top, int bottom,
+                               int start, int end)
+    {
+        SoftwareDrawList list = this.drawList;
+        for (int i = start; i < end; ++i)
+        {
+            int n = i * SoftwareDrawList.INTS;
+            int x = list.ints[n];
+            int y = list.ints[n + 1];
+            int width = list.ints[n + 2];
+            int height = list.ints[n + 3];
+            switch (list.kinds[i])
+            {
+                case SoftwareDrawList.FILL_RECT:
+                    fillRect(target, top, bottom, x, y, width, height,
+                             list.colors[i]);
+                    break;
+                case SoftwareDrawList.FILL_OVAL:
+                    fillOval(target, top, bottom, x, y, width, height,
+                             list.colors[i]);
+                    break;
+                case SoftwareDrawList.IMAGE:
+                    drawImage(target, top, bottom, x, y, width, height,
+                              this.commandTextures[i],
+                              list.ints[n + 4], list.ints[n + 5],
+                              list.ints[n + 6], list.ints[n + 7]);
+                    break;
+            }
+        }
+    }
+
+    private static void fillRect(Target target, int top, int bottom,
+                                 int x, int y, int width, int height,
+                                 int color)
+    {
+        if (width <= 0 || height <= 0 || color >>> 24 == 0)
+        {
+            return;
+        }
+        int fromX = Math.max(x, 0);
+        int toX = Math.min(x + width, target.width);
+        int fromY = Math.max(y, top);
+        int toY = Math.min(y + height, bottom);
+        for (int row = fromY; row < toY; ++row)
+        {
+            fillSpan(target, row, fromX, toX, color);
+        }
+    }
+
+    /**
+     * <p>Fills the pixels, which centers are inside the oval, like {@code
+     * Graphics2D.fillOval()} without antialiasing.</p>
+     */
+    private static void fillOval(Target target, int top, int bottom,
+                                 int x, int y, int width, int height,
+                                 int color)
+    {
+        if (width <= 0 || height <= 0 || color >>> 24 == 0)
+        {
+            return;
+        }
+        double radiusX = width / 2.0;
+        double radiusY = height / 2.0;
+        double centerX = x + radiusX;
+        double centerY = y + radiusY;
+        int fromY = Math.max(y, top);
+        int toY = Math.min(y + height, bottom);
+        for (int row = fromY; row < toY; ++row)
+        {
+            double dy = (row + 0.5 - centerY) / radiusY;
+            double halfWidth = radiusX * Math.sqrt(Math.max(0, 1 - dy * dy));
+            int fromX = Math.max(
+                    (int)Math.ceil(centerX - halfWidth - 0.5), 0);
+            int toX = Math.min(
+                    (int)Math.floor(centerX + halfWidth - 0.5) + 1,
+                    target.width);
+            fillSpan(target, row, fromX, toX, color);
+        }
+    }
+
+    private static void fillSpan(Target target, int row, int fromX, int toX,
+                                 int color)
+    {
+        if (fromX >= toX)
+        {
+            return;
+        }
+        int[] pixels = target.pixels;
+        int rowStart = target.offset + row * target.stride;
+        if (color >>> 24 == 255)
+        {
+            Arrays.fill(pixels, rowStart + fromX, rowStart + toX, color);
+            return;
+        }
+        for (int i = rowStart + fromX; i < rowStart + toX; ++i)
+        {
+            pixels[i] = blend(color, pixels[i]);
+        }
+    }
+
+    /**
+     * <p>Draws the region of {@code texture} scaled to the rectangle with
+     * the top left corner at {@code (x; y)}, sampling the nearest texel.
+     * Negative sizes flip the image.</p>
+     */
+    private static void drawImage(Target target, int top, int bottom,
+                                  int x, int y, int width, int height,
+                                  Texture texture,
+                                  int regionX, int regionY,
+                                  int regionWidth, int regionHeight)
+    {
+        if (width == 0 || height == 0
+            || regionWidth <= 0 || regionHeight <= 0)
+        {
+            return;
+        }
+        boolean flipX = width < 0;
+        if (flipX)
+        {
+            x += width;
+            width = -width;
+        }
+        boolean flipY = height < 0;
+        if (flipY)
+        {
+            y += height;
+            height = -height;
+        }
+        int fromX = Math.max(x, 0);
+        int toX = Math.min(x + width, target.width);
+        int fromY = Math.max(y, top);
+        int toY = Math.min(y + height, bottom);
+        if (fromX >= toX)
+        {
+            return;
+        }
+
+        // 16.16 fixed point texels per pixel.
+        long stepX = ((long)regionWidth << 16) / width;
+        long stepY = ((long)regionHeight << 16) / height;
+        int[] pixels = target.pixels;
+        int[] texels = texture.pixels;
+        for (int row = fromY; row < toY; ++row)
+        {
+            int v = Math.min((int)(((2L * (row - y) + 1) * stepY) >> 17),
+                             regionHeight - 1);
+            int texelRow = (flipY ? regionY + regionHeight - 1 - v
+                                  : regionY + v) * texture.width;
+            int rowStart = target.offset + row * target.stride;
+            long u = ((2L * (fromX - x) + 1) * stepX) >> 1;
+            for (int column = fromX; column < toX; ++column, u += stepX)
+            {
+                int texelColumn = Math.min((int)(u >> 16), regionWidth - 1);
+                int texel = texels[texelRow
+                                   + (flipX ? regionX + regionWidth - 1
+                                              - texelColumn
+                                            : regionX + texelColumn)];
+                int alpha = texel >>> 24;
+                if (alpha == 255)
+                {
+                    pixels[rowStart + column] = texel;
+                }
+                else if (alpha != 0)
+                {
+                    pixels[rowStart + column] =
+                            blend(texel, pixels[rowStart + column]);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Blends the premultiplied {@code source} over the opaque {@code
+     * destination}.</p>
+     */
+    private static int blend(int source, int destination)
+    {
+        int inverse = 255 - (source >>> 24);
+        // Red and blue are multiplied together, each in it's own 16 bits.
+        int redBlue = (destination & 0xff00ff) * inverse + 0x800080;
+        redBlue = ((redBlue + ((redBlue >>> 8) & 0xff00ff)) >>> 8) & 0xff00ff;
+        int green = (destination & 0xff00) * inverse + 0x8000;
+        green = ((green + ((green >>> 8) & 0xff00)) >>> 8) & 0xff00;
+        return (source + redBlue + green) | 0xff000000;
+    }
+
+    /**
+     * <p>A premultiplied ARGB copy of an image.</p>
+     */
+    private static final class Texture
+    {
+
+        final int[] pixels;
+        final int width;
+
+        Texture(int[] pixels, int width)
+        {
+            this.pixels = pixels;
+            this.width = width;
+        }
+
+    }
+
+    /**
+     * <p>The pixel array of the image being drawn to.</p>
+     */
+    private static final class Target
+    {
+
+        final int[] pixels;
+        final int offset;
+        final int stride;
+        final int width;
+        final int height;
+
+        Target(int[] pixels, int offset, int stride, int width, int height)
+        {
+            this.pixels = pixels;
+            this.offset = offset;
+            this.stride = stride;
+            this.width = width;
+            this.height = height;
+        }
+
+    }
+
+    /**
+     * <p>Rasterizes a run of commands to a range of rows, splitting it
+     * into bands.</p>
+     */
+    private final class BandTask extends RecursiveAction
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Target target;
+        private final int top;
+        private final int bottom;
+        private final int bandHeight;
+        private final int start;
+        private final int end;
+
+        BandTask(Target target, int top, int bottom, int bandHeight,
+                 int start, int end)
+        {
+            this.target = target;
+            this.top = top;
+            this.bottom = bottom;
+            this.bandHeight = bandHeight;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.bottom - this.top <= this.bandHeight)
+            {
+                rasterizeBand(this.target, this.top, this.bottom,
+                              this.start, this.end);
+                return;
+            }
+            int middle = (this.top + this.bottom) >>> 1;
+            invokeAll(new BandTask(this.target, this.top, middle,
+                                   this.bandHeight, this.start, this.end),
+                      new BandTask(this.target, middle, this.bottom,
+                                   this.bandHeight, this.start, this.end));
+        }
+
+    }
+
+}
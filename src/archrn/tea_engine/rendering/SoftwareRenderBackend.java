@@ -0,0 +1,75 @@
+package archrn.tea_engine.rendering;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+/**
+ * <p>{@code SoftwareRenderBackend} draws {@code RenderSnapshot}s with a
+ * {@code SoftwareRasterizer} into an image, which is then copied to the
+ * {@code Graphics2D}.</p>
+ * <p>It should be used by one thread at a time.</p>
+ * @author Artem
+ */
+public final class SoftwareRenderBackend implements RenderBackend
+{
+
+    private final SoftwareRasterizer rasterizer;
+    private BufferedImage image;
+
+    /**
+     * <p>Initializes a {@code SoftwareRenderBackend} with a new {@code
+     * SoftwareRasterizer}.</p>
+     */
+    public SoftwareRenderBackend()
+    {
+        this(new SoftwareRasterizer());
+    }
+
+    /**
+     * <p>Initializes a {@code SoftwareRenderBackend} with the given {@code
+     * rasterizer}.</p>
+     * @param rasterizer The {@code SoftwareRasterizer} to draw with.
+     * @throws NullPointerException if {@code rasterizer} is {@code null}.
+     */
+    public SoftwareRenderBackend(SoftwareRasterizer rasterizer)
+    {
+        Objects.requireNonNull(rasterizer);
+        this.rasterizer = rasterizer;
+    }
+
+    /**
+     * <p>Returns the {@code SoftwareRasterizer} the backend draws with.</p>
+     * @return The {@code SoftwareRasterizer}.
+     */
+    public SoftwareRasterizer getRasterizer()
+    {
+        return this.rasterizer;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Does nothing if {@code width} or {@code height} isn't
+     * positive.</p>
+     */
+    @Override
+    public void render(RenderSnapshot snapshot, Graphics2D graphics2D,
+                       int width, int height)
+    {
+        Objects.requireNonNull(snapshot);
+        Objects.requireNonNull(graphics2D);
+        if (width <= 0 || height <= 0)
+        {
+            return;
+        }
+        if (this.image == null
+            || this.image.getWidth() != width
+            || this.image.getHeight() != height)
+        {
+            this.image = SoftwareRasterizer.createImage(width, height);
+        }
+        this.rasterizer.render(snapshot, this.image);
+        graphics2D.drawImage(this.image, 0, 0, null);
+    }
+
+}
@@ -0,0 +1,487 @@
+package archrn.tea_engine.rendering;
+
+import archrn.tea_engine.assets.AssetManager;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * <p>{@code SpriteScaleCache} keeps copies of images already scaled (and
+ * flipped) to the size they are drawn at on the {@code Screen}.</p>
+ * <p>Drawing an image at a size different from it's own makes Java2D
+ * rescale it on every call. With the cache, a scaled copy is made once
+ * and every next frame only does a 1:1 copy.</p>
+ * <p>The total size of the copies is limited by {@code maxBytes}. When it's
+ * reached, the least recently used copies are dropped. The cache should be
+ * cleared when the scale of the world on the {@code Screen} changes.</p>
+ * <p>The source images are held weakly, so the cache doesn't keep images
+ * the {@code AssetManager} has dropped to fit in it's budget. The copies
+ * of a dropped image are dropped too.</p>
+ * <p>The cache is thread safe: it's cleared by the game loop, while the
+ * {@code Screen} draws from it.</p>
+ * @author Artem
+ */
+public final class SpriteScaleCache
+{
+
+    /**
+     * <p>The default memory limit: 64 MB.</p>
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final LinkedHashMap<Key, BufferedImage> images;
+
+    /**
+     * <p>Reused to look images up without allocating.</p>
+     */
+    private final Key probe;
+
+    /**
+     * <p>The references of the keys, which source images were
+     * collected.</p>
+     */
+    private final ReferenceQueue<BufferedImage> collectedImages;
+
+    /**
+     * <p>Source images dropped by the {@code AssetManager}, which copies
+     * aren't dropped yet. Added to without the lock, so the {@code
+     * AssetManager} never waits for the cache.</p>
+     */
+    private final ConcurrentLinkedQueue<WeakReference<BufferedImage>>
+            evictedImages;
+
+    private long maxBytes;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * <p>Initializes an empty {@code SpriteScaleCache} with the default
+     * memory limit.</p>
+     */
+    public SpriteScaleCache()
+    {
+        this(SpriteScaleCache.DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * <p>Initializes an empty {@code SpriteScaleCache} with the given
+     * memory limit.</p>
+     * @param maxBytes The maximal total size of the cached images in bytes.
+     * @throws IllegalArgumentException if {@code maxBytes < 0}.
+     */
+    public SpriteScaleCache(long maxBytes)
+    {
+        this.images = new LinkedHashMap<Key, BufferedImage>(64, 0.75f, true);
+        this.probe = new Key();
+        this.collectedImages = new ReferenceQueue<BufferedImage>();
+        this.evictedImages =
+                new ConcurrentLinkedQueue<WeakReference<BufferedImage>>();
+        this.setMaxBytes(maxBytes);
+        AssetManager.shared.addEvictionListener(new EvictionListener(this));
+    }
+
+    /**
+     * <p>Returns a copy of {@code image} scaled to {@code width} x {@code
+     * height} pixels. Negative sizes flip the copy.</p>
+     * <p>Returns {@code null}, if the image already has the requested size
+     * and isn't flipped, or if the copy doesn't fit in the memory limit.
+     * Then the image should be drawn directly.</p>
+     * @param image The image to scale.
+     * @param width The width on the {@code Screen}. Negative to flip
+     *              horizontally.
+     * @param height The height on the {@code Screen}. Negative to flip
+     *               vertically.
+     * @return The scaled image or {@code null}.
+     * @throws NullPointerException if {@code image} is {@code null}.
+     */
+    public BufferedImage get(BufferedImage image, int width, int height)
+    {
+        Objects.requireNonNull(image);
+        return this.get(image, 0, 0, image.getWidth(), image.getHeight(),
+                        width, height);
+    }
+
+    /**
+     * <p>Returns a copy of the given region of {@code image} scaled to
+     * {@code width} x {@code height} pixels. Negative sizes flip the
+     * copy.</p>
+     * <p>Returns {@code null}, if the region already has the requested size
+     * and isn't flipped, or if the copy doesn't fit in the memory limit.
+     * Then the region should be drawn directly.</p>
+     * @param image The image containing the region.
+     * @param regionX The left edge of the region in pixels.
+     * @param regionY The top edge of the region in pixels.
+     * @param regionWidth The width of the region in pixels.
+     * @param regionHeight The height of the region in pixels.
+     * @param width The width on the {@code Screen}. Negative to flip
+     *              horizontally.
+     * @param height The height on the {@code Screen}. Negative to flip
+     *               vertically.
+     * @return The scaled region or {@code null}.
+     * @throws NullPointerException if {@code image} is {@code null}.
+     */
+    public synchronized BufferedImage get(BufferedImage image,
+                                          int regionX, int regionY,
+                                          int regionWidth, int regionHeight,
+                                          int width, int height)
+    {
+        Objects.requireNonNull(image);
+        if (width == regionWidth && height == regionHeight)
+        {
+            return null;
+        }
+        if (width == 0 || height == 0)
+        {
+            return null;
+        }
+
+        this.purge();
+        this.probe.set(image, regionX, regionY, regionWidth, regionHeight,
+                       width, height);
+        BufferedImage scaled = this.images.get(this.probe);
+        this.probe.image = null;
+        if (scaled != null)
+        {
+            ++this.hits;
+            return scaled;
+        }
+        ++this.misses;
+
+        long size = imageBytes(width, height);
+        if (size > this.maxBytes)
+        {
+            return null;
+        }
+        scaled = scale(image, regionX, regionY, regionWidth, regionHeight,
+                       width, height);
+        Key key = new Key();
+        key.set(image, regionX, regionY, regionWidth, regionHeight,
+                width, height);
+        key.holdWeakly(this.collectedImages);
+        this.images.put(key, scaled);
+        this.bytes += size;
+        this.evict();
+        return scaled;
+    }
+
+    /**
+     * <p>Drops all the cached images.</p>
+     */
+    public synchronized void clear()
+    {
+        this.images.clear();
+        this.bytes = 0;
+        while (this.collectedImages.poll() != null)
+        {
+        }
+        this.evictedImages.clear();
+    }
+
+    /**
+     * <p>Returns the memory limit.</p>
+     * @return The maximal total size of the cached images in bytes.
+     */
+    public synchronized long getMaxBytes()
+    {
+        return this.maxBytes;
+    }
+
+    /**
+     * <p>Sets the memory limit and drops the least recently used images,
+     * which don't fit in it.</p>
+     * @param maxBytes The maximal total size of the cached images in bytes.
+     * @throws IllegalArgumentException if {@code maxBytes < 0}.
+     */
+    public synchronized void setMaxBytes(long maxBytes)
+    {
+        if (maxBytes < 0)
+        {
+            throw new IllegalArgumentException(
+                    "Memory limit can't be negative.");
+        }
+        this.maxBytes = maxBytes;
+        this.evict();
+    }
+
+    /**
+     * <p>Returns the total size of the cached images.</p>
+     * @return The size in bytes.
+     */
+    public synchronized long getBytes()
+    {
+        this.purge();
+        return this.bytes;
+    }
+
+    /**
+     * <p>Returns the amount of cached images.</p>
+     * @return The amount of images.
+     */
+    public synchronized int size()
+    {
+        this.purge();
+        return this.images.size();
+    }
+
+    /**
+     * <p>Returns the amount of lookups, which found a cached image.</p>
+     * @return The amount of hits.
+     */
+    public synchronized long getHits()
+    {
+        return this.hits;
+    }
+
+    /**
+     * <p>Returns the amount of lookups, which had to scale the image.</p>
+     * @return The amount of misses.
+     */
+    public synchronized long getMisses()
+    {
+        return this.misses;
+    }
+
+    /**
+     * <p>Returns the amount of images dropped to stay in the memory
+     * limit.</p>
+     * @return The amount of evictions.
+     */
+    public synchronized long getEvictions()
+    {
+        return this.evictions;
+    }
+
+    /**
+     * <p>Drops the least recently used images until the cache fits in the
+     * memory limit.</p>
+     */
+    private void evict()
+    {
+        Iterator<Map.Entry<Key, BufferedImage>> iterator =
+                this.images.entrySet().iterator();
+        while (this.bytes > this.maxBytes && iterator.hasNext())
+        {
+            BufferedImage image = iterator.next().getValue();
+            iterator.remove();
+            this.bytes -= imageBytes(image.getWidth(), image.getHeight());
+            ++this.evictions;
+        }
+    }
+
+    /**
+     * <p>Drops the copies of the images, which were collected or dropped
+     * by the {@code AssetManager}.</p>
+     */
+    private void purge()
+    {
+        Reference<? extends BufferedImage> collected;
+        while ((collected = this.collectedImages.poll()) != null)
+        {
+            this.remove(((ImageReference)collected).key);
+        }
+        WeakReference<BufferedImage> evicted;
+        while ((evicted = this.evictedImages.poll()) != null)
+        {
+            BufferedImage image = evicted.get();
+            if (image == null)
+            {
+                continue;
+            }
+            Iterator<Key> iterator = this.images.keySet().iterator();
+            while (iterator.hasNext())
+            {
+                Key key = iterator.next();
+                if (key.getImage() == image)
+                {
+                    this.bytes -= imageBytes(key.width, key.height);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private void remove(Key key)
+    {
+        if (this.images.remove(key) != null)
+        {
+            this.bytes -= imageBytes(key.width, key.height);
+        }
+    }
+
+    /**
+     * <p>Makes a copy of the region of {@code image} scaled to {@code width}
+     * x {@code height}. Negative sizes flip the copy.</p>
+     */
+    private static BufferedImage scale(BufferedImage image,
+                                       int regionX, int regionY,
+                                       int regionWidth, int regionHeight,
+                                       int width, int height)
+    {
+        int absoluteWidth = Math.abs(width);
+        int absoluteHeight = Math.abs(height);
+        BufferedImage scaled = AssetManager.shared.createCompatibleImage(
+                absoluteWidth, absoluteHeight, image.getTransparency());
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setComposite(AlphaComposite.Src);
+        int x = width < 0 ? absoluteWidth : 0;
+        int y = height < 0 ? absoluteHeight : 0;
+        graphics.drawImage(image, x, y, x + width, y + height,
+                           regionX, regionY,
+                           regionX + regionWidth, regionY + regionHeight,
+                           null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    private static long imageBytes(int width, int height)
+    {
+        return 4L * Math.abs(width) * Math.abs(height);
+    }
+
+    /**
+     * <p>A region of an image and the size it's scaled to.</p>
+     * <p>The probe holds the image itself. The stored keys hold it
+     * weakly.</p>
+     */
+    private static final class Key
+    {
+
+        private BufferedImage image;
+        private ImageReference reference;
+        private int regionX;
+        private int regionY;
+        private int regionWidth;
+        private int regionHeight;
+        private int width;
+        private int height;
+        private int hash;
+
+        void set(BufferedImage image, int regionX, int regionY,
+                 int regionWidth, int regionHeight, int width, int height)
+        {
+            this.image = image;
+            this.regionX = regionX;
+            this.regionY = regionY;
+            this.regionWidth = regionWidth;
+            this.regionHeight = regionHeight;
+            this.width = width;
+            this.height = height;
+            int hash = System.identityHashCode(image);
+            hash = 31 * hash + regionX;
+            hash = 31 * hash + regionY;
+            hash = 31 * hash + regionWidth;
+            hash = 31 * hash + regionHeight;
+            hash = 31 * hash + width;
+            this.hash = 31 * hash + height;
+        }
+
+        /**
+         * <p>Replaces the image with a weak reference to it, which is added
+         * to the {@code queue}, when the image is collected.</p>
+         */
+        void holdWeakly(ReferenceQueue<BufferedImage> queue)
+        {
+            this.reference = new ImageReference(this.image, this, queue);
+            this.image = null;
+        }
+
+        /**
+         * <p>Returns the image or {@code null} if it was collected.</p>
+         */
+        BufferedImage getImage()
+        {
+            return this.reference != null ? this.reference.get() : this.image;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if (!(other instanceof Key))
+            {
+                return false;
+            }
+            Key key = (Key)other;
+            BufferedImage image = this.getImage();
+            return image != null
+                && image == key.getImage()
+                && this.regionX == key.regionX
+                && this.regionY == key.regionY
+                && this.regionWidth == key.regionWidth
+                && this.regionHeight == key.regionHeight
+                && this.width == key.width
+                && this.height == key.height;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hash;
+        }
+
+    }
+
+    /**
+     * <p>A weak reference to the image of a stored key, which finds the key
+     * when the image is collected.</p>
+     */
+    private static final class ImageReference
+            extends WeakReference<BufferedImage>
+    {
+
+        final Key key;
+
+        ImageReference(BufferedImage image, Key key,
+                       ReferenceQueue<BufferedImage> queue)
+        {
+            super(image, queue);
+            this.key = key;
+        }
+
+    }
+
+    /**
+     * <p>Tells a cache about the images dropped by the {@code
+     * AssetManager}. Holds the cache weakly, and removes itself once the
+     * cache is collected.</p>
+     */
+    private static final class EvictionListener
+            implements Consumer<BufferedImage>
+    {
+
+        private final WeakReference<SpriteScaleCache> cache;
+
+        EvictionListener(SpriteScaleCache cache)
+        {
+            this.cache = new WeakReference<SpriteScaleCache>(cache);
+        }
+
+        @Override
+        public void accept(BufferedImage image)
+        {
+            SpriteScaleCache cache = this.cache.get();
+            if (cache == null)
+            {
+                AssetManager.shared.removeEvictionListener(this);
+                return;
+            }
+            cache.evictedImages.add(new WeakReference<BufferedImage>(image));
+        }
+
+    }
+
+}
@@ -0,0 +1,283 @@
+package archrn.tea_engine.rendering;
+
+import archrn.tea_engine.assets.AssetManager;
+import archrn.tea_engine.assets.Sprite;
+import archrn.tea_engine.geometry.Bounds;
+import archrn.tea_engine.geometry.Vector2;
+import archrn.tea_engine.geometry.Vector2Int;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>{@code StaticLayerCache} keeps the static {@code Renderer}s of each
+ * layer drawn into images, so a {@code Camera} copies a few images per
+ * layer every frame instead of drawing every static {@code Renderer}.</p>
+ * <p>The world is split into square chunks of {@code CHUNK_SIZE} pixels at
+ * the {@code Camera}'s scale. A chunk is drawn the first time it's seen,
+ * and kept while the static content of it's layer and the scale stay the
+ * same. Moving the {@code Camera} only changes where the chunks are copied
+ * to, and draws the chunks, which come into view. Chunks far from the view
+ * are dropped.</p>
+ * <p>All the chunks are dropped when a {@code Sprite} changes. A chunk with
+ * a {@code Renderer}, which is still loading, is drawn again every frame,
+ * until it's loaded.</p>
+ * <p>Only static {@code Renderer}s with world bounds are cached.</p>
+ * <p>It's used by the game loop, holding the frame lock.</p>
+ * @author Artem
+ * @see Renderer#setStatic(boolean)
+ */
+public final class StaticLayerCache
+{
+
+    /**
+     * <p>The width and height of a chunk in pixels.</p>
+     */
+    public static final int CHUNK_SIZE = 256;
+
+    /**
+     * <p>Chunks out of view kept per layer, so the ones, which were just
+     * left, don't have to be drawn again.</p>
+     */
+    private static final int MAX_HIDDEN_CHUNKS = 64;
+
+    private static final Color TRANSPARENT = new Color(0, 0, 0, 0);
+
+    private float worldToScreenCoefficient;
+    private long spriteChangeCount;
+    private final HashMap<Float, Layer> layers;
+    private long frame;
+
+    // Reused to draw the chunks.
+    private final RenderSnapshot chunkSnapshot;
+    private final RenderBackend backend;
+    private final Bounds chunkBounds;
+    private final Bounds rendererBounds;
+
+    /**
+     * <p>Initializes an empty {@code StaticLayerCache}.</p>
+     */
+    public StaticLayerCache()
+    {
+        this.layers = new HashMap<Float, Layer>();
+        this.chunkSnapshot = new RenderSnapshot();
+        this.backend = new Java2DRenderBackend();
+        this.chunkBounds = new Bounds();
+        this.rendererBounds = new Bounds();
+    }
+
+    /**
+     * <p>Returns {@code true} if the {@code renderer} is drawn by the
+     * cache, rather than on it's own.</p>
+     * @param renderer The {@code Renderer} to check.
+     * @param bounds The {@code Bounds} to write the {@code renderer}'s
+     *               world bounds to.
+     * @return {@code true} if the {@code renderer} is static and has world
+     * bounds.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public static boolean isCached(Renderer renderer, Bounds bounds)
+    {
+        return renderer.isStatic() && renderer.getWorldBounds(bounds);
+    }
+
+    /**
+     * <p>Starts a frame. Called before the layers are captured.</p>
+     * <p>Drops all the chunks, if the {@code worldToScreenCoefficient} has
+     * changed or a {@code Sprite} has changed since the last frame.</p>
+     * @param worldToScreenCoefficient The coefficient to convert world
+     *                                 units to screen units.
+     * @see Sprite#getChangeCount()
+     */
+    public void beginFrame(float worldToScreenCoefficient)
+    {
+        long spriteChangeCount = Sprite.getChangeCount();
+        if (worldToScreenCoefficient != this.worldToScreenCoefficient
+            || spriteChangeCount != this.spriteChangeCount)
+        {
+            this.layers.clear();
+            this.worldToScreenCoefficient = worldToScreenCoefficient;
+            this.spriteChangeCount = spriteChangeCount;
+        }
+        ++this.frame;
+    }
+
+    /**
+     * <p>Adds the chunks of the layer at the given {@code index}, which
+     * overlap {@code viewBounds}, to the {@code snapshot}, drawing the
+     * missing ones.</p>
+     * @param queue The {@code RenderQueue} of the {@code Scene}.
+     * @param index The index of the layer in the {@code queue}.
+     * @param viewBounds The part of the world in view.
+     * @param snapshot The {@code RenderSnapshot} to add the chunks to.
+     * @throws NullPointerException if any argument is {@code null}.
+     */
+    public void capture(RenderQueue queue, int index, Bounds viewBounds,
+                        RenderSnapshot snapshot)
+    {
+        Objects.requireNonNull(viewBounds);
+        Objects.requireNonNull(snapshot);
+        float layerValue = queue.getLayer(index);
+        Layer layer = this.layers.get(layerValue);
+        if (layer == null)
+        {
+            layer = new Layer();
+            this.layers.put(layerValue, layer);
+        }
+        long version = queue.getStaticVersion(index);
+        if (layer.version != version)
+        {
+            layer.chunks.clear();
+            layer.version = version;
+        }
+        layer.frame = this.frame;
+
+        float chunkWorldSize = CHUNK_SIZE / this.worldToScreenCoefficient;
+        int left = (int)Math.floor(viewBounds.left / chunkWorldSize);
+        int right = (int)Math.floor(viewBounds.right / chunkWorldSize);
+        int bot = (int)Math.floor(viewBounds.bot / chunkWorldSize);
+        int top = (int)Math.floor(viewBounds.top / chunkWorldSize);
+        for (int y = top; y >= bot; --y)
+        {
+            for (int x = left; x <= right; ++x)
+            {
+                Long key = (long)x << 32 | (y & 0xffffffffL);
+                float chunkLeft = x * chunkWorldSize;
+                float chunkTop = (y + 1) * chunkWorldSize;
+                Chunk chunk = layer.chunks.get(key);
+                if (chunk == null || chunk.loading)
+                {
+                    chunk = this.draw(queue, index, chunkLeft, chunkTop,
+                                      chunkWorldSize);
+                    layer.chunks.put(key, chunk);
+                }
+                chunk.frame = this.frame;
+                if (chunk.image != null)
+                {
+                    snapshot.addWorldImage(chunk.image,
+                                           new Vector2(chunkLeft, chunkTop),
+                                           layerValue);
+                }
+            }
+        }
+
+        int visible = (right - left + 1) * (top - bot + 1);
+        if (layer.chunks.size() > visible + MAX_HIDDEN_CHUNKS)
+        {
+            layer.chunks.values().removeIf(chunk -> chunk.frame != this.frame);
+        }
+    }
+
+    /**
+     * <p>Ends a frame. Drops the layers, which weren't captured in it.</p>
+     */
+    public void endFrame()
+    {
+        Iterator<Layer> iterator = this.layers.values().iterator();
+        while (iterator.hasNext())
+        {
+            if (iterator.next().frame != this.frame)
+            {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * <p>Drops all the chunks.</p>
+     */
+    public void clear()
+    {
+        this.layers.clear();
+    }
+
+    /**
+     * <p>Draws the static {@code Renderer}s of the layer, which overlap the
+     * chunk with the given top left corner, into a new image.</p>
+     * <p>The corner is placed at the pixel, which the world to screen
+     * conversion rounds it to, and the {@code Renderer}s relative to that
+     * pixel. So the chunk placed at the corner matches drawing the {@code
+     * Renderer}s directly, at any scale and {@code Camera} position.</p>
+     */
+    private Chunk draw(RenderQueue queue, int index, float left, float top,
+                       float chunkWorldSize)
+    {
+        float coefficient = this.worldToScreenCoefficient;
+        this.chunkBounds.set(left, top - chunkWorldSize, left + chunkWorldSize,
+                             top);
+        // A pixel wider, as a rounded position and size may reach a pixel
+        // past the rounded bounds.
+        this.chunkBounds.expand(1 / coefficient);
+        RenderSnapshot snapshot = this.chunkSnapshot;
+        snapshot.clear();
+        // An empty view at the world origin, shifted by the corner's pixel.
+        snapshot.setView(Vector2.zero(), Vector2.zero(), coefficient,
+                         new Vector2(-Math.round(left * coefficient),
+                                     -Math.round(-top * coefficient)),
+                         TRANSPARENT, new Vector2Int(CHUNK_SIZE, CHUNK_SIZE));
+
+        List<Renderer> renderers = queue.getRenderers(index);
+        boolean loading = false;
+        for (int i = 0; i < renderers.size(); ++i)
+        {
+            Renderer renderer = renderers.get(i);
+            if (renderer.getGameObject().isActive()
+                && isCached(renderer, this.rendererBounds)
+                && this.rendererBounds.overlaps(this.chunkBounds))
+            {
+                renderer.snapshot(snapshot);
+                loading |= renderer.isLoading();
+            }
+        }
+        if (snapshot.size() == 0)
+        {
+            return new Chunk(null, loading);
+        }
+
+        BufferedImage image = AssetManager.shared.createCompatibleImage(
+                CHUNK_SIZE, CHUNK_SIZE, Transparency.TRANSLUCENT);
+        Graphics2D graphics2D = image.createGraphics();
+        try
+        {
+            this.backend.render(snapshot, graphics2D, CHUNK_SIZE, CHUNK_SIZE);
+        }
+        finally
+        {
+            graphics2D.dispose();
+            snapshot.clear();
+        }
+        return new Chunk(image, loading);
+    }
+
+    private static final class Layer
+    {
+
+        final HashMap<Long, Chunk> chunks = new HashMap<Long, Chunk>();
+        long version;
+        long frame;
+
+    }
+
+    private static final class Chunk
+    {
+
+        // Null if the chunk is empty.
+        final BufferedImage image;
+
+        // True if a Renderer was still loading, so the chunk is drawn again.
+        final boolean loading;
+        long frame;
+
+        Chunk(BufferedImage image, boolean loading)
+        {
+            this.image = image;
+            this.loading = loading;
+        }
+
+    }
+
+}
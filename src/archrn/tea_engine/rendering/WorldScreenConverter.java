@@ -1,5 +1,6 @@
 package archrn.tea_engine.rendering;
 
+import archrn.tea_engine.Screen;
 import archrn.tea_engine.geometry.Vector2;
 import archrn.tea_engine.geometry.Vector2Int;
 
@@ -59,6 +60,17 @@ public interface WorldScreenConverter
      */
     public Vector2 screenToWorldScale(Vector2Int screenScale);
 
+    /**
+     * <p>Returns the size of the area drawn to in screen units. Screen
+     * positions relative to the center are relative to it's center.</p>
+     * <p>By default it's the size of the {@code Screen}.</p>
+     * @return The size of the drawing area.
+     */
+    public default Vector2Int getScreenSize()
+    {
+        return Screen.shared.getScreenSize().toVector2Int();
+    }
+
     /**
      * <p>Returns the top left position of a rectangle in world coordinates
      * with the given center {@code position} and {@code size}.</p>
@@ -2,6 +2,7 @@ package archrn.tea_engine.rendering.gui;
 
 import archrn.tea_engine.assets.Sprite;
 import archrn.tea_engine.rendering.Renderer;
+import archrn.tea_engine.rendering.RenderSnapshot;
 import archrn.tea_engine.rendering.RendererGraphics;
 
 import java.util.Objects;
@@ -31,6 +32,16 @@ public class ImageRenderer extends Renderer
         this.positionFromScreenCenter = positionFromScreenCenter;
     }
 
+    /**
+     * <p>Returns the {@code Sprite} rendered by this {@code
+     * ImageRenderer}.</p>
+     * @return The {@code Sprite} or {@code null}.
+     */
+    public Sprite getSprite()
+    {
+        return this.sprite;
+    }
+
     @Override
     protected void draw(RendererGraphics graphics)
     {
@@ -50,4 +61,18 @@ public class ImageRenderer extends Renderer
                 this.sprite, this.positionFromScreenCenter);
     }
 
+    /**
+     * <p>Adds the image to the {@code snapshot}.</p>
+     * @param snapshot The {@code RenderSnapshot} to add to.
+     */
+    @Override
+    protected void capture(RenderSnapshot snapshot)
+    {
+        if (this.sprite != null)
+        {
+            snapshot.addScreenSprite(this, this.sprite,
+                                     this.positionFromScreenCenter);
+        }
+    }
+
 }
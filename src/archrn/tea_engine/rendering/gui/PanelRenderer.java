@@ -2,6 +2,7 @@ package archrn.tea_engine.rendering.gui;
 
 import archrn.tea_engine.math.MathF;
 import archrn.tea_engine.rendering.Renderer;
+import archrn.tea_engine.rendering.RenderSnapshot;
 import archrn.tea_engine.rendering.RendererGraphics;
 
 import java.awt.*;
@@ -69,4 +70,14 @@ public class PanelRenderer extends Renderer
                 this.radius, this.positionFromScreenCenter);
     }
 
+    /**
+     * <p>Adds the panel to the {@code snapshot}.</p>
+     * @param snapshot The {@code RenderSnapshot} to add to.
+     */
+    @Override
+    protected void capture(RenderSnapshot snapshot)
+    {
+        snapshot.addPanel(this, this.radius, this.positionFromScreenCenter);
+    }
+
 }
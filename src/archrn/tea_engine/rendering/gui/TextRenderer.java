@@ -1,6 +1,7 @@
 package archrn.tea_engine.rendering.gui;
 
 import archrn.tea_engine.rendering.Renderer;
+import archrn.tea_engine.rendering.RenderSnapshot;
 import archrn.tea_engine.rendering.RendererGraphics;
 
 import java.awt.*;
@@ -165,4 +166,18 @@ public class TextRenderer extends Renderer
         }
     }
 
+    /**
+     * <p>Adds the text to the {@code snapshot}.</p>
+     * @param snapshot The {@code RenderSnapshot} to add to.
+     */
+    @Override
+    protected void capture(RenderSnapshot snapshot)
+    {
+        if (this.text != null)
+        {
+            snapshot.addText(this, this.text, this.font, this.center,
+                             this.positionFromScreenCenter);
+        }
+    }
+
 }
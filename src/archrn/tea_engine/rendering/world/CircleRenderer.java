@@ -1,6 +1,9 @@
 package archrn.tea_engine.rendering.world;
 
+import archrn.tea_engine.geometry.Bounds;
+import archrn.tea_engine.geometry.Vector2;
 import archrn.tea_engine.rendering.Renderer;
+import archrn.tea_engine.rendering.RenderSnapshot;
 import archrn.tea_engine.rendering.RendererGraphics;
 
 import java.awt.*;
@@ -46,4 +49,32 @@ public class CircleRenderer extends Renderer
         graphics.fillOval(this.getTransform());
     }
 
+    /**
+     * <p>Adds the circle to the {@code snapshot}.</p>
+     * @param snapshot The {@code RenderSnapshot} to add to.
+     */
+    @Override
+    protected void capture(RenderSnapshot snapshot)
+    {
+        snapshot.addOval(this);
+    }
+
+    /**
+     * <p>Writes the bounds of the circle, which are {@code
+     * Transform.position} and {@code Transform.scale}, to {@code
+     * bounds}.</p>
+     * @param bounds The {@code Bounds} to write to.
+     * @return {@code true}.
+     * @throws NullPointerException if {@code bounds} is {@code null}.
+     */
+    @Override
+    public boolean getWorldBounds(Bounds bounds)
+    {
+        Objects.requireNonNull(bounds);
+        Vector2 position = this.getTransform().getPositionAbsolute();
+        Vector2 size = this.getTransform().getScaleAbsolute();
+        bounds.setCenterSize(position.x, position.y, size.x, size.y);
+        return true;
+    }
+
 }
@@ -1,7 +1,10 @@
 package archrn.tea_engine.rendering.world;
 
 import archrn.tea_engine.assets.Sprite;
+import archrn.tea_engine.geometry.Bounds;
+import archrn.tea_engine.geometry.Vector2;
 import archrn.tea_engine.rendering.Renderer;
+import archrn.tea_engine.rendering.RenderSnapshot;
 import archrn.tea_engine.rendering.RendererGraphics;
 
 import java.awt.*;
@@ -80,6 +83,8 @@ public class SpriteRenderer extends Renderer
     public void setSprite(Sprite sprite)
     {
         this.sprite = sprite;
+        this.markStaticChanged();
+        this.holdSprites();
     }
 
     public boolean isTiled()
@@ -90,6 +95,7 @@ public class SpriteRenderer extends Renderer
     public void setTiled(boolean tiled)
     {
         this.tiled = tiled;
+        this.markStaticChanged();
     }
 
     /**
@@ -114,4 +120,52 @@ public class SpriteRenderer extends Renderer
         graphics.drawSprite(this.getTransform(), this.sprite, this.tiled);
     }
 
+    /**
+     * <p>Returns {@code true} if the {@code Sprite}'s image is being loaded
+     * in the background.</p>
+     * @return {@code true} if the {@code Sprite} is loading.
+     */
+    @Override
+    protected boolean isLoading()
+    {
+        return this.sprite != null && this.sprite.isLoading();
+    }
+
+    /**
+     * <p>Adds the sprite to the {@code snapshot}.</p>
+     * @param snapshot The {@code RenderSnapshot} to add to.
+     */
+    @Override
+    protected void capture(RenderSnapshot snapshot)
+    {
+        if (this.sprite != null)
+        {
+            snapshot.addSprite(this, this.sprite, this.tiled);
+        }
+    }
+
+    /**
+     * <p>Writes the bounds of the sprite, which are the {@code Sprite}'s
+     * size multiplied by {@code Transform.scale}, to {@code bounds}.</p>
+     * @param bounds The {@code Bounds} to write to.
+     * @return {@code true}.
+     * @throws NullPointerException if {@code bounds} is {@code null}.
+     */
+    @Override
+    public boolean getWorldBounds(Bounds bounds)
+    {
+        Objects.requireNonNull(bounds);
+        Vector2 position = this.getTransform().getPositionAbsolute();
+        if (this.sprite == null)
+        {
+            bounds.set(position.x, position.y, position.x, position.y);
+            return true;
+        }
+        Vector2 scale = this.getTransform().getScaleAbsolute();
+        Vector2 spriteSize = this.sprite.getSize();
+        bounds.setCenterSize(position.x, position.y,
+                             spriteSize.x * scale.x, spriteSize.y * scale.y);
+        return true;
+    }
+
 }